@@ -63,3 +63,13 @@ tasks.jar {
     from(sourceSets.main.get().resources)
     duplicatesStrategy = DuplicatesStrategy.EXCLUDE
 }
+
+// Benchmarks live in the test source set as plain main() classes.
+// Run with: ./gradlew :app:benchmark  (or -Pbenchmark=<class> for another one)
+tasks.register<JavaExec>("benchmark") {
+    group = "verification"
+    description = "Runs a benchmark main class from the test source set."
+    classpath = sourceSets.test.get().runtimeClasspath
+    mainClass.set(providers.gradleProperty("benchmark").orElse("com.pacman.MapLoaderBenchmark"))
+    jvmArgs("-Xmx2g")
+}
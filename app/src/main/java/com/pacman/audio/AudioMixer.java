@@ -0,0 +1,210 @@
+package com.pacman.audio;
+
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.SourceDataLine;
+import java.io.Closeable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Mixes a fixed pool of voices into one output on a dedicated thread.
+ *
+ * The game loop calls {@link #play(Sound)}, which only puts the effect in a single-producer /
+ * single-consumer ring; the mixer thread picks it up at the start of its next buffer, so a sound
+ * starts within one buffer (about 12 ms) and nothing is allocated per sound. When every voice is
+ * busy the one that has played longest is reused. Output goes to a {@link Sink}: the sound card
+ * when one is available, otherwise a null sink that discards it at the same pace. Tests can skip
+ * the thread and call {@link #mix(byte[])} directly.
+ */
+public final class AudioMixer implements Closeable {
+
+    /** Receives mixed 16-bit little-endian PCM; {@code write} blocks until the data is accepted. */
+    public interface Sink {
+        void write(byte[] pcm, int length);
+        default void close() { }
+    }
+
+    public static final int DEFAULT_VOICES = 8;
+    public static final int DEFAULT_FRAMES = 256;
+
+    private static final Sound[] SOUNDS = Sound.values();
+
+    private final SoundBank bank;
+    private final int frames;
+    private final int[] accumulator;
+    private final byte[] buffer;
+
+    // voice pool, touched by the mixing thread only
+    private final short[][] voicePcm;
+    private final int[] voicePos;
+
+    // play requests: game loop -> mixer
+    private final byte[] requests = new byte[64];
+    private final int mask = requests.length - 1;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    private volatile long played, stolen, dropped;
+    private volatile int activeVoices;
+    private volatile boolean running;
+    private Thread thread;
+    private Sink sink;
+
+    public AudioMixer(SoundBank bank, int voices, int framesPerBuffer) {
+        if (voices <= 0 || framesPerBuffer <= 0) throw new IllegalArgumentException("voices and frames must be > 0");
+        this.bank = bank;
+        this.frames = framesPerBuffer;
+        this.accumulator = new int[framesPerBuffer];
+        this.buffer = new byte[framesPerBuffer * 2];
+        this.voicePcm = new short[voices][];
+        this.voicePos = new int[voices];
+    }
+
+    /**
+     * Loads the sounds and starts mixing to the default audio device, or to a null sink if there
+     * is none or {@code -Dpacman.mute=true} is set.
+     */
+    public static AudioMixer open() {
+        AudioMixer mixer = new AudioMixer(SoundBank.load(), DEFAULT_VOICES, DEFAULT_FRAMES);
+        Sink sink = null;
+        if (!Boolean.getBoolean("pacman.mute")) {
+            try {
+                sink = lineSink(mixer.buffer.length * 3);
+            } catch (Exception e) {
+                System.err.println("Audio disabled: " + e.getMessage());
+            }
+        }
+        mixer.start(sink != null ? sink : nullSink(DEFAULT_FRAMES));
+        return mixer;
+    }
+
+    /** Sink that discards audio, taking as long as playing it would. */
+    public static Sink nullSink(int framesPerBuffer) {
+        long nanos = (long) (framesPerBuffer * 1e9 / SoundBank.FORMAT.getSampleRate());
+        return (pcm, length) -> LockSupport.parkNanos(nanos);
+    }
+
+    private static Sink lineSink(int bufferBytes) throws Exception {
+        SourceDataLine line = AudioSystem.getSourceDataLine(SoundBank.FORMAT);
+        line.open(SoundBank.FORMAT, bufferBytes);
+        line.start();
+        return new Sink() {
+            @Override public void write(byte[] pcm, int length) { line.write(pcm, 0, length); }
+            @Override public void close() { line.close(); }
+        };
+    }
+
+    /** Starts the mixer thread writing to {@code sink}. */
+    public synchronized void start(Sink sink) {
+        if (running) throw new IllegalStateException("already started");
+        this.sink = sink;
+        running = true;
+        thread = new Thread(() -> {
+            while (running) {
+                mix(buffer);
+                sink.write(buffer, buffer.length);
+            }
+        }, "audio-mixer");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MAX_PRIORITY);
+        thread.start();
+    }
+
+    /** Queues {@code sound}; call from one thread (the game loop). Returns false if the queue is full. */
+    public boolean play(Sound sound) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped++;
+            return false;
+        }
+        requests[(int) (t & mask)] = (byte) sound.ordinal();
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Starts the queued sounds and mixes the next buffer of {@code framesPerBuffer} frames into
+     * {@code out}; returns how many voices are still playing. Called by the mixer thread.
+     */
+    public int mix(byte[] out) {
+        startQueued();
+        Arrays.fill(accumulator, 0);
+        int active = 0;
+        for (int v = 0; v < voicePcm.length; v++) {
+            short[] pcm = voicePcm[v];
+            if (pcm == null) continue;
+            int pos = voicePos[v];
+            int n = Math.min(frames, pcm.length - pos);
+            for (int i = 0; i < n; i++) accumulator[i] += pcm[pos + i];
+            pos += n;
+            if (pos >= pcm.length) {
+                voicePcm[v] = null;
+            } else {
+                voicePos[v] = pos;
+                active++;
+            }
+        }
+        for (int i = 0; i < frames; i++) {
+            int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, accumulator[i]));
+            out[2 * i] = (byte) s;
+            out[2 * i + 1] = (byte) (s >> 8);
+        }
+        activeVoices = active;
+        return active;
+    }
+
+    public int framesPerBuffer() { return frames; }
+    public int voices() { return voicePcm.length; }
+    public int activeVoices() { return activeVoices; }
+    public long played() { return played; }
+    /** Sounds that cut off an older one because every voice was busy. */
+    public long stolen() { return stolen; }
+    /** Sounds lost because more than the queue size were requested between two buffers. */
+    public long dropped() { return dropped; }
+
+    @Override
+    public void close() {
+        Thread t;
+        synchronized (this) {
+            running = false;
+            t = thread;
+            thread = null;
+        }
+        if (t == null) return;
+        try {
+            t.join(1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.close();
+    }
+
+    private void startQueued() {
+        long h = head.get();
+        long t = tail.get();
+        while (h < t) {
+            start(SOUNDS[requests[(int) (h & mask)]]);
+            h++;
+        }
+        head.lazySet(h);
+    }
+
+    private void start(Sound sound) {
+        int voice = -1, oldest = -1;
+        for (int v = 0; v < voicePcm.length; v++) {
+            if (voicePcm[v] == null) {
+                voice = v;
+                break;
+            }
+            if (oldest < 0 || voicePos[v] > voicePos[oldest]) oldest = v;
+        }
+        if (voice < 0) {
+            voice = oldest;
+            stolen++;
+        }
+        voicePcm[voice] = bank.pcm(sound);
+        voicePos[voice] = 0;
+        played++;
+    }
+}
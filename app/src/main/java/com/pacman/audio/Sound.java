@@ -0,0 +1,24 @@
+package com.pacman.audio;
+
+import com.pacman.logic.GameEvents;
+
+/** Sound effects, each decoded once into a {@link SoundBank}. */
+public enum Sound {
+    MUNCH, POWER_PELLET, GHOST_EATEN, DEATH;
+
+    /** The effect for a gameplay event, or null if the event is silent. */
+    public static Sound forEvent(GameEvents.Type type) {
+        return switch (type) {
+            case PELLET_EATEN -> MUNCH;
+            case POWER_PELLET -> POWER_PELLET;
+            case GHOST_EATEN -> GHOST_EATEN;
+            case LIFE_LOST -> DEATH;
+            case LEVEL_CLEARED, STATE_CHANGED -> null;
+        };
+    }
+
+    /** Classpath resource looked up first, e.g. {@code /sounds/munch.wav}. */
+    String resource() {
+        return "/sounds/" + name().toLowerCase(java.util.Locale.ROOT) + ".wav";
+    }
+}
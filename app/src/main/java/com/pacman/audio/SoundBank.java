@@ -0,0 +1,89 @@
+package com.pacman.audio;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * All sound effects as 16-bit mono PCM in {@link #FORMAT}, decoded up front so playback is a
+ * plain array copy. Effects come from {@code /sounds/<name>.wav} on the classpath when present
+ * and are synthesized otherwise.
+ */
+public final class SoundBank {
+
+    public static final AudioFormat FORMAT = new AudioFormat(22_050f, 16, 1, true, false);
+    private static final int RATE = (int) FORMAT.getSampleRate();
+
+    private final short[][] samples = new short[Sound.values().length][];
+
+    private SoundBank() { }
+
+    /** Loads every effect, synthesizing the ones without a readable resource. */
+    public static SoundBank load() {
+        SoundBank bank = new SoundBank();
+        for (Sound s : Sound.values()) {
+            short[] pcm = null;
+            try (InputStream in = SoundBank.class.getResourceAsStream(s.resource())) {
+                if (in != null) pcm = decode(in);
+            } catch (Exception e) {
+                System.err.println("Failed to load sound " + s.resource() + ": " + e.getMessage());
+            }
+            bank.samples[s.ordinal()] = pcm != null ? pcm : synthesize(s);
+        }
+        return bank;
+    }
+
+    /** Bank with the given PCM for each effect, indexed by ordinal; for tests. */
+    public static SoundBank of(short[]... pcm) {
+        if (pcm.length != Sound.values().length) throw new IllegalArgumentException("one sample per sound");
+        SoundBank bank = new SoundBank();
+        for (int i = 0; i < pcm.length; i++) bank.samples[i] = pcm[i].clone();
+        return bank;
+    }
+
+    public short[] pcm(Sound sound) {
+        return samples[sound.ordinal()];
+    }
+
+    /** Decodes a sampled audio stream into {@link #FORMAT}. */
+    static short[] decode(InputStream in) throws IOException {
+        try (AudioInputStream source = AudioSystem.getAudioInputStream(new BufferedInputStream(in));
+             AudioInputStream pcm = AudioSystem.getAudioInputStream(FORMAT, source)) {
+            byte[] bytes = pcm.readAllBytes();
+            short[] out = new short[bytes.length / 2];
+            for (int i = 0; i < out.length; i++) {
+                out[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+            }
+            return out;
+        } catch (javax.sound.sampled.UnsupportedAudioFileException | IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private static short[] synthesize(Sound sound) {
+        return switch (sound) {
+            case MUNCH -> sweep(0.08, 480, 240, 0.35);
+            case POWER_PELLET -> sweep(0.30, 220, 880, 0.35);
+            case GHOST_EATEN -> sweep(0.25, 400, 1600, 0.4);
+            case DEATH -> sweep(1.2, 900, 90, 0.45);
+        };
+    }
+
+    /** Square wave gliding from {@code fromHz} to {@code toHz}, with a short fade out. */
+    private static short[] sweep(double seconds, double fromHz, double toHz, double volume) {
+        int n = (int) (seconds * RATE);
+        short[] out = new short[n];
+        double phase = 0;
+        int fade = Math.min(n, RATE / 100);
+        for (int i = 0; i < n; i++) {
+            double hz = fromHz + (toHz - fromHz) * i / n;
+            phase += hz / RATE;
+            double amp = volume * Short.MAX_VALUE * Math.min(1.0, (double) (n - i) / fade);
+            out[i] = (short) ((phase % 1.0) < 0.5 ? amp : -amp);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,168 @@
+package com.pacman.logic;
+
+import java.util.Arrays;
+
+/**
+ * Cooperative scheduler for AI decisions with a compute budget per tick.
+ *
+ * Jobs are submitted with a priority (lower runs first, ties in submission order) and run from
+ * {@link #runTick()} until the budget is used up; whatever is left spills over to the following
+ * ticks, still in priority order. A job is never interrupted, so at least one job runs each tick
+ * even if it alone exceeds the budget.
+ *
+ * The budget is a time per tick, a number of jobs per tick, or both; 0 lifts either limit. Only
+ * the job budget keeps the simulation independent of wall-clock time (replays, fast-forward): how
+ * many jobs fit in a time budget depends on GC pauses, JIT warm-up and machine load.
+ *
+ * Queueing and running never allocate. Single-threaded: call from the game loop only; the stats
+ * may be read from other threads and are then slightly stale.
+ */
+public final class AiScheduler {
+
+    /** A unit of AI work. Implementations are usually reused, one per entity. */
+    public interface Job {
+        void run();
+    }
+
+    private static final int SEQ_BITS = 40;
+    private static final long SEQ_MASK = (1L << SEQ_BITS) - 1;
+
+    private volatile long budgetNanos;
+    private volatile int budgetJobs;
+
+    // binary heap ordered by key = priority << SEQ_BITS | sequence
+    private Job[] jobs = new Job[16];
+    private long[] keys = new long[16];
+    private long[] submittedAt = new long[16];
+    private int size;
+    private long sequence;
+    private long tick;
+
+    private volatile long submitted, executed, deferredJobTicks, ticksOverBudget, maxWaitTicks;
+    private final Histogram tickNanos = new Histogram();
+
+    public AiScheduler(long budgetMicros) {
+        setBudgetMicros(budgetMicros);
+    }
+
+    /** A scheduler limited to {@code jobsPerTick} jobs per tick (0 = unlimited) and no time budget. */
+    public static AiScheduler withJobBudget(int jobsPerTick) {
+        AiScheduler scheduler = new AiScheduler(0);
+        scheduler.setBudgetJobs(jobsPerTick);
+        return scheduler;
+    }
+
+    public long budgetMicros() { return budgetNanos / 1_000; }
+
+    /** Compute allowed per tick; 0 means unlimited. */
+    public void setBudgetMicros(long micros) {
+        if (micros < 0) throw new IllegalArgumentException("budget must be >= 0");
+        this.budgetNanos = micros * 1_000;
+    }
+
+    public int budgetJobs() { return budgetJobs; }
+
+    /** Jobs allowed per tick; 0 means unlimited. */
+    public void setBudgetJobs(int jobs) {
+        if (jobs < 0) throw new IllegalArgumentException("job budget must be >= 0");
+        this.budgetJobs = jobs;
+    }
+
+    /** Queues a job; priority must be >= 0, smaller runs first. */
+    public void submit(Job job, int priority) {
+        if (priority < 0) throw new IllegalArgumentException("priority must be >= 0");
+        if (size == jobs.length) {
+            jobs = Arrays.copyOf(jobs, size * 2);
+            keys = Arrays.copyOf(keys, size * 2);
+            submittedAt = Arrays.copyOf(submittedAt, size * 2);
+        }
+        long key = ((long) priority << SEQ_BITS) | (sequence++ & SEQ_MASK);
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) break;
+            move(parent, i);
+            i = parent;
+        }
+        jobs[i] = job;
+        keys[i] = key;
+        submittedAt[i] = tick;
+        submitted++;
+    }
+
+    /** Runs queued jobs within the budget (at least one job); returns how many ran. */
+    public int runTick() {
+        long start = System.nanoTime();
+        long budget = budgetNanos;
+        int jobBudget = budgetJobs;
+        int ran = 0;
+        while (size > 0) {
+            if (jobBudget > 0 && ran >= jobBudget) break;
+            if (ran > 0 && budget > 0 && System.nanoTime() - start >= budget) break;
+            long wait = tick - submittedAt[0];
+            if (wait > maxWaitTicks) maxWaitTicks = wait;
+            Job job = removeFirst();
+            job.run();
+            ran++;
+        }
+        long spent = System.nanoTime() - start;
+        tickNanos.record(spent);
+        if (budget > 0 && spent > budget) ticksOverBudget++;
+        executed += ran;
+        deferredJobTicks += size;
+        tick++;
+        return ran;
+    }
+
+    /**
+     * Queue key of {@code job} (priority, then submission order; smaller runs first), or -1 if it
+     * is not queued. Saves use it to queue resumed jobs in the same order again.
+     */
+    public long queuedKey(Job job) {
+        for (int i = 0; i < size; i++) {
+            if (jobs[i] == job) return keys[i];
+        }
+        return -1;
+    }
+
+    public int pending() { return size; }
+    public long submitted() { return submitted; }
+    public long executed() { return executed; }
+    /** Sum over ticks of the jobs still queued when the tick's budget ran out. */
+    public long deferredJobTicks() { return deferredJobTicks; }
+    /** Ticks whose work took longer than the time budget (a single job was too expensive). */
+    public long ticksOverBudget() { return ticksOverBudget; }
+    /** Longest time a job waited before it ran, in ticks. */
+    public long maxWaitTicks() { return maxWaitTicks; }
+    /** Time spent running jobs per tick, in nanoseconds. */
+    public Histogram tickNanos() { return tickNanos; }
+
+    private Job removeFirst() {
+        Job first = jobs[0];
+        int last = --size;
+        Job lastJob = jobs[last];
+        long lastKey = keys[last], lastAt = submittedAt[last];
+        jobs[last] = null;
+        if (last > 0) {
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= last) break;
+                if (child + 1 < last && keys[child + 1] < keys[child]) child++;
+                if (keys[child] >= lastKey) break;
+                move(child, i);
+                i = child;
+            }
+            jobs[i] = lastJob;
+            keys[i] = lastKey;
+            submittedAt[i] = lastAt;
+        }
+        return first;
+    }
+
+    private void move(int from, int to) {
+        jobs[to] = jobs[from];
+        keys[to] = keys[from];
+        submittedAt[to] = submittedAt[from];
+    }
+}
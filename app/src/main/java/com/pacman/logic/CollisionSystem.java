@@ -9,14 +9,14 @@ public final class CollisionSystem {
     public static boolean checkCollisions(GameSession session,
                                           MovementSystem player,
                                           List<Ghost> ghosts) {
-        return checkCollisions(session, player, ghosts, null, null);
+        return checkCollisions(session, player, ghosts, null, null, null);
     }
 
     public static boolean checkCollisions(GameSession session,
                                           MovementSystem player,
                                           List<Ghost> ghosts,
                                           Score score) {
-        return checkCollisions(session, player, ghosts, score, null);
+        return checkCollisions(session, player, ghosts, score, null, null);
     }
 
     public static boolean checkCollisions(GameSession session,
@@ -24,6 +24,27 @@ public final class CollisionSystem {
                                           List<Ghost> ghosts,
                                           Score score,
                                           FrightenedTimer frightenedTimer) {
+        return checkCollisions(session, player, ghosts, score, frightenedTimer, null);
+    }
+
+    /**
+     * Publishes GHOST_EATEN (with its chain value) and LIFE_LOST to {@code events}; scoring and the
+     * frightened chain are then left to the event listeners instead of being updated here.
+     */
+    public static boolean checkCollisions(GameSession session,
+                                          MovementSystem player,
+                                          List<Ghost> ghosts,
+                                          FrightenedTimer frightenedTimer,
+                                          GameEvents events) {
+        return checkCollisions(session, player, ghosts, null, frightenedTimer, events);
+    }
+
+    private static boolean checkCollisions(GameSession session,
+                                           MovementSystem player,
+                                           List<Ghost> ghosts,
+                                           Score score,
+                                           FrightenedTimer frightenedTimer,
+                                           GameEvents events) {
         if (session.state() != GameSession.State.PLAYING) return false;
 
         int px = player.tileX();
@@ -33,15 +54,34 @@ public final class CollisionSystem {
             if (g.tileX() == px && g.tileY() == py) {
                 if (g.mode() == Ghost.Mode.FRIGHTENED) {
                     g.respawn(session.ghostSpawnTileX(), session.ghostSpawnTileY());
-                    if (score != null) {
-                        int add = frightenedTimer != null ? frightenedTimer.nextEatScore() : 200;
+                    int add = 0;
+                    if (events != null) {
+                        add = frightenedTimer != null ? frightenedTimer.nextEatScore() : 200;
+                        events.ghostEaten(px, py, add, frightenedTimer != null ? frightenedTimer.chain() : 0);
+                    } else if (score != null) {
+                        add = frightenedTimer != null ? frightenedTimer.nextEatScore() : 200;
                         score.add(add);
                         if (frightenedTimer != null) frightenedTimer.onGhostEaten();
                     }
+                    JfrEvents.GhostEaten event = new JfrEvents.GhostEaten();
+                    if (event.shouldCommit()) {
+                        event.tileX = px;
+                        event.tileY = py;
+                        event.points = add;
+                        event.commit();
+                    }
                     return true;
                 } else {
                     // Player hit a non-frightened ghost
                     session.loseLife();
+                    if (events != null) events.lifeLost(px, py, session.lives());
+                    JfrEvents.LifeLost event = new JfrEvents.LifeLost();
+                    if (event.shouldCommit()) {
+                        event.tileX = px;
+                        event.tileY = py;
+                        event.livesLeft = session.lives();
+                        event.commit();
+                    }
                     // **RESPAWN PLAYER at initial player spawn**
                     player.setToTileCenter(session.playerSpawnTileX(), session.playerSpawnTileY());
                     return true;
@@ -0,0 +1,45 @@
+package com.pacman.logic;
+
+/**
+ * Per-phase timers for the game loop and paint.
+ * Usage: {@code long t = profiler.start(); ...; profiler.stop(Phase.GHOSTS, t);}
+ * When disabled, start/stop only read a volatile flag: no clock reads and no allocation.
+ */
+public final class FrameProfiler {
+
+    public enum Phase { TICK, PLAYER, PICKUP, TIMERS, GHOSTS, COLLISION, WIN_CHECK, PAINT }
+
+    private static final Phase[] PHASES = Phase.values();
+
+    private final Histogram[] histograms = new Histogram[PHASES.length];
+    private volatile boolean enabled;
+
+    public FrameProfiler() {
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new Histogram();
+    }
+
+    public boolean enabled() { return enabled; }
+
+    /** Turning the profiler on clears previously collected samples. */
+    public void setEnabled(boolean on) {
+        if (on && !enabled) {
+            for (Histogram h : histograms) h.reset();
+        }
+        enabled = on;
+    }
+
+    /** Returns a start timestamp, or 0 when disabled. */
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stop(Phase phase, long startNanos) {
+        if (startNanos != 0L && enabled) {
+            histograms[phase.ordinal()].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    public Histogram histogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+}
@@ -2,38 +2,56 @@ package com.pacman.logic;
 
 import java.util.List;
 
+/**
+ * Frightened mode for all ghosts, ended by a single timer on a {@link TimerWheel}.
+ *
+ * With {@link ModeWaves} the current wave is paused while the ghosts are frightened and they go
+ * back to its mode afterwards; without, they go back to scatter.
+ */
 public class FrightenedTimer {
     private final List<Ghost> ghosts;
-    private double remaining;
+    private final TimerWheel timers;
+    private final boolean ownTimers;
+    private final ModeWaves waves;
+    private final TimerWheel.Timer expiry = new TimerWheel.Timer(this::expire);
     private int chain;
 
+    /** Standalone timer, advanced by {@link #tick(GameClock)}. */
     public FrightenedTimer(List<Ghost> ghosts) {
+        this(ghosts, new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS), null, true);
+    }
+
+    /** Timer on a shared wheel; {@code waves} may be null. */
+    public FrightenedTimer(List<Ghost> ghosts, TimerWheel timers, ModeWaves waves) {
+        this(ghosts, timers, waves, false);
+    }
+
+    private FrightenedTimer(List<Ghost> ghosts, TimerWheel timers, ModeWaves waves, boolean ownTimers) {
         this.ghosts = ghosts;
+        this.timers = timers;
+        this.waves = waves;
+        this.ownTimers = ownTimers;
     }
 
     public void start(double seconds) {
         if (seconds <= 0) return;
-        remaining = seconds;
+        timers.schedule(expiry, seconds);
         chain = 0;
+        if (waves != null) waves.pause();
         for (Ghost g : ghosts) g.setMode(Ghost.Mode.FRIGHTENED);
     }
 
+    /** Advances the timer's own wheel; a shared wheel is advanced by its owner instead. */
     public void tick(GameClock clock) {
-        if (remaining <= 0) return;
-        remaining -= clock.deltaSeconds();
-        if (remaining <= 0) {
-            remaining = 0;
-            chain = 0;
-            for (Ghost g : ghosts) g.setMode(Ghost.Mode.SCATTER);
-        }
+        if (ownTimers) timers.advance(clock);
     }
 
     public boolean active() {
-        return remaining > 0;
+        return expiry.isPending();
     }
 
     public double secondsLeft() {
-        return Math.max(0.0, remaining);
+        return timers.remainingSeconds(expiry);
     }
 
     public int nextEatScore() {
@@ -45,13 +63,35 @@ public class FrightenedTimer {
         };
     }
 
+    /** Ghosts eaten since the power pellet. */
+    public int chain() {
+        return chain;
+    }
+
     public void onGhostEaten() {
-        if (remaining > 0) chain++;
+        if (active()) chain++;
     }
 
     public void cancel() {
-        remaining = 0;
+        timers.cancel(expiry);
+        expire();
+    }
+
+    long remainingTicks() {
+        return timers.remainingTicks(expiry);
+    }
+
+    /** Resumes a saved frightened period; ghost modes are restored separately. */
+    void restore(long remainingTicks, int chain) {
+        if (remainingTicks > 0) timers.scheduleTicks(expiry, remainingTicks);
+        else timers.cancel(expiry);
+        this.chain = chain;
+    }
+
+    private void expire() {
         chain = 0;
-        for (Ghost g : ghosts) g.setMode(Ghost.Mode.SCATTER);
+        if (waves != null) waves.resume();
+        Ghost.Mode mode = waves != null ? waves.mode() : Ghost.Mode.SCATTER;
+        for (Ghost g : ghosts) g.setMode(mode);
     }
 }
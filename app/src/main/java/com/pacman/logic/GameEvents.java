@@ -0,0 +1,170 @@
+package com.pacman.logic;
+
+import java.util.Arrays;
+
+/**
+ * Gameplay event bus. Systems publish into a ring of preallocated, mutable event slots during the
+ * tick; {@link #dispatch()} hands them to the listeners in publish order at the end of the tick.
+ *
+ * Publishing and dispatching never allocate once the ring is large enough for a tick's events
+ * (it doubles if it ever runs out). A slot is reused after dispatch, so listeners must copy what
+ * they want to keep. Events published by a listener are delivered in the same dispatch.
+ * Single-threaded: call from the game loop only.
+ */
+public final class GameEvents {
+
+    public enum Type { PELLET_EATEN, POWER_PELLET, GHOST_EATEN, LIFE_LOST, LEVEL_CLEARED, STATE_CHANGED }
+
+    /** Receives events during {@link #dispatch()}. */
+    @FunctionalInterface
+    public interface Listener {
+        void onEvent(Event event);
+    }
+
+    /** One slot of the ring; fields not used by an event type are 0 or null. */
+    public static final class Event {
+        private Type type;
+        private long tick;
+        private int tileX, tileY, points, chain, lives;
+        private GameSession.State from, to;
+
+        public Type type() { return type; }
+        /** Number of the tick (dispatch) the event was published in. */
+        public long tick() { return tick; }
+        public int tileX() { return tileX; }
+        public int tileY() { return tileY; }
+        /** Points awarded: pellets, power pellets and eaten ghosts. */
+        public int points() { return points; }
+        /** Ghosts already eaten in this frightened period before this one. */
+        public int chain() { return chain; }
+        /** Lives left, for LIFE_LOST and STATE_CHANGED. */
+        public int lives() { return lives; }
+        public GameSession.State from() { return from; }
+        public GameSession.State to() { return to; }
+
+        @Override
+        public String toString() {
+            return type + "@" + tick + "(" + tileX + "," + tileY + ") points=" + points
+                    + " chain=" + chain + " lives=" + lives + " " + from + "->" + to;
+        }
+    }
+
+    private static final Type[] TYPES = Type.values();
+
+    private Event[] ring;
+    private int mask;
+    private long head, tail;
+    private long tick;
+    private Listener[] listeners = new Listener[4];
+    private int[] listenerTypes = new int[4]; // bit per Type ordinal
+    private int listenerCount;
+    private long published, grown;
+
+    public GameEvents(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        ring = new Event[capacity];
+        for (int i = 0; i < capacity; i++) ring[i] = new Event();
+        mask = capacity - 1;
+    }
+
+    /** Subscribes to the given types, or to every type if none are given. */
+    public void subscribe(Listener listener, Type... types) {
+        int bits = 0;
+        for (Type t : types) bits |= 1 << t.ordinal();
+        if (types.length == 0) bits = (1 << TYPES.length) - 1;
+        if (listenerCount == listeners.length) {
+            listeners = Arrays.copyOf(listeners, listenerCount * 2);
+            listenerTypes = Arrays.copyOf(listenerTypes, listenerCount * 2);
+        }
+        listeners[listenerCount] = listener;
+        listenerTypes[listenerCount] = bits;
+        listenerCount++;
+    }
+
+    public void pelletEaten(int tileX, int tileY, int points) {
+        Event e = next(Type.PELLET_EATEN);
+        e.tileX = tileX;
+        e.tileY = tileY;
+        e.points = points;
+    }
+
+    public void powerPellet(int tileX, int tileY, int points) {
+        Event e = next(Type.POWER_PELLET);
+        e.tileX = tileX;
+        e.tileY = tileY;
+        e.points = points;
+    }
+
+    public void ghostEaten(int tileX, int tileY, int points, int chain) {
+        Event e = next(Type.GHOST_EATEN);
+        e.tileX = tileX;
+        e.tileY = tileY;
+        e.points = points;
+        e.chain = chain;
+    }
+
+    public void lifeLost(int tileX, int tileY, int livesLeft) {
+        Event e = next(Type.LIFE_LOST);
+        e.tileX = tileX;
+        e.tileY = tileY;
+        e.lives = livesLeft;
+    }
+
+    public void levelCleared() {
+        next(Type.LEVEL_CLEARED);
+    }
+
+    public void stateChanged(GameSession.State from, GameSession.State to, int lives) {
+        Event e = next(Type.STATE_CHANGED);
+        e.from = from;
+        e.to = to;
+        e.lives = lives;
+    }
+
+    /** Delivers everything published since the last call, then starts the next tick; returns the count. */
+    public int dispatch() {
+        int n = 0;
+        while (head < tail) {
+            Event e = ring[(int) (head & mask)];
+            int bit = 1 << e.type.ordinal();
+            for (int i = 0; i < listenerCount; i++) {
+                if ((listenerTypes[i] & bit) != 0) listeners[i].onEvent(e);
+            }
+            head++;
+            n++;
+        }
+        tick++;
+        return n;
+    }
+
+    public int pending() { return (int) (tail - head); }
+    public long published() { return published; }
+    /** How often the ring had to be enlarged; stays 0 when the capacity fits a tick. */
+    public long grown() { return grown; }
+
+    private Event next(Type type) {
+        if (tail - head > mask) grow();
+        Event e = ring[(int) (tail & mask)];
+        e.type = type;
+        e.tick = tick;
+        e.tileX = e.tileY = e.points = e.chain = e.lives = 0;
+        e.from = e.to = null;
+        tail++;
+        published++;
+        return e;
+    }
+
+    private void grow() {
+        int size = ring.length;
+        Event[] bigger = new Event[size * 2];
+        for (int i = 0; i < size; i++) bigger[i] = ring[(int) ((head + i) & mask)];
+        for (int i = size; i < bigger.length; i++) bigger[i] = new Event();
+        ring = bigger;
+        mask = bigger.length - 1;
+        tail = tail - head;
+        head = 0;
+        grown++;
+    }
+}
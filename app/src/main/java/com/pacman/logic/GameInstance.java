@@ -0,0 +1,173 @@
+package com.pacman.logic;
+
+import com.pacman.model.Direction;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.Map;
+import com.pacman.model.Score;
+import com.pacman.model.SharedLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One complete game without a window: session, player, four ghosts, timers and score, advanced
+ * one fixed step at a time by whoever owns it. Plays by the same rules as the game panel, minus
+ * sound, high scores and saves.
+ *
+ * Not thread-safe; an instance and the {@link JunctionGraph} it routes on belong to one thread.
+ * Many instances can share one graph and one {@link SharedLayout}.
+ */
+public final class GameInstance {
+
+    public static final double STEP_SECONDS = TimerWheel.DEFAULT_TICK_SECONDS;
+    public static final int GHOSTS = 4;
+    private static final GameClock STEP = () -> STEP_SECONDS;
+    private static final int[] NO_TILES = new int[0];
+    private static final byte[] NO_VALUES = new byte[0];
+
+    private final Map map;
+    private final GameSession session;
+    private final MovementSystem player;
+    private final List<Ghost> ghosts = new ArrayList<>(GHOSTS);
+    private final TimerWheel timers = new TimerWheel(STEP_SECONDS);
+    private final ModeWaves waves;
+    private final FrightenedTimer frightened;
+    private final GameEvents events = new GameEvents(16);
+    private final Score score = new Score();
+    private final int ghostX, ghostY;
+    private long ticks;
+    private AiScheduler scheduler;
+
+    /** A game whose ghosts are seeded with 0; see {@link #GameInstance(SharedLayout, JunctionGraph, long)}. */
+    public GameInstance(SharedLayout layout, JunctionGraph graph) {
+        this(layout, graph, 0);
+    }
+
+    /**
+     * @param graph junctions of the same layout, built on {@code layout} or any map of it
+     * @param seed  ghost choices follow from it, so the same seed and inputs replay the same game
+     */
+    public GameInstance(SharedLayout layout, JunctionGraph graph, long seed) {
+        this.map = layout.newMap(16);
+        this.ghostX = layout.ghostX();
+        this.ghostY = layout.ghostY();
+        session = new GameSession(map, ghostX, ghostY, layout.playerX(), layout.playerY());
+        session.useEvents(events);
+        player = new MovementSystem(map, 8.0);
+        player.setPosition(layout.playerX(), layout.playerY());
+        for (int i = 0; i < GHOSTS; i++) {
+            Ghost g = new Ghost(map, graph, 6.0, ghostX + i, ghostY);
+            g.seed(seed, i);
+            g.useTimers(timers);
+            ghosts.add(g);
+        }
+        waves = new ModeWaves(ghosts, timers);
+        waves.restart();
+        frightened = new FrightenedTimer(ghosts, timers, waves);
+        events.subscribe(this::onGameEvent);
+    }
+
+    /**
+     * Routes chase decisions through {@code scheduler}, run once per step after the ghosts move,
+     * as the game panel does. Give it a job budget, not a time budget, to keep games reproducible.
+     */
+    public void useScheduler(AiScheduler scheduler) {
+        this.scheduler = scheduler;
+        for (Ghost g : ghosts) g.useScheduler(scheduler);
+    }
+
+    /** Applies a command before the next step, as the game panel does with key presses. */
+    public void input(InputCommand command) {
+        switch (command) {
+            case START -> session.start();
+            case MOVE_UP -> player.request(Direction.UP);
+            case MOVE_DOWN -> player.request(Direction.DOWN);
+            case MOVE_LEFT -> player.request(Direction.LEFT);
+            case MOVE_RIGHT -> player.request(Direction.RIGHT);
+            case RESTART -> {
+                if (session.state() == GameSession.State.GAME_OVER || session.state() == GameSession.State.WIN) {
+                    session.restart();
+                    resetPositions();
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts a new game straight away (PLAYING, 3 lives, full level, score 0) without publishing
+     * events. Ghost choices follow from {@code seed}, so the same seed and inputs replay the same game.
+     */
+    public void reset(long seed) {
+        session.restore(GameSession.State.PLAYING, 3, 0, NO_TILES, NO_VALUES);
+        score.reset();
+        timers.setCarry(0);
+        frightened.restore(0, 0);
+        player.setPosition(session.playerSpawnTileX(), session.playerSpawnTileY());
+        for (int i = 0; i < ghosts.size(); i++) {
+            Ghost g = ghosts.get(i);
+            g.setPosition(ghostX + i, ghostY);
+            g.restore(Ghost.Mode.SCATTER, 0, 0, 0, Ghost.rngSeed(seed, i));
+        }
+        waves.restart();
+        ticks = 0;
+    }
+
+    /** Advances the game by {@link #STEP_SECONDS}; nothing moves outside PLAYING. */
+    public void tick() {
+        if (session.state() == GameSession.State.PLAYING) {
+            player.tick(STEP);
+            PlayerPickupSystem.eatAt(map, player.tileX(), player.tileY(), events);
+            timers.advance(STEP);
+            for (Ghost g : ghosts) {
+                g.updateTarget(player.tileX(), player.tileY());
+                g.tick(STEP);
+            }
+            if (scheduler != null) scheduler.runTick();
+            CollisionSystem.checkCollisions(session, player, ghosts, frightened, events);
+            if (map.countPellets() == 0) {
+                session.win();
+                events.levelCleared();
+            }
+        }
+        events.dispatch();
+        ticks++;
+    }
+
+    public Map map() { return map; }
+    public GameSession session() { return session; }
+    public MovementSystem player() { return player; }
+    public List<Ghost> ghosts() { return ghosts; }
+    public int score() { return score.value(); }
+    public long ticks() { return ticks; }
+
+    private void onGameEvent(GameEvents.Event event) {
+        switch (event.type()) {
+            case PELLET_EATEN -> score.add(event.points());
+            case POWER_PELLET -> {
+                score.add(event.points());
+                frightened.start(7.0);
+            }
+            case GHOST_EATEN -> {
+                score.add(event.points());
+                frightened.onGhostEaten();
+            }
+            case LIFE_LOST -> {
+                if (session.state() == GameSession.State.PLAYING) {
+                    resetPositions();
+                    frightened.cancel();
+                }
+            }
+            case LEVEL_CLEARED -> resetPositions();
+            case STATE_CHANGED -> {
+                if (event.to() == GameSession.State.PLAYING) score.reset();
+            }
+        }
+    }
+
+    private void resetPositions() {
+        player.setToTileCenter(session.playerSpawnTileX(), session.playerSpawnTileY());
+        for (int i = 0; i < ghosts.size(); i++) ghosts.get(i).setPosition(ghostX + i, ghostY);
+        for (Ghost g : ghosts) g.setMode(Ghost.Mode.SCATTER);
+        waves.restart();
+    }
+}
@@ -1,18 +1,37 @@
 package com.pacman.logic;
 
 import com.pacman.model.Map;
+import com.pacman.model.MapWatcher;
 import com.pacman.model.TileType;
 
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
 public class GameSession {
 
     public enum State { MENU, PLAYING, GAME_OVER, WIN }
 
-    private final TileType[][] levelSnapshot;
+    private static final TileType[] TILES = TileType.values();
+
     private final int ghostSpawnX, ghostSpawnY;
     private final int playerSpawnX, playerSpawnY;
     private Map currentMap;
     private State state = State.MENU;
     private int lives = 0;
+    private GameEvents events;
+
+    // Tiles changed since the level was last restored (eaten pellets, edits) with the level's
+    // tile there, so restoring and saving only touch those and a session never copies the map.
+    // Indices are row * cols + col as longs, since chunked maps can exceed an int of tiles.
+    private long[] dirty = new long[16];
+    private byte[] levelTile = new byte[16];
+    private int dirtyCount;
+    // open-addressing index -> position in dirty, keys stored as index + 1 (0 = empty)
+    private long[] slotKey = new long[32];
+    private int[] slotPos = new int[32];
+    private boolean restoring;
+    private int levelChecksum;
+    private boolean checksumValid;
 
     public GameSession(Map initialMap, int ghostSpawnX, int ghostSpawnY, int playerSpawnX, int playerSpawnY) {
         this.currentMap = initialMap;
@@ -20,21 +39,21 @@ public class GameSession {
         this.ghostSpawnY = ghostSpawnY;
         this.playerSpawnX = playerSpawnX;
         this.playerSpawnY = playerSpawnY;
-        this.levelSnapshot = deepCopy(initialMap);
+        initialMap.addTileListener((row, col, before, after) -> markDirty((long) row * initialMap.cols() + col, before));
     }
 
     public void start() {
         if (state == State.MENU) {
             lives = 3;
             restoreLevel();
-            state = State.PLAYING;
+            setState(State.PLAYING);
         }
     }
 
     public void win() {
-      lives = 3;
       restoreLevel();
-      state = State.WIN;
+      setState(State.WIN); // reports the lives the level was cleared with
+      lives = 3;
     }
 
     public void loseLife() {
@@ -42,7 +61,7 @@ public class GameSession {
         lives--;
         if (lives <= 0) {
             lives = 0;
-            state = State.GAME_OVER;
+            setState(State.GAME_OVER);
         } else {
             restoreLevel();
         }
@@ -52,10 +71,15 @@ public class GameSession {
         if (state == State.GAME_OVER) {
             lives = 3;
             restoreLevel();
-            state = State.PLAYING;
+            setState(State.PLAYING);
         }
     }
 
+    /** Publishes STATE_CHANGED to {@code events} on every transition. */
+    public void useEvents(GameEvents events) {
+        this.events = events;
+    }
+
     public State state() { return state; }
     public int lives() { return lives; }
     public Map map() { return currentMap; }
@@ -68,21 +92,153 @@ public class GameSession {
     public int playerSpawnTileX() { return playerSpawnX; }
     public int playerSpawnTileY() { return playerSpawnY; }
 
+    /**
+     * Applies an edited layout on the game thread: the changed tiles go into the live map and become
+     * the level's tiles, so the next {@link #restoreLevel} rebuilds the new layout.
+     */
+    public void applyPatch(MapWatcher.Patch patch) {
+        int cols = currentMap.cols();
+        for (int i = 0; i < patch.size(); i++) {
+            int r = patch.row(i), c = patch.col(i);
+            TileType t = patch.tile(i);
+            int pos = find((long) r * cols + c);
+            if (pos >= 0) levelTile[pos] = (byte) t.ordinal();
+            restoring = true;
+            try {
+                currentMap.setTile(r, c, t);
+            } finally {
+                restoring = false;
+            }
+        }
+        checksumValid = false;
+    }
+
+    // --- Save / resume (see SaveGame) ---
+
+    /**
+     * CRC32C of the level layout, so a save is only resumed on the map it was made on. Worked out
+     * on first use by reading the map row by row with the changed tiles put back.
+     */
+    int levelChecksum() {
+        if (!checksumValid) {
+            levelChecksum = checksum();
+            checksumValid = true;
+        }
+        return levelChecksum;
+    }
+
+    /** Upper bound on the tiles {@link #changedTiles} can report. */
+    int dirtyCount() { return dirtyCount; }
+
+    /**
+     * Writes the tiles that differ from the level layout; arrays must hold {@link #dirtyCount()}.
+     * Indices are ints, so only maps of at most {@code Integer.MAX_VALUE} tiles can be saved.
+     */
+    int changedTiles(int[] indices, byte[] tiles) {
+        int cols = currentMap.cols();
+        int n = 0;
+        for (int i = 0; i < dirtyCount; i++) {
+            long index = dirty[i];
+            byte now = (byte) currentMap.getTile((int) (index / cols), (int) (index % cols)).ordinal();
+            if (now == levelTile[i]) continue;
+            indices[n] = Math.toIntExact(index);
+            tiles[n] = now;
+            n++;
+        }
+        return n;
+    }
+
+    /** Rebuilds the level with the saved changes and takes over state and lives without publishing a change. */
+    void restore(State state, int lives, int changed, int[] indices, byte[] tiles) {
+        restoreLevel();
+        int cols = currentMap.cols();
+        for (int i = 0; i < changed; i++) {
+            currentMap.setTile(indices[i] / cols, indices[i] % cols, TILES[tiles[i]]);
+        }
+        this.state = state;
+        this.lives = lives;
+    }
+
+    private void setState(State next) {
+        JfrEvents.StateChanged event = new JfrEvents.StateChanged();
+        if (event.shouldCommit()) {
+            event.from = state.name();
+            event.to = next.name();
+            event.lives = lives;
+            event.commit();
+        }
+        if (events != null) events.stateChanged(state, next, lives);
+        state = next;
+    }
+
     private void restoreLevel() {
-        for (int r = 0; r < currentMap.rows(); r++) {
-            for (int c = 0; c < currentMap.cols(); c++) {
-                currentMap.setTile(r, c, levelSnapshot[r][c]);
+        int cols = currentMap.cols();
+        restoring = true;
+        try {
+            for (int i = 0; i < dirtyCount; i++) {
+                currentMap.setTile((int) (dirty[i] / cols), (int) (dirty[i] % cols), TILES[levelTile[i]]);
             }
+        } finally {
+            restoring = false;
         }
+        Arrays.fill(slotKey, 0L);
+        dirtyCount = 0;
     }
 
-    private static TileType[][] deepCopy(Map map) {
-        TileType[][] copy = new TileType[map.rows()][map.cols()];
-        for (int r = 0; r < map.rows(); r++) {
-            for (int c = 0; c < map.cols(); c++) {
-                copy[r][c] = map.getTile(r, c);
+    private void markDirty(long index, TileType level) {
+        if (restoring || find(index) >= 0) return;
+        if (dirtyCount == dirty.length) {
+            dirty = Arrays.copyOf(dirty, dirtyCount * 2);
+            levelTile = Arrays.copyOf(levelTile, dirtyCount * 2);
+        }
+        if (2 * (dirtyCount + 1) > slotKey.length) {
+            slotKey = new long[slotKey.length * 2];
+            slotPos = new int[slotKey.length];
+            for (int i = 0; i < dirtyCount; i++) insert(dirty[i], i);
+        }
+        dirty[dirtyCount] = index;
+        levelTile[dirtyCount] = (byte) level.ordinal();
+        insert(index, dirtyCount++);
+    }
+
+    /** Position of {@code index} in the dirty list, or -1. */
+    private int find(long index) {
+        int mask = slotKey.length - 1;
+        for (int s = slot(index, mask); slotKey[s] != 0; s = (s + 1) & mask) {
+            if (slotKey[s] == index + 1) return slotPos[s];
+        }
+        return -1;
+    }
+
+    private void insert(long index, int pos) {
+        int mask = slotKey.length - 1;
+        int s = slot(index, mask);
+        while (slotKey[s] != 0) s = (s + 1) & mask;
+        slotKey[s] = index + 1;
+        slotPos[s] = pos;
+    }
+
+    private static int slot(long index, int mask) {
+        return (int) ((index * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    private int checksum() {
+        // changed tiles in index order, packed as index << 3 | level tile, to patch each row
+        long[] changes = new long[dirtyCount];
+        for (int i = 0; i < dirtyCount; i++) changes[i] = dirty[i] << 3 | levelTile[i];
+        Arrays.sort(changes);
+        int cols = currentMap.cols();
+        byte[] row = new byte[cols];
+        CRC32C crc = new CRC32C();
+        int next = 0;
+        for (int r = 0; r < currentMap.rows(); r++) {
+            for (int c = 0; c < cols; c++) row[c] = (byte) currentMap.getTile(r, c).ordinal();
+            long rowEnd = (long) (r + 1) * cols;
+            for (; next < changes.length && (changes[next] >>> 3) < rowEnd; next++) {
+                row[(int) ((changes[next] >>> 3) % cols)] = (byte) (changes[next] & 7);
             }
+            crc.update(row);
         }
-        return copy;
+        return (int) crc.getValue();
     }
 }
@@ -1,24 +1,31 @@
 package com.pacman.logic;
 
 import com.pacman.model.Direction;
+import com.pacman.model.JunctionGraph;
 import com.pacman.model.Map;
 
 import java.util.EnumSet;
-import java.util.Random;
 
 /**
  * Ghost logic for movement and basic movement modes.
  * Works with MovementSystem and Map to obey walls.
+ *
+ * Choices are made once per tile, for the tile the ghost is about to enter: corridors are just
+ * followed, and only junctions (from the shared {@link JunctionGraph}) cost a real decision.
  */
 public class Ghost {
 
+    private static final Direction[] DIRS = {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+
     public enum Mode {
         CHASE, SCATTER, FRIGHTENED
     }
 
     private final MovementSystem movement;
     private final Map map;
-    private final Random rng = new Random();
+    private final JunctionGraph graph;
+    // SplitMix64 state, so the random walk can be saved and resumed exactly
+    private long rngState = System.nanoTime();
     private Mode mode = Mode.SCATTER;
 
     // Target position (used in chase or scatter)
@@ -27,10 +34,30 @@ public class Ghost {
 
     private final int initialX;
     private final int initialY;
-    private double respawnDelay = 0.0; // seconds waiting before moving
+
+    // Held in place after a respawn until the release timer fires; a ghost on its own advances
+    // a private wheel, ghosts in a game share the game's wheel
+    private static final double RESPAWN_SECONDS = 5.0;
+    private TimerWheel timers = new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS);
+    private boolean ownTimers = true;
+    private final TimerWheel.Timer release = new TimerWheel.Timer(() -> { });
+
+    // Tile the last choice was made from (-1 = none yet), and how many real choices were made
+    private int decidedAt = -1;
+    private long decisions;
+
+    // Optional time-sliced routing; until the job has run the previous request stays in effect
+    private AiScheduler scheduler;
+    private final RouteJob routeJob = new RouteJob();
 
     public Ghost(Map map, double speedTilesPerSec, int spawnX, int spawnY) {
+        this(map, new JunctionGraph(map), speedTilesPerSec, spawnX, spawnY);
+    }
+
+    /** Ghost sharing a junction graph of {@code map} with the other ghosts. */
+    public Ghost(Map map, JunctionGraph graph, double speedTilesPerSec, int spawnX, int spawnY) {
         this.map = map;
+        this.graph = graph;
         this.movement = new MovementSystem(map, speedTilesPerSec);
         this.initialX = spawnX;
         this.initialY = spawnY;
@@ -41,6 +68,7 @@ public class Ghost {
 
     public void setPosition(int tileX, int tileY) {
         movement.setPosition(tileX, tileY);
+        decidedAt = -1;
     }
 
     public void setDirection(Direction dir) {
@@ -53,7 +81,7 @@ public class Ghost {
     }
 
     public Direction currentDirection() {
-        return movementDirection();
+        return movement.direction();
     }
 
     public int tileX() {
@@ -64,6 +92,14 @@ public class Ghost {
         return movement.tileY();
     }
 
+    public double exactX() {
+        return movement.exactX();
+    }
+
+    public double exactY() {
+        return movement.exactY();
+    }
+
     public void setMode(Mode mode) {
         this.mode = mode;
     }
@@ -72,6 +108,25 @@ public class Ghost {
         return mode;
     }
 
+    /** Routes chase decisions through {@code scheduler} instead of computing them on the spot. */
+    public void useScheduler(AiScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /** Takes respawn delays from {@code timers}, which the caller advances once per tick. */
+    public void useTimers(TimerWheel timers) {
+        long left = this.timers.remainingTicks(release);
+        this.timers.cancel(release);
+        this.timers = timers;
+        this.ownTimers = false;
+        if (left > 0) timers.scheduleTicks(release, left);
+    }
+
+    /** Direction choices made so far (at junctions, or when standing still). */
+    public long decisions() {
+        return decisions;
+    }
+
     public void updateTarget(int tileX, int tileY) {
         this.targetX = tileX;
         this.targetY = tileY;
@@ -79,52 +134,180 @@ public class Ghost {
 
     /** Respawn at current default spawn (old method) */
     public void respawn() {
-        respawnDelay = 5.0;
-        movement.setPosition(movement.tileX(), movement.tileY()); // keep current tile
+        timers.schedule(release, RESPAWN_SECONDS);
+        setPosition(movement.tileX(), movement.tileY()); // keep current tile
         mode = Mode.SCATTER;
     }
 
     /** Respawn at specified tile and freeze for 5 seconds */
     public void respawn(int tileX, int tileY) {
-        movement.setPosition(tileX, tileY);
+        setPosition(tileX, tileY);
         mode = Mode.SCATTER;
-        respawnDelay = 5.0;
+        timers.schedule(release, RESPAWN_SECONDS);
+    }
+
+    /**
+     * Seeds the random walk as ghost {@code ghost} of a game played with {@code gameSeed}, so the
+     * same seed and inputs replay the same choices.
+     */
+    public void seed(long gameSeed, int ghost) {
+        rngState = rngSeed(gameSeed, ghost);
+    }
+
+    static long rngSeed(long gameSeed, int ghost) {
+        return gameSeed + (ghost + 1) * 0x9E3779B97F4A7C15L;
     }
 
     public boolean isWaitingToMove() {
-        return respawnDelay > 0;
+        return release.isPending();
     }
 
     /** Called every frame to update movement. */
     public void tick(GameClock clock) {
-        if (respawnDelay > 0) {
-            respawnDelay -= clock.deltaSeconds();
-            return; // skip movement until delay passes
-        }
+        if (ownTimers) timers.advance(clock);
+        if (release.isPending()) return; // skip movement until released
 
-        switch (mode) {
-            case FRIGHTENED -> handleFrightened();
-            case CHASE -> handleChase();
-            case SCATTER -> handleScatter();
-        }
+        decide();
         movement.tick(clock);
     }
 
+    // --- Save / resume (see SaveGame) ---
+
+    MovementSystem movement() { return movement; }
+    int targetX() { return targetX; }
+    int targetY() { return targetY; }
+    long rngState() { return rngState; }
+    long releaseTicks() { return timers.remainingTicks(release); }
+
+    int decidedAt() { return decidedAt; }
+    boolean routeQueued() { return routeJob.queued; }
+    int routeFrom() { return routeJob.fromTile; }
+    int routeX() { return routeJob.x; }
+    int routeY() { return routeJob.y; }
+    Direction routeHeading() { return routeJob.heading == null ? Direction.NONE : routeJob.heading; }
+    int routePriority() { return routeJob.priority; }
+    /** Where the pending routing request stands in the scheduler's queue, or -1 if none is queued. */
+    long routeOrder() { return routeJob.queued && scheduler != null ? scheduler.queuedKey(routeJob) : -1; }
+
+    /** Takes over the tile already decided from, so a resumed ghost does not decide it again. */
+    void restoreDecision(int decidedAt) { this.decidedAt = decidedAt; }
+
+    /** Queues a saved routing request again; callers resubmit in the saved queue order. */
+    void restoreRoute(int fromTile, int x, int y, Direction heading, int priority) {
+        routeJob.prepare(fromTile, x, y, heading);
+        routeJob.priority = priority;
+        if (scheduler != null && !routeJob.queued) {
+            routeJob.queued = true;
+            scheduler.submit(routeJob, priority);
+        }
+    }
+
+    void restore(Mode mode, int targetX, int targetY, long releaseTicks, long rngState) {
+        this.mode = mode;
+        this.targetX = targetX;
+        this.targetY = targetY;
+        this.rngState = rngState;
+        this.decidedAt = -1;
+        if (releaseTicks > 0) timers.scheduleTicks(release, releaseTicks);
+        else timers.cancel(release);
+    }
+
     // --- Internal helpers ---
 
-    private void handleChase() {
-        Direction best = chooseBestDirectionToward(targetX, targetY);
-        if (best != null) movement.request(best);
+    private void decide() {
+        Direction heading = movement.direction();
+        if (heading == Direction.NONE) {
+            // standing still (spawn, stopped by a wall): choose from the current tile
+            decidedAt = -1;
+            decisions++;
+            if (mode == Mode.CHASE) {
+                Direction best = chooseBestDirectionToward(targetX, targetY);
+                if (best != null) movement.request(best);
+            } else {
+                movement.request(randomWalkableDirection());
+            }
+            return;
+        }
+
+        int tile = movement.tileY() * map.cols() + movement.tileX();
+        if (tile == decidedAt) return; // the next tile is already decided
+        decidedAt = tile;
+
+        int nx = nextX(movement.tileX(), heading), ny = nextY(movement.tileY(), heading);
+        if (!graph.isJunction(nx, ny)) {
+            // corridor: take the corner if there is one, otherwise keep going
+            Direction follow = graph.corridorExit(nx, ny, heading);
+            if (follow != Direction.NONE && follow != heading) movement.request(follow);
+            return;
+        }
+
+        decisions++;
+        if (mode == Mode.CHASE && scheduler != null) {
+            routeJob.prepare(tile, nx, ny, heading);
+            if (!routeJob.queued) {
+                routeJob.queued = true;
+                // ghosts closer to their target decide first
+                routeJob.priority = Math.abs(targetX - nx) + Math.abs(targetY - ny);
+                scheduler.submit(routeJob, routeJob.priority);
+            }
+            return;
+        }
+        Direction choice = mode == Mode.CHASE
+                ? graph.route(nx, ny, heading, targetX, targetY)
+                : randomExit(nx, ny, heading);
+        if (choice != Direction.NONE) movement.request(choice);
     }
 
-    private void handleScatter() {
-        if (movementDirection() == Direction.NONE) {
-            movement.request(randomWalkableDirection());
+    /** Chase routing for the junction ahead; dropped if the ghost has moved on when it runs. */
+    private final class RouteJob implements AiScheduler.Job {
+        boolean queued;
+        int fromTile, x, y, priority;
+        Direction heading;
+
+        void prepare(int fromTile, int x, int y, Direction heading) {
+            this.fromTile = fromTile;
+            this.x = x;
+            this.y = y;
+            this.heading = heading;
         }
+
+        @Override
+        public void run() {
+            queued = false;
+            if (decidedAt != fromTile || mode != Mode.CHASE) return;
+            Direction choice = graph.route(x, y, heading, targetX, targetY);
+            if (choice != Direction.NONE) movement.request(choice);
+        }
+    }
+
+    /** Random exit of a junction, never straight back unless it is a dead end. */
+    private Direction randomExit(int x, int y, Direction heading) {
+        int exits = graph.exits(x, y);
+        int back = 1 << reverseOf(heading).ordinal();
+        if (exits != back) exits &= ~back;
+        int pick = nextInt(Integer.bitCount(exits));
+        for (Direction d : DIRS) {
+            if ((exits & (1 << d.ordinal())) != 0 && pick-- == 0) return d;
+        }
+        return Direction.NONE;
+    }
+
+    private int nextInt(int bound) {
+        long z = (rngState += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) ((z >>> 1) % bound);
     }
 
-    private void handleFrightened() {
-        movement.request(randomWalkableDirection());
+    private static Direction reverseOf(Direction d) {
+        return switch (d) {
+            case UP -> Direction.DOWN;
+            case DOWN -> Direction.UP;
+            case LEFT -> Direction.RIGHT;
+            case RIGHT -> Direction.LEFT;
+            case NONE -> Direction.NONE;
+        };
     }
 
     private Direction chooseBestDirectionToward(int tx, int ty) {
@@ -150,7 +333,7 @@ public class Ghost {
     private Direction randomWalkableDirection() {
         Direction[] dirs = Direction.values();
         for (int i = 0; i < 10; i++) {
-            Direction d = dirs[rng.nextInt(dirs.length)];
+            Direction d = dirs[nextInt(dirs.length)];
             int nx = nextX(movement.tileX(), d);
             int ny = nextY(movement.tileY(), d);
             if (map.isWalkable(nx, ny)) return d;
@@ -174,16 +357,6 @@ public class Ghost {
         };
     }
 
-    private Direction movementDirection() {
-        try {
-            var dirField = MovementSystem.class.getDeclaredField("dir");
-            dirField.setAccessible(true);
-            return (Direction) dirField.get(movement);
-        } catch (Exception e) {
-            return Direction.NONE;
-        }
-    }
-
     private static class FixedClock implements GameClock {
         private final double dt;
         FixedClock(double dt) { this.dt = dt; }
@@ -0,0 +1,11 @@
+package com.pacman.logic;
+
+/** Player input that the simulation applies at the start of a tick. */
+public enum InputCommand {
+    MOVE_UP,
+    MOVE_DOWN,
+    MOVE_LEFT,
+    MOVE_RIGHT,
+    START,
+    RESTART
+}
@@ -0,0 +1,77 @@
+package com.pacman.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer / single-consumer ring buffer of timestamped input.
+ * The UI thread offers commands, the simulation thread drains them at the
+ * start of each tick, so game state is only touched by the simulation.
+ * Draining records key-to-tick latency in {@link #latency()}.
+ */
+public final class InputQueue {
+
+    /** Receives drained commands on the consumer thread. */
+    @FunctionalInterface
+    public interface Handler {
+        void onInput(InputCommand command, long timestampNanos);
+    }
+
+    private static final InputCommand[] COMMANDS = InputCommand.values();
+
+    private final int mask;
+    private final byte[] commands;
+    private final long[] timestamps;
+    private final AtomicLong head = new AtomicLong(); // next slot to read (consumer)
+    private final AtomicLong tail = new AtomicLong(); // next slot to write (producer)
+    private final Histogram latency = new Histogram();
+    private volatile long dropped;
+
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two");
+        }
+        this.mask = capacity - 1;
+        this.commands = new byte[capacity];
+        this.timestamps = new long[capacity];
+    }
+
+    /** Producer side. Returns false (and counts a drop) when the queue is full. */
+    public boolean offer(InputCommand command, long timestampNanos) {
+        long t = tail.get();
+        if (t - head.get() > mask) {
+            dropped++;
+            return false;
+        }
+        int slot = (int) (t & mask);
+        commands[slot] = (byte) command.ordinal();
+        timestamps[slot] = timestampNanos;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /** Consumer side. Hands every queued command to the handler and returns how many there were. */
+    public int drain(Handler handler, long nowNanos) {
+        long h = head.get();
+        long t = tail.get();
+        int n = 0;
+        while (h < t) {
+            int slot = (int) (h & mask);
+            long stamp = timestamps[slot];
+            latency.record(nowNanos - stamp);
+            handler.onInput(COMMANDS[commands[slot]], stamp);
+            h++;
+            n++;
+        }
+        head.lazySet(h);
+        return n;
+    }
+
+    public int size() {
+        return (int) (tail.get() - head.get());
+    }
+
+    public long dropped() { return dropped; }
+
+    /** Time between a command being offered and the tick that applied it, in nanoseconds. */
+    public Histogram latency() { return latency; }
+}
@@ -0,0 +1,76 @@
+package com.pacman.logic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for the game loop and gameplay milestones,
+ * so in-game stutters can be lined up with GC and safepoint pauses in a recording.
+ * Events are disabled unless a recording is running; create, check shouldCommit, then commit.
+ */
+public final class JfrEvents {
+    private JfrEvents() {}
+
+    @Name("com.pacman.Tick")
+    @Label("Simulation Tick")
+    @Category({"Pac-Man", "Loop"})
+    @StackTrace(false)
+    public static final class Tick extends Event {
+        @Label("Entities") public int entities;
+        @Label("Pellets Remaining") public long pelletsRemaining;
+    }
+
+    @Name("com.pacman.Paint")
+    @Label("Paint")
+    @Category({"Pac-Man", "Loop"})
+    @StackTrace(false)
+    public static final class Paint extends Event {
+        @Label("Width") public int width;
+        @Label("Height") public int height;
+    }
+
+    @Name("com.pacman.PelletEaten")
+    @Label("Pellet Eaten")
+    @Category({"Pac-Man", "Gameplay"})
+    @StackTrace(false)
+    public static final class PelletEaten extends Event {
+        @Label("Tile X") public int tileX;
+        @Label("Tile Y") public int tileY;
+        @Label("Points") public int points;
+    }
+
+    @Name("com.pacman.GhostEaten")
+    @Label("Ghost Eaten")
+    @Category({"Pac-Man", "Gameplay"})
+    @StackTrace(false)
+    public static final class GhostEaten extends Event {
+        @Label("Tile X") public int tileX;
+        @Label("Tile Y") public int tileY;
+        @Label("Points") public int points;
+    }
+
+    @Name("com.pacman.LifeLost")
+    @Label("Life Lost")
+    @Category({"Pac-Man", "Gameplay"})
+    @StackTrace(false)
+    public static final class LifeLost extends Event {
+        @Label("Tile X") public int tileX;
+        @Label("Tile Y") public int tileY;
+        @Label("Lives Left") public int livesLeft;
+    }
+
+    @Name("com.pacman.StateChanged")
+    @Label("Session State Changed")
+    @Description("GameSession moved between MENU, PLAYING, GAME_OVER and WIN")
+    @Category({"Pac-Man", "Gameplay"})
+    @StackTrace(false)
+    public static final class StateChanged extends Event {
+        @Label("From") public String from;
+        @Label("To") public String to;
+        @Label("Lives") public int lives;
+    }
+}
@@ -0,0 +1,100 @@
+package com.pacman.logic;
+
+import java.util.List;
+
+/**
+ * Alternating scatter and chase waves for a group of ghosts.
+ *
+ * Each wave is a single timer on the shared {@link TimerWheel}; when it fires the next wave
+ * starts. After the last listed wave the ghosts chase for good. Frightened mode pauses the
+ * current wave and resumes it afterwards, as in the arcade game.
+ */
+public final class ModeWaves {
+
+    /** Arcade level 1: scatter 7 s, chase 20 s, scatter 7 s, chase 20 s, scatter 5 s, chase 20 s, scatter 5 s. */
+    public static final double[] LEVEL_ONE = {7, 20, 7, 20, 5, 20, 5};
+
+    private final List<Ghost> ghosts;
+    private final TimerWheel timers;
+    private final double[] waves;
+    private final TimerWheel.Timer timer = new TimerWheel.Timer(this::nextWave);
+    private int wave;
+    private long pausedTicks = -1; // remaining ticks of the paused wave, -1 when running
+
+    public ModeWaves(List<Ghost> ghosts, TimerWheel timers) {
+        this(ghosts, timers, LEVEL_ONE);
+    }
+
+    /** Waves alternate scatter/chase starting with scatter; durations in seconds. */
+    public ModeWaves(List<Ghost> ghosts, TimerWheel timers, double[] waves) {
+        for (double w : waves) {
+            if (!(w > 0)) throw new IllegalArgumentException("wave durations must be > 0");
+        }
+        this.ghosts = ghosts;
+        this.timers = timers;
+        this.waves = waves.clone();
+    }
+
+    /** Starts again from the first wave and puts the ghosts in its mode. */
+    public void restart() {
+        timers.cancel(timer);
+        pausedTicks = -1;
+        wave = 0;
+        startWave();
+    }
+
+    public Ghost.Mode mode() {
+        return wave % 2 == 0 && wave < waves.length ? Ghost.Mode.SCATTER : Ghost.Mode.CHASE;
+    }
+
+    /** Index of the current wave; equal to the number of listed waves once chase is permanent. */
+    public int wave() {
+        return wave;
+    }
+
+    public boolean isPaused() {
+        return pausedTicks >= 0;
+    }
+
+    void pause() {
+        if (isPaused()) return;
+        pausedTicks = timers.remainingTicks(timer);
+        timers.cancel(timer);
+    }
+
+    void resume() {
+        if (!isPaused()) return;
+        if (pausedTicks > 0) timers.scheduleTicks(timer, pausedTicks);
+        pausedTicks = -1;
+    }
+
+    /** Ticks left in the current wave, paused or not; 0 once chase is permanent. */
+    long remainingTicks() {
+        return isPaused() ? pausedTicks : timers.remainingTicks(timer);
+    }
+
+    /** Resumes a saved wave without touching ghost modes. */
+    void restore(int wave, boolean paused, long remainingTicks) {
+        timers.cancel(timer);
+        this.wave = wave;
+        if (paused) {
+            pausedTicks = remainingTicks;
+        } else {
+            pausedTicks = -1;
+            if (remainingTicks > 0) timers.scheduleTicks(timer, remainingTicks);
+        }
+    }
+
+    private void nextWave() {
+        wave++;
+        startWave();
+    }
+
+    private void startWave() {
+        Ghost.Mode mode = mode();
+        for (Ghost g : ghosts) {
+            if (g.mode() != Ghost.Mode.FRIGHTENED) g.setMode(mode);
+        }
+        if (wave < waves.length) timers.schedule(timer, waves[wave]);
+    }
+}
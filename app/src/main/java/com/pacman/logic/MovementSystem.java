@@ -42,15 +42,33 @@ public class MovementSystem {
 
     public void request(Direction d) { this.requested = d; }
 
+    /** Direction currently being moved in, NONE when standing still. */
+    Direction direction() { return dir; }
+    Direction requested() { return requested; }
+    double offsetX() { return offX; }
+    double offsetY() { return offY; }
+
+    /** Puts back a position and motion captured earlier (see {@link SaveGame}). */
+    void restore(int tileX, int tileY, double offX, double offY, Direction dir, Direction requested) {
+        this.tileX = tileX; this.tileY = tileY;
+        this.offX = offX; this.offY = offY;
+        this.dir = dir; this.requested = requested;
+    }
+
     public int tileX() { return tileX; }
     public int tileY() { return tileY; }
 
+    /** Exact position in tiles, including the offset toward the next tile. Read-only, for rendering. */
+    public double exactX() { return tileX + offX; }
+    public double exactY() { return tileY + offY; }
+
     private boolean alignedToCenter() {
         return Math.abs(offX) < 1e-9 && Math.abs(offY) < 1e-9;
     }
 
     private boolean canEnter(int cx, int cy) {
-        return map.isWalkable(cx, cy);
+        // columns wrap, so an opening in the side wall is a tunnel to the other side
+        return map.isWalkable(Math.floorMod(cx, map.cols()), cy);
     }
 
     private int nextX(Direction d) {
@@ -119,6 +137,9 @@ public class MovementSystem {
     /** Finds nearest walkable tile from given coordinates (simple 4-directional search) */
     private int[] findNearestWalkable(int x, int y) {
         if (map.isWalkable(x, y)) return new int[]{x, y};
+        // compiled maps carry a precomputed table
+        int nearest = map.nearestWalkableIndex(x, y);
+        if (nearest >= 0) return new int[]{nearest % map.cols(), nearest / map.cols()};
         int[][] deltas = {{0,-1},{0,1},{-1,0},{1,0}};
         for (int dist = 1; dist < Math.max(map.rows(), map.cols()); dist++) {
             for (int[] d : deltas) {
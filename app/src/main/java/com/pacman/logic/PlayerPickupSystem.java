@@ -12,16 +12,35 @@ public final class PlayerPickupSystem {
    * @return points awarded (10 for pellet, 50 for power pellet), 0 otherwise.
    */
   public static int eatAt(Map map, int tileX, int tileY) {
+    return eatAt(map, tileX, tileY, null);
+  }
+
+  /** Same as {@link #eatAt(Map, int, int)}, also publishing PELLET_EATEN or POWER_PELLET to {@code events}. */
+  public static int eatAt(Map map, int tileX, int tileY, GameEvents events) {
     // Map stores by (row, col) = (y, x)
     TileType t = map.getTile(tileY, tileX);
     if (t == TileType.PACDOT) {
       map.setTile(tileY, tileX, TileType.EMPTY);
+      record(tileX, tileY, 10);
+      if (events != null) events.pelletEaten(tileX, tileY, 10);
       return 10;
     }
     if (t == TileType.POWER_PACDOT) {
       map.setTile(tileY, tileX, TileType.EMPTY);
+      record(tileX, tileY, 50);
+      if (events != null) events.powerPellet(tileX, tileY, 50);
       return 50;
     }
     return 0;
   }
+
+  private static void record(int tileX, int tileY, int points) {
+    JfrEvents.PelletEaten event = new JfrEvents.PelletEaten();
+    if (event.shouldCommit()) {
+      event.tileX = tileX;
+      event.tileY = tileY;
+      event.points = points;
+      event.commit();
+    }
+  }
 }
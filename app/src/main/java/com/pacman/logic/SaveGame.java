@@ -0,0 +1,415 @@
+package com.pacman.logic;
+
+import com.pacman.model.Direction;
+import com.pacman.model.Score;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Saves and resumes a game in progress.
+ *
+ * {@link #save(Path, double)} copies the game state into one of two reusable snapshots on the
+ * game thread (a few hundred primitives plus the tiles changed since the level started) and
+ * encodes and writes it on a background thread, replacing the file atomically. If both snapshots
+ * are still being written the save is skipped. {@link #load(Path)} runs on the game thread, into a
+ * freshly built game whose AI scheduler has nothing queued yet.
+ *
+ * Save only between ticks, after the tick's events were dispatched: mid-tick, an eaten pellet is
+ * already gone but its points and frightened start are still waiting in the event queue.
+ *
+ * Layout (little-endian):
+ * <pre>
+ *  int magic "PSAV", short version, short ghost count, int rows, int cols, int level checksum
+ *  byte state, int lives, int score, double timer carry, double seconds played
+ *  player:  int x, int y, double offset x, double offset y, byte direction, byte requested
+ *  per ghost: the same, then byte mode, int target x, int target y, long release ticks, long rng,
+ *             int tile decided from (-1 = none), byte route queued, int route from tile,
+ *             int route x, int route y, byte route heading, int route priority, long route order
+ *  long frightened ticks, int chain, int wave, byte wave paused, long wave ticks
+ *  int changed tiles, then per tile int index, byte tile
+ *  int CRC32C of everything before it
+ * </pre>
+ */
+public final class SaveGame implements Closeable {
+
+    static final int MAGIC = 0x56415350; // "PSAV" read little-endian
+    static final short VERSION = 3;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final Ghost.Mode[] MODES = Ghost.Mode.values();
+    private static final GameSession.State[] STATES = GameSession.State.values();
+
+    private final GameSession session;
+    private final MovementSystem player;
+    private final List<Ghost> ghosts;
+    private final FrightenedTimer frightened;
+    private final ModeWaves waves;
+    private final TimerWheel timers;
+    private final Score score;
+
+    private final Snapshot[] snapshots = {new Snapshot(), new Snapshot()};
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "save-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile long saves, skipped;
+    private boolean requested;
+
+    // How long close() waits for writes already handed to the writer thread
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
+    public SaveGame(GameSession session, MovementSystem player, List<Ghost> ghosts, FrightenedTimer frightened,
+                    ModeWaves waves, TimerWheel timers, Score score) {
+        this.session = session;
+        this.player = player;
+        this.ghosts = ghosts;
+        this.frightened = frightened;
+        this.waves = waves;
+        this.timers = timers;
+        this.score = score;
+    }
+
+    /**
+     * Captures the current state, with {@code playSeconds} of play so far, and writes it to
+     * {@code file} in the background. Returns the pending write, or null if the previous saves
+     * are still being written.
+     */
+    public Future<?> save(Path file, double playSeconds) {
+        Snapshot s = null;
+        for (Snapshot candidate : snapshots) {
+            if (!candidate.busy) {
+                s = candidate;
+                break;
+            }
+        }
+        if (s == null || writer.isShutdown()) {
+            skipped++;
+            return null;
+        }
+        s.busy = true;
+        s.capture();
+        s.playSeconds = playSeconds;
+        Snapshot snapshot = s;
+        return writer.submit(() -> {
+            try {
+                write(snapshot.encode(), file);
+                saves++;
+            } finally {
+                snapshot.busy = false;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Asks for a save at the next {@link #saveIfRequested}; safe to call mid-tick, for example
+     * from a timer on the game's wheel.
+     */
+    public void requestSave() {
+        requested = true;
+    }
+
+    /** Saves if {@link #requestSave()} was called since the last save; call between ticks only. */
+    public Future<?> saveIfRequested(Path file, double playSeconds) {
+        if (!requested) return null;
+        requested = false;
+        return save(file, playSeconds);
+    }
+
+    /** Deletes {@code file} on the writer thread, after any save still in flight; drops a pending request. */
+    public Future<?> discard(Path file) {
+        requested = false;
+        if (writer.isShutdown()) return null;
+        return writer.submit(() -> {
+            Files.deleteIfExists(file);
+            return null;
+        });
+    }
+
+    /**
+     * Finishes the saves and deletes already handed to the writer thread, waiting at most a few
+     * seconds, so a save or a discard made just before exit is not lost. Later saves are skipped.
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                System.err.println("Save writer did not finish within " + CLOSE_TIMEOUT_SECONDS + " s");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long saves() { return saves; }
+    /** Saves dropped because both snapshots were still being written. */
+    public long skipped() { return skipped; }
+
+    /** Replaces the current state with the one saved in {@code file}; returns the seconds played before it. */
+    public double load(Path file) throws IOException {
+        ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < 24 || in.getInt(0) != MAGIC) throw new IOException("Not a save file: " + file);
+        short version = in.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported save version " + version + " (expected " + VERSION + ")");
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(in.slice(0, in.limit() - 4));
+        if ((int) crc.getValue() != in.getInt(in.limit() - 4)) throw new IOException("Corrupt save file: " + file);
+
+        Snapshot s = new Snapshot();
+        try {
+            s.decode(in.position(6));
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt save file: " + file, e);
+        }
+        if (s.ghostCount != ghosts.size()) throw new IOException("Save has " + s.ghostCount + " ghosts");
+        if (s.rows != session.map().rows() || s.cols != session.map().cols()
+                || s.levelChecksum != session.levelChecksum()) {
+            throw new IOException("Save was made on a different map");
+        }
+        s.apply();
+        return s.playSeconds;
+    }
+
+    private static void write(ByteBuffer data, Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) out.write(data);
+            out.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Flat copy of everything a save holds; arrays are reused between saves. */
+    private final class Snapshot {
+        volatile boolean busy;
+        int rows, cols, levelChecksum, ghostCount;
+        int state, lives, score;
+        double carry, playSeconds;
+        // index 0 = player, then ghosts
+        int[] x = new int[0], y = new int[0], targetX = new int[0], targetY = new int[0];
+        double[] offX = new double[0], offY = new double[0];
+        byte[] dir = new byte[0], requested = new byte[0], mode = new byte[0];
+        long[] release = new long[0], rng = new long[0];
+        // per ghost: the tile it already decided from and its queued routing request, if any
+        int[] decidedAt = new int[0], routeFrom = new int[0], routeX = new int[0], routeY = new int[0];
+        int[] routePriority = new int[0];
+        byte[] routeQueued = new byte[0], routeHeading = new byte[0];
+        long[] routeOrder = new long[0];
+        long frightenedTicks, waveTicks;
+        int chain, wave;
+        boolean wavePaused;
+        int changed;
+        int[] tileIndex = new int[64];
+        byte[] tile = new byte[64];
+        ByteBuffer buffer = ByteBuffer.allocate(0);
+
+        void capture() {
+            rows = session.map().rows();
+            cols = session.map().cols();
+            levelChecksum = session.levelChecksum();
+            state = session.state().ordinal();
+            lives = session.lives();
+            score = SaveGame.this.score.value();
+            carry = timers.carry();
+            ghostCount = ghosts.size();
+            ensureEntities(1 + ghostCount);
+            capture(0, player);
+            for (int i = 0; i < ghostCount; i++) {
+                Ghost g = ghosts.get(i);
+                capture(i + 1, g.movement());
+                mode[i + 1] = (byte) g.mode().ordinal();
+                targetX[i + 1] = g.targetX();
+                targetY[i + 1] = g.targetY();
+                release[i + 1] = g.releaseTicks();
+                rng[i + 1] = g.rngState();
+                decidedAt[i + 1] = g.decidedAt();
+                routeQueued[i + 1] = (byte) (g.routeQueued() ? 1 : 0);
+                routeFrom[i + 1] = g.routeFrom();
+                routeX[i + 1] = g.routeX();
+                routeY[i + 1] = g.routeY();
+                routeHeading[i + 1] = (byte) g.routeHeading().ordinal();
+                routePriority[i + 1] = g.routePriority();
+                routeOrder[i + 1] = g.routeOrder();
+            }
+            frightenedTicks = frightened.remainingTicks();
+            chain = frightened.chain();
+            wave = waves.wave();
+            wavePaused = waves.isPaused();
+            waveTicks = waves.remainingTicks();
+            if (tileIndex.length < session.dirtyCount()) {
+                tileIndex = new int[session.dirtyCount() * 2];
+                tile = new byte[tileIndex.length];
+            }
+            changed = session.changedTiles(tileIndex, tile);
+        }
+
+        private void capture(int i, MovementSystem m) {
+            x[i] = m.tileX();
+            y[i] = m.tileY();
+            offX[i] = m.offsetX();
+            offY[i] = m.offsetY();
+            dir[i] = (byte) m.direction().ordinal();
+            requested[i] = (byte) m.requested().ordinal();
+        }
+
+        private void ensureEntities(int n) {
+            if (x.length >= n) return;
+            x = new int[n]; y = new int[n]; targetX = new int[n]; targetY = new int[n];
+            offX = new double[n]; offY = new double[n];
+            dir = new byte[n]; requested = new byte[n]; mode = new byte[n];
+            release = new long[n]; rng = new long[n];
+            decidedAt = new int[n]; routeFrom = new int[n]; routeX = new int[n]; routeY = new int[n];
+            routePriority = new int[n]; routeQueued = new byte[n]; routeHeading = new byte[n];
+            routeOrder = new long[n];
+        }
+
+        ByteBuffer encode() {
+            int entities = 1 + ghostCount;
+            int size = 24 + 21 + 26 * entities + 55 * ghostCount + 25 + 4 + 5 * changed + 4;
+            if (buffer.capacity() < size) buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+            ByteBuffer b = buffer.clear();
+            b.putInt(MAGIC).putShort(VERSION).putShort((short) ghostCount)
+                    .putInt(rows).putInt(cols).putInt(levelChecksum);
+            b.put((byte) state).putInt(lives).putInt(score).putDouble(carry).putDouble(playSeconds);
+            for (int i = 0; i < entities; i++) {
+                b.putInt(x[i]).putInt(y[i]).putDouble(offX[i]).putDouble(offY[i]).put(dir[i]).put(requested[i]);
+                if (i == 0) continue;
+                b.put(mode[i]).putInt(targetX[i]).putInt(targetY[i]).putLong(release[i]).putLong(rng[i]);
+                b.putInt(decidedAt[i]).put(routeQueued[i]).putInt(routeFrom[i]).putInt(routeX[i]).putInt(routeY[i])
+                        .put(routeHeading[i]).putInt(routePriority[i]).putLong(routeOrder[i]);
+            }
+            b.putLong(frightenedTicks).putInt(chain).putInt(wave).put((byte) (wavePaused ? 1 : 0)).putLong(waveTicks);
+            b.putInt(changed);
+            for (int i = 0; i < changed; i++) b.putInt(tileIndex[i]).put(tile[i]);
+            CRC32C crc = new CRC32C();
+            crc.update(b.array(), 0, b.position());
+            b.putInt((int) crc.getValue());
+            return b.flip();
+        }
+
+        void decode(ByteBuffer b) {
+            ghostCount = b.getShort();
+            rows = b.getInt();
+            cols = b.getInt();
+            levelChecksum = b.getInt();
+            state = b.get();
+            lives = b.getInt();
+            score = b.getInt();
+            carry = b.getDouble();
+            playSeconds = b.getDouble();
+            ensureEntities(1 + ghostCount);
+            for (int i = 0; i <= ghostCount; i++) {
+                x[i] = b.getInt();
+                y[i] = b.getInt();
+                offX[i] = b.getDouble();
+                offY[i] = b.getDouble();
+                dir[i] = b.get();
+                requested[i] = b.get();
+                if (i == 0) continue;
+                mode[i] = b.get();
+                targetX[i] = b.getInt();
+                targetY[i] = b.getInt();
+                release[i] = b.getLong();
+                rng[i] = b.getLong();
+                decidedAt[i] = b.getInt();
+                routeQueued[i] = b.get();
+                routeFrom[i] = b.getInt();
+                routeX[i] = b.getInt();
+                routeY[i] = b.getInt();
+                routeHeading[i] = b.get();
+                routePriority[i] = b.getInt();
+                routeOrder[i] = b.getLong();
+            }
+            frightenedTicks = b.getLong();
+            chain = b.getInt();
+            wave = b.getInt();
+            wavePaused = b.get() != 0;
+            waveTicks = b.getLong();
+            changed = b.getInt();
+            if (changed < 0 || changed > (long) rows * cols) throw new IllegalArgumentException("bad tile count");
+            tileIndex = new int[changed];
+            tile = new byte[changed];
+            for (int i = 0; i < changed; i++) {
+                tileIndex[i] = b.getInt();
+                tile[i] = b.get();
+                if (tileIndex[i] < 0 || tileIndex[i] >= rows * cols) throw new IllegalArgumentException("bad tile");
+            }
+            // everything is checked before anything is changed
+            checkOrdinal(state, STATES.length);
+            for (int i = 0; i <= ghostCount; i++) {
+                checkOrdinal(dir[i], DIRECTIONS.length);
+                checkOrdinal(requested[i], DIRECTIONS.length);
+                if (i == 0) continue;
+                checkOrdinal(mode[i], MODES.length);
+                if (release[i] < 0) throw new IllegalArgumentException("bad release timer");
+                checkOrdinal(routeHeading[i], DIRECTIONS.length);
+                if (decidedAt[i] < -1 || (long) decidedAt[i] >= (long) rows * cols) {
+                    throw new IllegalArgumentException("bad decided tile");
+                }
+                if (routeQueued[i] != 0 && (routePriority[i] < 0 || routeOrder[i] < 0)) {
+                    throw new IllegalArgumentException("bad routing request");
+                }
+            }
+            if (frightenedTicks < 0 || waveTicks < 0) throw new IllegalArgumentException("bad timer");
+            if (!(playSeconds >= 0)) throw new IllegalArgumentException("bad play time");
+        }
+
+        private void checkOrdinal(int value, int count) {
+            if (value < 0 || value >= count) throw new IllegalArgumentException("bad enum value " + value);
+        }
+
+        void apply() {
+            session.restore(STATES[state], lives, changed, tileIndex, tile);
+            SaveGame.this.score.reset();
+            SaveGame.this.score.add(score);
+            timers.setCarry(carry);
+            restore(0, player);
+            for (int i = 0; i < ghostCount; i++) {
+                Ghost g = ghosts.get(i);
+                restore(i + 1, g.movement());
+                g.restore(MODES[mode[i + 1]], targetX[i + 1], targetY[i + 1], release[i + 1], rng[i + 1]);
+                g.restoreDecision(decidedAt[i + 1]);
+            }
+            // queued routing requests go back on the scheduler in the order they were waiting in
+            Integer[] queued = new Integer[ghostCount];
+            int n = 0;
+            for (int i = 1; i <= ghostCount; i++) {
+                if (routeQueued[i] != 0) queued[n++] = i;
+            }
+            Arrays.sort(queued, 0, n, (a, b) -> Long.compare(routeOrder[a], routeOrder[b]));
+            for (int k = 0; k < n; k++) {
+                int i = queued[k];
+                ghosts.get(i - 1).restoreRoute(routeFrom[i], routeX[i], routeY[i], DIRECTIONS[routeHeading[i]],
+                        routePriority[i]);
+            }
+            frightened.restore(frightenedTicks, chain);
+            waves.restore(wave, wavePaused, waveTicks);
+        }
+
+        private void restore(int i, MovementSystem m) {
+            m.restore(x[i], y[i], offX[i], offY[i], DIRECTIONS[dir[i]], DIRECTIONS[requested[i]]);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.pacman.logic;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Game time for a loop that runs fixed steps. Wall-clock frame time is scaled by a speed (from
+ * 0.1x slow motion up to uncapped fast-forward) and turned into whole steps; nothing is due
+ * while paused except the steps released one at a time with {@link #singleStep()}.
+ *
+ * Every step is exactly {@link #deltaSeconds()} of game time whatever the speed, so the same
+ * inputs on the same steps play out the same game at every speed; speed only changes how many
+ * steps run per wall-clock second.
+ *
+ * Controls may be called from any thread; {@link #advance}, {@link #nextStep} and
+ * {@link #alpha} belong to the loop thread.
+ */
+public final class SimClock implements GameClock {
+
+    public static final double MIN_SPEED = 0.1;
+    public static final double MAX_SPEED = 64.0;
+    /** Speed at which steps run back to back, as fast as the loop can go. */
+    public static final double UNCAPPED = Double.POSITIVE_INFINITY;
+    /** Speeds that {@link #faster()} and {@link #slower()} move between. */
+    static final double[] SPEEDS = {0.1, 0.25, 0.5, 1, 2, 4, 8, 16, UNCAPPED};
+
+    // avoid a spiral of catch-up steps after a long stall
+    private static final double MAX_FRAME_SECONDS = 0.25;
+
+    private volatile double stepSeconds;
+    private volatile double speed = 1.0;
+    private volatile boolean paused;
+    private final AtomicInteger singleSteps = new AtomicInteger();
+    private double accumulator;
+
+    public SimClock(double stepSeconds) {
+        setStepSeconds(stepSeconds);
+    }
+
+    /** Game seconds per step. */
+    @Override
+    public double deltaSeconds() { return stepSeconds; }
+
+    public void setStepSeconds(double stepSeconds) {
+        if (!(stepSeconds > 0)) throw new IllegalArgumentException("step length must be > 0");
+        this.stepSeconds = stepSeconds;
+    }
+
+    public double speed() { return speed; }
+    public boolean uncapped() { return speed == UNCAPPED; }
+    public boolean paused() { return paused; }
+
+    /** Game seconds per wall-clock second: {@link #MIN_SPEED} to {@link #MAX_SPEED}, or {@link #UNCAPPED}. */
+    public void setSpeed(double speed) {
+        if (!(speed == UNCAPPED || (speed >= MIN_SPEED && speed <= MAX_SPEED))) {
+            throw new IllegalArgumentException("speed must be between " + MIN_SPEED + " and " + MAX_SPEED + ", or uncapped");
+        }
+        this.speed = speed;
+    }
+
+    /** Next speed up in {@link #SPEEDS}, ending at uncapped. */
+    public void faster() {
+        double current = speed;
+        for (double s : SPEEDS) {
+            if (s > current) {
+                speed = s;
+                return;
+            }
+        }
+    }
+
+    /** Next speed down in {@link #SPEEDS}, ending at 0.1x. */
+    public void slower() {
+        double current = speed;
+        for (int i = SPEEDS.length - 1; i >= 0; i--) {
+            if (SPEEDS[i] < current) {
+                speed = SPEEDS[i];
+                return;
+            }
+        }
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        if (!paused) singleSteps.set(0);
+    }
+
+    /** While paused, lets exactly one more step run; ignored while running. */
+    public void singleStep() {
+        if (paused) singleSteps.incrementAndGet();
+    }
+
+    /**
+     * Adds one loop iteration's wall-clock time. Returns the steps dropped because the frame
+     * was longer than the catch-up limit, or because the loop fell that far behind the speed.
+     */
+    public int advance(double frameSeconds) {
+        if (paused || uncapped()) {
+            accumulator = 0.0;
+            return 0;
+        }
+        double s = speed, step = stepSeconds, limit = MAX_FRAME_SECONDS * s;
+        int dropped = (int) (Math.max(0.0, frameSeconds - MAX_FRAME_SECONDS) * s / step);
+        accumulator += Math.min(frameSeconds, MAX_FRAME_SECONDS) * s;
+        if (accumulator > limit) {
+            dropped += (int) ((accumulator - limit) / step);
+            accumulator = limit;
+        }
+        return dropped;
+    }
+
+    /**
+     * Takes the next due step, if any. Uncapped, a step is always due; the loop decides when to
+     * stop and show a frame.
+     */
+    public boolean nextStep() {
+        if (paused) {
+            return singleSteps.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+        }
+        if (uncapped()) return true;
+        double step = stepSeconds;
+        if (accumulator < step) return false;
+        accumulator -= step;
+        return true;
+    }
+
+    /** How far game time is between the last step and the next, for interpolating a frame. */
+    public double alpha() {
+        return paused || uncapped() ? 1.0 : Math.min(1.0, accumulator / stepSeconds);
+    }
+}
@@ -0,0 +1,168 @@
+package com.pacman.logic;
+
+/**
+ * Hierarchical timer wheel driven by the game clock.
+ *
+ * Time is counted in wheel ticks of a fixed length; {@link #advance(GameClock)} converts simulated
+ * seconds into ticks, so timers follow the game (pauses, tick-rate changes, replays) and never
+ * the wall clock. Four levels of 64 slots cover 2^24 ticks (about 77 hours at 60 Hz). Scheduling
+ * and cancelling are O(1); a timer in an upper level is moved down at most once per level.
+ *
+ * Timers due on the same tick fire in a fixed order that depends only on the sequence of
+ * schedule calls, so the same inputs always give the same firings. A task may schedule or cancel
+ * any timer, including its own. Single-threaded: call from the game loop only; the counters
+ * may be read from other threads.
+ */
+public final class TimerWheel {
+
+    /** Seconds per wheel tick when the game runs at its default rate. */
+    public static final double DEFAULT_TICK_SECONDS = 1.0 / 60.0;
+
+    /** Action run when a timer is due. */
+    public interface Task {
+        void fire();
+    }
+
+    /** A reusable timer; schedule it again after it fired or was cancelled. */
+    public static final class Timer {
+        private final Task task;
+        private Timer prev, next;
+        private long deadline;
+        private int slot = -1; // index into the slot lists, -1 when not scheduled
+
+        public Timer(Task task) {
+            this.task = task;
+        }
+
+        public boolean isPending() {
+            return slot >= 0;
+        }
+    }
+
+    private static final int LEVELS = 4;
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final long RANGE = 1L << (LEVELS * BITS);
+    // tolerance when summing clock steps, so 60 steps of 1/60 s always make 60 ticks
+    private static final double EPSILON = 1e-9;
+
+    private final double tickSeconds;
+    private final Timer[] heads = new Timer[LEVELS * SLOTS];
+    private final Timer[] tails = new Timer[LEVELS * SLOTS];
+    private long now;
+    private double carry;
+    private volatile int pending;
+    private volatile long fired;
+
+    public TimerWheel(double tickSeconds) {
+        if (!(tickSeconds > 0)) throw new IllegalArgumentException("tick length must be > 0");
+        this.tickSeconds = tickSeconds;
+    }
+
+    public double tickSeconds() { return tickSeconds; }
+    /** Ticks processed so far. */
+    public long now() { return now; }
+    public int pending() { return pending; }
+    public long fired() { return fired; }
+
+    /** Whole ticks covering {@code seconds}, at least one. */
+    public long ticks(double seconds) {
+        return Math.max(1, (long) Math.ceil(seconds / tickSeconds - EPSILON));
+    }
+
+    /** Schedules {@code timer} to fire after {@code seconds}, replacing any pending deadline. */
+    public void schedule(Timer timer, double seconds) {
+        scheduleTicks(timer, ticks(seconds));
+    }
+
+    /** Schedules {@code timer} to fire after {@code ticks} wheel ticks (at least one). */
+    public void scheduleTicks(Timer timer, long ticks) {
+        if (ticks < 1 || ticks >= RANGE) throw new IllegalArgumentException("delay out of range: " + ticks);
+        if (timer.isPending()) unlink(timer);
+        timer.deadline = now + ticks;
+        insert(timer);
+        pending++;
+    }
+
+    /** Cancels {@code timer}; returns false if it was not pending. */
+    public boolean cancel(Timer timer) {
+        if (!timer.isPending()) return false;
+        unlink(timer);
+        return true;
+    }
+
+    /** Ticks until {@code timer} fires, or 0 if it is not pending. */
+    public long remainingTicks(Timer timer) {
+        return timer.isPending() ? timer.deadline - now : 0;
+    }
+
+    public double remainingSeconds(Timer timer) {
+        return remainingTicks(timer) * tickSeconds;
+    }
+
+    /** Moves time forward by one step of {@code clock}, firing everything that comes due. */
+    public void advance(GameClock clock) {
+        carry += clock.deltaSeconds();
+        while (carry >= tickSeconds - EPSILON) {
+            carry -= tickSeconds;
+            tick();
+        }
+    }
+
+    /** Game time accumulated toward the next tick, in seconds. */
+    double carry() { return carry; }
+    void setCarry(double carry) { this.carry = carry; }
+
+    /** Moves time forward by exactly one wheel tick. */
+    public void tick() {
+        now++;
+        // when the bottom level wraps, bring down the next level's slot, and so on up
+        for (int level = 1; level < LEVELS; level++) {
+            if ((now & ((1L << (level * BITS)) - 1)) != 0) break;
+            cascade(level * SLOTS + (int) ((now >>> (level * BITS)) & MASK));
+        }
+        int slot = (int) (now & MASK);
+        Timer t;
+        while ((t = heads[slot]) != null) {
+            unlink(t);
+            fired++;
+            t.task.fire();
+        }
+    }
+
+    private void cascade(int slot) {
+        Timer t = heads[slot];
+        heads[slot] = tails[slot] = null;
+        while (t != null) {
+            Timer next = t.next;
+            t.prev = t.next = null;
+            insert(t);
+            t = next;
+        }
+    }
+
+    private void insert(Timer t) {
+        long delta = t.deadline - now;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << ((level + 1) * BITS)) level++;
+        int slot = level * SLOTS + (int) ((t.deadline >>> (level * BITS)) & MASK);
+        t.slot = slot;
+        t.prev = tails[slot];
+        t.next = null;
+        if (tails[slot] == null) heads[slot] = t;
+        else tails[slot].next = t;
+        tails[slot] = t;
+    }
+
+    private void unlink(Timer t) {
+        int slot = t.slot;
+        if (t.prev == null) heads[slot] = t.next;
+        else t.prev.next = t.next;
+        if (t.next == null) tails[slot] = t.prev;
+        else t.next.prev = t.prev;
+        t.prev = t.next = null;
+        t.slot = -1;
+        pending--;
+    }
+}
@@ -0,0 +1,15 @@
+package com.pacman.model;
+
+/** Tiles kept in a plain {@code TileType[rows][cols]} array (the default store). */
+public final class ArrayTileStore implements TileStore {
+    private final TileType[][] tiles;
+
+    public ArrayTileStore(TileType[][] tiles) {
+        this.tiles = tiles;
+    }
+
+    @Override public int rows() { return tiles.length; }
+    @Override public int cols() { return tiles[0].length; }
+    @Override public TileType get(int row, int col) { return tiles[row][col]; }
+    @Override public void set(int row, int col, TileType type) { tiles[row][col] = type; }
+}
@@ -0,0 +1,216 @@
+package com.pacman.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * Tile store for mazes larger than memory. Tiles live in a file, packed two per byte in
+ * 64x64 chunks; chunks are paged in from a memory mapping on first use, kept in an LRU
+ * cache of at most {@code maxResidentChunks}, and written back when evicted if dirty.
+ *
+ * File layout: a 4096-byte header (magic "PCHK", version, chunk size, rows, cols, pellet
+ * count) followed by the chunks in row-major chunk order, each {@code CHUNK * CHUNK / 2} bytes.
+ * New files are sparse and read as EMPTY. The pellet count is kept up to date by {@link #set}
+ * and written with {@link #flush}, so a map never has to be scanned to count them. Access is
+ * synchronized so the renderer may read while the simulation writes.
+ */
+public final class ChunkedTileStore implements TileStore, Closeable {
+
+    public static final int CHUNK = 64;
+    private static final int CHUNK_TILES = CHUNK * CHUNK;
+    private static final int CHUNK_BYTES = CHUNK_TILES / 2;
+    private static final int MAGIC = 0x4B484350; // "PCHK" read little-endian
+    private static final short VERSION = 2;
+    private static final int HEADER_BYTES = 24;
+    private static final int PELLETS_OFFSET = 16;
+    private static final long DATA_OFFSET = 4096;
+    private static final long SEGMENT_BYTES = 1L << 30; // multiple of CHUNK_BYTES
+    private static final TileType[] TILES = TileType.values();
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final int rows, cols;
+    private final int chunkCols;
+    private final MappedByteBuffer[] segments;
+    private final int maxResident;
+    private final LinkedHashMap<Long, Chunk> resident;
+
+    private final byte[] packed = new byte[CHUNK_BYTES];
+    private long lastKey = -1;
+    private Chunk lastChunk;
+    private long pellets;
+    private long loads, evictions, writeBacks;
+
+    private static final class Chunk {
+        final byte[] tiles = new byte[CHUNK_TILES]; // one ordinal per tile while resident
+        boolean dirty;
+    }
+
+    private ChunkedTileStore(FileChannel channel, int rows, int cols, int maxResidentChunks) throws IOException {
+        if (maxResidentChunks < 1) throw new IllegalArgumentException("maxResidentChunks must be >= 1");
+        this.channel = channel;
+        this.rows = rows;
+        this.cols = cols;
+        this.chunkCols = (cols + CHUNK - 1) / CHUNK;
+        this.maxResident = maxResidentChunks;
+        this.resident = new LinkedHashMap<>(16, 0.75f, true);
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        this.pellets = header.getLong(PELLETS_OFFSET);
+        if (pellets < 0 || pellets > (long) rows * cols) throw new IOException("Corrupt pellet count " + pellets);
+
+        long chunkCount = (long) chunkCols * ((rows + CHUNK - 1) / CHUNK);
+        long dataBytes = chunkCount * CHUNK_BYTES;
+        int segmentCount = (int) ((dataBytes + SEGMENT_BYTES - 1) / SEGMENT_BYTES);
+        this.segments = new MappedByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long start = i * SEGMENT_BYTES;
+            long size = Math.min(SEGMENT_BYTES, dataBytes - start);
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, DATA_OFFSET + start, size);
+        }
+    }
+
+    /** Creates (or truncates) a store file; every tile starts as EMPTY. */
+    public static ChunkedTileStore create(Path file, int rows, int cols, int maxResidentChunks) throws IOException {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("rows and cols must be positive");
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.SPARSE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putShort(VERSION).putShort((short) CHUNK).putInt(rows).putInt(cols).putLong(0).flip();
+            ch.write(header, 0);
+            return new ChunkedTileStore(ch, rows, cols, maxResidentChunks);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    public static ChunkedTileStore open(Path file, int maxResidentChunks) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            ch.read(header, 0);
+            header.flip();
+            if (header.remaining() < HEADER_BYTES || header.getInt() != MAGIC) throw new IOException("Not a chunked map: " + file);
+            short version = header.getShort();
+            short chunk = header.getShort();
+            if (version != VERSION || chunk != CHUNK) throw new IOException("Unsupported chunked map version " + version);
+            return new ChunkedTileStore(ch, header.getInt(), header.getInt(), maxResidentChunks);
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    @Override public int rows() { return rows; }
+    @Override public int cols() { return cols; }
+    @Override public synchronized long pelletCount() { return pellets; }
+
+    @Override
+    public synchronized TileType get(int row, int col) {
+        Chunk chunk = chunkFor(row, col);
+        return TILES[chunk.tiles[(row & (CHUNK - 1)) * CHUNK + (col & (CHUNK - 1))]];
+    }
+
+    @Override
+    public synchronized void set(int row, int col, TileType type) {
+        Chunk chunk = chunkFor(row, col);
+        int i = (row & (CHUNK - 1)) * CHUNK + (col & (CHUNK - 1));
+        if (isPellet(chunk.tiles[i])) pellets--;
+        if (isPellet(type.ordinal())) pellets++;
+        chunk.tiles[i] = (byte) type.ordinal();
+        chunk.dirty = true;
+    }
+
+    /** Writes every dirty resident chunk and the pellet count back to the file and forces them to disk. */
+    public synchronized void flush() {
+        for (java.util.Map.Entry<Long, Chunk> e : resident.entrySet()) {
+            if (e.getValue().dirty) writeBack(e.getKey(), e.getValue());
+        }
+        for (MappedByteBuffer segment : segments) segment.force();
+        header.putLong(PELLETS_OFFSET, pellets);
+        header.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        resident.clear();
+        lastChunk = null;
+        lastKey = -1;
+        channel.close();
+    }
+
+    public synchronized int residentChunks() { return resident.size(); }
+    public synchronized long chunkLoads() { return loads; }
+    public synchronized long chunkEvictions() { return evictions; }
+    public synchronized long chunkWriteBacks() { return writeBacks; }
+
+    private Chunk chunkFor(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("tile " + row + "," + col + " outside " + rows + "x" + cols);
+        }
+        long key = (long) (row / CHUNK) * chunkCols + (col / CHUNK);
+        if (key == lastKey) return lastChunk;
+
+        Chunk chunk = resident.get(key);
+        if (chunk == null) {
+            if (resident.size() >= maxResident) evictEldest();
+            chunk = load(key);
+            resident.put(key, chunk);
+        }
+        lastKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    private static boolean isPellet(int ordinal) {
+        return ordinal == TileType.PACDOT.ordinal() || ordinal == TileType.POWER_PACDOT.ordinal();
+    }
+
+    private void evictEldest() {
+        Iterator<java.util.Map.Entry<Long, Chunk>> it = resident.entrySet().iterator();
+        java.util.Map.Entry<Long, Chunk> eldest = it.next();
+        if (eldest.getValue().dirty) writeBack(eldest.getKey(), eldest.getValue());
+        it.remove();
+        evictions++;
+        if (eldest.getKey() == lastKey) {
+            lastKey = -1;
+            lastChunk = null;
+        }
+    }
+
+    private Chunk load(long key) {
+        Chunk chunk = new Chunk();
+        long offset = key * CHUNK_BYTES;
+        MappedByteBuffer segment = segments[(int) (offset / SEGMENT_BYTES)];
+        segment.get((int) (offset % SEGMENT_BYTES), packed);
+        for (int i = 0; i < CHUNK_BYTES; i++) {
+            int b = packed[i];
+            chunk.tiles[2 * i] = (byte) (b & 0x0F);
+            chunk.tiles[2 * i + 1] = (byte) ((b >> 4) & 0x0F);
+        }
+        loads++;
+        return chunk;
+    }
+
+    private void writeBack(long key, Chunk chunk) {
+        long offset = key * CHUNK_BYTES;
+        MappedByteBuffer segment = segments[(int) (offset / SEGMENT_BYTES)];
+        for (int i = 0; i < CHUNK_BYTES; i++) {
+            packed[i] = (byte) (chunk.tiles[2 * i] | (chunk.tiles[2 * i + 1] << 4));
+        }
+        segment.put((int) (offset % SEGMENT_BYTES), packed);
+        chunk.dirty = false;
+        writeBacks++;
+    }
+}
@@ -0,0 +1,160 @@
+package com.pacman.model;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A map compiled by {@link MapCompiler} into the binary {@code .pmap} format.
+ *
+ * Layout (little-endian, 64-byte header):
+ * <pre>
+ *  0  int   magic "PMAP"
+ *  4  short version
+ *  6  short reserved
+ *  8  int   rows
+ * 12  int   cols
+ * 16  int   player spawn x, y (2 ints)
+ * 24  int   ghost spawn x, y (2 ints)
+ * 32  int   pellet count (pellets + power pellets)
+ * 36  int   flags: bit 0 set when {@link MapValidator} found the map playable from these spawns
+ * 40  long  offset of walkability bitset (one bit per tile, long words)
+ * 48  long  reserved (0)
+ * 56  long  offset of nearest-walkable table (int tile index per tile)
+ * 64  tiles, packed two per byte (see {@link PackedTileStore})
+ * </pre>
+ * Tile indices are {@code row * cols + col}. Opening a file only maps it and reads the header,
+ * so the cost does not depend on map size; the header sizes are checked against the file
+ * before anything is read past it. {@link #toMap} hands the pellet count, the walkability
+ * bits and the nearest-walkable table to the map, so loading one scans no tiles.
+ */
+public final class CompiledMap {
+
+    static final int MAGIC = 0x50414D50; // "PMAP" read little-endian
+    static final short VERSION = 2;
+    static final int HEADER_SIZE = 64;
+    static final int FLAG_PLAYABLE = 1;
+
+    private final ByteBuffer data;
+    private final int rows, cols;
+    private final int playerSpawnX, playerSpawnY;
+    private final int ghostSpawnX, ghostSpawnY;
+    private final int pelletCount;
+    private final int flags;
+    private final LongBuffer walkable;
+    private final IntBuffer nearest;
+
+    private CompiledMap(ByteBuffer data) throws IOException {
+        this.data = data.order(ByteOrder.LITTLE_ENDIAN);
+        if (data.limit() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a .pmap file");
+        }
+        short version = data.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported .pmap version " + version + " (expected " + VERSION + ")");
+        }
+        rows = data.getInt(8);
+        cols = data.getInt(12);
+        playerSpawnX = data.getInt(16);
+        playerSpawnY = data.getInt(20);
+        ghostSpawnX = data.getInt(24);
+        ghostSpawnY = data.getInt(28);
+        pelletCount = data.getInt(32);
+        flags = data.getInt(36);
+        if (rows <= 0 || cols <= 0) {
+            throw new IOException("Corrupt .pmap file: " + rows + "x" + cols + " tiles");
+        }
+        long tiles = (long) rows * cols;
+        if (HEADER_SIZE + PackedTileStore.byteSize(rows, cols) > data.limit()) {
+            throw new IOException("Corrupt .pmap file: " + rows + "x" + cols + " tiles do not fit in "
+                    + data.limit() + " bytes");
+        }
+        if (pelletCount < 0 || pelletCount > tiles) {
+            throw new IOException("Corrupt .pmap file: pellet count " + pelletCount);
+        }
+        walkable = slice(data.getLong(40), (tiles + 63) / 64 * 8).asLongBuffer();
+        nearest = slice(data.getLong(56), tiles * 4).asIntBuffer();
+    }
+
+    /**
+     * Maps a .pmap file privately: tile changes made through {@link #toMap} stay in memory
+     * (copy-on-write) and never reach the file. A private mapping needs a writable channel;
+     * files that cannot be opened or mapped that way (no write permission, a read-only file
+     * system or medium) are mapped read-only and the tiles are copied on {@link #toMap}.
+     */
+    public static CompiledMap open(Path path) throws IOException {
+        ByteBuffer data;
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            data = map(ch, FileChannel.MapMode.PRIVATE, path);
+        } catch (IOException e) {
+            try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+                data = map(ch, FileChannel.MapMode.READ_ONLY, path);
+            } catch (IOException readOnly) {
+                readOnly.addSuppressed(e);
+                throw readOnly;
+            }
+        }
+        return new CompiledMap(data);
+    }
+
+    private static ByteBuffer map(FileChannel ch, FileChannel.MapMode mode, Path path) throws IOException {
+        if (ch.size() > Integer.MAX_VALUE) throw new IOException("Compiled map too large: " + path);
+        return ch.map(mode, 0, ch.size());
+    }
+
+    /** Wraps compiled bytes that are already in memory (e.g. read from a jar resource). */
+    public static CompiledMap wrap(ByteBuffer bytes) throws IOException {
+        return new CompiledMap(bytes.duplicate());
+    }
+
+    public int rows() { return rows; }
+    public int cols() { return cols; }
+    public int playerSpawnX() { return playerSpawnX; }
+    public int playerSpawnY() { return playerSpawnY; }
+    public int ghostSpawnX() { return ghostSpawnX; }
+    public int ghostSpawnY() { return ghostSpawnY; }
+    public int pelletCount() { return pelletCount; }
+    /** The compiler found every pellet reachable and no spawn in a wall, so loading can skip the check. */
+    public boolean checkedPlayable() { return (flags & FLAG_PLAYABLE) != 0; }
+
+    /** Walkability as compiled (ignores later tile changes). */
+    public boolean isWalkable(int col, int row) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) return false;
+        int idx = row * cols + col;
+        return (walkable.get(idx >>> 6) & (1L << (idx & 63))) != 0;
+    }
+
+    /** Index of the nearest walkable tile (4-connected distance); the tile itself when walkable. */
+    public int nearestWalkableIndex(int col, int row) {
+        return nearest.get(row * cols + col);
+    }
+
+    /**
+     * A playable Map backed directly by the mapped tiles, with the pellet count, walkability bits
+     * and nearest-walkable table installed.
+     */
+    public Map toMap(int tileSize) {
+        ByteBuffer tiles = data;
+        if (data.isReadOnly()) {
+            int size = (int) PackedTileStore.byteSize(rows, cols);
+            tiles = ByteBuffer.allocate(HEADER_SIZE + size).put(HEADER_SIZE, data, HEADER_SIZE, size);
+        }
+        Map map = new Map(new PackedTileStore(tiles, HEADER_SIZE, rows, cols), tileSize);
+        map.setNearestWalkableTable(nearest.duplicate());
+        map.setWalkableBits(walkable.duplicate());
+        map.setPelletCount(pelletCount);
+        return map;
+    }
+
+    private ByteBuffer slice(long offset, long length) throws IOException {
+        if (offset < HEADER_SIZE || length > data.limit() - offset) {
+            throw new IOException("Corrupt .pmap file: section out of bounds");
+        }
+        return data.slice((int) offset, (int) length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,378 @@
+package com.pacman.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+/**
+ * Leaderboard of finished games, kept in an append-only log with an in-memory top-N per map.
+ *
+ * Layout (little-endian): an 8-byte header (int magic "PHSC", short version, short reserved),
+ * then records of
+ * <pre>
+ *  int   payload length
+ *  int   CRC32C of the payload
+ *  long  timestamp (epoch millis), int score, int lives left, long duration (millis), long seed,
+ *  short map id length, map id (UTF-8)
+ * </pre>
+ * {@link #record} only updates the index and queues the entry; a writer thread appends whatever
+ * has queued up and fsyncs once per batch (group commit). A record torn by a power cut fails its
+ * checksum and is cut off when the log is next opened. When the log holds well over what the
+ * index needs, the writer rewrites it with only the top entries and swaps it in atomically.
+ */
+public final class HighScores implements Closeable {
+
+    /** One finished game. */
+    public static final class Entry {
+        private final int score, livesLeft;
+        private final long durationMillis, seed, timestampMillis;
+        private final String mapId;
+
+        public Entry(String mapId, int score, int livesLeft, long durationMillis, long seed, long timestampMillis) {
+            if (mapId.getBytes(StandardCharsets.UTF_8).length > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("map id too long");
+            }
+            this.mapId = mapId;
+            this.score = score;
+            this.livesLeft = livesLeft;
+            this.durationMillis = durationMillis;
+            this.seed = seed;
+            this.timestampMillis = timestampMillis;
+        }
+
+        public String mapId() { return mapId; }
+        public int score() { return score; }
+        public int livesLeft() { return livesLeft; }
+        public long durationMillis() { return durationMillis; }
+        public long seed() { return seed; }
+        public long timestampMillis() { return timestampMillis; }
+
+        @Override
+        public String toString() {
+            return mapId + ": " + score + " (" + livesLeft + " lives, " + durationMillis + " ms, seed " + seed + ")";
+        }
+    }
+
+    static final int MAGIC = 0x43534850; // "PHSC" read little-endian
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    private static final int FIXED_PAYLOAD = 8 + 4 + 4 + 8 + 8 + 2;
+    private static final int MIN_COMPACT_RECORDS = 256;
+
+    // best score first; equal scores keep the earlier game first
+    private static final Comparator<Entry> RANKING =
+            Comparator.comparingInt(Entry::score).reversed().thenComparingLong(Entry::timestampMillis);
+
+    private final Path file;
+    private final int topN;
+    private final ConcurrentHashMap<String, List<Entry>> index = new ConcurrentHashMap<>();
+
+    // guarded by this: entries waiting for the writer, and how far the log is durable
+    private List<Entry> queue = new ArrayList<>();
+    private long queued, durable;
+    private boolean compactRequested, closing;
+    private IOException failure;
+
+    // writer thread only
+    private FileChannel channel;
+    private long logRecords;
+    private ByteBuffer scratch = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+    private volatile long commits, compactions;
+    private final Thread writer;
+
+    private HighScores(Path file, int topN) {
+        this.file = file;
+        this.topN = topN;
+        this.writer = new Thread(this::writeLoop, "highscore-writer");
+        writer.setDaemon(true);
+    }
+
+    /** Opens or creates the log, dropping a torn tail, and starts the writer thread. */
+    public static HighScores open(Path file, int topN) throws IOException {
+        if (topN <= 0) throw new IllegalArgumentException("topN must be > 0");
+        HighScores scores = new HighScores(file, topN);
+        scores.load();
+        scores.writer.start();
+        return scores;
+    }
+
+    /** Adds a finished game. Never blocks on I/O; call {@link #flush()} to wait until it is on disk. */
+    public synchronized void record(Entry entry) {
+        if (closing) throw new IllegalStateException("closed");
+        // indexed before it is queued, so a compaction never drops an entry it has not seen
+        index(entry);
+        queue.add(entry);
+        queued++;
+        notifyAll();
+    }
+
+    /** Best games on {@code mapId}, best first; an unmodifiable list that is never changed later. */
+    public List<Entry> top(String mapId) {
+        return index.getOrDefault(mapId, List.of());
+    }
+
+    /** Copies the best scores on {@code mapId} into {@code out}; returns how many there are. */
+    public int topScores(String mapId, int[] out) {
+        List<Entry> top = top(mapId);
+        int n = Math.min(out.length, top.size());
+        for (int i = 0; i < n; i++) out[i] = top.get(i).score();
+        return n;
+    }
+
+    public int topN() { return topN; }
+    /** Batches written and fsynced so far. */
+    public long commits() { return commits; }
+    public long compactions() { return compactions; }
+
+    /** Waits until everything recorded so far is durable; rethrows a write failure. */
+    public synchronized void flush() throws IOException {
+        long target = queued;
+        while (durable < target && failure == null) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while flushing high scores", e);
+            }
+        }
+        if (failure != null) throw failure;
+    }
+
+    /** Asks the writer to rewrite the log with only the indexed entries. */
+    public synchronized void compact() {
+        compactRequested = true;
+        notifyAll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closing) return;
+            closing = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (failure != null) throw failure;
+        }
+    }
+
+    private void index(Entry entry) {
+        index.compute(entry.mapId(), (id, top) -> {
+            if (top == null) return List.of(entry);
+            if (top.size() == topN && RANKING.compare(entry, top.get(topN - 1)) >= 0) return top;
+            Entry[] next = top.toArray(new Entry[Math.min(topN, top.size() + 1)]);
+            int i = Math.min(top.size(), topN - 1);
+            while (i > 0 && RANKING.compare(entry, next[i - 1]) < 0) {
+                next[i] = next[i - 1];
+                i--;
+            }
+            next[i] = entry;
+            return List.of(next);
+        });
+    }
+
+    private void load() throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = channel.size();
+        if (size == 0) {
+            writeHeader(channel);
+            channel.force(true);
+            return;
+        }
+        if (size > Integer.MAX_VALUE) throw new IOException("High score log too large: " + file);
+        ByteBuffer data = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        while (data.hasRemaining() && channel.read(data, data.position()) >= 0) { }
+        data.flip();
+        if (data.remaining() < HEADER_SIZE || data.getInt(0) != MAGIC) {
+            throw new IOException("Not a high score log: " + file);
+        }
+        short version = data.getShort(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported high score log version " + version + " (expected " + VERSION + ")");
+        }
+        int pos = HEADER_SIZE;
+        CRC32C crc = new CRC32C();
+        while (pos + 8 <= data.limit()) {
+            int length = data.getInt(pos);
+            if (length < FIXED_PAYLOAD || length > data.limit() - pos - 8) break;
+            crc.reset();
+            crc.update(data.slice(pos + 8, length));
+            if ((int) crc.getValue() != data.getInt(pos + 4)) break;
+            Entry e = decode(data.slice(pos + 8, length).order(ByteOrder.LITTLE_ENDIAN));
+            if (e == null) break;
+            index(e);
+            logRecords++;
+            pos += 8 + length;
+        }
+        if (pos < data.limit()) {
+            System.err.println("High score log " + file + ": dropped " + (data.limit() - pos)
+                    + " bytes of incomplete or corrupt records");
+            channel.truncate(pos);
+            channel.force(true);
+        }
+        channel.position(pos);
+        if (logRecords > MIN_COMPACT_RECORDS + 2L * indexedEntries()) compactRequested = true;
+    }
+
+    private static Entry decode(ByteBuffer p) {
+        long timestamp = p.getLong();
+        int score = p.getInt();
+        int lives = p.getInt();
+        long duration = p.getLong();
+        long seed = p.getLong();
+        int idLength = p.getShort();
+        if (idLength < 0 || idLength != p.remaining()) return null;
+        byte[] id = new byte[idLength];
+        p.get(id);
+        return new Entry(new String(id, StandardCharsets.UTF_8), score, lives, duration, seed, timestamp);
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<Entry> batch, keep = null;
+            boolean stop;
+            long batchEnd;
+            synchronized (this) {
+                while (queue.isEmpty() && !compactRequested && !closing) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        closing = true;
+                    }
+                }
+                batch = queue;
+                queue = new ArrayList<>();
+                batchEnd = queued;
+                // taken with the batch, so a compaction never writes entries still queued: they
+                // would be appended again afterwards
+                if (compactRequested || logRecords + batch.size() > MIN_COMPACT_RECORDS + 2L * indexedEntries()) {
+                    keep = new ArrayList<>();
+                    for (List<Entry> top : index.values()) keep.addAll(top);
+                }
+                compactRequested = false;
+                stop = closing;
+            }
+            try {
+                if (!batch.isEmpty()) append(batch);
+                if (keep != null) rewrite(keep);
+                synchronized (this) {
+                    durable = batchEnd;
+                    notifyAll();
+                }
+            } catch (IOException e) {
+                synchronized (this) {
+                    failure = e;
+                    notifyAll();
+                }
+                System.err.println("High scores not saved: " + e.getMessage());
+                stop = true;
+            }
+            if (stop) {
+                synchronized (this) {
+                    if (!queue.isEmpty() && failure == null) continue;
+                }
+                try {
+                    channel.close();
+                } catch (IOException ignored) { }
+                return;
+            }
+        }
+    }
+
+    private void append(List<Entry> batch) throws IOException {
+        scratch.clear();
+        for (Entry e : batch) encode(e);
+        scratch.flip();
+        while (scratch.hasRemaining()) channel.write(scratch);
+        channel.force(false);
+        logRecords += batch.size();
+        commits++;
+    }
+
+    private void encode(Entry e) {
+        byte[] id = e.mapId().getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_PAYLOAD + id.length;
+        if (scratch.remaining() < 8 + length) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(scratch.capacity() * 2, scratch.position() + 8 + length))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            scratch.flip();
+            bigger.put(scratch);
+            scratch = bigger;
+        }
+        int start = scratch.position();
+        scratch.putInt(length).putInt(0);
+        scratch.putLong(e.timestampMillis()).putInt(e.score()).putInt(e.livesLeft())
+                .putLong(e.durationMillis()).putLong(e.seed()).putShort((short) id.length).put(id);
+        CRC32C crc = new CRC32C();
+        crc.update(scratch.slice(start + 8, length));
+        scratch.putInt(start + 4, (int) crc.getValue());
+    }
+
+    /** Writes {@code keep} (the indexed entries) to a new file, then atomically replaces the log with it. */
+    private void rewrite(List<Entry> keep) throws IOException {
+        keep.sort(Comparator.comparingLong(Entry::timestampMillis));
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeHeader(out);
+            scratch.clear();
+            for (Entry e : keep) encode(e);
+            scratch.flip();
+            while (scratch.hasRemaining()) out.write(scratch);
+            out.force(true);
+        }
+        channel.close();
+        try {
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(file.toAbsolutePath().getParent());
+            logRecords = keep.size();
+            compactions++;
+        } finally {
+            // on failure the old log is still in place; keep appending to it
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            channel.position(channel.size());
+        }
+    }
+
+    private int indexedEntries() {
+        int n = 0;
+        for (List<Entry> top : index.values()) n += top.size();
+        return n;
+    }
+
+    private static void writeHeader(FileChannel ch) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).putShort((short) 0).flip();
+        while (header.hasRemaining()) ch.write(header, HEADER_SIZE - header.remaining());
+        ch.position(HEADER_SIZE);
+    }
+
+    /** Makes the rename itself durable; not every platform can open a directory, which is fine. */
+    private static void syncDirectory(Path dir) {
+        if (dir == null) return;
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException | UnsupportedOperationException ignored) { }
+    }
+}
@@ -0,0 +1,405 @@
+package com.pacman.model;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+/**
+ * The maze reduced to junctions and the corridors between them.
+ *
+ * Every walkable tile with other than two exits (crossings, T-junctions, dead ends) is a node;
+ * a corridor is the run of two-exit tiles from one node to the next, stored per node and exit
+ * direction with its length, the node it reaches and the direction taken at each step. AI only
+ * has to decide at nodes and routes over this graph instead of over tiles. Columns wrap, the
+ * same way {@link com.pacman.logic.MovementSystem} moves.
+ *
+ * Nothing is built up front: exits are read from the map, and a node and its corridors are
+ * found the first time a lookup or a route reaches them, so only the area around the ghosts
+ * is ever held and a chunked map of any size works. Node ids are handed out in that order.
+ * The graph listens to its map and starts over on next use after a tile changes walkability,
+ * or once it holds {@link #MAX_NODES} nodes; eating pellets does not invalidate it. Node ids
+ * stay valid until then. Not thread-safe: use it from the game thread.
+ */
+public final class JunctionGraph implements Map.TileListener {
+
+    private static final Direction[] DIRS = {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+    private static final int NO_NODE = -1;
+    private static final int UNWALKED = -2;
+    // A* expansions per route; past that the best partial path is taken
+    private static final int MAX_EXPANSIONS = 4096;
+    // Nodes held at once before the graph starts over; a route adds at most 4 per expansion
+    static final int MAX_NODES = 1 << 18;
+
+    private final Map map;
+    private final int rows, cols;
+    private boolean stale = true;
+
+    private int nodeCount;
+    private long[] nodeTile = new long[0]; // row * cols + col, as a long for chunked maps
+    private byte[] nodeExits = new byte[0];
+    // open-addressing tile -> node id, keys stored as tile + 1 (0 = empty)
+    private long[] slotKey = new long[0];
+    private int[] slotNode = new int[0];
+    // per node * 4 + direction: corridor end node (NO_NODE when no exit, UNWALKED until first
+    // asked for), length, path offset
+    private int[] edgeTo = new int[0], edgeLength = new int[0], edgePath = new int[0];
+    private byte[] path = new byte[0];
+    private int pathUsed;
+
+    // route scratch, reused between calls
+    private int[] gScore = new int[0], stamp = new int[0], heap = new int[0], heapKey = new int[0];
+    private byte[] firstStep = new byte[0], arriveDir = new byte[0];
+    private int generation;
+    private long routes;
+
+    public JunctionGraph(Map map) {
+        this.map = map;
+        this.rows = map.rows();
+        this.cols = map.cols();
+        map.addTileListener(this);
+    }
+
+    @Override
+    public void tileChanged(int row, int col, TileType before, TileType after) {
+        if (Map.isWalkable(before) != Map.isWalkable(after)) stale = true;
+    }
+
+    /** Junctions in the whole map. Scans every tile, so it is meant for tests and tools, not play. */
+    public long nodeCount() {
+        long count = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int ex = exitsAt(c, r);
+                if (ex != 0 && Integer.bitCount(ex) != 2) count++;
+            }
+        }
+        return count;
+    }
+
+    /** Nodes found so far, for measuring how much of the map the AI has looked at. */
+    public int nodesFound() { prepare(); return nodeCount; }
+
+    /** Routes computed so far, for measuring how often the AI has to think. */
+    public long routes() { return routes; }
+
+    /** True when the tile is walkable and has other than two exits. */
+    public boolean isJunction(int x, int y) {
+        if (!inside(x, y)) return false;
+        int ex = exitsAt(Math.floorMod(x, cols), y);
+        return ex != 0 && Integer.bitCount(ex) != 2;
+    }
+
+    /** Exits of a tile as a bit set over {@link Direction#ordinal()} (UP, DOWN, LEFT, RIGHT). */
+    public int exits(int x, int y) {
+        return inside(x, y) ? exitsAt(Math.floorMod(x, cols), y) : 0;
+    }
+
+    /** Node id of a junction tile, or -1. */
+    public int node(int x, int y) {
+        prepare();
+        if (!isJunction(x, y)) return NO_NODE;
+        return nodeFor((long) y * cols + Math.floorMod(x, cols));
+    }
+
+    public int nodeX(int node) { return (int) (nodeTile[node] % cols); }
+    public int nodeY(int node) { return (int) (nodeTile[node] / cols); }
+
+    /** Node reached by leaving {@code node} in {@code d}, or -1 when that side is a wall. */
+    public int corridorEnd(int node, Direction d) { return edgeTo[edge(node, d.ordinal())]; }
+
+    /** Number of steps from {@code node} to the next node along {@code d}. */
+    public int corridorLength(int node, Direction d) { return edgeLength[edge(node, d.ordinal())]; }
+
+    /** Direction taken at step {@code i} (0-based) of the corridor leaving {@code node} in {@code d}. */
+    public Direction corridorStep(int node, Direction d, int i) {
+        int e = edge(node, d.ordinal());
+        if (i < 0 || i >= edgeLength[e]) throw new IndexOutOfBoundsException("step " + i);
+        return DIRS[path[edgePath[e] + i]];
+    }
+
+    /**
+     * Direction to keep following a corridor: the exit of two-exit tile (x, y) that does not lead
+     * back the way {@code heading} came. NONE for junctions and walls.
+     */
+    public Direction corridorExit(int x, int y, Direction heading) {
+        if (!inside(x, y) || heading == Direction.NONE) return Direction.NONE;
+        int ex = exitsAt(Math.floorMod(x, cols), y);
+        if (Integer.bitCount(ex) != 2) return Direction.NONE;
+        int rest = ex & ~(1 << reverse(heading.ordinal()));
+        return rest == 0 ? Direction.NONE : DIRS[Integer.numberOfTrailingZeros(rest)];
+    }
+
+    /**
+     * First direction out of junction (x, y), entered while moving {@code heading}, on the
+     * shortest corridor path to target tile (tx, ty). Turning back is only allowed at dead ends.
+     * Returns NONE when (x, y) is not a junction or the target cannot be reached.
+     */
+    public Direction route(int x, int y, Direction heading, int tx, int ty) {
+        int start = node(x, y);
+        if (start == NO_NODE) return Direction.NONE;
+        routes++;
+        int banned = heading == Direction.NONE ? -1 : reverse(heading.ordinal());
+        if (Integer.bitCount(nodeExits[start]) == 1) banned = -1;
+
+        // Where the target sits: a node, or a corridor tile reached from its two end nodes
+        int goalNode = NO_NODE, endA = NO_NODE, endB = NO_NODE, offA = 0, offB = 0, dirA = -1, dirB = -1;
+        tx = Math.floorMod(tx, cols);
+        int ex = inside(tx, ty) ? exitsAt(tx, ty) : 0;
+        if (ex != 0) {
+            long t = (long) ty * cols + tx;
+            if (Integer.bitCount(ex) != 2) {
+                goalNode = nodeFor(t);
+            } else {
+                int d1 = Integer.numberOfTrailingZeros(ex);
+                int d2 = Integer.numberOfTrailingZeros(ex & ~(1 << d1));
+                long a = walkToNode(t, d1), b = walkToNode(t, d2);
+                if (a < 0 || b < 0) return Direction.NONE;
+                endA = (int) (a >>> 34); offA = (int) (a >>> 2) & 0xFFFFFFF; dirA = reverse((int) (a & 3));
+                endB = (int) (b >>> 34); offB = (int) (b >>> 2) & 0xFFFFFFF; dirB = reverse((int) (b & 3));
+            }
+        } else {
+            return Direction.NONE;
+        }
+        if (goalNode == start) return Direction.NONE;
+
+        int gen = ++generation;
+        int heapSize = 0;
+        int best = Integer.MAX_VALUE, bestDir = -1;
+        int closest = Integer.MAX_VALUE, closestDir = -1;
+
+        for (int d = 0; d < 4; d++) {
+            if (d == banned) continue;
+            int e = edge(start, d);
+            if (edgeTo[e] == NO_NODE) continue;
+            // target on this very corridor
+            if (endA == start && dirA == d && offA < best) { best = offA; bestDir = d; }
+            if (endB == start && dirB == d && offB < best) { best = offB; bestDir = d; }
+            int n = edgeTo[e];
+            int g = edgeLength[e];
+            if (stamp[n] != gen || g < gScore[n]) {
+                stamp[n] = gen;
+                gScore[n] = g;
+                firstStep[n] = (byte) d;
+                arriveDir[n] = path[edgePath[e] + g - 1];
+                heapSize = push(heapSize, n, g + estimate(n, tx, ty));
+            }
+        }
+
+        int expansions = 0;
+        while (heapSize > 0 && expansions < MAX_EXPANSIONS) {
+            int n = heap[0], f = heapKey[0];
+            heapSize = pop(heapSize);
+            int g = gScore[n];
+            int h = estimate(n, tx, ty);
+            if (f > g + h) continue; // superseded by a shorter path to n
+            if (f >= best) break;
+            expansions++;
+
+            if (h < closest) { closest = h; closestDir = firstStep[n]; }
+            if (n == goalNode) { best = g; bestDir = firstStep[n]; break; }
+            if (n == endA && g + offA < best) { best = g + offA; bestDir = firstStep[n]; }
+            if (n == endB && g + offB < best) { best = g + offB; bestDir = firstStep[n]; }
+
+            int back = reverse(arriveDir[n]);
+            for (int d = 0; d < 4; d++) {
+                if (d == back && Integer.bitCount(nodeExits[n]) > 1) continue;
+                int e = edge(n, d);
+                int m = edgeTo[e];
+                if (m == NO_NODE) continue;
+                int gm = g + edgeLength[e];
+                if (stamp[m] != gen || gm < gScore[m]) {
+                    stamp[m] = gen;
+                    gScore[m] = gm;
+                    firstStep[m] = firstStep[n];
+                    arriveDir[m] = path[edgePath[e] + edgeLength[e] - 1];
+                    heapSize = push(heapSize, m, gm + estimate(m, tx, ty));
+                }
+            }
+        }
+        int d = bestDir >= 0 ? bestDir : closestDir;
+        return d < 0 ? Direction.NONE : DIRS[d];
+    }
+
+    // --- finding nodes and corridors ---
+
+    /** Starts over after walls changed or once the graph has grown past {@link #MAX_NODES}. */
+    private void prepare() {
+        if (!stale && nodeCount <= MAX_NODES) return;
+        nodeCount = 0;
+        pathUsed = 0;
+        slotKey = new long[64];
+        slotNode = new int[64];
+        if (nodeTile.length > 64) grow(64);
+        stale = false;
+    }
+
+    /** Id of the node at junction tile t, found now if it was not yet. */
+    private int nodeFor(long t) {
+        int mask = slotKey.length - 1;
+        int s = slot(t, mask);
+        for (; slotKey[s] != 0; s = (s + 1) & mask) {
+            if (slotKey[s] == t + 1) return slotNode[s];
+        }
+        int node = nodeCount++;
+        if (node == nodeTile.length) grow(Math.max(64, node * 2));
+        nodeTile[node] = t;
+        nodeExits[node] = (byte) exitsAt((int) (t % cols), (int) (t / cols));
+        Arrays.fill(edgeTo, node * 4, node * 4 + 4, UNWALKED);
+        if (2 * nodeCount > slotKey.length) {
+            slotKey = new long[slotKey.length * 2];
+            slotNode = new int[slotKey.length];
+            for (int i = 0; i < nodeCount; i++) insert(nodeTile[i], i);
+        } else {
+            slotKey[s] = t + 1;
+            slotNode[s] = node;
+        }
+        return node;
+    }
+
+    private void insert(long t, int node) {
+        int mask = slotKey.length - 1;
+        int s = slot(t, mask);
+        while (slotKey[s] != 0) s = (s + 1) & mask;
+        slotKey[s] = t + 1;
+        slotNode[s] = node;
+    }
+
+    private static int slot(long t, int mask) {
+        return (int) ((t * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+    }
+
+    /** Resizes the per-node arrays, the route scratch included, to {@code capacity} nodes. */
+    private void grow(int capacity) {
+        nodeTile = Arrays.copyOf(nodeTile, capacity);
+        nodeExits = Arrays.copyOf(nodeExits, capacity);
+        edgeTo = Arrays.copyOf(edgeTo, capacity * 4);
+        edgeLength = Arrays.copyOf(edgeLength, capacity * 4);
+        edgePath = Arrays.copyOf(edgePath, capacity * 4);
+        gScore = Arrays.copyOf(gScore, capacity);
+        stamp = Arrays.copyOf(stamp, capacity); // a route in progress keeps its marks
+        firstStep = Arrays.copyOf(firstStep, capacity);
+        arriveDir = Arrays.copyOf(arriveDir, capacity);
+    }
+
+    /** Index of the corridor leaving {@code node} in direction d, walked the first time it is asked for. */
+    private int edge(int node, int d) {
+        int e = node * 4 + d;
+        if (edgeTo[e] != UNWALKED) return e;
+        if ((nodeExits[node] & (1 << d)) == 0) {
+            edgeTo[e] = NO_NODE;
+            return e;
+        }
+        int start = pathUsed, len = 0, dir = d;
+        long t = nodeTile[node];
+        while (true) {
+            if (pathUsed == path.length) path = Arrays.copyOf(path, Math.max(64, pathUsed * 2));
+            path[pathUsed++] = (byte) dir;
+            len++;
+            t = step(t, dir);
+            int ex = exitsAt((int) (t % cols), (int) (t / cols));
+            if (Integer.bitCount(ex) != 2) break;
+            dir = Integer.numberOfTrailingZeros(ex & ~(1 << reverse(dir)));
+        }
+        int end = nodeFor(t); // may grow the arrays, so written after
+        edgeTo[e] = end;
+        edgeLength[e] = len;
+        edgePath[e] = start;
+        return e;
+    }
+
+    /**
+     * Follows a corridor from tile t starting in d; packs (node << 34) | (steps << 2) | lastDir,
+     * or returns -1 when the corridor is a loop without any node.
+     */
+    private long walkToNode(long t, int d) {
+        long start = t;
+        int steps = 0, dir = d;
+        while (true) {
+            t = step(t, dir);
+            steps++;
+            int ex = exitsAt((int) (t % cols), (int) (t / cols));
+            if (Integer.bitCount(ex) != 2) return ((long) nodeFor(t) << 34) | ((long) steps << 2) | dir;
+            if (t == start) return -1;
+            dir = Integer.numberOfTrailingZeros(ex & ~(1 << reverse(dir)));
+        }
+    }
+
+    private long step(long t, int d) {
+        long r = t / cols, c = t % cols;
+        return switch (d) {
+            case 0 -> t - cols;
+            case 1 -> t + cols;
+            case 2 -> r * cols + (c == 0 ? cols - 1 : c - 1);
+            default -> r * cols + (c == cols - 1 ? 0 : c + 1);
+        };
+    }
+
+    private static int reverse(int d) {
+        return d ^ 1; // UP<->DOWN, LEFT<->RIGHT
+    }
+
+    private boolean inside(int x, int y) {
+        return y >= 0 && y < rows && cols > 0;
+    }
+
+    /** Exits of tile (x, y), x already wrapped; 0 for walls. A compiled map's bitset answers without reading tiles. */
+    private int exitsAt(int x, int y) {
+        LongBuffer bits = map.walkableBits();
+        if (!walkable(bits, x, y)) return 0;
+        int ex = 0;
+        if (walkable(bits, x, y - 1)) ex |= 1;
+        if (walkable(bits, x, y + 1)) ex |= 2;
+        if (walkable(bits, x == 0 ? cols - 1 : x - 1, y)) ex |= 4;
+        if (walkable(bits, x == cols - 1 ? 0 : x + 1, y)) ex |= 8;
+        return ex;
+    }
+
+    private boolean walkable(LongBuffer bits, int x, int y) {
+        if (bits == null) return map.isWalkable(x, y);
+        if (y < 0 || y >= rows || x < 0 || x >= cols) return false;
+        long t = (long) y * cols + x;
+        return (bits.get((int) (t >>> 6)) & (1L << (t & 63))) != 0;
+    }
+
+    // --- A* open set: binary heap of nodes keyed by g + estimate; stale entries are skipped on pop ---
+
+    private int estimate(int node, int tx, int ty) {
+        long t = nodeTile[node];
+        int dx = Math.abs((int) (t % cols) - tx);
+        return Math.min(dx, cols - dx) + Math.abs((int) (t / cols) - ty);
+    }
+
+    private int push(int size, int node, int key) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, Math.max(16, size * 2));
+            heapKey = Arrays.copyOf(heapKey, heap.length);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKey[parent] <= key) break;
+            heap[i] = heap[parent];
+            heapKey[i] = heapKey[parent];
+            i = parent;
+        }
+        heap[i] = node;
+        heapKey[i] = key;
+        return size;
+    }
+
+    private int pop(int size) {
+        int last = heap[--size], key = heapKey[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && heapKey[child + 1] < heapKey[child]) child++;
+            if (heapKey[child] >= key) break;
+            heap[i] = heap[child];
+            heapKey[i] = heapKey[child];
+            i = child;
+        }
+        heap[i] = last;
+        heapKey[i] = key;
+        return size;
+    }
+}
@@ -1,54 +1,143 @@
 package com.pacman.model;
 
 import java.awt.Graphics2D;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Map {
+
+    /** Notified after a tile is changed through {@link #setTile}, on the thread that changed it. */
+    public interface TileListener {
+        void tileChanged(int row, int col, TileType before, TileType after);
+    }
+
     private final int TILE_SIZE;
     private final int COLS;
     private final int ROWS;
-    private final TileType[][] tiles;
+    private final TileStore tiles;
+
+    // Optional precomputed nearest-walkable cell per tile (from a compiled map); dropped when walls change
+    private IntBuffer nearestWalkable;
+    // Optional walkability bitset (from a compiled map), bit row * cols + col; dropped when walls change
+    private LongBuffer walkableBits;
+
+    // Pellets left, taken from the store or counted once on first use and then kept up to date by
+    // setTile (-1 = not counted yet)
+    private long pellets = -1;
+    private final List<TileListener> listeners = new CopyOnWriteArrayList<>();
 
     public Map(TileType[][] tiles, int tileSize) {
-        if (tiles == null || tiles.length == 0 || tiles[0].length == 0) {
+        this(checked(tiles), tileSize);
+    }
+
+    public Map(TileStore tiles, int tileSize) {
+        if (tiles.rows() <= 0 || tiles.cols() <= 0) {
             throw new IllegalArgumentException("tiles must be non-empty");
         }
-        this.ROWS = tiles.length;
-        this.COLS = tiles[0].length;
+        this.ROWS = tiles.rows();
+        this.COLS = tiles.cols();
         this.tiles = tiles;
         this.TILE_SIZE = tileSize;
     }
 
+    private static TileStore checked(TileType[][] tiles) {
+        if (tiles == null || tiles.length == 0 || tiles[0].length == 0) {
+            throw new IllegalArgumentException("tiles must be non-empty");
+        }
+        return new ArrayTileStore(tiles);
+    }
+
     public int rows() { return ROWS; }
     public int cols() { return COLS; }
     public int tileSize() { return TILE_SIZE; }
 
     public boolean isWalkable(int col, int row) {
         if (row < 0 || row >= ROWS || col < 0 || col >= COLS) return false;
-        TileType t = tiles[row][col];
+        return isWalkable(tiles.get(row, col));
+    }
+
+    public static boolean isWalkable(TileType t) {
         return switch (t) {
             case EMPTY, PACDOT, POWER_PACDOT, GHOST_GATE -> true;
             case WALL -> false;
         };
     }
 
-    public int countPellets() {
-        int count = 0;
-        for (int r=0; r<ROWS; r++) for (int c=0; c<COLS; c++) {
-            if (tiles[r][c] == TileType.PACDOT) count++;
-            else if (tiles[r][c] == TileType.POWER_PACDOT) count++;
+    /** Pellets left; a long, since a chunked map can hold more than an int of them. */
+    public long countPellets() {
+        if (pellets < 0) pellets = tiles.pelletCount();
+        if (pellets < 0) {
+            long count = 0;
+            for (int r=0; r<ROWS; r++) for (int c=0; c<COLS; c++) {
+                if (isPellet(tiles.get(r, c))) count++;
+            }
+            pellets = count;
         }
-        return count;
+        return pellets;
     }
 
-    public TileType getTile(int row, int col) { return tiles[row][col]; }
+    private static boolean isPellet(TileType t) {
+        return t == TileType.PACDOT || t == TileType.POWER_PACDOT;
+    }
 
-    public void setTile(int row, int col, TileType type) { tiles[row][col] = type; }
+    public TileType getTile(int row, int col) { return tiles.get(row, col); }
+
+    public void setTile(int row, int col, TileType type) {
+        TileType before = tiles.get(row, col);
+        if (before == type) return;
+        if (isWalkable(before) != isWalkable(type)) {
+            nearestWalkable = null;
+            walkableBits = null;
+        }
+        if (pellets >= 0) {
+            if (isPellet(before)) pellets--;
+            if (isPellet(type)) pellets++;
+        }
+        tiles.set(row, col, type);
+        for (TileListener l : listeners) l.tileChanged(row, col, before, type);
+    }
+
+    public void addTileListener(TileListener listener) { listeners.add(listener); }
+    public void removeTileListener(TileListener listener) { listeners.remove(listener); }
+
+    /** Installs a table of row * cols + col -> index of the nearest walkable tile. */
+    public void setNearestWalkableTable(IntBuffer table) {
+        if (table != null && table.limit() != ROWS * COLS) {
+            throw new IllegalArgumentException("table size does not match map");
+        }
+        this.nearestWalkable = table;
+    }
+
+    /** Pellets left as counted when the map was built, so {@link #countPellets} need not scan. */
+    void setPelletCount(long count) {
+        this.pellets = count;
+    }
+
+    /** Installs walkability as one bit per tile (row * cols + col) in long words. */
+    void setWalkableBits(LongBuffer bits) {
+        if (bits.limit() != ((long) ROWS * COLS + 63) / 64) {
+            throw new IllegalArgumentException("bitset size does not match map");
+        }
+        this.walkableBits = bits;
+    }
+
+    /** The installed walkability bitset, or null when there is none or walls have changed since. */
+    LongBuffer walkableBits() { return walkableBits; }
+
+    /** Index (row * cols + col) of the nearest walkable tile, or -1 when no table is available. */
+    public int nearestWalkableIndex(int col, int row) {
+        IntBuffer table = nearestWalkable;
+        if (table == null || row < 0 || row >= ROWS || col < 0 || col >= COLS) return -1;
+        return table.get(row * COLS + col);
+    }
 
     public void draw(Graphics2D g2, TileSet tileSet) {
         for (int row = 0; row < ROWS; row++) {
             for (int col = 0; col < COLS; col++) {
                 g2.drawImage(
-                    tileSet.getImage(tiles[row][col]),
+                    tileSet.getImage(tiles.get(row, col)),
                     col * TILE_SIZE, row * TILE_SIZE,
                     TILE_SIZE, TILE_SIZE, null
                 );
@@ -0,0 +1,144 @@
+package com.pacman.model;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compiles .txt ({@link MapLoader}) and .png ({@link TilemapLoader}) maps into the binary
+ * {@code .pmap} format read by {@link CompiledMap}, precomputing walkability, the pellet
+ * count and the nearest-walkable table, and checking the map with {@link MapValidator} once
+ * here instead of on every load.
+ *
+ * Usage: {@code MapCompiler <in.txt|in.png> <out.pmap> [playerX playerY ghostX ghostY]}
+ */
+public final class MapCompiler {
+
+    // Same defaults as the bundled maze in GamePanel
+    private static final int[] DEFAULT_SPAWNS = {13, 21, 12, 14};
+
+    private MapCompiler() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2 && args.length != 6) {
+            System.err.println("usage: MapCompiler <in.txt|in.png> <out.pmap> [playerX playerY ghostX ghostY]");
+            System.exit(2);
+        }
+        int[] s = DEFAULT_SPAWNS.clone();
+        for (int i = 0; i < 4 && args.length == 6; i++) s[i] = Integer.parseInt(args[2 + i]);
+        compileFile(Path.of(args[0]), Path.of(args[1]), s[0], s[1], s[2], s[3]);
+    }
+
+    /** Compiles a .txt or .png source file, chosen by extension. */
+    public static void compileFile(Path source, Path out, int playerX, int playerY, int ghostX, int ghostY)
+            throws IOException {
+        Map map;
+        if (source.toString().toLowerCase().endsWith(".png")) {
+            BufferedImage img = ImageIO.read(source.toFile());
+            if (img == null) throw new IOException("Not an image: " + source);
+            map = new Map(TilemapLoader.fromImage(img), 16);
+        } else {
+            map = MapLoader.fromPath(source, 16);
+        }
+        ByteBuffer compiled = compile(map, playerX, playerY, ghostX, ghostY);
+        if ((compiled.getInt(36) & CompiledMap.FLAG_PLAYABLE) == 0) {
+            System.err.println("Map check: " + MapValidator.validate(map, playerX, playerY, ghostX, ghostY)
+                    + " (checked again on every load)");
+        }
+        write(compiled, out);
+    }
+
+    public static void write(ByteBuffer compiled, Path out) throws IOException {
+        try (FileChannel ch = FileChannel.open(out, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buf = compiled.duplicate().position(0);
+            while (buf.hasRemaining()) ch.write(buf);
+        }
+    }
+
+    /** Builds the complete .pmap image in memory; the map is validated from the given spawns. */
+    public static ByteBuffer compile(Map map, int playerX, int playerY, int ghostX, int ghostY) {
+        int rows = map.rows(), cols = map.cols();
+        long tiles = (long) rows * cols;
+        if (tiles * 5 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Map too large to compile: " + rows + "x" + cols);
+        }
+        int n = (int) tiles;
+
+        long[] walk = new long[(n + 63) / 64];
+        int pelletCount = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                TileType t = map.getTile(r, c);
+                int idx = r * cols + c;
+                if (Map.isWalkable(t)) walk[idx >>> 6] |= 1L << (idx & 63);
+                if (t == TileType.PACDOT || t == TileType.POWER_PACDOT) pelletCount++;
+            }
+        }
+
+        boolean playable = MapValidator.validate(map, playerX, playerY, ghostX, ghostY).isPlayable();
+
+        long tilesBytes = align8(PackedTileStore.byteSize(rows, cols));
+        long walkOffset = CompiledMap.HEADER_SIZE + tilesBytes;
+        long nearestOffset = walkOffset + walk.length * 8L;
+        long total = nearestOffset + n * 4L;
+
+        ByteBuffer buf = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(0, CompiledMap.MAGIC);
+        buf.putShort(4, CompiledMap.VERSION);
+        buf.putInt(8, rows);
+        buf.putInt(12, cols);
+        buf.putInt(16, playerX);
+        buf.putInt(20, playerY);
+        buf.putInt(24, ghostX);
+        buf.putInt(28, ghostY);
+        buf.putInt(32, pelletCount);
+        buf.putInt(36, playable ? CompiledMap.FLAG_PLAYABLE : 0);
+        buf.putLong(40, walkOffset);
+        buf.putLong(56, nearestOffset);
+
+        PackedTileStore packed = new PackedTileStore(buf, CompiledMap.HEADER_SIZE, rows, cols);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) packed.set(r, c, map.getTile(r, c));
+        }
+        for (int i = 0; i < walk.length; i++) buf.putLong((int) walkOffset + i * 8, walk[i]);
+
+        int[] nearest = nearestWalkable(walk, rows, cols);
+        for (int i = 0; i < n; i++) buf.putInt((int) nearestOffset + i * 4, nearest[i]);
+        return buf;
+    }
+
+    /** Multi-source BFS from every walkable tile; unreachable (all-wall) maps map each tile to itself. */
+    static int[] nearestWalkable(long[] walk, int rows, int cols) {
+        int n = rows * cols;
+        int[] nearest = new int[n];
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        java.util.Arrays.fill(nearest, -1);
+        for (int i = 0; i < n; i++) {
+            if ((walk[i >>> 6] & (1L << (i & 63))) != 0) {
+                nearest[i] = i;
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int i = queue[head++];
+            int r = i / cols, c = i % cols;
+            if (r > 0 && nearest[i - cols] < 0) { nearest[i - cols] = nearest[i]; queue[tail++] = i - cols; }
+            if (r < rows - 1 && nearest[i + cols] < 0) { nearest[i + cols] = nearest[i]; queue[tail++] = i + cols; }
+            if (c > 0 && nearest[i - 1] < 0) { nearest[i - 1] = nearest[i]; queue[tail++] = i - 1; }
+            if (c < cols - 1 && nearest[i + 1] < 0) { nearest[i + 1] = nearest[i]; queue[tail++] = i + 1; }
+        }
+        for (int i = 0; i < n; i++) if (nearest[i] < 0) nearest[i] = i;
+        return nearest;
+    }
+
+    private static long align8(long v) {
+        return (v + 7) & ~7L;
+    }
+}
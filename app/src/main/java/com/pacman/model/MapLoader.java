@@ -1,8 +1,14 @@
 package com.pacman.model;
 
-import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 /**
  * Loads a Pac-Man map from a .txt file.
@@ -12,43 +18,120 @@ import java.util.List;
  *  o = power pellet
  *  G = ghost gate
  *  (space) = empty
+ *
+ * Bytes are classified straight into the tile grid in one pass; no lines or strings are built.
+ * Blank lines are skipped, short lines are padded with EMPTY and long lines are cut to the
+ * width of the first line.
  */
 public final class MapLoader {
 
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final TileType[] TILE_FOR_BYTE = new TileType[256];
+
+    static {
+        Arrays.fill(TILE_FOR_BYTE, TileType.EMPTY);
+        TILE_FOR_BYTE['#'] = TileType.WALL;
+        TILE_FOR_BYTE['.'] = TileType.PACDOT;
+        TILE_FOR_BYTE['o'] = TileType.POWER_PACDOT;
+        TILE_FOR_BYTE['G'] = TileType.GHOST_GATE;
+        TILE_FOR_BYTE['g'] = TileType.GHOST_GATE;
+    }
+
     private MapLoader() {}
 
     public static Map fromTextFile(String path, int tileSize) throws IOException {
-        List<String> lines = new ArrayList<>();
+        return fromPath(Path.of(path), tileSize);
+    }
 
-        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                if (!line.trim().isEmpty()) lines.add(line);
-            }
+    public static Map fromPath(Path path, int tileSize) throws IOException {
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            return fromChannel(ch, tileSize, path.toString());
         }
+    }
+
+    /** Reads a map from a stream, e.g. a classpath resource inside the jar. The stream is not closed. */
+    public static Map fromStream(InputStream in, int tileSize) throws IOException {
+        return fromChannel(Channels.newChannel(in), tileSize, "stream");
+    }
+
+    /** Reads a map from a channel until end of stream. The channel is not closed. */
+    public static Map fromChannel(ReadableByteChannel ch, int tileSize) throws IOException {
+        return fromChannel(ch, tileSize, "channel");
+    }
 
-        if (lines.isEmpty()) {
-            throw new IllegalArgumentException("Map file is empty: " + path);
+    private static Map fromChannel(ReadableByteChannel ch, int tileSize, String source) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        Parser parser = new Parser();
+        while (ch.read(buf) != -1) {
+            buf.flip();
+            parser.feed(buf);
+            buf.clear();
         }
+        TileType[][] grid = parser.finish();
+        if (grid == null) {
+            throw new IllegalArgumentException("Map file is empty: " + source);
+        }
+        return new Map(grid, tileSize);
+    }
 
-        int rows = lines.size();
-        int cols = lines.get(0).length();
-        TileType[][] grid = new TileType[rows][cols];
-
-        for (int r = 0; r < rows; r++) {
-            String line = lines.get(r);
-            for (int c = 0; c < cols; c++) {
-                char ch = (c < line.length()) ? line.charAt(c) : ' ';
-                grid[r][c] = switch (ch) {
-                    case '#' -> TileType.WALL;
-                    case '.' -> TileType.PACDOT;
-                    case 'o' -> TileType.POWER_PACDOT;
-                    case 'G', 'g' -> TileType.GHOST_GATE;
-                    default -> TileType.EMPTY;
-                };
+    /** Incremental byte parser: fills one row at a time and commits it at the end of a non-blank line. */
+    private static final class Parser {
+        private TileType[][] rows = new TileType[64][];
+        private int rowCount;
+        private int cols = -1;          // unknown until the first non-blank line ends
+        private TileType[] row = new TileType[256];
+        private int col;
+        private boolean blank = true;
+        private boolean afterCr;
+
+        void feed(ByteBuffer buf) {
+            byte[] bytes = buf.array();
+            int end = buf.arrayOffset() + buf.limit();
+            for (int i = buf.arrayOffset() + buf.position(); i < end; i++) {
+                int b = bytes[i] & 0xFF;
+                if (b == '\n') {
+                    if (!afterCr) endLine();
+                    afterCr = false;
+                    continue;
+                }
+                if (b == '\r') {
+                    endLine();
+                    afterCr = true;
+                    continue;
+                }
+                afterCr = false;
+                if (b > ' ') blank = false;
+                if (cols < 0) {
+                    if (col == row.length) row = Arrays.copyOf(row, col * 2);
+                } else if (col >= cols) {
+                    continue; // longer than the first line: ignore the rest
+                }
+                row[col++] = TILE_FOR_BYTE[b];
             }
+            buf.position(buf.limit());
         }
 
-        return new Map(grid, tileSize);
+        TileType[][] finish() {
+            endLine();
+            return rowCount == 0 ? null : Arrays.copyOf(rows, rowCount);
+        }
+
+        private void endLine() {
+            if (blank) {
+                col = 0;
+                return;
+            }
+            if (cols < 0) {
+                cols = col;
+                row = Arrays.copyOf(row, cols);
+            } else if (col < cols) {
+                Arrays.fill(row, col, cols, TileType.EMPTY);
+            }
+            if (rowCount == rows.length) rows = Arrays.copyOf(rows, rowCount * 2);
+            rows[rowCount++] = row;
+            row = new TileType[cols];
+            col = 0;
+            blank = true;
+        }
     }
 }
@@ -0,0 +1,352 @@
+package com.pacman.model;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Checks that a map is playable: every pellet reachable from the player spawn, no spawn inside a
+ * wall, and no walkable pocket cut off from the rest. Columns wrap like they do for movement.
+ *
+ * Walkable tiles are grouped with a union-find that runs in parallel over bands of rows; the band
+ * seams are then joined sequentially and the forest is flattened in parallel. Every union links
+ * the larger root under the smaller, so a region's root is its first tile in row-major order.
+ *
+ * {@link #repair} carves the shortest wall paths needed to join regions that hold pellets or a
+ * spawn to the player's region and moves spawns out of walls; pellet-free pockets are left alone.
+ */
+public final class MapValidator {
+
+    private static final int BAND_ROWS = 128;
+    private static final int WALL = -1;
+
+    private MapValidator() {}
+
+    /** Result of a validation pass. Spawn coordinates are the repaired ones after {@link #repair}. */
+    public static final class Report {
+        private final int regions;
+        private final int mainRegionSize;
+        private final int unreachablePellets;
+        private final int firstUnreachablePellet;
+        private final boolean playerSpawnInWall, ghostSpawnInWall, ghostSpawnUnreachable;
+        private final int playerX, playerY, ghostX, ghostY;
+        private final int tilesCarved;
+
+        Report(int regions, int mainRegionSize, int unreachablePellets, int firstUnreachablePellet,
+               boolean playerSpawnInWall, boolean ghostSpawnInWall, boolean ghostSpawnUnreachable,
+               int playerX, int playerY, int ghostX, int ghostY, int tilesCarved) {
+            this.regions = regions;
+            this.mainRegionSize = mainRegionSize;
+            this.unreachablePellets = unreachablePellets;
+            this.firstUnreachablePellet = firstUnreachablePellet;
+            this.playerSpawnInWall = playerSpawnInWall;
+            this.ghostSpawnInWall = ghostSpawnInWall;
+            this.ghostSpawnUnreachable = ghostSpawnUnreachable;
+            this.playerX = playerX;
+            this.playerY = playerY;
+            this.ghostX = ghostX;
+            this.ghostY = ghostY;
+            this.tilesCarved = tilesCarved;
+        }
+
+        /** Number of separate walkable regions. */
+        public int regions() { return regions; }
+        /** Walkable regions other than the player's. */
+        public int isolatedRegions() { return Math.max(0, regions - 1); }
+        /** Tiles in the player's region (or the largest region when the spawn is in a wall). */
+        public int mainRegionSize() { return mainRegionSize; }
+        public int unreachablePellets() { return unreachablePellets; }
+        /** Index (row * cols + col) of the first unreachable pellet, or -1. */
+        public int firstUnreachablePellet() { return firstUnreachablePellet; }
+        public boolean playerSpawnInWall() { return playerSpawnInWall; }
+        public boolean ghostSpawnInWall() { return ghostSpawnInWall; }
+        /** Ghost spawn is walkable but not connected to the player's region. */
+        public boolean ghostSpawnUnreachable() { return ghostSpawnUnreachable; }
+        public int playerX() { return playerX; }
+        public int playerY() { return playerY; }
+        public int ghostX() { return ghostX; }
+        public int ghostY() { return ghostY; }
+        /** Walls turned into corridor by {@link #repair}; 0 for {@link #validate}. */
+        public int tilesCarved() { return tilesCarved; }
+
+        /** No unreachable pellets and no spawn in a wall. */
+        public boolean isPlayable() {
+            return unreachablePellets == 0 && !playerSpawnInWall && !ghostSpawnInWall;
+        }
+
+        @Override
+        public String toString() {
+            return "regions=" + regions + ", mainRegion=" + mainRegionSize + ", unreachablePellets=" + unreachablePellets
+                    + ", playerSpawnInWall=" + playerSpawnInWall + ", ghostSpawnInWall=" + ghostSpawnInWall
+                    + ", ghostSpawnUnreachable=" + ghostSpawnUnreachable + ", carved=" + tilesCarved;
+        }
+    }
+
+    public static Report validate(Map map, int playerX, int playerY, int ghostX, int ghostY) {
+        return analyse(map, label(map), playerX, playerY, ghostX, ghostY, 0);
+    }
+
+    /**
+     * Validates and fixes the map in place through {@link Map#setTile}: regions holding pellets
+     * or the ghost spawn are joined to the player's region and spawns in walls are moved to the
+     * nearest reachable tile. Returns the report of the repaired map.
+     */
+    public static Report repair(Map map, int playerX, int playerY, int ghostX, int ghostY) {
+        int rows = map.rows(), cols = map.cols();
+        int[] region = label(map);
+        Regions stats = Regions.of(map, region);
+        int main = mainRegion(map, region, stats, playerX, playerY);
+        if (main < 0) return analyse(map, region, playerX, playerY, ghostX, ghostY, 0);
+
+        boolean[] required = new boolean[stats.count];
+        for (int r = 0; r < stats.count; r++) required[r] = stats.pellets[r] > 0;
+        if (inside(map, ghostX, ghostY) && region[ghostY * cols + ghostX] != WALL) {
+            required[region[ghostY * cols + ghostX]] = true;
+        }
+        int carved = connect(map, region, main, required);
+
+        // the map changed: relabel before fixing spawns
+        if (carved > 0) {
+            region = label(map);
+            stats = Regions.of(map, region);
+            main = mainRegion(map, region, stats, playerX, playerY);
+        }
+        int player = nearestInRegion(map, region, main, playerX, playerY);
+        int ghost = nearestInRegion(map, region, main, ghostX, ghostY);
+        return analyse(map, region, player % cols, player / cols, ghost % cols, ghost / cols, carved);
+    }
+
+    /** Dense region id per tile (row-major), or -1 for walls. */
+    static int[] label(Map map) {
+        int rows = map.rows(), cols = map.cols();
+        int[] parent = new int[Math.multiplyExact(rows, cols)];
+        int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+
+        IntStream.range(0, bands).parallel().forEach(b ->
+                unionBand(map, parent, b * BAND_ROWS, Math.min(rows, (b + 1) * BAND_ROWS)));
+        for (int b = 1; b < bands; b++) {
+            int above = (b * BAND_ROWS - 1) * cols;
+            for (int c = 0; c < cols; c++) {
+                if (parent[above + c] != WALL && parent[above + cols + c] != WALL) union(parent, above + c, above + cols + c);
+            }
+        }
+        // Flatten in place; concurrent readers only ever see a pointer to some ancestor
+        IntStream.range(0, bands).parallel().forEach(b -> {
+            int end = Math.min(rows, (b + 1) * BAND_ROWS) * cols;
+            for (int i = b * BAND_ROWS * cols; i < end; i++) {
+                if (parent[i] != WALL) parent[i] = find(parent, i);
+            }
+        });
+        // Roots are the smallest index of their region, so one ordered pass renumbers densely
+        int next = 0;
+        for (int i = 0; i < parent.length; i++) {
+            int root = parent[i];
+            if (root == WALL) continue;
+            parent[i] = root == i ? next++ : parent[root];
+        }
+        return parent;
+    }
+
+    private static void unionBand(Map map, int[] parent, int from, int to) {
+        int cols = map.cols();
+        for (int r = from; r < to; r++) {
+            int row = r * cols;
+            for (int c = 0; c < cols; c++) {
+                int i = row + c;
+                if (!Map.isWalkable(map.getTile(r, c))) {
+                    parent[i] = WALL;
+                    continue;
+                }
+                // a fresh tile joins its left neighbour's tree directly; only the upper link needs a union
+                parent[i] = c > 0 && parent[i - 1] != WALL ? find(parent, i - 1) : i;
+                if (r > from && parent[i - cols] != WALL) union(parent, i - cols, i);
+            }
+            if (cols > 1 && parent[row] != WALL && parent[row + cols - 1] != WALL) union(parent, row, row + cols - 1);
+        }
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            int up = parent[parent[i]];
+            parent[i] = up; // path halving
+            i = up;
+        }
+        return i;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int ra = find(parent, a), rb = find(parent, b);
+        if (ra < rb) parent[rb] = ra;
+        else if (rb < ra) parent[ra] = rb;
+    }
+
+    /** Tile and pellet counts per region. */
+    private static final class Regions {
+        final int count;
+        final int[] size;
+        final int[] pellets;
+
+        private Regions(int count, int[] size, int[] pellets) {
+            this.count = count;
+            this.size = size;
+            this.pellets = pellets;
+        }
+
+        static Regions of(Map map, int[] region) {
+            int count = 0;
+            for (int id : region) count = Math.max(count, id + 1);
+            int[] size = new int[count], pellets = new int[count];
+            int rows = map.rows(), cols = map.cols();
+            for (int r = 0, i = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++, i++) {
+                    int id = region[i];
+                    if (id == WALL) continue;
+                    size[id]++;
+                    TileType t = map.getTile(r, c);
+                    if (t == TileType.PACDOT || t == TileType.POWER_PACDOT) pellets[id]++;
+                }
+            }
+            return new Regions(count, size, pellets);
+        }
+    }
+
+    private static Report analyse(Map map, int[] region, int playerX, int playerY, int ghostX, int ghostY, int carved) {
+        int cols = map.cols();
+        Regions stats = Regions.of(map, region);
+        int main = mainRegion(map, region, stats, playerX, playerY);
+
+        int unreachable = 0, firstUnreachable = -1;
+        for (int r = 0; r < stats.count; r++) if (r != main) unreachable += stats.pellets[r];
+        if (unreachable > 0) {
+            for (int i = 0; i < region.length && firstUnreachable < 0; i++) {
+                TileType t = map.getTile(i / cols, i % cols);
+                if (region[i] != main && (t == TileType.PACDOT || t == TileType.POWER_PACDOT)) firstUnreachable = i;
+            }
+        }
+        boolean playerInWall = !inside(map, playerX, playerY) || region[playerY * cols + playerX] == WALL;
+        boolean ghostInWall = !inside(map, ghostX, ghostY) || region[ghostY * cols + ghostX] == WALL;
+        boolean ghostUnreachable = !ghostInWall && region[ghostY * cols + ghostX] != main;
+        return new Report(stats.count, main < 0 ? 0 : stats.size[main], unreachable, firstUnreachable,
+                playerInWall, ghostInWall, ghostUnreachable, playerX, playerY, ghostX, ghostY, carved);
+    }
+
+    /** Region of the player spawn, or the largest region when the spawn is not walkable. */
+    private static int mainRegion(Map map, int[] region, Regions stats, int playerX, int playerY) {
+        if (inside(map, playerX, playerY) && region[playerY * map.cols() + playerX] != WALL) {
+            return region[playerY * map.cols() + playerX];
+        }
+        int best = -1;
+        for (int r = 0; r < stats.count; r++) if (best < 0 || stats.size[r] > stats.size[best]) best = r;
+        return best;
+    }
+
+    private static boolean inside(Map map, int x, int y) {
+        return x >= 0 && x < map.cols() && y >= 0 && y < map.rows();
+    }
+
+    /**
+     * Breadth-first search outwards from the main region. Walls and pellet-free pockets are
+     * crossed; when the search touches a required region the path back is carved and the whole
+     * region joins the frontier. Returns the number of walls carved.
+     */
+    private static int connect(Map map, int[] region, int main, boolean[] required) {
+        int rows = map.rows(), cols = map.cols();
+        int pending = 0;
+        for (int r = 0; r < required.length; r++) if (required[r] && r != main) pending++;
+        if (pending == 0) return 0;
+
+        int[] from = new int[region.length];
+        Arrays.fill(from, -2);  // -2 = unvisited, -1 = connected source
+        int[] queue = new int[region.length];
+        int head = 0, tail = 0;
+        for (int i = 0; i < region.length; i++) {
+            if (region[i] == main) {
+                from[i] = -1;
+                queue[tail++] = i;
+            }
+        }
+        boolean[] joined = new boolean[required.length];
+        joined[main] = true;
+        int carved = 0;
+
+        while (head < tail && pending > 0) {
+            int cur = queue[head++];
+            int r = cur / cols, c = cur % cols;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + (d == 0 ? -1 : d == 1 ? 1 : 0);
+                if (nr < 0 || nr >= rows) continue;
+                int nc = Math.floorMod(c + (d == 2 ? -1 : d == 3 ? 1 : 0), cols);
+                int n = nr * cols + nc;
+                if (from[n] != -2) continue;
+                int id = region[n];
+                if (id != WALL && required[id] && !joined[id]) {
+                    // carve back to the connected area, then take in the whole region
+                    for (int p = cur; p >= 0 && from[p] != -1; ) {
+                        int prev = from[p];
+                        if (region[p] == WALL) {
+                            map.setTile(p / cols, p % cols, TileType.EMPTY);
+                            carved++;
+                        }
+                        from[p] = -1;
+                        p = prev;
+                    }
+                    joined[id] = true;
+                    pending--;
+                    tail = flood(region, from, queue, tail, n, id, rows, cols);
+                } else {
+                    from[n] = cur;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        return carved;
+    }
+
+    private static int flood(int[] region, int[] from, int[] queue, int tail, int start, int id, int rows, int cols) {
+        int head = tail;
+        from[start] = -1;
+        queue[tail++] = start;
+        while (head < tail) {
+            int cur = queue[head++];
+            int r = cur / cols, c = cur % cols;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + (d == 0 ? -1 : d == 1 ? 1 : 0);
+                if (nr < 0 || nr >= rows) continue;
+                int n = nr * cols + Math.floorMod(c + (d == 2 ? -1 : d == 3 ? 1 : 0), cols);
+                if (region[n] == id && from[n] != -1) {
+                    from[n] = -1;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /** Spawn itself when it lies in the region, else the closest tile of the region (row-major index). */
+    private static int nearestInRegion(Map map, int[] region, int id, int x, int y) {
+        int rows = map.rows(), cols = map.cols();
+        int sx = Math.max(0, Math.min(cols - 1, x)), sy = Math.max(0, Math.min(rows - 1, y));
+        int start = sy * cols + sx;
+        if (region[start] == id && sx == x && sy == y) return start;
+
+        boolean[] seen = new boolean[region.length];
+        int[] queue = new int[region.length];
+        int head = 0, tail = 0;
+        queue[tail++] = start;
+        seen[start] = true;
+        while (head < tail) {
+            int cur = queue[head++];
+            if (region[cur] == id) return cur;
+            int r = cur / cols, c = cur % cols;
+            for (int d = 0; d < 4; d++) {
+                int nr = r + (d == 0 ? -1 : d == 1 ? 1 : 0);
+                if (nr < 0 || nr >= rows) continue;
+                int n = nr * cols + Math.floorMod(c + (d == 2 ? -1 : d == 3 ? 1 : 0), cols);
+                if (!seen[n]) {
+                    seen[n] = true;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        return start; // no walkable tile at all
+    }
+}
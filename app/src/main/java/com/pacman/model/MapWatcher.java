@@ -0,0 +1,216 @@
+package com.pacman.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a text map on disk and turns every saved edit into a {@link Patch} of changed tiles.
+ *
+ * A background thread waits on a {@link WatchService} for the file's directory, lets a burst of
+ * editor writes settle, re-parses only that file and diffs it against the layout it saw last.
+ * Tiles the game changed itself (eaten pellets) are therefore not touched unless the designer
+ * edited them. Connectivity is re-checked on the parsed copy, off the game thread, only when an
+ * edit changes walkability.
+ *
+ * The game thread calls {@link #poll()} between ticks and applies the whole patch at once;
+ * patches that pile up before a poll are merged, newest tile winning.
+ */
+public final class MapWatcher implements Closeable {
+
+    private static final long SETTLE_MILLIS = 50;
+    private static final TileType[] TILES = TileType.values();
+
+    /** Changed tiles in row-major order, plus the connectivity check of the new layout. */
+    public static final class Patch {
+        private final int cols;
+        private final int[] indices;
+        private final byte[] tiles;
+        private final MapValidator.Report report;
+
+        Patch(int cols, int[] indices, byte[] tiles, MapValidator.Report report) {
+            this.cols = cols;
+            this.indices = indices;
+            this.tiles = tiles;
+            this.report = report;
+        }
+
+        public int size() { return indices.length; }
+        public int row(int i) { return indices[i] / cols; }
+        public int col(int i) { return indices[i] % cols; }
+        public TileType tile(int i) { return TILES[tiles[i]]; }
+        /** Check of the edited layout, or null when the edit kept walkability unchanged. */
+        public MapValidator.Report report() { return report; }
+
+        /** This patch followed by a newer one; where both touch a tile the newer value wins. */
+        Patch then(Patch newer) {
+            int[] idx = new int[indices.length + newer.indices.length];
+            byte[] t = new byte[idx.length];
+            int a = 0, b = 0, n = 0;
+            while (a < indices.length || b < newer.indices.length) {
+                if (b == newer.indices.length || (a < indices.length && indices[a] < newer.indices[b])) {
+                    idx[n] = indices[a];
+                    t[n++] = tiles[a++];
+                } else {
+                    if (a < indices.length && indices[a] == newer.indices[b]) a++;
+                    idx[n] = newer.indices[b];
+                    t[n++] = newer.tiles[b++];
+                }
+            }
+            return new Patch(cols, Arrays.copyOf(idx, n), Arrays.copyOf(t, n),
+                    newer.report != null ? newer.report : report);
+        }
+    }
+
+    private final Path file;
+    private final int rows, cols;
+    private final int playerX, playerY, ghostX, ghostY;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    // Layout the last diff was taken against; only touched by the watcher thread
+    private byte[] baseline;
+
+    private volatile Patch pending;
+
+    private MapWatcher(Path file, Map live, int playerX, int playerY, int ghostX, int ghostY) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.rows = live.rows();
+        this.cols = live.cols();
+        this.playerX = playerX;
+        this.playerY = playerY;
+        this.ghostX = ghostX;
+        this.ghostY = ghostY;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        try {
+            this.file.getParent().register(watchService,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_CREATE);
+            // read after registering so an edit in between is not lost
+            this.baseline = layout(MapLoader.fromPath(this.file, live.tileSize()));
+        } catch (IOException | RuntimeException e) {
+            watchService.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "map-watcher");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching {@code file}, which {@code live} was loaded from. Spawns are used for the
+     * connectivity check of edited layouts.
+     */
+    public static MapWatcher start(Path file, Map live, int playerX, int playerY, int ghostX, int ghostY) throws IOException {
+        MapWatcher watcher = new MapWatcher(file, live, playerX, playerY, ghostX, ghostY);
+        watcher.thread.start();
+        return watcher;
+    }
+
+    /** Takes the pending patch, or returns null. Cheap enough to call every tick. */
+    public Patch poll() {
+        if (pending == null) return null;
+        synchronized (this) {
+            Patch p = pending;
+            pending = null;
+            return p;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private synchronized void publish(Patch patch) {
+        pending = pending == null ? patch : pending.then(patch);
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean touched = drain(key);
+                // editors often write in several steps; wait until the file has settled
+                WatchKey more;
+                while ((more = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    touched |= drain(more);
+                }
+                if (touched) reload();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // closed: stop watching
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean touched = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || (context instanceof Path p && file.getFileName().equals(p))) {
+                touched = true;
+            }
+        }
+        key.reset();
+        return touched;
+    }
+
+    private void reload() {
+        Map edited;
+        try {
+            edited = MapLoader.fromPath(file, 1);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Map reload failed for " + file + ": " + e.getMessage());
+            return;
+        }
+        if (edited.rows() != rows || edited.cols() != cols) {
+            System.err.println("Map reload skipped: " + file + " is now " + edited.cols() + "x" + edited.rows()
+                    + ", restart to change the map size");
+            return;
+        }
+        Patch patch = diff(edited);
+        if (patch != null) publish(patch);
+    }
+
+    private Patch diff(Map edited) {
+        byte[] next = layout(edited);
+        int n = 0;
+        boolean walkabilityChanged = false;
+        for (int i = 0; i < next.length; i++) {
+            if (next[i] != baseline[i]) {
+                n++;
+                walkabilityChanged |= Map.isWalkable(TILES[next[i]]) != Map.isWalkable(TILES[baseline[i]]);
+            }
+        }
+        if (n == 0) return null;
+
+        int[] indices = new int[n];
+        byte[] tiles = new byte[n];
+        for (int i = 0, k = 0; i < next.length; i++) {
+            if (next[i] != baseline[i]) {
+                indices[k] = i;
+                tiles[k++] = next[i];
+            }
+        }
+        baseline = next;
+        MapValidator.Report report = walkabilityChanged
+                ? MapValidator.validate(edited, playerX, playerY, ghostX, ghostY) : null;
+        return new Patch(cols, indices, tiles, report);
+    }
+
+    private static byte[] layout(Map map) {
+        int cols = map.cols();
+        byte[] out = new byte[Math.multiplyExact(map.rows(), cols)];
+        for (int r = 0; r < map.rows(); r++) {
+            for (int c = 0; c < cols; c++) out[r * cols + c] = (byte) map.getTile(r, c).ordinal();
+        }
+        return out;
+    }
+}
@@ -0,0 +1,223 @@
+package com.pacman.model;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Seeded Pac-Man style maze generator.
+ *
+ * Corridors follow a lattice: tiles with odd row and odd column are junctions, the tiles between
+ * two junctions are corridor segments and even/even tiles are wall posts. The left half is built
+ * as a sidewinder spanning tree in horizontal bands of junction rows (each band has its own RNG,
+ * so the result does not depend on thread scheduling), then every dead end is braided into a
+ * loop and the half is mirrored. Finally a ghost house with a {@link TileType#GHOST_GATE}, a ring
+ * corridor around it, a horizontal tunnel and four power pellets are added.
+ *
+ * The same seed and size always produce the same maze. Tiles are written straight into the
+ * given {@link TileStore}; bands are generated and written in parallel.
+ */
+public final class MazeGenerator {
+
+    public static final int MIN_SIZE = 15;
+    private static final int BAND_NODE_ROWS = 32;
+
+    /** Spawn tiles of a generated maze. Ghosts are meant to spawn at ghostX .. ghostX + 3. */
+    public static final class Spawns {
+        private final int playerX, playerY, ghostX, ghostY;
+
+        Spawns(int playerX, int playerY, int ghostX, int ghostY) {
+            this.playerX = playerX;
+            this.playerY = playerY;
+            this.ghostX = ghostX;
+            this.ghostY = ghostY;
+        }
+
+        public int playerX() { return playerX; }
+        public int playerY() { return playerY; }
+        public int ghostX() { return ghostX; }
+        public int ghostY() { return ghostY; }
+    }
+
+    // How the last junction column of the left half meets its mirror image
+    private enum Axis { CENTER, ADJACENT, GAP }
+
+    private final int rows, cols;
+    private final int nodeRows, nodeCols;
+    private final int lastNodeCol;
+    private final Axis axis;
+    private final boolean[] east;   // east[i * nodeCols + j]: junction (i, j) <-> (i, j + 1)
+    private final boolean[] south;  // south[i * nodeCols + j]: junction (i, j) <-> (i + 1, j)
+    private final boolean[] cross;  // cross[i]: corridor across the axis on junction row i (GAP only)
+
+    private MazeGenerator(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        int half = (cols + 1) / 2;
+        this.lastNodeCol = (half - 1) % 2 == 1 ? half - 1 : half - 2;
+        int mirror = cols - 1 - lastNodeCol;
+        this.axis = mirror == lastNodeCol ? Axis.CENTER : mirror == lastNodeCol + 1 ? Axis.ADJACENT : Axis.GAP;
+        this.nodeRows = (rows - 1) / 2;
+        this.nodeCols = (lastNodeCol + 1) / 2;
+        this.east = new boolean[nodeRows * nodeCols];
+        this.south = new boolean[nodeRows * nodeCols];
+        this.cross = new boolean[nodeRows];
+    }
+
+    /** Fills the whole store with a maze and returns its spawn points. */
+    public static Spawns generate(TileStore out, long seed) {
+        int rows = out.rows(), cols = out.cols();
+        if (rows < MIN_SIZE || cols < MIN_SIZE) {
+            throw new IllegalArgumentException("maze must be at least " + MIN_SIZE + "x" + MIN_SIZE);
+        }
+        MazeGenerator gen = new MazeGenerator(rows, cols);
+        int bands = Math.max(1, gen.nodeRows / BAND_NODE_ROWS);
+
+        // Phase 1: spanning tree per band. A band writes east edges of its rows and south edges
+        // of the row above it through its second-to-last row, so bands never share an element.
+        IntStream.range(0, bands).parallel().forEach(b -> gen.sidewinder(gen.bandStart(b, bands),
+                gen.bandStart(b + 1, bands), new SplittableRandom(mix(seed, b))));
+        // Phase 2: braid dead ends using only edges inside the band.
+        IntStream.range(0, bands).parallel().forEach(b -> gen.braid(gen.bandStart(b, bands),
+                gen.bandStart(b + 1, bands), new SplittableRandom(mix(seed, bands + b))));
+        // Phase 3: write tiles, mirrored, in parallel row bands.
+        int tileBands = (rows + 63) / 64;
+        IntStream.range(0, tileBands).parallel().forEach(b ->
+                gen.writeRows(out, b * 64, Math.min(rows, (b + 1) * 64)));
+
+        return gen.decorate(out);
+    }
+
+    private int bandStart(int band, int bands) {
+        return band == bands ? nodeRows : band * (nodeRows / bands);
+    }
+
+    private void sidewinder(int from, int to, SplittableRandom rnd) {
+        for (int i = from; i < to; i++) {
+            if (i == 0) {
+                for (int j = 0; j < nodeCols - 1; j++) east[j] = true;
+                cross[0] = true;
+                continue;
+            }
+            int runStart = 0;
+            for (int j = 0; j < nodeCols; j++) {
+                boolean closeRun = j == nodeCols - 1 || rnd.nextInt(3) == 0;
+                if (!closeRun) {
+                    east[i * nodeCols + j] = true;
+                } else {
+                    int k = runStart + rnd.nextInt(j - runStart + 1);
+                    south[(i - 1) * nodeCols + k] = true;
+                    runStart = j + 1;
+                }
+            }
+        }
+    }
+
+    private void braid(int from, int to, SplittableRandom rnd) {
+        int[] options = new int[4];
+        for (int i = from; i < to; i++) {
+            for (int j = 0; j < nodeCols; j++) {
+                if (degree(i, j) > 1) continue;
+                int n = 0;
+                if (j > 0 && !east[i * nodeCols + j - 1]) options[n++] = 0;
+                if (j < nodeCols - 1 && !east[i * nodeCols + j]) options[n++] = 1;
+                if (j == nodeCols - 1 && axis == Axis.GAP && !cross[i]) options[n++] = 2;
+                if (i > from && !south[(i - 1) * nodeCols + j]) options[n++] = 3;
+                if (i < to - 1 && !south[i * nodeCols + j]) options[n++] = 4;
+                if (n == 0) continue;
+                switch (options[rnd.nextInt(n)]) {
+                    case 0 -> east[i * nodeCols + j - 1] = true;
+                    case 1 -> east[i * nodeCols + j] = true;
+                    case 2 -> cross[i] = true;
+                    case 3 -> south[(i - 1) * nodeCols + j] = true;
+                    default -> south[i * nodeCols + j] = true;
+                }
+            }
+        }
+    }
+
+    private int degree(int i, int j) {
+        int d = 0;
+        boolean west = j > 0 && east[i * nodeCols + j - 1];
+        if (west) d++;
+        if (j < nodeCols - 1) {
+            if (east[i * nodeCols + j]) d++;
+        } else {
+            boolean acrossAxis = switch (axis) {
+                case CENTER -> west;   // mirror of the west corridor
+                case ADJACENT -> true; // touches its mirror image
+                case GAP -> cross[i];
+            };
+            if (acrossAxis) d++;
+        }
+        if (i > 0 && south[(i - 1) * nodeCols + j]) d++;
+        if (i < nodeRows - 1 && south[i * nodeCols + j]) d++;
+        return d;
+    }
+
+    private void writeRows(TileStore out, int fromRow, int toRow) {
+        int half = (cols + 1) / 2;
+        for (int r = fromRow; r < toRow; r++) {
+            for (int c = 0; c < half; c++) {
+                TileType t = baseTile(r, c) ? TileType.PACDOT : TileType.WALL;
+                out.set(r, c, t);
+                out.set(r, cols - 1 - c, t);
+            }
+        }
+    }
+
+    /** True when lattice tile (r, c) of the left half is an open corridor. */
+    private boolean baseTile(int r, int c) {
+        if (r == 0 || c == 0 || r >= 2 * nodeRows + 1) return false;
+        boolean oddRow = (r & 1) == 1, oddCol = (c & 1) == 1;
+        int i = (r - 1) / 2;
+        if (c > lastNodeCol) return oddRow && cross[i]; // corridor tiles across the axis
+        int j = (c - 1) / 2;
+        if (oddRow && oddCol) return true;
+        if (oddRow) return j + 1 < nodeCols && east[i * nodeCols + j];
+        if (oddCol) return i + 1 < nodeRows && south[i * nodeCols + j];
+        return false;
+    }
+
+    /** Ghost house with ring corridor, tunnel and power pellets; returns the spawns. */
+    private Spawns decorate(TileStore out) {
+        int center = (cols - 1) / 2;
+        int ringLeft = (center - 4) & ~1;          // even, so outer junctions touch the ring
+        int ringRight = cols - 1 - ringLeft;
+        int ringTop = Math.max(2, (rows / 2 - 3) & ~1);
+        int ringBottom = ringTop + 6;
+
+        for (int r = ringTop; r <= ringBottom; r++) {
+            for (int c = ringLeft; c <= ringRight; c++) {
+                boolean ring = r == ringTop || r == ringBottom || c == ringLeft || c == ringRight;
+                boolean houseWall = r == ringTop + 1 || r == ringBottom - 1 || c == ringLeft + 1 || c == ringRight - 1;
+                out.set(r, c, ring ? TileType.EMPTY : houseWall ? TileType.WALL : TileType.EMPTY);
+            }
+        }
+        // gate in the middle of the house's top wall
+        out.set(ringTop + 1, center, TileType.GHOST_GATE);
+        out.set(ringTop + 1, cols - 1 - center, TileType.GHOST_GATE);
+
+        // tunnel through both side walls on the junction row through the house; the pellet-free
+        // stretch runs inwards until the first wall
+        int tunnelRow = ringTop + 3;
+        for (int c = 0; c < ringLeft && (c == 0 || out.get(tunnelRow, c) != TileType.WALL); c++) {
+            out.set(tunnelRow, c, TileType.EMPTY);
+            out.set(tunnelRow, cols - 1 - c, TileType.EMPTY);
+        }
+
+        int lastRow = 2 * nodeRows - 1;
+        out.set(1, 1, TileType.POWER_PACDOT);
+        out.set(1, cols - 2, TileType.POWER_PACDOT);
+        out.set(lastRow, 1, TileType.POWER_PACDOT);
+        out.set(lastRow, cols - 2, TileType.POWER_PACDOT);
+
+        return new Spawns(lastNodeCol, ringBottom + 1, ringLeft + 2, ringTop + 3);
+    }
+
+    private static long mix(long seed, int stream) {
+        long z = seed + 0x9E3779B97F4A7C15L * (stream + 1);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
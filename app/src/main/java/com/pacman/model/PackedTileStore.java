@@ -0,0 +1,47 @@
+package com.pacman.model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tiles packed two per byte (low nibble first) in a ByteBuffer, row-major.
+ * Used for compiled maps, where the buffer is a private (copy-on-write) file mapping.
+ */
+public final class PackedTileStore implements TileStore {
+    private static final TileType[] TILES = TileType.values();
+
+    private final ByteBuffer data;
+    private final int offset;
+    private final int rows;
+    private final int cols;
+
+    public PackedTileStore(ByteBuffer data, int offset, int rows, int cols) {
+        this.data = data;
+        this.offset = offset;
+        this.rows = rows;
+        this.cols = cols;
+    }
+
+    /** Bytes needed for a rows x cols grid. */
+    public static long byteSize(int rows, int cols) {
+        return ((long) rows * cols + 1) / 2;
+    }
+
+    @Override public int rows() { return rows; }
+    @Override public int cols() { return cols; }
+
+    @Override
+    public TileType get(int row, int col) {
+        int idx = row * cols + col;
+        int b = data.get(offset + (idx >> 1));
+        return TILES[(idx & 1) == 0 ? b & 0x0F : (b >> 4) & 0x0F];
+    }
+
+    @Override
+    public void set(int row, int col, TileType type) {
+        int idx = row * cols + col;
+        int pos = offset + (idx >> 1);
+        int b = data.get(pos);
+        b = (idx & 1) == 0 ? (b & 0xF0) | type.ordinal() : (b & 0x0F) | (type.ordinal() << 4);
+        data.put(pos, (byte) b);
+    }
+}
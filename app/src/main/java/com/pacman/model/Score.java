@@ -4,4 +4,5 @@ public final class Score {
   private int value;
   public void add(int points) { value += points; }
   public int value() { return value; }
+  public void reset() { value = 0; }
 }
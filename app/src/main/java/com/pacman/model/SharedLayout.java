@@ -0,0 +1,108 @@
+package com.pacman.model;
+
+/**
+ * An immutable copy of a level (tiles and spawn points) that any number of games can play on
+ * at once, from any thread.
+ *
+ * Each game gets its own {@link Map} from {@link #newMap}. Reads fall through to the shared
+ * tiles; eaten pellets are kept per game in one bit per tile (about 100 bytes on the bundled
+ * maze) instead of a copy of the maze. Any other edit (walls, pellets put somewhere new) makes
+ * that game copy the tiles first and leaves the layout untouched.
+ *
+ * A {@code GameSession} on such a map only remembers the tiles that changed since the level
+ * started, so nothing per game grows with the maze beyond those bits. A whole
+ * {@code GameInstance} on the bundled maze measures about 5.5 KB after ten seconds of play,
+ * most of it entity, timer and event state.
+ */
+public final class SharedLayout {
+
+    private static final TileType[] TILES = TileType.values();
+
+    private final byte[] tiles; // ordinals, row-major; never written after construction
+    private final int rows, cols;
+    private final int playerX, playerY, ghostX, ghostY;
+
+    private SharedLayout(byte[] tiles, int rows, int cols, int playerX, int playerY, int ghostX, int ghostY) {
+        this.tiles = tiles;
+        this.rows = rows;
+        this.cols = cols;
+        this.playerX = playerX;
+        this.playerY = playerY;
+        this.ghostX = ghostX;
+        this.ghostY = ghostY;
+    }
+
+    /** Copies the current tiles of {@code map}; later changes to the map do not show up here. */
+    public static SharedLayout of(Map map, int playerX, int playerY, int ghostX, int ghostY) {
+        int rows = map.rows(), cols = map.cols();
+        byte[] tiles = new byte[Math.multiplyExact(rows, cols)];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) tiles[r * cols + c] = (byte) map.getTile(r, c).ordinal();
+        }
+        return new SharedLayout(tiles, rows, cols, playerX, playerY, ghostX, ghostY);
+    }
+
+    public int rows() { return rows; }
+    public int cols() { return cols; }
+    public int playerX() { return playerX; }
+    public int playerY() { return playerY; }
+    /** Ghosts spawn at ghostX .. ghostX + 3. */
+    public int ghostX() { return ghostX; }
+    public int ghostY() { return ghostY; }
+
+    public TileType get(int row, int col) {
+        return TILES[tiles[index(row, col)]];
+    }
+
+    /** A fresh map for one game, starting as the layout; its changes stay with that map. */
+    public Map newMap(int tileSize) {
+        return new Map(new Overlay(), tileSize);
+    }
+
+    private int index(int row, int col) {
+        if (row < 0 || row >= rows || col < 0 || col >= cols) {
+            throw new IndexOutOfBoundsException("tile " + row + "," + col + " outside " + rows + "x" + cols);
+        }
+        return row * cols + col;
+    }
+
+    private static boolean isPellet(byte t) {
+        return t == TileType.PACDOT.ordinal() || t == TileType.POWER_PACDOT.ordinal();
+    }
+
+    /** Per-game view: the layout minus eaten pellets, or a private copy once anything else changed. */
+    private final class Overlay implements TileStore {
+        private final long[] eaten = new long[(tiles.length + 63) / 64];
+        private byte[] copy;
+
+        @Override public int rows() { return rows; }
+        @Override public int cols() { return cols; }
+
+        @Override
+        public TileType get(int row, int col) {
+            int i = index(row, col);
+            if (copy != null) return TILES[copy[i]];
+            if ((eaten[i >>> 6] & (1L << i)) != 0) return TileType.EMPTY;
+            return TILES[tiles[i]];
+        }
+
+        @Override
+        public void set(int row, int col, TileType type) {
+            int i = index(row, col);
+            byte t = (byte) type.ordinal();
+            if (copy != null) {
+                copy[i] = t;
+            } else if (t == tiles[i]) {
+                eaten[i >>> 6] &= ~(1L << i);
+            } else if (type == TileType.EMPTY && isPellet(tiles[i])) {
+                eaten[i >>> 6] |= 1L << i;
+            } else {
+                copy = tiles.clone();
+                for (int j = 0; j < copy.length; j++) {
+                    if ((eaten[j >>> 6] & (1L << j)) != 0) copy[j] = (byte) TileType.EMPTY.ordinal();
+                }
+                copy[i] = t;
+            }
+        }
+    }
+}
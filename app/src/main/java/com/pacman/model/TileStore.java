@@ -0,0 +1,12 @@
+package com.pacman.model;
+
+/** Backing storage for the tiles of a {@link Map}, addressed by (row, col). */
+public interface TileStore {
+    int rows();
+    int cols();
+    TileType get(int row, int col);
+    void set(int row, int col, TileType type);
+
+    /** Pellets and power pellets held, for stores that keep count; -1 when the map has to count them. */
+    default long pelletCount() { return -1; }
+}
@@ -1,39 +1,76 @@
 package com.pacman.model;
 
-import java.awt.Color;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.stream.IntStream;
 
 public final class TilemapLoader {
     private TilemapLoader() {}
 
-    // Legend 
-    private static final Color WALL    = new Color(0, 0, 255);
-    private static final Color PELLET  = new Color(255, 255, 0);
-    private static final Color POWER   = new Color(255, 165, 0);
-    private static final Color GATE    = new Color(255, 0, 255);
+    // Legend (opaque ARGB)
+    private static final int WALL    = 0xFF0000FF; // (0, 0, 255)
+    private static final int PELLET  = 0xFFFFFF00; // (255, 255, 0)
+    private static final int POWER   = 0xFFFFA500; // (255, 165, 0)
+    private static final int GATE    = 0xFFFF00FF; // (255, 0, 255)
     // Anything else -> EMPTY
 
+    // Rows decoded per getRGB call, and the image size from which bands run in parallel
+    private static final int BAND_ROWS = 64;
+    private static final long PARALLEL_PIXELS = 1L << 20;
+
     public static TileType[][] fromImage(BufferedImage img) {
         final int rows = img.getHeight();
         final int cols = img.getWidth();
         TileType[][] grid = new TileType[rows][cols];
 
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                int argb = img.getRGB(c, r);
-                Color color = new Color(argb, true);
-
-                if (same(color, WALL))      grid[r][c] = TileType.WALL;
-                else if (same(color, PELLET)) grid[r][c] = TileType.PACDOT;
-                else if (same(color, POWER))  grid[r][c] = TileType.POWER_PACDOT;
-                else if (same(color, GATE))   grid[r][c] = TileType.GHOST_GATE;
-                else                           grid[r][c] = TileType.EMPTY;
-            }
-        }
+        int bands = (rows + BAND_ROWS - 1) / BAND_ROWS;
+        IntStream bandIndices = IntStream.range(0, bands);
+        if ((long) rows * cols >= PARALLEL_PIXELS) bandIndices = bandIndices.parallel();
+        bandIndices.forEach(band -> decodeBand(img, grid, band * BAND_ROWS, Math.min(rows, (band + 1) * BAND_ROWS)));
         return grid;
     }
 
-    private static boolean same(Color a, Color b) {
-        return a.getAlpha()==b.getAlpha() && a.getRed()==b.getRed() && a.getGreen()==b.getGreen() && a.getBlue()==b.getBlue();
+    /**
+     * Classifies rows [from, to). INT_ARGB / INT_RGB rasters are read in place;
+     * other image types are converted with one bulk getRGB call per band.
+     */
+    private static void decodeBand(BufferedImage img, TileType[][] grid, int from, int to) {
+        int cols = img.getWidth();
+        int[] pixels;
+        int offset, stride, alpha = 0;
+        WritableRaster raster = img.getRaster();
+        boolean packedInt = (img.getType() == BufferedImage.TYPE_INT_ARGB || img.getType() == BufferedImage.TYPE_INT_RGB)
+                && raster.getDataBuffer() instanceof DataBufferInt
+                && raster.getSampleModel() instanceof SinglePixelPackedSampleModel
+                && raster.getParent() == null;
+        if (packedInt) {
+            SinglePixelPackedSampleModel sm = (SinglePixelPackedSampleModel) raster.getSampleModel();
+            DataBufferInt db = (DataBufferInt) raster.getDataBuffer();
+            pixels = db.getData();
+            stride = sm.getScanlineStride();
+            offset = db.getOffset() + sm.getOffset(0, from);
+            if (img.getType() == BufferedImage.TYPE_INT_RGB) alpha = 0xFF000000;
+        } else {
+            pixels = img.getRGB(0, from, cols, to - from, null, 0, cols);
+            stride = cols;
+            offset = 0;
+        }
+        for (int r = from; r < to; r++) {
+            TileType[] row = grid[r];
+            int base = offset + (r - from) * stride;
+            for (int c = 0; c < cols; c++) row[c] = classify(pixels[base + c] | alpha);
+        }
+    }
+
+    private static TileType classify(int argb) {
+        return switch (argb) {
+            case WALL -> TileType.WALL;
+            case PELLET -> TileType.PACDOT;
+            case POWER -> TileType.POWER_PACDOT;
+            case GATE -> TileType.GHOST_GATE;
+            default -> TileType.EMPTY;
+        };
     }
 }
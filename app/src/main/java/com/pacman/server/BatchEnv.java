@@ -0,0 +1,312 @@
+package com.pacman.server;
+
+import com.pacman.logic.GameInstance;
+import com.pacman.logic.GameSession;
+import com.pacman.logic.Ghost;
+import com.pacman.model.Direction;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.Map;
+import com.pacman.model.SharedLayout;
+import com.pacman.model.TileType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Many games stepped in lock step for training agents, with actions and observations in one
+ * memory-mapped file that the agent maps too, so nothing is copied per step.
+ *
+ * File layout (little-endian):
+ * <pre>
+ *  0  int   magic "PENV"
+ *  4  short version
+ *  6  short reserved
+ *  8  int   envs
+ * 12  int   rows
+ * 16  int   cols
+ * 20  int   entities (player, then ghosts)
+ * 24  int   record size in bytes
+ * 28  int   offset of the first record
+ * 32  long  batches completed (reset or step), written last
+ * 40  ...   reserved up to 64
+ * 64  byte  action per env, written by the agent: 0 keep going, 1 up, 2 down, 3 left, 4 right
+ * then one record per env:
+ *  0  int   reward (score gained by the last step)
+ *  4  int   score
+ *  8  byte  done (the last step ended the episode)
+ *  9  byte  state ({@link GameSession.State} ordinal)
+ * 10  byte  lives
+ * 11  byte  reserved
+ * 12  float x, y per entity, in tiles
+ * 52  byte  mode per ghost ({@link Ghost.Mode} ordinal)
+ * 56  int   ticks into the episode
+ * 60  int   reserved
+ * 64  byte  tile per map cell, row-major ({@link TileType} ordinal)
+ * </pre>
+ * Tiles are only written where they changed. A step after the one that reported done starts
+ * the next episode of that env instead: its action is ignored and it reports the new game.
+ *
+ * Envs are split over worker threads, each with its own {@link JunctionGraph}; the thread that
+ * calls {@link #step} works through the first share itself.
+ */
+public final class BatchEnv implements Closeable {
+
+    static final int MAGIC = 0x564E4550; // "PENV" read little-endian
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int BATCHES_OFFSET = 32;
+    static final int RECORD_HEADER = 64;
+
+    private static final Direction[] ACTIONS = {Direction.NONE, Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT};
+    private static final int SPIN = 2_000;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer file;
+    private final int envs, cols, recordSize, recordsOffset;
+    private final Env[] games;
+    private final Worker[] workers; // workers[0] runs on the calling thread
+    private final AtomicInteger running = new AtomicInteger();
+    private volatile Thread caller;
+    private volatile long generation;
+    private volatile boolean resetting, closed;
+    private long seed, batches;
+
+    private BatchEnv(FileChannel channel, MappedByteBuffer file, SharedLayout layout, int envs, int threads) {
+        this.channel = channel;
+        this.file = file;
+        this.envs = envs;
+        this.cols = layout.cols();
+        this.recordSize = recordSize(layout);
+        this.recordsOffset = align8(HEADER_SIZE + envs);
+        this.games = new Env[envs];
+        this.workers = new Worker[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Worker(layout, (int) ((long) envs * t / threads), (int) ((long) envs * (t + 1) / threads));
+        }
+        for (int t = 1; t < threads; t++) workers[t].thread.start();
+    }
+
+    /** Creates (or overwrites) {@code file} for {@code envs} games on {@code layout}. */
+    public static BatchEnv open(Path file, SharedLayout layout, int envs, int threads) throws IOException {
+        if (envs < 1) throw new IllegalArgumentException("envs must be >= 1");
+        if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+        long size = align8(HEADER_SIZE + envs) + (long) envs * recordSize(layout);
+        if (size > Integer.MAX_VALUE) throw new IllegalArgumentException("observation file too large: " + size + " bytes");
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            map.putInt(0, MAGIC).putShort(4, VERSION).putInt(8, envs).putInt(12, layout.rows())
+                    .putInt(16, layout.cols()).putInt(20, SpectatorFeed.ENTITIES).putInt(24, recordSize(layout))
+                    .putInt(28, align8(HEADER_SIZE + envs));
+            return new BatchEnv(ch, map, layout, envs, Math.min(threads, envs));
+        } catch (IOException | RuntimeException e) {
+            ch.close();
+            throw e;
+        }
+    }
+
+    private static int recordSize(SharedLayout layout) {
+        return align8(RECORD_HEADER + layout.rows() * layout.cols());
+    }
+
+    private static int align8(int n) {
+        return (n + 7) & ~7;
+    }
+
+    public int envs() { return envs; }
+    /** Env steps taken so far, over all envs. */
+    public long steps() { return stepsTaken(); }
+    public long batches() { return batches; }
+
+    /** Starts a new episode in every env; env {@code i} is seeded from {@code seed} and {@code i}. */
+    public void reset(long seed) {
+        this.seed = seed;
+        resetting = true;
+        runBatch();
+    }
+
+    /** Applies the actions in the file and steps every env once. */
+    public void step() {
+        resetting = false;
+        runBatch();
+    }
+
+    /** Writes {@code actions} (one per env, see the layout) into the file, then steps. */
+    public void step(byte[] actions) {
+        if (actions.length != envs) throw new IllegalArgumentException("expected " + envs + " actions");
+        file.put(HEADER_SIZE, actions);
+        step();
+    }
+
+    /** A read-only view of the whole file, as the agent sees it. */
+    public ByteBuffer observations() {
+        return file.asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /** Offset of env {@code i}'s record in {@link #observations()}. */
+    public int recordOffset(int env) {
+        return recordsOffset + env * recordSize;
+    }
+
+    /** The game behind env {@code i}, for checking observations; not to be changed. */
+    public GameInstance game(int env) {
+        return games[env].game;
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        for (int t = 1; t < workers.length; t++) {
+            LockSupport.unpark(workers[t].thread);
+            try {
+                workers[t].thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        file.force();
+        channel.close();
+    }
+
+    private long stepsTaken() {
+        long steps = 0;
+        for (Worker w : workers) steps += w.steps;
+        return steps;
+    }
+
+    private void runBatch() {
+        if (closed) throw new IllegalStateException("closed");
+        caller = Thread.currentThread();
+        running.set(workers.length - 1);
+        generation++;
+        for (int t = 1; t < workers.length; t++) LockSupport.unpark(workers[t].thread);
+        workers[0].runShare();
+        for (int spins = 0; running.get() > 0; spins++) {
+            if (spins < SPIN) Thread.onSpinWait();
+            else LockSupport.park(this);
+        }
+        batches++;
+        file.putLong(BATCHES_OFFSET, batches);
+    }
+
+    /** One game, its record in the file, and where its episode stands. */
+    private final class Env implements Map.TileListener {
+        final GameInstance game;
+        final ByteBuffer out;
+        final int base;
+        final int index;
+        int episode;
+        int lastScore;
+        boolean done;
+
+        Env(GameInstance game, ByteBuffer out, int index) {
+            this.game = game;
+            this.out = out;
+            this.index = index;
+            this.base = recordsOffset + index * recordSize;
+            game.map().addTileListener(this);
+            int tiles = game.map().rows() * cols;
+            for (int i = 0; i < tiles; i++) {
+                out.put(base + RECORD_HEADER + i, (byte) game.map().getTile(i / cols, i % cols).ordinal());
+            }
+        }
+
+        @Override
+        public void tileChanged(int row, int col, TileType before, TileType after) {
+            out.put(base + RECORD_HEADER + row * cols + col, (byte) after.ordinal());
+        }
+
+        void reset(long seed) {
+            game.reset(seed);
+            lastScore = 0;
+            done = false;
+            write(0);
+        }
+
+        void step() {
+            if (done) {
+                episode++;
+                reset(seed ^ ((long) index << 32 | episode) * 0x9E3779B97F4A7C15L);
+                return;
+            }
+            int action = out.get(HEADER_SIZE + index);
+            if (action > 0 && action < ACTIONS.length) game.player().request(ACTIONS[action]);
+            game.tick();
+            GameSession.State state = game.session().state();
+            done = state == GameSession.State.GAME_OVER || state == GameSession.State.WIN;
+            int score = game.score();
+            write(score - lastScore);
+            lastScore = score;
+        }
+
+        private void write(int reward) {
+            int b = base;
+            out.putInt(b, reward).putInt(b + 4, game.score()).put(b + 8, (byte) (done ? 1 : 0))
+                    .put(b + 9, (byte) game.session().state().ordinal()).put(b + 10, (byte) game.session().lives());
+            out.putFloat(b + 12, (float) game.player().exactX()).putFloat(b + 16, (float) game.player().exactY());
+            List<Ghost> ghosts = game.ghosts();
+            for (int i = 0; i < ghosts.size(); i++) {
+                Ghost g = ghosts.get(i);
+                out.putFloat(b + 20 + 8 * i, (float) g.exactX()).putFloat(b + 24 + 8 * i, (float) g.exactY());
+                out.put(b + 52 + i, (byte) g.mode().ordinal());
+            }
+            out.putInt(b + 56, (int) game.ticks());
+        }
+    }
+
+    /** Steps envs [from, to) each batch; the first worker runs on the caller's thread. */
+    private final class Worker implements Runnable {
+        final int from, to;
+        final Thread thread;
+        long steps;
+        private long seen;
+
+        Worker(SharedLayout layout, int from, int to) {
+            this.from = from;
+            this.to = to;
+            JunctionGraph graph = new JunctionGraph(layout.newMap(16));
+            ByteBuffer out = file.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = from; i < to; i++) games[i] = new Env(new GameInstance(layout, graph), out, i);
+            thread = new Thread(this, "env-worker-" + from);
+            thread.setDaemon(true);
+        }
+
+        void runShare() {
+            if (resetting) {
+                for (int i = from; i < to; i++) {
+                    Env e = games[i];
+                    e.episode = 0;
+                    e.reset(seed ^ ((long) i << 32) * 0x9E3779B97F4A7C15L);
+                }
+            } else {
+                for (int i = from; i < to; i++) games[i].step();
+                steps += to - from;
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!closed) {
+                for (int spins = 0; generation == seen && !closed; spins++) {
+                    if (spins < SPIN) Thread.onSpinWait();
+                    else LockSupport.park(this);
+                }
+                if (closed) return;
+                seen = generation;
+                runShare();
+                if (running.decrementAndGet() == 0) LockSupport.unpark(caller);
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.pacman.server;
+
+import java.nio.ByteBuffer;
+
+/** Reads what {@link BitWriter} wrote. Running past the end throws BufferUnderflowException. */
+final class BitReader {
+
+    private ByteBuffer in;
+    private long acc;
+    private int bits;
+
+    BitReader reset(ByteBuffer in) {
+        this.in = in;
+        acc = 0;
+        bits = 0;
+        return this;
+    }
+
+    int read(int n) {
+        while (bits < n) {
+            acc |= (in.get() & 0xFFL) << bits;
+            bits += 8;
+        }
+        int value = (int) (acc & ((1L << n) - 1));
+        acc >>>= n;
+        bits -= n;
+        return value;
+    }
+
+    boolean readBit() {
+        return read(1) != 0;
+    }
+
+    int readVar() {
+        int value = 0;
+        for (int shift = 0; ; shift += 4) {
+            if (shift > 28) throw new IllegalStateException("varint too long");
+            int group = read(5);
+            value |= (group & 15) << shift;
+            if ((group & 16) == 0) return value;
+        }
+    }
+
+    int readSigned() {
+        int v = readVar();
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
@@ -0,0 +1,56 @@
+package com.pacman.server;
+
+import java.nio.ByteBuffer;
+
+/** Packs values into a byte buffer, least significant bit first. Read back with {@link BitReader}. */
+final class BitWriter {
+
+    /** Upper bound in bits of {@link #writeVar} for any int. */
+    static final int MAX_VAR_BITS = 40;
+
+    private ByteBuffer out;
+    private long acc;
+    private int bits;
+
+    /** Starts writing at the buffer's position. */
+    BitWriter reset(ByteBuffer out) {
+        this.out = out;
+        acc = 0;
+        bits = 0;
+        return this;
+    }
+
+    /** The low {@code n} bits of {@code value}, n at most 32. */
+    void write(int value, int n) {
+        acc |= (value & ((1L << n) - 1)) << bits;
+        bits += n;
+        while (bits >= 8) {
+            out.put((byte) acc);
+            acc >>>= 8;
+            bits -= 8;
+        }
+    }
+
+    void writeBit(boolean bit) {
+        write(bit ? 1 : 0, 1);
+    }
+
+    /** Unsigned, as 4-bit groups each followed by a continue bit: 0..15 take 5 bits. */
+    void writeVar(int value) {
+        while ((value & ~15) != 0) {
+            write((value & 15) | 16, 5);
+            value >>>= 4;
+        }
+        write(value, 5);
+    }
+
+    /** Zigzag, so small changes either way stay small. */
+    void writeSigned(int value) {
+        writeVar((value << 1) ^ (value >> 31));
+    }
+
+    /** Pads the last byte with zeros. */
+    void finish() {
+        if (bits > 0) write(0, 8 - bits);
+    }
+}
@@ -0,0 +1,140 @@
+package com.pacman.server;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Control channel for a {@link BatchEnv}. Observations and actions stay in the mapped file; the
+ * agent only sends a fixed-size request per batch and waits for the reply:
+ * <pre>
+ *  request  byte op, long argument
+ *           RESET  argument = seed
+ *           STEP   argument unused (0); actions are read from the file
+ *           CLOSE  argument unused; the server closes the connection
+ *  reply    long batches completed, the same value as in the file header
+ * </pre>
+ * Little-endian. Listens on a Unix domain socket when given a path and on loopback TCP when
+ * given a port; serves one agent at a time.
+ */
+public final class EnvServer implements Closeable {
+
+    public static final byte RESET = 1;
+    public static final byte STEP = 2;
+    public static final byte CLOSE = 3;
+    static final int REQUEST_SIZE = 9;
+    static final int REPLY_SIZE = 8;
+
+    private final BatchEnv env;
+    private final ServerSocketChannel server;
+    private final Path socketFile;
+
+    private EnvServer(BatchEnv env, ServerSocketChannel server, Path socketFile) {
+        this.env = env;
+        this.server = server;
+        this.socketFile = socketFile;
+    }
+
+    /** Listens on {@code address}, a {@link UnixDomainSocketAddress} or an {@link InetSocketAddress}. */
+    public static EnvServer bind(BatchEnv env, SocketAddress address) throws IOException {
+        Path socketFile = null;
+        ServerSocketChannel server;
+        if (address instanceof UnixDomainSocketAddress unix) {
+            socketFile = unix.getPath();
+            Files.deleteIfExists(socketFile);
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        try {
+            server.bind(address);
+        } catch (IOException e) {
+            server.close();
+            throw e;
+        }
+        return new EnvServer(env, server, socketFile);
+    }
+
+    public SocketAddress address() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    /** Serves agents one after another until this server is closed. */
+    public void serve() throws IOException {
+        while (server.isOpen()) {
+            SocketChannel agent;
+            try {
+                agent = server.accept();
+            } catch (IOException e) {
+                if (!server.isOpen()) return;
+                throw e;
+            }
+            try (agent) {
+                serve(agent);
+            } catch (IOException e) {
+                System.err.println("Env agent disconnected: " + e.getMessage());
+            }
+        }
+    }
+
+    private void serve(SocketChannel agent) throws IOException {
+        ByteBuffer request = ByteBuffer.allocate(REQUEST_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer reply = ByteBuffer.allocate(REPLY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (true) {
+            request.clear();
+            while (request.hasRemaining()) {
+                if (agent.read(request) < 0) {
+                    if (request.position() == 0) return;
+                    throw new IOException("truncated request");
+                }
+            }
+            byte op = request.get(0);
+            switch (op) {
+                case RESET -> env.reset(request.getLong(1));
+                case STEP -> env.step();
+                case CLOSE -> { return; }
+                default -> throw new IOException("unknown op " + op);
+            }
+            reply.clear();
+            reply.putLong(env.batches()).flip();
+            while (reply.hasRemaining()) agent.write(reply);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        server.close();
+        if (socketFile != null) Files.deleteIfExists(socketFile);
+    }
+
+    /**
+     * Usage: {@code EnvServer <envs> <obsFile> <socketPath|port> [threads]} on the bundled map,
+     * with one thread per core unless given.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: EnvServer <envs> <obsFile> <socketPath|port> [threads]");
+            System.exit(2);
+        }
+        int envs = Integer.parseInt(args[0]);
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        SocketAddress address = args[2].chars().allMatch(Character::isDigit)
+                ? new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(args[2]))
+                : UnixDomainSocketAddress.of(args[2]);
+        try (BatchEnv env = BatchEnv.open(Path.of(args[1]), GameServer.bundledLayout(), envs, threads);
+             EnvServer server = bind(env, address)) {
+            System.out.println(envs + " envs in " + args[1] + ", control on " + server.address());
+            server.serve();
+        }
+    }
+}
@@ -0,0 +1,551 @@
+package com.pacman.server;
+
+import com.pacman.logic.GameInstance;
+import com.pacman.logic.Ghost;
+import com.pacman.logic.InputCommand;
+import com.pacman.logic.InputQueue;
+import com.pacman.logic.MovementSystem;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.Map;
+import com.pacman.model.MapLoader;
+import com.pacman.model.SharedLayout;
+import com.pacman.model.TileType;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hosts many independent games in one JVM, one per TCP connection ({@link Protocol}).
+ *
+ * Every game is a {@link GameInstance} on the same {@link SharedLayout}. Games are dealt out
+ * round robin to a few sim threads; each sim thread steps all of its games at a fixed 60 Hz,
+ * catching up after a late pass and dropping steps once it is more than 250 ms behind, like the
+ * game panel's loop. Each sim thread has its own {@link JunctionGraph} for routing.
+ *
+ * One I/O thread runs a non-blocking selector: it accepts clients, hands their input to the
+ * sim threads through each game's {@link InputQueue}, and writes the updates the sim threads
+ * leave in each connection's output buffer. A client that stops reading skips updates until
+ * its buffer drains; as updates are deltas against the last one sent, nothing is lost.
+ * With {@link #spectate}, the longest-connected game is also captured for a {@link SpectatorFeed}.
+ */
+public final class GameServer implements Closeable {
+
+    public static final int DEFAULT_PORT = 7777;
+    // Same defaults as the bundled maze in GamePanel
+    private static final int[] DEFAULT_SPAWNS = {13, 21, 12, 14};
+
+    private static final long STEP_NANOS = Math.round(GameInstance.STEP_SECONDS * 1_000_000_000L);
+    private static final long MAX_BEHIND_NANOS = 250_000_000L;
+    private static final int OUT_BUFFER = 8192;
+    private static final int MAX_ENTITIES = 8;
+    private static final int MAX_TILES_PER_UPDATE =
+            (Protocol.MAX_FRAME - Protocol.UPDATE_HEADER - MAX_ENTITIES * Protocol.ENTITY_BYTES - 2) / Protocol.TILE_BYTES;
+    private static final InputCommand[] COMMANDS = InputCommand.values();
+
+    private final SharedLayout layout;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Shard[] shards;
+    private final Thread io;
+    private final ConcurrentLinkedQueue<Connection> flushes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger sessions = new AtomicInteger();
+    private final long startNanos = System.nanoTime();
+    // Each game's ghosts are seeded from this and its connection id (-Dpacman.serverSeed), so a
+    // session can be replayed from its inputs
+    private final long seed = Long.getLong("pacman.serverSeed", 1L);
+    private volatile boolean running = true;
+    private int accepted;
+
+    // The game shown to spectators: the longest-connected one still playing
+    private volatile SpectatorFeed feed;
+    private volatile Connection featured;
+
+    private GameServer(ServerSocketChannel server, Selector selector, SharedLayout layout, int simThreads) {
+        this.server = server;
+        this.selector = selector;
+        this.layout = layout;
+        this.shards = new Shard[simThreads];
+        for (int i = 0; i < simThreads; i++) shards[i] = new Shard("game-sim-" + i);
+        this.io = new Thread(this::ioLoop, "game-server-io");
+    }
+
+    /** Binds {@code address} (port 0 picks a free one) and starts the I/O and sim threads. */
+    public static GameServer start(InetSocketAddress address, SharedLayout layout, int simThreads) throws IOException {
+        if (simThreads < 1) throw new IllegalArgumentException("simThreads must be >= 1");
+        if (layout.rows() > 127 || layout.cols() > 127) {
+            throw new IllegalArgumentException("positions are sent as 8.8 fixed point; map must be at most 127x127");
+        }
+        ServerSocketChannel server = ServerSocketChannel.open();
+        Selector selector = null;
+        try {
+            server.bind(address, 1024);
+            server.configureBlocking(false);
+            selector = Selector.open();
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException | RuntimeException e) {
+            if (selector != null) selector.close();
+            server.close();
+            throw e;
+        }
+        GameServer gs = new GameServer(server, selector, layout, simThreads);
+        for (Shard s : gs.shards) s.start();
+        gs.io.start();
+        return gs;
+    }
+
+    /** The bundled maze with its usual spawn points. */
+    public static SharedLayout bundledLayout() throws IOException {
+        try (InputStream in = GameServer.class.getResourceAsStream("/maps/original_pacman.txt")) {
+            if (in == null) throw new FileNotFoundException("/maps/original_pacman.txt");
+            Map map = MapLoader.fromStream(in, 16);
+            int[] s = DEFAULT_SPAWNS;
+            return SharedLayout.of(map, s[0], s[1], s[2], s[3]);
+        }
+    }
+
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    /** Games with a connected client. */
+    public int sessions() {
+        return sessions.get();
+    }
+
+    /** Broadcasts the longest-connected game to {@code feed}, moving on when that client leaves. */
+    public void spectate(SpectatorFeed feed) {
+        this.feed = feed;
+    }
+
+    public Stats stats() {
+        long ticks = 0, passes = 0, overruns = 0, dropped = 0, busy = 0, updates = 0, skipped = 0;
+        for (Shard s : shards) {
+            ticks += s.ticks;
+            passes += s.passes;
+            overruns += s.overruns;
+            dropped += s.droppedSteps;
+            busy += s.busyNanos;
+            updates += s.updates;
+            skipped += s.skipped;
+        }
+        return new Stats(sessions.get(), shards.length, System.nanoTime() - startNanos, ticks, passes, overruns,
+                dropped, busy, updates, skipped);
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        for (Shard s : shards) LockSupport.unpark(s);
+        try {
+            io.join();
+            for (Shard s : shards) s.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection c) c.channel.close();
+        }
+        selector.close();
+        server.close();
+    }
+
+    /**
+     * Usage: {@code GameServer [port] [simThreads] [spectatorPort]}; prints stats every 5 s.
+     * With a spectator port, the longest-connected game is broadcast there.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        SharedLayout layout = bundledLayout();
+        try (GameServer gs = start(new InetSocketAddress(port), layout, threads);
+             SpectatorFeed feed = args.length > 2 ? SpectatorFeed.open(new InetSocketAddress(Integer.parseInt(args[2])),
+                     layout, SpectatorFeed.DEFAULT_KEYFRAME_INTERVAL) : null) {
+            System.out.println("Listening on port " + gs.port() + " with " + threads + " sim threads");
+            if (feed != null) {
+                gs.spectate(feed);
+                System.out.println("Spectators on port " + feed.port());
+            }
+            while (true) {
+                Thread.sleep(5_000);
+                System.out.println(gs.stats());
+            }
+        }
+    }
+
+    /** Totals since the server started. */
+    public static final class Stats {
+        private final int sessions, simThreads;
+        private final long elapsedNanos, ticks, passes, overruns, droppedSteps, busyNanos, updates, skippedUpdates;
+
+        Stats(int sessions, int simThreads, long elapsedNanos, long ticks, long passes, long overruns,
+              long droppedSteps, long busyNanos, long updates, long skippedUpdates) {
+            this.sessions = sessions;
+            this.simThreads = simThreads;
+            this.elapsedNanos = elapsedNanos;
+            this.ticks = ticks;
+            this.passes = passes;
+            this.overruns = overruns;
+            this.droppedSteps = droppedSteps;
+            this.busyNanos = busyNanos;
+            this.updates = updates;
+            this.skippedUpdates = skippedUpdates;
+        }
+
+        public int sessions() { return sessions; }
+        public int simThreads() { return simThreads; }
+        public long elapsedNanos() { return elapsedNanos; }
+        /** Game steps run, summed over all games. */
+        public long ticks() { return ticks; }
+        /** Passes over a sim thread's games (one per 60 Hz step). */
+        public long passes() { return passes; }
+        /** Passes that ended after the next step was due. */
+        public long overruns() { return overruns; }
+        /** Steps given up after falling more than 250 ms behind. */
+        public long droppedSteps() { return droppedSteps; }
+        public long busyNanos() { return busyNanos; }
+        public long updates() { return updates; }
+        /** Updates not sent because the client's output buffer was full. */
+        public long skippedUpdates() { return skippedUpdates; }
+
+        /** Sim threads' share of one core each, averaged (0..1 per thread). */
+        public double utilization() {
+            return elapsedNanos <= 0 ? 0 : busyNanos / ((double) elapsedNanos * simThreads);
+        }
+
+        /** Measured steps per busy core-second over 60: how many games one core could keep at full rate. */
+        public double sessionsPerCore() {
+            return busyNanos <= 0 ? 0 : ticks / (busyNanos / 1e9) * GameInstance.STEP_SECONDS;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d sessions on %d sim threads, %.1f%% busy, %d overruns, %d dropped steps, "
+                            + "%d updates (%d skipped), ~%.0f sessions per core",
+                    sessions, simThreads, utilization() * 100, overruns, droppedSteps, updates, skippedUpdates,
+                    sessionsPerCore());
+        }
+    }
+
+    // --- I/O thread ---
+
+    private void ioLoop() {
+        try {
+            while (running) {
+                selector.select();
+                Connection queued;
+                while ((queued = flushes.poll()) != null) {
+                    queued.flushQueued.set(false);
+                    flush(queued);
+                }
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Connection c = (Connection) key.attachment();
+                    if (key.isReadable()) read(c);
+                    if (key.isValid() && key.isWritable()) flush(c);
+                }
+            }
+        } catch (IOException e) {
+            if (running) System.err.println("Game server stopped: " + e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection c = new Connection(ch, accepted);
+            c.out.putShort((short) (Protocol.WELCOME_SIZE - 2)).put(Protocol.WELCOME)
+                    .putInt(layout.rows()).putInt(layout.cols()).put((byte) c.entities)
+                    .putShort((short) Math.round(1 / GameInstance.STEP_SECONDS));
+            c.key = ch.register(selector, SelectionKey.OP_READ, c);
+            sessions.incrementAndGet();
+            flush(c);
+            if (featured == null) featured = c;
+            shards[accepted++ % shards.length].joining.add(c);
+        }
+    }
+
+    private void read(Connection c) {
+        ByteBuffer in = c.in;
+        try {
+            if (c.channel.read(in) < 0) {
+                close(c);
+                return;
+            }
+        } catch (IOException e) {
+            close(c);
+            return;
+        }
+        in.flip();
+        long now = System.nanoTime();
+        while (in.remaining() >= 2) {
+            int length = in.getShort(in.position()) & 0xFFFF;
+            // clients only send INPUT frames
+            if (length != Protocol.INPUT_SIZE - 2) {
+                close(c);
+                return;
+            }
+            if (in.remaining() < Protocol.INPUT_SIZE) break;
+            byte type = in.get(in.position() + 2);
+            int command = in.get(in.position() + 3);
+            if (type != Protocol.INPUT || command < 0 || command >= COMMANDS.length) {
+                close(c);
+                return;
+            }
+            c.input.offer(COMMANDS[command], now);
+            in.position(in.position() + Protocol.INPUT_SIZE);
+        }
+        in.compact();
+    }
+
+    private void flush(Connection c) {
+        if (c.closed) return;
+        boolean more;
+        try {
+            synchronized (c.out) {
+                c.out.flip();
+                try {
+                    c.channel.write(c.out);
+                } finally {
+                    c.out.compact();
+                }
+                more = c.out.position() > 0;
+            }
+        } catch (IOException e) {
+            close(c);
+            return;
+        }
+        if (c.key.isValid()) {
+            c.key.interestOps(more ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    private void close(Connection c) {
+        if (c.closed) return;
+        c.closed = true;
+        c.key.cancel();
+        try {
+            c.channel.close();
+        } catch (IOException ignored) {
+        }
+        sessions.decrementAndGet();
+        if (featured == c) featured = longestConnected();
+    }
+
+    private Connection longestConnected() {
+        Connection best = null;
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection c && !c.closed && (best == null || c.id < best.id)) best = c;
+        }
+        return best;
+    }
+
+    /** One client and its game. Fields below the line are only touched by the owning sim thread. */
+    private static final class Connection implements InputQueue.Handler, Map.TileListener {
+        final SocketChannel channel;
+        final long id;
+        final ByteBuffer in = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer out = ByteBuffer.allocate(OUT_BUFFER).order(ByteOrder.LITTLE_ENDIAN); // guarded by itself
+        final InputQueue input = new InputQueue(16);
+        final AtomicBoolean flushQueued = new AtomicBoolean();
+        final int entities = 1 + GameInstance.GHOSTS;
+        SelectionKey key;
+        volatile boolean closed;
+
+        GameInstance game;
+        int cols;
+        long[] pendingBits;
+        int[] pending = new int[32];
+        int pendingCount;
+        int lastState = -1, lastLives = -1, lastScore = -1;
+        final short[] lastX = new short[entities], lastY = new short[entities];
+
+        Connection(SocketChannel channel, long id) {
+            this.channel = channel;
+            this.id = id;
+            Arrays.fill(lastX, Short.MIN_VALUE);
+        }
+
+        /** Called on the sim thread that will own this game. */
+        void startGame(SharedLayout layout, JunctionGraph graph, long seed) {
+            // spread ids apart so neighbouring games do not share ghost seeds
+            game = new GameInstance(layout, graph, seed ^ (id * 0xBF58476D1CE4E5B9L));
+            cols = layout.cols();
+            pendingBits = new long[(layout.rows() * cols + 63) / 64];
+            game.map().addTileListener(this);
+        }
+
+        @Override
+        public void onInput(InputCommand command, long timestampNanos) {
+            game.input(command);
+        }
+
+        @Override
+        public void tileChanged(int row, int col, TileType before, TileType after) {
+            int index = row * cols + col;
+            if ((pendingBits[index >>> 6] & (1L << index)) != 0) return;
+            pendingBits[index >>> 6] |= 1L << index;
+            if (pendingCount == pending.length) pending = Arrays.copyOf(pending, pendingCount * 2);
+            pending[pendingCount++] = index;
+        }
+
+        /** Appends an UPDATE with what changed since the last one; false when the buffer is full. */
+        boolean writeUpdate() {
+            int state = game.session().state().ordinal();
+            int lives = game.session().lives();
+            int score = game.score();
+            int tiles = Math.min(pendingCount, MAX_TILES_PER_UPDATE);
+            int need = Protocol.UPDATE_HEADER + entities * Protocol.ENTITY_BYTES + 2 + tiles * Protocol.TILE_BYTES;
+            synchronized (out) {
+                if (out.remaining() < need) return false;
+                int start = out.position();
+                out.putShort((short) 0).put(Protocol.UPDATE).putInt((int) game.ticks());
+                boolean stateChanged = state != lastState || lives != lastLives;
+                boolean scoreChanged = score != lastScore;
+                out.put((byte) ((stateChanged ? Protocol.FLAG_STATE : 0) | (scoreChanged ? Protocol.FLAG_SCORE : 0)));
+                if (stateChanged) out.put((byte) state).put((byte) lives);
+                if (scoreChanged) out.putInt(score);
+
+                int maskAt = out.position();
+                out.put((byte) 0);
+                int moved = 0;
+                List<Ghost> ghosts = game.ghosts();
+                for (int i = 0; i < entities; i++) {
+                    double x, y;
+                    if (i == 0) {
+                        MovementSystem p = game.player();
+                        x = p.exactX();
+                        y = p.exactY();
+                    } else {
+                        Ghost g = ghosts.get(i - 1);
+                        x = g.exactX();
+                        y = g.exactY();
+                    }
+                    short fx = Protocol.fixed(x), fy = Protocol.fixed(y);
+                    if (fx == lastX[i] && fy == lastY[i]) continue;
+                    out.putShort(fx).putShort(fy);
+                    lastX[i] = fx;
+                    lastY[i] = fy;
+                    moved |= 1 << i;
+                }
+                out.put(maskAt, (byte) moved);
+
+                out.putShort((short) tiles);
+                Map map = game.map();
+                for (int i = 0; i < tiles; i++) {
+                    int index = pending[i];
+                    pendingBits[index >>> 6] &= ~(1L << index);
+                    out.putInt(index).put((byte) map.getTile(index / cols, index % cols).ordinal());
+                }
+                out.putShort(start, (short) (out.position() - start - 2));
+                lastState = state;
+                lastLives = lives;
+                lastScore = score;
+            }
+            pendingCount -= tiles;
+            if (pendingCount > 0) System.arraycopy(pending, tiles, pending, 0, pendingCount);
+            return true;
+        }
+    }
+
+    // --- Sim threads ---
+
+    private final class Shard extends Thread {
+        final ConcurrentLinkedQueue<Connection> joining = new ConcurrentLinkedQueue<>();
+        private final List<Connection> games = new ArrayList<>();
+        private final JunctionGraph graph = new JunctionGraph(layout.newMap(16));
+        volatile long ticks, passes, overruns, droppedSteps, busyNanos, updates, skipped;
+
+        Shard(String name) {
+            super(name);
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            long next = System.nanoTime();
+            while (running) {
+                long now = System.nanoTime();
+                if (now < next) {
+                    LockSupport.parkNanos(next - now);
+                    continue;
+                }
+                if (now - next > MAX_BEHIND_NANOS) {
+                    droppedSteps += (now - next) / STEP_NANOS;
+                    next = now;
+                }
+                Connection c;
+                while ((c = joining.poll()) != null) {
+                    c.startGame(layout, graph, seed);
+                    games.add(c);
+                }
+                if (pass(now)) selector.wakeup();
+                passes++;
+                busyNanos += System.nanoTime() - now;
+                next += STEP_NANOS;
+                if (System.nanoTime() > next) overruns++;
+            }
+        }
+
+        /** Steps every game once; true when output was queued for the I/O thread. */
+        private boolean pass(long now) {
+            boolean queued = false;
+            long stepped = 0, sent = 0, full = 0;
+            for (int i = 0; i < games.size(); i++) {
+                Connection c = games.get(i);
+                if (c.closed) {
+                    Connection last = games.remove(games.size() - 1);
+                    if (last != c) games.set(i--, last);
+                    continue;
+                }
+                c.input.drain(c, now);
+                c.game.tick();
+                if (c == featured) {
+                    SpectatorFeed f = feed;
+                    if (f != null) f.capture(c.game);
+                }
+                stepped++;
+                if (!c.writeUpdate()) {
+                    full++;
+                    continue;
+                }
+                sent++;
+                if (c.flushQueued.compareAndSet(false, true)) {
+                    flushes.add(c);
+                    queued = true;
+                }
+            }
+            ticks += stepped;
+            updates += sent;
+            skipped += full;
+            return queued;
+        }
+    }
+}
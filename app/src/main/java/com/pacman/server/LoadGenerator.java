@@ -0,0 +1,204 @@
+package com.pacman.server;
+
+import com.pacman.logic.GameSession;
+import com.pacman.logic.InputCommand;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Loopback client for load testing {@link GameServer}: opens many connections from one thread,
+ * starts a game on each, steers the players at random and decodes every update it receives.
+ *
+ * Usage: {@code LoadGenerator [clients] [seconds] [host:port]}. Without an address it starts a
+ * server in the same JVM with one sim thread per core and also prints that server's stats,
+ * including the measured sessions-per-core ceiling.
+ */
+public final class LoadGenerator {
+
+    private static final InputCommand[] MOVES = {
+            InputCommand.MOVE_UP, InputCommand.MOVE_DOWN, InputCommand.MOVE_LEFT, InputCommand.MOVE_RIGHT};
+    // a new direction about twice a second at 60 updates per second
+    private static final int UPDATES_PER_MOVE = 30;
+
+    private LoadGenerator() {}
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 30;
+        if (args.length > 2) {
+            String[] hostPort = args[2].split(":");
+            System.out.println(run(new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1])), clients, seconds, 1));
+            return;
+        }
+        int threads = Runtime.getRuntime().availableProcessors();
+        try (GameServer server = GameServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                GameServer.bundledLayout(), threads)) {
+            Report report = run(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port()),
+                    clients, seconds, 1);
+            System.out.println(report);
+            System.out.println(server.stats());
+        }
+    }
+
+    /** Connects {@code clients} games to {@code server}, plays them for {@code seconds} and disconnects. */
+    public static Report run(InetSocketAddress server, int clients, double seconds, long seed) throws IOException {
+        if (clients < 1) throw new IllegalArgumentException("clients must be >= 1");
+        List<Client> all = new ArrayList<>(clients);
+        Report report = new Report(clients);
+        long start = System.nanoTime();
+        try (Selector selector = Selector.open()) {
+            for (int i = 0; i < clients; i++) {
+                SocketChannel ch = SocketChannel.open();
+                all.add(new Client(ch, seed + i));
+                ch.configureBlocking(false);
+                ch.connect(server);
+                ch.register(selector, SelectionKey.OP_CONNECT, all.get(i));
+            }
+            long end = start + (long) (seconds * 1_000_000_000L);
+            while (System.nanoTime() < end) {
+                selector.select(10);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    Client c = (Client) key.attachment();
+                    try {
+                        if (key.isConnectable() && c.channel.finishConnect()) key.interestOps(SelectionKey.OP_READ);
+                        else if (key.isReadable()) c.read(report);
+                    } catch (IOException | RuntimeException e) {
+                        // lost connection, or a frame that did not decode
+                        report.errors++;
+                        key.cancel();
+                        c.channel.close();
+                    }
+                }
+            }
+        } finally {
+            for (Client c : all) c.channel.close();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        for (Client c : all) report.maxScore = Math.max(report.maxScore, c.score);
+        return report;
+    }
+
+    /** What the clients saw. */
+    public static final class Report {
+        private final int clients;
+        private int welcomed, errors, maxScore;
+        private long updates, bytes, inputs, elapsedNanos;
+
+        Report(int clients) {
+            this.clients = clients;
+        }
+
+        public int clients() { return clients; }
+        /** Connections that got as far as the server's WELCOME. */
+        public int welcomed() { return welcomed; }
+        /** Connections lost or closed over a malformed frame. */
+        public int errors() { return errors; }
+        public long updates() { return updates; }
+        public long bytes() { return bytes; }
+        public long inputs() { return inputs; }
+        public int maxScore() { return maxScore; }
+        public long elapsedNanos() { return elapsedNanos; }
+
+        /** Updates per client per second; 60 when the server keeps up. */
+        public double updateRate() {
+            return elapsedNanos <= 0 ? 0 : updates / (elapsedNanos / 1e9) / clients;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d/%d clients, %d errors, %.1f updates/s per client, %d bytes, %d inputs, best score %d",
+                    welcomed, clients, errors, updateRate(), bytes, inputs, maxScore);
+        }
+    }
+
+    private static final class Client {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(16 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        final ByteBuffer out = ByteBuffer.allocate(Protocol.INPUT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        long rng;
+        int entities = -1;
+        int updates, state = -1, score;
+
+        Client(SocketChannel channel, long seed) {
+            this.channel = channel;
+            this.rng = seed;
+        }
+
+        void read(Report report) throws IOException {
+            int n = channel.read(in);
+            if (n < 0) throw new IOException("server closed the connection");
+            report.bytes += n;
+            in.flip();
+            while (in.remaining() >= 2) {
+                int length = in.getShort(in.position()) & 0xFFFF;
+                if (length < 1 || length > Protocol.MAX_FRAME - 2) throw new IOException("bad frame length " + length);
+                if (in.remaining() < 2 + length) break;
+                int end = in.position() + 2 + length;
+                in.position(in.position() + 2);
+                byte type = in.get();
+                if (type == Protocol.WELCOME && entities < 0) {
+                    in.getInt();
+                    in.getInt();
+                    entities = in.get();
+                    in.getShort();
+                    report.welcomed++;
+                    send(InputCommand.START, report);
+                } else if (type == Protocol.UPDATE && entities > 0) {
+                    decodeUpdate(report);
+                } else {
+                    throw new IOException("unexpected frame type " + type);
+                }
+                if (in.position() != end) throw new IOException("frame length does not match its contents");
+            }
+            in.compact();
+        }
+
+        private void decodeUpdate(Report report) throws IOException {
+            in.getInt(); // tick
+            int flags = in.get();
+            if ((flags & Protocol.FLAG_STATE) != 0) {
+                state = in.get();
+                in.get(); // lives
+            }
+            if ((flags & Protocol.FLAG_SCORE) != 0) score = in.getInt();
+            int moved = in.get() & 0xFF;
+            in.position(in.position() + Integer.bitCount(moved) * Protocol.ENTITY_BYTES);
+            int tiles = in.getShort() & 0xFFFF;
+            in.position(in.position() + tiles * Protocol.TILE_BYTES);
+            report.updates++;
+
+            if (state == GameSession.State.GAME_OVER.ordinal() || state == GameSession.State.WIN.ordinal()) {
+                if (++updates % UPDATES_PER_MOVE == 0) send(InputCommand.RESTART, report);
+            } else if (++updates % UPDATES_PER_MOVE == 0) {
+                send(MOVES[(int) ((nextRandom() >>> 33) & 3)], report);
+            }
+        }
+
+        private void send(InputCommand command, Report report) throws IOException {
+            out.clear();
+            out.putShort((short) (Protocol.INPUT_SIZE - 2)).put(Protocol.INPUT).put((byte) command.ordinal()).flip();
+            channel.write(out);
+            if (!out.hasRemaining()) report.inputs++;
+        }
+
+        private long nextRandom() {
+            long z = (rng += 0x9E3779B97F4A7C15L);
+            z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+            z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
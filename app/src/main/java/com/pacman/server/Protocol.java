@@ -0,0 +1,55 @@
+package com.pacman.server;
+
+/**
+ * Wire format between {@link GameServer} and its clients. Every message is a frame:
+ * <pre>
+ *  short length of what follows (type + body)
+ *  byte  type
+ *  ...   body
+ * </pre>
+ * All values little-endian.
+ *
+ * Client to server:
+ * <pre>
+ *  INPUT    byte command ({@link com.pacman.logic.InputCommand} ordinal)
+ * </pre>
+ * Server to client:
+ * <pre>
+ *  WELCOME  int rows, int cols, byte entities (player + ghosts), short ticks per second
+ *  UPDATE   int tick
+ *           byte flags (FLAG_STATE, FLAG_SCORE)
+ *           [byte state ordinal, byte lives]   when FLAG_STATE
+ *           [int score]                        when FLAG_SCORE
+ *           byte moved: bit i set when entity i (0 = player) follows
+ *           per moved entity: short x, short y in 1/256 tile
+ *           short tiles, then per tile: int index (row * cols + col), byte tile ordinal
+ * </pre>
+ * An UPDATE only carries what changed since the last UPDATE the client received; a client that
+ * starts from the layout and applies every UPDATE in order has the full state.
+ */
+public final class Protocol {
+
+    public static final byte INPUT = 1;
+
+    public static final byte WELCOME = 1;
+    public static final byte UPDATE = 2;
+
+    public static final int FLAG_STATE = 1;
+    public static final int FLAG_SCORE = 2;
+
+    /** Largest frame either side sends, length prefix included. */
+    public static final int MAX_FRAME = 4096;
+    /** Fixed part of an UPDATE frame: length, type, tick, flags, state, lives, score, moved. */
+    static final int UPDATE_HEADER = 2 + 1 + 4 + 1 + 2 + 4 + 1;
+    static final int ENTITY_BYTES = 4;
+    static final int TILE_BYTES = 5;
+    static final int WELCOME_SIZE = 2 + 1 + 4 + 4 + 1 + 2;
+    static final int INPUT_SIZE = 2 + 1 + 1;
+
+    /** Position in 1/256 tile, as sent in UPDATE. */
+    public static short fixed(double tiles) {
+        return (short) Math.round(tiles * 256);
+    }
+
+    private Protocol() {}
+}
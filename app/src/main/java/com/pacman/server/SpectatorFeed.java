@@ -0,0 +1,489 @@
+package com.pacman.server;
+
+import com.pacman.logic.GameInstance;
+import com.pacman.logic.Ghost;
+import com.pacman.model.Map;
+import com.pacman.model.SharedLayout;
+import com.pacman.model.TileType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Broadcasts one live game to any number of spectators over TCP.
+ *
+ * The game's thread calls {@link #capture} after every tick; that only copies positions, modes,
+ * score and the tiles changed since the last capture into a small ring. The "spectator-io"
+ * thread encodes each capture once into a ring of frames, and every spectator is sent the
+ * same frame bytes with gathering writes from its own read position. A spectator that falls a
+ * whole frame ring behind is dropped to the next keyframe; one joining late starts at one.
+ *
+ * Frames are {@code short length, byte type, body}; bodies after WELCOME are bit-packed
+ * ({@link BitWriter}, least significant bit first, padded to a byte):
+ * <pre>
+ *  WELCOME   int rows, int cols, byte entities, short ticks per second, short keyframe interval
+ *  KEYFRAME  tick:32  state:2 lives:var  score:var
+ *            per entity x:16 y:16 (1/256 tile)  per ghost mode:2  every tile:3 (row-major)
+ *  DELTA     tick step:var
+ *            changed:1 [state:2 lives:var]  changed:1 [score change:signed]
+ *            per entity moved:1 [dx:signed dy:signed]  per ghost changed:1 [mode:2]
+ *            tiles:var, per tile index step:var tile:3 (ascending, first step from -1)
+ * </pre>
+ * Entity 0 is the player. {@link SpectatorView} decodes the feed.
+ */
+public final class SpectatorFeed implements Closeable {
+
+    public static final int DEFAULT_KEYFRAME_INTERVAL = 60;
+
+    static final byte WELCOME = 1;
+    static final byte KEYFRAME = 2;
+    static final byte DELTA = 3;
+    static final int WELCOME_SIZE = 2 + 1 + 4 + 4 + 1 + 2 + 2;
+    static final int ENTITIES = 1 + GameInstance.GHOSTS;
+    static final int STATE_BITS = 2;
+    static final int MODE_BITS = 2;
+    static final int TILE_BITS = 3;
+
+    private static final int RING = 128;          // encoded frames kept for spectators that are behind
+    private static final int CAPTURES = 8;        // captures waiting to be encoded
+    private static final int MAX_BATCH = 16;      // frames per gathering write
+    private static final int SEND_BUFFER = 16 * 1024; // small, so a stalled spectator shows up as lag quickly
+
+    private final SharedLayout layout;
+    private final int tiles;
+    private final int keyframeInterval;
+    private final int frameCapacity;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Thread io;
+    private volatile boolean running = true;
+
+    // --- game thread (guarded by this) ---
+    private final Capture[] captures = new Capture[CAPTURES];
+    private final AtomicLong captureHead = new AtomicLong(); // next capture to encode (I/O thread)
+    private final AtomicLong captureTail = new AtomicLong(); // next capture to fill (game thread)
+    private final TileTracker tracker;
+    private GameInstance game;
+    private boolean keyframeDue = true;
+    private int sinceKeyframe;
+    private volatile long skippedCaptures;
+
+    // --- I/O thread ---
+    private final ByteBuffer[] frames = new ByteBuffer[RING];
+    private final int[] frameLength = new int[RING];
+    private final BitWriter bits = new BitWriter();
+    private final List<Spectator> spectators = new ArrayList<>();
+    private final ByteBuffer[] batch = new ByteBuffer[MAX_BATCH + 1];
+    private final ByteBuffer readScratch = ByteBuffer.allocate(64);
+    private long published;                 // frames encoded so far
+    private long prevTick;
+    private int prevState, prevLives, prevScore;
+    private final int[] prevX = new int[ENTITIES], prevY = new int[ENTITIES];
+    private final int[] prevMode = new int[GameInstance.GHOSTS];
+    private volatile int spectatorCount;
+    private volatile long frameCount, bytesSent, dropped;
+
+    private SpectatorFeed(ServerSocketChannel server, Selector selector, SharedLayout layout, int keyframeInterval) {
+        this.server = server;
+        this.selector = selector;
+        this.layout = layout;
+        this.tiles = layout.rows() * layout.cols();
+        this.keyframeInterval = keyframeInterval;
+        // a keyframe, or a delta that changes every tile; both well under the short length prefix
+        long keyBits = 32 + STATE_BITS + 2L * BitWriter.MAX_VAR_BITS + ENTITIES * 32L
+                + GameInstance.GHOSTS * MODE_BITS + (long) tiles * TILE_BITS;
+        long deltaBits = 3L * BitWriter.MAX_VAR_BITS + STATE_BITS + 2 + ENTITIES * (1 + 2L * BitWriter.MAX_VAR_BITS)
+                + GameInstance.GHOSTS * (1 + MODE_BITS) + BitWriter.MAX_VAR_BITS
+                + (long) tiles * (BitWriter.MAX_VAR_BITS + TILE_BITS);
+        long capacity = 3 + (Math.max(keyBits, deltaBits) + 7) / 8 + 1;
+        if (capacity > 0xFFFF) throw new IllegalArgumentException("map too large for spectator frames");
+        this.frameCapacity = (int) capacity;
+        for (int i = 0; i < RING; i++) frames[i] = ByteBuffer.allocateDirect(frameCapacity).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < CAPTURES; i++) captures[i] = new Capture(tiles);
+        this.tracker = new TileTracker();
+        this.io = new Thread(this::ioLoop, "spectator-io");
+        io.setDaemon(true);
+    }
+
+    /** Listens on {@code address} (port 0 picks a free one) for spectators of games on {@code layout}. */
+    public static SpectatorFeed open(InetSocketAddress address, SharedLayout layout, int keyframeInterval)
+            throws IOException {
+        if (keyframeInterval < 1 || keyframeInterval > RING / 2) {
+            throw new IllegalArgumentException("keyframeInterval must be in 1.." + RING / 2);
+        }
+        ServerSocketChannel server = ServerSocketChannel.open();
+        Selector selector = null;
+        try {
+            server.bind(address, 256);
+            server.configureBlocking(false);
+            selector = Selector.open();
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            SpectatorFeed feed = new SpectatorFeed(server, selector, layout, keyframeInterval);
+            feed.io.start();
+            return feed;
+        } catch (IOException | RuntimeException e) {
+            if (selector != null) selector.close();
+            server.close();
+            throw e;
+        }
+    }
+
+    public int port() { return server.socket().getLocalPort(); }
+    public int spectators() { return spectatorCount; }
+    /** Frames encoded, each once no matter how many spectators there are. */
+    public long frames() { return frameCount; }
+    public long bytesSent() { return bytesSent; }
+    /** Times a spectator fell a frame ring behind and was moved on to the next keyframe. */
+    public long dropped() { return dropped; }
+    /** Ticks folded into the next capture because the encoder had not caught up. */
+    public long skippedCaptures() { return skippedCaptures; }
+
+    /**
+     * Records {@code game} after a tick; call on the thread that ticks it. Switching to another
+     * game starts a new keyframe. Cheap: no encoding or I/O happens here.
+     */
+    public synchronized void capture(GameInstance game) {
+        if (game != this.game) follow(game);
+        long t = captureTail.get();
+        if (t - captureHead.get() >= CAPTURES) {
+            skippedCaptures++;
+            return; // changed tiles stay pending; positions are absolute
+        }
+        Capture c = captures[(int) (t % CAPTURES)];
+        c.tick = game.ticks();
+        c.state = game.session().state().ordinal();
+        c.lives = game.session().lives();
+        c.score = game.score();
+        c.x[0] = Protocol.fixed(game.player().exactX());
+        c.y[0] = Protocol.fixed(game.player().exactY());
+        List<Ghost> ghosts = game.ghosts();
+        for (int i = 0; i < GameInstance.GHOSTS; i++) {
+            Ghost g = ghosts.get(i);
+            c.x[i + 1] = Protocol.fixed(g.exactX());
+            c.y[i + 1] = Protocol.fixed(g.exactY());
+            c.modes[i] = g.mode().ordinal();
+        }
+        Map map = game.map();
+        int cols = map.cols();
+        if (keyframeDue || ++sinceKeyframe >= keyframeInterval) {
+            c.keyframe = true;
+            for (int i = 0; i < tiles; i++) c.tileValues[i] = (byte) map.getTile(i / cols, i % cols).ordinal();
+            c.tileCount = tiles;
+            keyframeDue = false;
+            sinceKeyframe = 0;
+            tracker.clear();
+        } else {
+            c.keyframe = false;
+            c.tileCount = tracker.drainSorted(c.tileIndices);
+            for (int i = 0; i < c.tileCount; i++) {
+                int index = c.tileIndices[i];
+                c.tileValues[i] = (byte) map.getTile(index / cols, index % cols).ordinal();
+            }
+        }
+        captureTail.lazySet(t + 1);
+        selector.wakeup();
+    }
+
+    private void follow(GameInstance next) {
+        if (next.map().rows() != layout.rows() || next.map().cols() != layout.cols()) {
+            throw new IllegalArgumentException("game is not on this feed's layout");
+        }
+        if (game != null) game.map().removeTileListener(tracker);
+        game = next;
+        next.map().addTileListener(tracker);
+        tracker.clear();
+        keyframeDue = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            io.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Spectator s : spectators) s.channel.close();
+        selector.close();
+        server.close();
+        synchronized (this) {
+            if (game != null) game.map().removeTileListener(tracker);
+        }
+    }
+
+    /** One tick as the game thread saw it. */
+    private static final class Capture {
+        long tick;
+        boolean keyframe;
+        int state, lives, score;
+        final int[] x = new int[ENTITIES], y = new int[ENTITIES];
+        final int[] modes = new int[GameInstance.GHOSTS];
+        final int[] tileIndices;
+        final byte[] tileValues;
+        int tileCount;
+
+        Capture(int tiles) {
+            tileIndices = new int[tiles];
+            tileValues = new byte[tiles];
+        }
+    }
+
+    /** Tiles changed since the last capture, once each. Runs on the game thread. */
+    private final class TileTracker implements Map.TileListener {
+        private final long[] seen = new long[(tiles + 63) / 64];
+        private final int[] changed = new int[tiles];
+        private int count;
+
+        @Override
+        public void tileChanged(int row, int col, TileType before, TileType after) {
+            synchronized (SpectatorFeed.this) {
+                int index = row * layout.cols() + col;
+                if ((seen[index >>> 6] & (1L << index)) != 0) return;
+                seen[index >>> 6] |= 1L << index;
+                changed[count++] = index;
+            }
+        }
+
+        int drainSorted(int[] out) {
+            int n = count;
+            Arrays.sort(changed, 0, n);
+            System.arraycopy(changed, 0, out, 0, n);
+            clear();
+            return n;
+        }
+
+        void clear() {
+            for (int i = 0; i < count; i++) seen[changed[i] >>> 6] = 0;
+            count = 0;
+        }
+    }
+
+    // --- I/O thread ---
+
+    /** A connected spectator. {@code next} is the frame it needs next, -1 while it waits for a keyframe. */
+    private final class Spectator {
+        final SocketChannel channel;
+        final SelectionKey key;
+        final ByteBuffer[] views = new ByteBuffer[RING]; // own position/limit over the shared frames
+        ByteBuffer pending; // WELCOME, or the rest of a frame being sent when it was dropped
+        long next = -1;
+        int offset;
+
+        Spectator(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+            for (int i = 0; i < RING; i++) views[i] = frames[i].duplicate();
+            pending = ByteBuffer.allocate(frameCapacity).order(ByteOrder.LITTLE_ENDIAN);
+            pending.putShort((short) (WELCOME_SIZE - 2)).put(WELCOME).putInt(layout.rows()).putInt(layout.cols())
+                    .put((byte) ENTITIES).putShort((short) Math.round(1 / GameInstance.STEP_SECONDS))
+                    .putShort((short) keyframeInterval).flip();
+        }
+    }
+
+    private void ioLoop() {
+        try {
+            while (running) {
+                selector.select(100);
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) accept();
+                    else if (key.isReadable()) checkClosed((Spectator) key.attachment());
+                }
+                long head = captureHead.get();
+                long tail = captureTail.get();
+                for (; head < tail; head++) {
+                    encode(captures[(int) (head % CAPTURES)]);
+                    captureHead.lazySet(head + 1);
+                }
+                for (int i = 0; i < spectators.size(); i++) {
+                    Spectator s = spectators.get(i);
+                    if (!s.key.isValid()) {
+                        spectators.set(i, spectators.get(spectators.size() - 1));
+                        spectators.remove(spectators.size() - 1);
+                        i--;
+                        continue;
+                    }
+                    send(s);
+                }
+                spectatorCount = spectators.size();
+            }
+        } catch (IOException e) {
+            if (running) System.err.println("Spectator feed stopped: " + e.getMessage());
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch;
+        while ((ch = server.accept()) != null) {
+            ch.configureBlocking(false);
+            ch.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            ch.setOption(StandardSocketOptions.SO_SNDBUF, SEND_BUFFER);
+            SelectionKey key = ch.register(selector, SelectionKey.OP_READ);
+            Spectator s = new Spectator(ch, key);
+            key.attach(s);
+            spectators.add(s);
+        }
+    }
+
+    /** Spectators send nothing; whatever arrives is discarded, end of stream disconnects. */
+    private void checkClosed(Spectator s) {
+        try {
+            if (s.channel.read(readScratch.clear()) < 0) disconnect(s);
+        } catch (IOException e) {
+            disconnect(s);
+        }
+    }
+
+    private void disconnect(Spectator s) {
+        s.key.cancel();
+        try {
+            s.channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void encode(Capture c) {
+        long seq = published;
+        int slot = (int) (seq % RING);
+        if (seq >= RING) dropLaggards(seq - RING);
+
+        ByteBuffer f = frames[slot];
+        f.clear().position(3);
+        bits.reset(f);
+        if (c.keyframe) {
+            bits.write((int) c.tick, 32);
+            bits.write(c.state, STATE_BITS);
+            bits.writeVar(c.lives);
+            bits.writeVar(c.score);
+            for (int i = 0; i < ENTITIES; i++) {
+                bits.write(c.x[i], 16);
+                bits.write(c.y[i], 16);
+            }
+            for (int i = 0; i < GameInstance.GHOSTS; i++) bits.write(c.modes[i], MODE_BITS);
+            for (int i = 0; i < tiles; i++) bits.write(c.tileValues[i], TILE_BITS);
+        } else {
+            bits.writeVar((int) (c.tick - prevTick));
+            boolean stateChanged = c.state != prevState || c.lives != prevLives;
+            bits.writeBit(stateChanged);
+            if (stateChanged) {
+                bits.write(c.state, STATE_BITS);
+                bits.writeVar(c.lives);
+            }
+            bits.writeBit(c.score != prevScore);
+            if (c.score != prevScore) bits.writeSigned(c.score - prevScore);
+            for (int i = 0; i < ENTITIES; i++) {
+                boolean moved = c.x[i] != prevX[i] || c.y[i] != prevY[i];
+                bits.writeBit(moved);
+                if (moved) {
+                    bits.writeSigned(c.x[i] - prevX[i]);
+                    bits.writeSigned(c.y[i] - prevY[i]);
+                }
+            }
+            for (int i = 0; i < GameInstance.GHOSTS; i++) {
+                bits.writeBit(c.modes[i] != prevMode[i]);
+                if (c.modes[i] != prevMode[i]) bits.write(c.modes[i], MODE_BITS);
+            }
+            bits.writeVar(c.tileCount);
+            int last = -1;
+            for (int i = 0; i < c.tileCount; i++) {
+                bits.writeVar(c.tileIndices[i] - last);
+                bits.write(c.tileValues[i], TILE_BITS);
+                last = c.tileIndices[i];
+            }
+        }
+        bits.finish();
+        int length = f.position();
+        f.putShort(0, (short) (length - 2)).put(2, c.keyframe ? KEYFRAME : DELTA);
+        frameLength[slot] = length;
+
+        prevTick = c.tick;
+        prevState = c.state;
+        prevLives = c.lives;
+        prevScore = c.score;
+        System.arraycopy(c.x, 0, prevX, 0, ENTITIES);
+        System.arraycopy(c.y, 0, prevY, 0, ENTITIES);
+        System.arraycopy(c.modes, 0, prevMode, 0, GameInstance.GHOSTS);
+        published = seq + 1;
+        frameCount = published;
+
+        if (c.keyframe) {
+            for (Spectator s : spectators) {
+                if (s.next < 0) {
+                    s.next = seq;
+                    s.offset = 0;
+                }
+            }
+        }
+    }
+
+    /** Frame {@code overwritten} is about to be replaced: whoever still needs it waits for a keyframe. */
+    private void dropLaggards(long overwritten) {
+        for (Spectator s : spectators) {
+            if (s.next < 0 || s.next > overwritten) continue;
+            if (s.offset > 0) {
+                // finish the frame it is halfway through, so the stream stays whole
+                int slot = (int) (s.next % RING);
+                s.pending.clear();
+                s.pending.put(s.views[slot].limit(frameLength[slot]).position(s.offset)).flip();
+            }
+            s.next = -1;
+            s.offset = 0;
+            dropped++;
+        }
+    }
+
+    /** Writes what {@code s} is missing, up to {@link #MAX_BATCH} frames per call to the socket. */
+    private void send(Spectator s) {
+        try {
+            while (true) {
+                int n = 0;
+                if (s.pending.hasRemaining()) batch[n++] = s.pending;
+                long seq = s.next;
+                if (seq >= 0) {
+                    for (; seq < published && n < batch.length; seq++) {
+                        int slot = (int) (seq % RING);
+                        ByteBuffer v = s.views[slot];
+                        v.limit(frameLength[slot]).position(seq == s.next ? s.offset : 0);
+                        batch[n++] = v;
+                    }
+                }
+                if (n == 0) break;
+                bytesSent += s.channel.write(batch, 0, n);
+                while (s.next >= 0 && s.next < seq) {
+                    ByteBuffer v = s.views[(int) (s.next % RING)];
+                    if (v.hasRemaining()) {
+                        s.offset = v.position();
+                        break;
+                    }
+                    s.next++;
+                    s.offset = 0;
+                }
+                if (s.pending.hasRemaining() || (s.next >= 0 && s.next < seq)) {
+                    s.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    return;
+                }
+                if (s.next < 0 || s.next == published) break;
+            }
+            s.key.interestOps(SelectionKey.OP_READ);
+        } catch (IOException e) {
+            disconnect(s);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.pacman.server;
+
+import com.pacman.logic.GameInstance;
+import com.pacman.logic.GameSession;
+import com.pacman.logic.Ghost;
+import com.pacman.model.TileType;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Client side of a {@link SpectatorFeed}: rebuilds the watched game from the frames it reads.
+ * Nothing is known until the WELCOME and then a keyframe have arrived ({@link #synced()}).
+ */
+public final class SpectatorView {
+
+    private static final GameSession.State[] STATES = GameSession.State.values();
+    private static final Ghost.Mode[] MODES = Ghost.Mode.values();
+    private static final TileType[] TILES = TileType.values();
+
+    private final BitReader bits = new BitReader();
+    private int rows, cols, keyframeInterval;
+    private byte[] tiles;
+    private boolean synced;
+    private long tick;
+    private int state, lives, score;
+    private final int[] x = new int[SpectatorFeed.ENTITIES], y = new int[SpectatorFeed.ENTITIES];
+    private final int[] modes = new int[GameInstance.GHOSTS];
+    private long keyframes, deltas;
+
+    /**
+     * Applies every complete frame between {@code in}'s position and limit and leaves the
+     * position at the first incomplete one. Returns the number of frames applied.
+     */
+    public int read(ByteBuffer in) throws IOException {
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        int applied = 0;
+        while (in.remaining() >= 3) {
+            int start = in.position();
+            int length = in.getShort(start) & 0xFFFF;
+            if (length < 1) throw new IOException("Corrupt spectator frame: empty");
+            if (in.remaining() < 2 + length) break;
+            int end = start + 2 + length;
+            ByteBuffer body = in.slice(start + 3, length - 1).order(ByteOrder.LITTLE_ENDIAN);
+            try {
+                apply(in.get(start + 2), body);
+            } catch (RuntimeException e) {
+                throw new IOException("Corrupt spectator frame: " + e, e);
+            }
+            in.position(end);
+            applied++;
+        }
+        return applied;
+    }
+
+    private void apply(byte type, ByteBuffer body) throws IOException {
+        switch (type) {
+            case SpectatorFeed.WELCOME -> {
+                rows = body.getInt();
+                cols = body.getInt();
+                if (body.get() != SpectatorFeed.ENTITIES) throw new IOException("Unexpected entity count");
+                body.getShort();
+                keyframeInterval = body.getShort();
+                tiles = new byte[Math.multiplyExact(rows, cols)];
+                synced = false;
+            }
+            case SpectatorFeed.KEYFRAME -> {
+                if (tiles == null) throw new IOException("Keyframe before welcome");
+                bits.reset(body);
+                tick = bits.read(32) & 0xFFFFFFFFL;
+                state = checked(bits.read(SpectatorFeed.STATE_BITS), STATES.length);
+                lives = bits.readVar();
+                score = bits.readVar();
+                for (int i = 0; i < x.length; i++) {
+                    x[i] = (short) bits.read(16);
+                    y[i] = (short) bits.read(16);
+                }
+                for (int i = 0; i < modes.length; i++) modes[i] = checked(bits.read(SpectatorFeed.MODE_BITS), MODES.length);
+                for (int i = 0; i < tiles.length; i++) tiles[i] = (byte) checked(bits.read(SpectatorFeed.TILE_BITS), TILES.length);
+                synced = true;
+                keyframes++;
+            }
+            case SpectatorFeed.DELTA -> {
+                if (!synced) return; // only until the first keyframe after joining
+                bits.reset(body);
+                tick += bits.readVar();
+                if (bits.readBit()) {
+                    state = checked(bits.read(SpectatorFeed.STATE_BITS), STATES.length);
+                    lives = bits.readVar();
+                }
+                if (bits.readBit()) score += bits.readSigned();
+                for (int i = 0; i < x.length; i++) {
+                    if (!bits.readBit()) continue;
+                    x[i] += bits.readSigned();
+                    y[i] += bits.readSigned();
+                }
+                for (int i = 0; i < modes.length; i++) {
+                    if (bits.readBit()) modes[i] = checked(bits.read(SpectatorFeed.MODE_BITS), MODES.length);
+                }
+                int changed = bits.readVar();
+                int index = -1;
+                for (int i = 0; i < changed; i++) {
+                    index += bits.readVar();
+                    tiles[index] = (byte) checked(bits.read(SpectatorFeed.TILE_BITS), TILES.length);
+                }
+                deltas++;
+            }
+            default -> throw new IOException("Unknown spectator frame type " + type);
+        }
+    }
+
+    private static int checked(int ordinal, int count) {
+        if (ordinal >= count) throw new IllegalStateException("ordinal " + ordinal + " out of range");
+        return ordinal;
+    }
+
+    /** True once a keyframe has been applied. */
+    public boolean synced() { return synced; }
+    public int rows() { return rows; }
+    public int cols() { return cols; }
+    public int keyframeInterval() { return keyframeInterval; }
+    public long tick() { return tick; }
+    public GameSession.State state() { return STATES[state]; }
+    public int lives() { return lives; }
+    public int score() { return score; }
+    /** Entity 0 is the player, 1.. the ghosts; in 1/256 tile, as {@link Protocol#fixed}. */
+    public int x(int entity) { return x[entity]; }
+    public int y(int entity) { return y[entity]; }
+    public Ghost.Mode mode(int ghost) { return MODES[modes[ghost]]; }
+    public TileType tile(int row, int col) { return TILES[tiles[row * cols + col]]; }
+    public long keyframes() { return keyframes; }
+    public long deltas() { return deltas; }
+}
@@ -0,0 +1,20 @@
+package com.pacman.ui;
+
+/** Viewport in world pixels that keeps a target centered, clamped to the world edges. */
+final class Camera {
+    private int x, y;
+
+    /** Centers on (targetX, targetY); a world smaller than the view stays anchored at 0. */
+    void follow(int targetX, int targetY, int viewW, int viewH, int worldW, int worldH) {
+        x = clamp(targetX - viewW / 2, worldW - viewW);
+        y = clamp(targetY - viewH / 2, worldH - viewH);
+    }
+
+    int x() { return x; }
+    int y() { return y; }
+
+    private static int clamp(int v, int max) {
+        if (max <= 0) return 0;
+        return Math.max(0, Math.min(v, max));
+    }
+}
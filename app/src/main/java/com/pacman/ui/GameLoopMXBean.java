@@ -0,0 +1,53 @@
+package com.pacman.ui;
+
+/**
+ * Live game-loop health, registered on the platform MBean server as
+ * {@code com.pacman:type=GameLoop} so it can be watched with JConsole / VisualVM.
+ */
+public interface GameLoopMXBean {
+    double getTicksPerSecond();
+    double getFramesPerSecond();
+    double getFrameTimeP50Millis();
+    double getFrameTimeP99Millis();
+    double getFrameTimeMaxMillis();
+
+    /** Frames shown more than two ticks after the previous one. */
+    long getLateFrames();
+
+    /** Ticks skipped because a stall exceeded the catch-up limit. */
+    long getDroppedTicks();
+
+    String getState();
+    int getLives();
+    int getScore();
+    int getEntityCount();
+
+    /** Average bytes allocated by the loop thread per simulation tick, or -1 if unsupported. */
+    long getAllocatedBytesPerTick();
+
+    /** Ghost AI jobs allowed per tick, 0 = unlimited. A count rather than a time, so results stay reproducible. */
+    int getAiBudgetJobs();
+    void setAiBudgetJobs(int jobs);
+    int getAiPendingJobs();
+    /** Sum over ticks of AI jobs pushed to a later tick; growing fast means the budget is too tight. */
+    long getAiDeferredJobTicks();
+    long getAiMaxWaitTicks();
+
+    /** Timed events waiting on the game's timer wheel, and how many have fired. */
+    int getTimersPending();
+    long getTimersFired();
+
+    double getTickRate();
+    boolean isPaused();
+
+    void pause();
+    void resume();
+    void changeTickRate(double ticksPerSecond);
+
+    /** Game seconds per wall-clock second; Infinity while fast-forwarding uncapped. */
+    double getSpeed();
+    /** 0.1 to 64, or Infinity for uncapped; ticks stay the same length, so results do too. */
+    void changeSpeed(double speed);
+    /** While paused, runs exactly one more tick. */
+    void step();
+}
@@ -0,0 +1,137 @@
+package com.pacman.ui;
+
+import com.pacman.logic.Histogram;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters fed by the game loop and paint, exposed through {@link GameLoopMXBean}.
+ * The loop thread calls {@link #onTicks}, the EDT calls {@link #onFrame}.
+ */
+final class GameLoopMonitor implements GameLoopMXBean {
+
+    static final String OBJECT_NAME = "com.pacman:type=GameLoop";
+
+    private final GamePanel panel;
+    private final com.sun.management.ThreadMXBean threads = allocationBean();
+
+    // loop thread
+    private long windowStart = System.nanoTime();
+    private long windowTicks;
+    private long loopThreadId = -1;
+    private long allocatedBytes;
+    private long measuredTicks;
+    private volatile double ticksPerSecond;
+    private volatile long droppedTicks;
+    private volatile long bytesPerTick = -1;
+
+    // EDT
+    private final Histogram frameTimes = new Histogram();
+    private long lastFrame;
+    private long frameWindowStart = System.nanoTime();
+    private long windowFrames;
+    private volatile double framesPerSecond;
+    private volatile long lateFrames;
+
+    GameLoopMonitor(GamePanel panel) {
+        this.panel = panel;
+    }
+
+    /** Registers on the platform MBean server; failures are logged and ignored. */
+    void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(this, name);
+        } catch (Exception e) {
+            System.err.println("Failed to register JMX bean: " + e.getMessage());
+        }
+    }
+
+    /** Current allocation counter of the calling thread, or -1 if unsupported. */
+    long allocatedBytes() {
+        if (threads == null) return -1;
+        if (loopThreadId < 0) loopThreadId = Thread.currentThread().threadId();
+        return threads.getThreadAllocatedBytes(loopThreadId);
+    }
+
+    /** One loop iteration ran {@code ticks} ticks, allocating {@code bytes} (negative if unknown). */
+    void onTicks(int ticks, int dropped, long bytes, long now) {
+        windowTicks += ticks;
+        if (dropped > 0) droppedTicks += dropped;
+        if (bytes >= 0 && ticks > 0) {
+            allocatedBytes += bytes;
+            measuredTicks += ticks;
+            bytesPerTick = allocatedBytes / measuredTicks;
+        }
+        long elapsed = now - windowStart;
+        if (elapsed >= 1_000_000_000L) {
+            ticksPerSecond = windowTicks * 1e9 / elapsed;
+            windowTicks = 0;
+            windowStart = now;
+        }
+    }
+
+    void onFrame(long now) {
+        if (lastFrame != 0) {
+            long interval = now - lastFrame;
+            frameTimes.record(interval);
+            if (interval > 2 * panel.tickNanos()) lateFrames++;
+        }
+        lastFrame = now;
+        windowFrames++;
+        long elapsed = now - frameWindowStart;
+        if (elapsed >= 1_000_000_000L) {
+            framesPerSecond = windowFrames * 1e9 / elapsed;
+            windowFrames = 0;
+            frameWindowStart = now;
+        }
+    }
+
+    @Override public double getTicksPerSecond() { return ticksPerSecond; }
+    @Override public double getFramesPerSecond() { return framesPerSecond; }
+    @Override public double getFrameTimeP50Millis() { return frameTimes.percentile(50) / 1e6; }
+    @Override public double getFrameTimeP99Millis() { return frameTimes.percentile(99) / 1e6; }
+    @Override public double getFrameTimeMaxMillis() { return frameTimes.max() / 1e6; }
+    @Override public long getLateFrames() { return lateFrames; }
+    @Override public long getDroppedTicks() { return droppedTicks; }
+    @Override public String getState() { return panel.sessionState().name(); }
+    @Override public int getLives() { return panel.lives(); }
+    @Override public int getScore() { return panel.scoreValue(); }
+    @Override public int getEntityCount() { return panel.entityCount(); }
+    @Override public long getAllocatedBytesPerTick() { return bytesPerTick; }
+    @Override public int getAiBudgetJobs() { return panel.aiScheduler().budgetJobs(); }
+    @Override public void setAiBudgetJobs(int jobs) { panel.aiScheduler().setBudgetJobs(jobs); }
+    @Override public int getAiPendingJobs() { return panel.aiScheduler().pending(); }
+    @Override public long getAiDeferredJobTicks() { return panel.aiScheduler().deferredJobTicks(); }
+    @Override public long getAiMaxWaitTicks() { return panel.aiScheduler().maxWaitTicks(); }
+    @Override public int getTimersPending() { return panel.timers().pending(); }
+    @Override public long getTimersFired() { return panel.timers().fired(); }
+    @Override public double getTickRate() { return panel.tickRate(); }
+    @Override public boolean isPaused() { return panel.isPaused(); }
+    @Override public void pause() { panel.setPaused(true); }
+    @Override public void resume() { panel.setPaused(false); }
+    @Override public double getSpeed() { return panel.clock().speed(); }
+    @Override public void changeSpeed(double speed) { panel.clock().setSpeed(speed); }
+    @Override public void step() { panel.clock().singleStep(); }
+
+    @Override
+    public void changeTickRate(double ticksPerSecond) {
+        if (!(ticksPerSecond >= 1.0 && ticksPerSecond <= 1000.0)) {
+            throw new IllegalArgumentException("tick rate must be between 1 and 1000");
+        }
+        panel.setTickRate(ticksPerSecond);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+}
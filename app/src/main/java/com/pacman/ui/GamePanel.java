@@ -1,5 +1,7 @@
 package com.pacman.ui;
 
+import com.pacman.audio.AudioMixer;
+import com.pacman.audio.Sound;
 import com.pacman.logic.*;
 import com.pacman.model.*;
 
@@ -16,19 +18,81 @@ public class GamePanel extends JPanel {
     private static final int ROWS = 29;
 
     private final TileSet tileSet = new TileSet();
+    private final HudRenderer hud = new HudRenderer();
+    private final Camera camera = new Camera();
+    private MapRenderer mapRenderer;
     private Map map;
     private GameSession session;
     private MovementSystem player;
     private List<Ghost> ghosts = new ArrayList<>();
     private final Score score = new Score();
 
-    private final GameClock fixedClock = () -> 1.0 / 60.0;
-    private Timer gameTimer;
-
+    // Simulation runs at a fixed rate; rendering interpolates between the last two ticks.
+    // The clock scales wall time (pause, single step, 0.1x to uncapped) but never the step.
+    private static final double DEFAULT_SIM_HZ = 60.0;
+    // ticks run back to back for at most this long before a frame is shown (fast-forward)
+    private static final long FRAME_BUDGET_NANOS = 16_000_000L;
+
+    private final SimClock clock = new SimClock(1.0 / DEFAULT_SIM_HZ);
+
+    // JMX view of the loop (com.pacman:type=GameLoop)
+    private final GameLoopMonitor monitor = new GameLoopMonitor(this);
+
+    // Exact tile positions (index 0 = player, then ghosts) before and after the last tick, written
+    // by the loop thread only; paint reads the copy last published in frame
+    private double[] prevX, prevY, currX, currY;
+    private volatile Frame frame;
+    private volatile double alpha = 1.0;
+
+    // Key presses from the EDT, drained by the game loop
+    private final InputQueue input = new InputQueue(64);
+    private final InputQueue.Handler inputHandler = this::applyInput;
+
+    // Phase timers, shown with F3
+    private final FrameProfiler profiler = new FrameProfiler();
+    private final ProfilerOverlay profilerOverlay = new ProfilerOverlay(profiler, input.latency());
+
+    // Timed events (mode waves, frightened expiry, respawn release) run off one wheel on game time
+    private final TimerWheel timers = new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS);
+    private ModeWaves modeWaves;
+
+    // Gameplay events published during a tick and handled after it (score, frightened mode, resets)
+    private final GameEvents events = new GameEvents(64);
+
+    // Sound effects for gameplay events; silent without an audio device or with -Dpacman.mute=true
+    private final AudioMixer audio = AudioMixer.open();
+
+    // Finished games per map, saved to -Dpacman.scores (default ~/.pacman/scores.plog)
+    private final HighScores highScores = openHighScores();
+    private final int[] bestScores = new int[5];
+    private String mapId = "original";
+    private final long seed = Long.getLong("pacman.seed", 1L);
+    private double playSeconds;
+
+    // Game in progress, saved every few seconds of play to -Dpacman.save and resumed on startup
+    private static final double AUTOSAVE_SECONDS = 5.0;
+    private final java.nio.file.Path saveFile = dataFile("pacman.save", "autosave.psav");
+    private final TimerWheel.Timer autosave = new TimerWheel.Timer(this::autosave);
+    private SaveGame saveGame;
     private FrightenedTimer frightenedTimer;
 
-    private final int ghostRow = 14;
-    private final int ghostStartCol = 12;
+    // Ghost routing decisions allowed per tick (-Dpacman.aiJobsPerTick, 0 = all). Counted, not timed,
+    // so a GC pause or a busy CPU during fast-forward never changes what the ghosts decide.
+    private final AiScheduler aiScheduler = AiScheduler.withJobBudget(Integer.getInteger("pacman.aiJobsPerTick", 0));
+
+    // Text map loaded from disk, watched for edits while the game runs
+    private java.nio.file.Path mapFile;
+    private MapWatcher mapWatcher;
+
+    // Chunked (.pchunk) maps are paged in on demand and skip the load-time map check; the pellet
+    // count comes from the file and the ghosts' junction graph only covers what they reach
+    private boolean chunkedMap;
+    private boolean compiledPlayable;
+
+    private int ghostRow = 14;
+    private int ghostStartCol = 12;
+    private int playerSpawnX = 13;
+    private int playerSpawnY = 21;
 
     public GamePanel() {
         setPreferredSize(new Dimension(COLS * TILE_SIZE, ROWS * TILE_SIZE));
@@ -36,11 +100,21 @@ public class GamePanel extends JPanel {
         setFocusable(true);
         setDoubleBuffered(true);
 
-        map = tryLoadTxtMap("/maps/original_pacman.txt");
-        if (map == null) map = new Map(generateProceduralMaze(COLS, ROWS), TILE_SIZE);
+        // -Dpacman.map=<file.pmap|file.txt> overrides the bundled maze
+        map = tryLoadMapFile(System.getProperty("pacman.map"));
+        if (map == null) map = tryLoadTxtMap("/maps/original_pacman.txt");
+        if (map == null) map = generateMaze(COLS, ROWS);
+
+        // compiled maps that MapCompiler found playable need no check unless a repair is asked for
+        boolean repair = Boolean.getBoolean("pacman.repairMap");
+        if (!chunkedMap && (repair || !compiledPlayable)) checkMap(repair);
+
+        mapRenderer = new MapRenderer(map, tileSet, 256);
 
         // Session spawn coordinates
-        session = new GameSession(map, ghostStartCol, ghostRow, 13, 21);
+        session = new GameSession(map, ghostStartCol, ghostRow, playerSpawnX, playerSpawnY);
+        session.useEvents(events);
+        if (mapFile != null) startWatching(mapFile);
 
         // Player setup
         player = new MovementSystem(map, 8.0);
@@ -48,16 +122,42 @@ public class GamePanel extends JPanel {
 
         // Ghosts setup
         ghosts = new ArrayList<>();
-        Ghost blinky = new Ghost(map, 6.0, ghostStartCol, ghostRow);
-        Ghost pinky  = new Ghost(map, 6.0, ghostStartCol + 1, ghostRow);
-        Ghost inky   = new Ghost(map, 6.0, ghostStartCol + 2, ghostRow);
-        Ghost clyde  = new Ghost(map, 6.0, ghostStartCol + 3, ghostRow);
+        JunctionGraph junctions = new JunctionGraph(map);
+        Ghost blinky = new Ghost(map, junctions, 6.0, ghostStartCol, ghostRow);
+        Ghost pinky  = new Ghost(map, junctions, 6.0, ghostStartCol + 1, ghostRow);
+        Ghost inky   = new Ghost(map, junctions, 6.0, ghostStartCol + 2, ghostRow);
+        Ghost clyde  = new Ghost(map, junctions, 6.0, ghostStartCol + 3, ghostRow);
         ghosts.add(blinky);
         ghosts.add(pinky);
         ghosts.add(inky);
         ghosts.add(clyde);
-
-        frightenedTimer = new FrightenedTimer(ghosts);
+        for (Ghost g : ghosts) {
+            g.useScheduler(aiScheduler);
+            g.useTimers(timers);
+        }
+        seedGhosts();
+
+        modeWaves = new ModeWaves(ghosts, timers);
+        modeWaves.restart();
+        frightenedTimer = new FrightenedTimer(ghosts, timers, modeWaves);
+        events.subscribe(this::onGameEvent);
+
+        saveGame = new SaveGame(session, player, ghosts, frightenedTimer, modeWaves, timers, score);
+        resumeSavedGame();
+        timers.schedule(autosave, AUTOSAVE_SECONDS);
+        // effects would pile up in fast-forward, so they only play at normal speed or slower
+        events.subscribe(e -> {
+            if (clock.speed() <= 1.0) audio.play(Sound.forEvent(e.type()));
+        }, GameEvents.Type.PELLET_EATEN,
+                GameEvents.Type.POWER_PELLET, GameEvents.Type.GHOST_EATEN, GameEvents.Type.LIFE_LOST);
+
+        prevX = new double[1 + ghosts.size()];
+        prevY = new double[1 + ghosts.size()];
+        currX = new double[1 + ghosts.size()];
+        currY = new double[1 + ghosts.size()];
+        capturePositions(currX, currY);
+        capturePositions(prevX, prevY);
+        frame = new Frame(prevX, prevY, currX, currY);
 
         setupInput();
     }
@@ -70,49 +170,94 @@ public class GamePanel extends JPanel {
         getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("RIGHT"), "moveRight");
         getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("SPACE"), "restart");
 
-        getActionMap().put("start", new AbstractAction() {
-            @Override public void actionPerformed(ActionEvent e) { session.start(); }
-        });
-        getActionMap().put("moveUp", new AbstractAction() {
-            @Override public void actionPerformed(ActionEvent e) { player.request(Direction.UP); }
+        bindAction("start", InputCommand.START);
+        bindAction("moveUp", InputCommand.MOVE_UP);
+        bindAction("moveDown", InputCommand.MOVE_DOWN);
+        bindAction("moveLeft", InputCommand.MOVE_LEFT);
+        bindAction("moveRight", InputCommand.MOVE_RIGHT);
+        bindAction("restart", InputCommand.RESTART);
+
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke("F3"), "profiler");
+        getActionMap().put("profiler", new AbstractAction() {
+            @Override public void actionPerformed(ActionEvent e) { profiler.setEnabled(!profiler.enabled()); }
         });
-        getActionMap().put("moveDown", new AbstractAction() {
-            @Override public void actionPerformed(ActionEvent e) { player.request(Direction.DOWN); }
+
+        // Clock controls act on wall time only, so the game plays out the same at any speed
+        bindClock("P", "pause", () -> clock.setPaused(!clock.paused()));
+        bindClock("PERIOD", "step", () -> {
+            if (clock.paused()) clock.singleStep();
+            else clock.setPaused(true);
         });
-        getActionMap().put("moveLeft", new AbstractAction() {
-            @Override public void actionPerformed(ActionEvent e) { player.request(Direction.LEFT); }
+        bindClock("OPEN_BRACKET", "slower", clock::slower);
+        bindClock("CLOSE_BRACKET", "faster", clock::faster);
+        bindClock("BACK_SLASH", "normalSpeed", () -> clock.setSpeed(1.0));
+    }
+
+    private void bindClock(String key, String name, Runnable action) {
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(key), name);
+        getActionMap().put(name, new AbstractAction() {
+            @Override public void actionPerformed(ActionEvent e) { action.run(); }
         });
-        getActionMap().put("moveRight", new AbstractAction() {
-            @Override public void actionPerformed(ActionEvent e) { player.request(Direction.RIGHT); }
+    }
+
+    /** Key actions only enqueue; the game loop applies them at the start of the next tick. */
+    private void bindAction(String name, InputCommand command) {
+        getActionMap().put(name, new AbstractAction() {
+            @Override public void actionPerformed(ActionEvent e) { input.offer(command, System.nanoTime()); }
         });
-        getActionMap().put("restart", new AbstractAction() {
-            @Override
-            public void actionPerformed(ActionEvent e) {
-            if (session.state() == GameSession.State.GAME_OVER || session.state() == GameSession.State.WIN) {
-                session.restart();
-                resetPositions();
-        }
     }
-});
 
+    /** Runs on the game loop thread while draining {@link #input}. */
+    private void applyInput(InputCommand command, long timestampNanos) {
+        switch (command) {
+            case START -> session.start();
+            case MOVE_UP -> player.request(Direction.UP);
+            case MOVE_DOWN -> player.request(Direction.DOWN);
+            case MOVE_LEFT -> player.request(Direction.LEFT);
+            case MOVE_RIGHT -> player.request(Direction.RIGHT);
+            case RESTART -> {
+                if (session.state() == GameSession.State.GAME_OVER || session.state() == GameSession.State.WIN) {
+                    session.restart();
+                    resetPositions();
+                }
+            }
+        }
     }
 
     public void startGame() {
         Thread gameLoop = new Thread(() -> {
             long lastTime = System.nanoTime();
-            final double nsPerUpdate = 1_000_000_000.0 / 120.0; 
 
             while (true) {
-               long now = System.nanoTime();
-                double deltaSeconds = (now - lastTime) / 1_000_000_000.0;
+                long now = System.nanoTime();
+                double frameSeconds = (now - lastTime) / 1_000_000_000.0;
                 lastTime = now;
-
-                if (session.state() == GameSession.State.PLAYING) {
-                    updateGameLogic(deltaSeconds);
+                int dropped = clock.advance(frameSeconds);
+
+                int ticks = 0;
+                long bytesBefore = monitor.allocatedBytes();
+                long budgetEnd = now + FRAME_BUDGET_NANOS;
+                boolean behind = false;
+                // no steps come while paused, so apply key presses now rather than let them pile
+                // up and land in one burst on resume; a turn made before a single step still counts
+                if (clock.paused()) input.drain(inputHandler, now);
+                while (clock.nextStep()) {
+                    step();
+                    ticks++;
+                    // fast-forward: show a frame now and then, skipping the ones in between
+                    if (System.nanoTime() - budgetEnd >= 0) {
+                        behind = true;
+                        break;
+                    }
                 }
+                long bytes = bytesBefore < 0 ? -1 : monitor.allocatedBytes() - bytesBefore;
+                monitor.onTicks(ticks, dropped, bytes, now);
+                if (ticks > 0) frame = new Frame(prevX, prevY, currX, currY);
+                alpha = clock.alpha();
 
                 repaint();
 
+                if (behind) continue;
                 try {
                     Thread.sleep(2); // reduce CPU usage
                 } catch (InterruptedException ignored) {}
@@ -120,41 +265,191 @@ public class GamePanel extends JPanel {
         });
         gameLoop.setDaemon(true);
         gameLoop.start();
+        // both writers are daemon threads; closing the window must not lose a game's last score or save
+        Runtime.getRuntime().addShutdownHook(new Thread(this::closeWriters, "pacman-shutdown"));
+        monitor.register();
         requestFocusInWindow();
-    }   
+    }
 
-    private void updateGameLogic(double deltaSeconds) {
-        if (session.state() != GameSession.State.PLAYING) return;
+    /**
+     * One fixed step of the simulation, run by the loop for every step the clock has due. Wall time
+     * only feeds the input latency figures, so the same key presses on the same steps play out the
+     * same at any speed.
+     */
+    void step() {
+        applyMapEdits();
+        input.drain(inputHandler, System.nanoTime());
+        capturePositions(prevX, prevY);
+        if (session.state() == GameSession.State.PLAYING) {
+            updateGameLogic(clock);
+        }
+        events.dispatch();
+        saveGame.saveIfRequested(saveFile, playSeconds);
+        capturePositions(currX, currY);
+    }
 
-        player.tick(() -> deltaSeconds);
+    // --- Loop controls and values read by GameLoopMonitor ---
+
+    long tickNanos() { return (long) (clock.deltaSeconds() * 1_000_000_000L); }
+    double tickRate() { return 1.0 / clock.deltaSeconds(); }
+    void setTickRate(double ticksPerSecond) { clock.setStepSeconds(1.0 / ticksPerSecond); }
+    boolean isPaused() { return clock.paused(); }
+    AiScheduler aiScheduler() { return aiScheduler; }
+    TimerWheel timers() { return timers; }
+    void setPaused(boolean paused) { clock.setPaused(paused); }
+    SimClock clock() { return clock; }
+    GameSession.State sessionState() { return session.state(); }
+    int lives() { return session.lives(); }
+    int scoreValue() { return score.value(); }
+    int entityCount() { return 1 + ghosts.size(); }
+
+    /**
+     * Positions painted between two ticks, copied from the loop thread's arrays. Never changed after
+     * it is built, so the volatile write of {@link #frame} is all the EDT needs to see it whole.
+     */
+    private static final class Frame {
+        final double[] prevX, prevY, currX, currY;
+
+        Frame(double[] prevX, double[] prevY, double[] currX, double[] currY) {
+            this.prevX = prevX.clone();
+            this.prevY = prevY.clone();
+            this.currX = currX.clone();
+            this.currY = currY.clone();
+        }
+    }
 
-        int gained = PlayerPickupSystem.eatAt(map, player.tileX(), player.tileY());
-        if (gained > 0) {
-            score.add(gained);
-            if (gained == 50) frightenedTimer.start(7.0);
+    /** Store exact tile positions of the player and ghosts into the given arrays. */
+    void capturePositions(double[] xs, double[] ys) {
+        xs[0] = player.exactX();
+        ys[0] = player.exactY();
+        for (int i = 0; i < ghosts.size(); i++) {
+            xs[i + 1] = ghosts.get(i).exactX();
+            ys[i + 1] = ghosts.get(i).exactY();
         }
+    }
 
-        frightenedTimer.tick(() -> deltaSeconds);
+    private boolean inView(int x, int y, int viewW, int viewH) {
+        return x + TILE_SIZE > camera.x() && x < camera.x() + viewW
+                && y + TILE_SIZE > camera.y() && y < camera.y() + viewH;
+    }
 
+    /** Interpolated pixel position; jumps (respawn, tunnel wrap) are not smoothed. */
+    private static int lerpPixels(double prev, double curr, double a) {
+        double pos = Math.abs(curr - prev) > 1.0 ? curr : prev + (curr - prev) * a;
+        return (int) Math.round(pos * TILE_SIZE);
+    }
+
+    private void updateGameLogic(GameClock clock) {
+        if (session.state() != GameSession.State.PLAYING) return;
+        long tickStart = profiler.start();
+        JfrEvents.Tick tickEvent = new JfrEvents.Tick();
+        tickEvent.begin();
+
+        playSeconds += clock.deltaSeconds();
+        long t = profiler.start();
+        player.tick(clock);
+        profiler.stop(FrameProfiler.Phase.PLAYER, t);
+
+        t = profiler.start();
+        PlayerPickupSystem.eatAt(map, player.tileX(), player.tileY(), events);
+        profiler.stop(FrameProfiler.Phase.PICKUP, t);
+
+        t = profiler.start();
+        timers.advance(clock);
+        profiler.stop(FrameProfiler.Phase.TIMERS, t);
+
+        t = profiler.start();
         for (Ghost g : ghosts) {
             g.updateTarget(player.tileX(), player.tileY());
-            g.tick(() -> deltaSeconds);
-        }   
+            g.tick(clock);
+        }
+        aiScheduler.runTick();
+        profiler.stop(FrameProfiler.Phase.GHOSTS, t);
 
-        int livesBefore = session.lives();
-        boolean hit = CollisionSystem.checkCollisions(session, player, ghosts, score, frightenedTimer);
+        t = profiler.start();
+        CollisionSystem.checkCollisions(session, player, ghosts, frightenedTimer, events);
+        profiler.stop(FrameProfiler.Phase.COLLISION, t);
 
-        if (hit && session.lives() < livesBefore && session.state() == GameSession.State.PLAYING) {
-            resetPositions();
-            frightenedTimer.cancel();
+        t = profiler.start();
+        long pelletsLeft = map.countPellets();
+        if (pelletsLeft == 0) {
+            session.win();
+            events.levelCleared();
         }
+        profiler.stop(FrameProfiler.Phase.WIN_CHECK, t);
+
+        profiler.stop(FrameProfiler.Phase.TICK, tickStart);
+        tickEvent.end();
+        if (tickEvent.shouldCommit()) {
+            tickEvent.entities = 1 + ghosts.size();
+            tickEvent.pelletsRemaining = pelletsLeft;
+            tickEvent.commit();
+        }
+    }
 
-        if (countPellets(map) == 0) {
-            session.win();
-            resetPositions();
+
+    /** Runs on the game loop thread when the tick's events are dispatched. */
+    private void onGameEvent(GameEvents.Event event) {
+        switch (event.type()) {
+            case PELLET_EATEN -> score.add(event.points());
+            case POWER_PELLET -> {
+                score.add(event.points());
+                frightenedTimer.start(7.0);
+            }
+            case GHOST_EATEN -> {
+                score.add(event.points());
+                frightenedTimer.onGhostEaten();
+            }
+            case LIFE_LOST -> {
+                if (session.state() == GameSession.State.PLAYING) {
+                    resetPositions();
+                    frightenedTimer.cancel();
+                }
+            }
+            case LEVEL_CLEARED -> resetPositions();
+            case STATE_CHANGED -> {
+                if (event.to() == GameSession.State.PLAYING) {
+                    score.reset();
+                    playSeconds = 0;
+                    seedGhosts();
+                } else if (event.to() == GameSession.State.GAME_OVER || event.to() == GameSession.State.WIN) {
+                    recordGame(event.lives());
+                    saveGame.discard(saveFile);
+                }
+            }
         }
     }
 
+    private void recordGame(int livesLeft) {
+        if (highScores == null) return;
+        highScores.record(new HighScores.Entry(mapId, score.value(), livesLeft,
+                Math.round(playSeconds * 1000), seed, System.currentTimeMillis()));
+    }
+
+    /** Waits for high scores and saves already handed to their writer threads; runs at JVM exit. */
+    private void closeWriters() {
+        saveGame.close();
+        if (highScores == null) return;
+        try {
+            highScores.close();
+        } catch (Exception e) {
+            System.err.println("High scores not saved: " + e.getMessage());
+        }
+    }
+
+    private static HighScores openHighScores() {
+        try {
+            return HighScores.open(dataFile("pacman.scores", "scores.plog"), 5);
+        } catch (Exception e) {
+            System.err.println("High scores disabled: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /** Every game starts the ghosts from {@link #seed}, so the seed recorded with its score replays it. */
+    private void seedGhosts() {
+        for (int i = 0; i < ghosts.size(); i++) ghosts.get(i).seed(seed, i);
+    }
 
     /** Reset player and ghosts safely to spawn positions */
     private void resetPositions() {
@@ -169,61 +464,152 @@ public class GamePanel extends JPanel {
         if (ghosts.size() > 2) ghosts.get(2).setPosition(c + 2, r);
         if (ghosts.size() > 3) ghosts.get(3).setPosition(c + 3, r);
         for (Ghost g : ghosts) g.setMode(Ghost.Mode.SCATTER);
+        modeWaves.restart();
     }
 
-    private int countPellets(Map m) {
-        int n = 0;
-        for (int r = 0; r < m.rows(); r++)
-            for (int c = 0; c < m.cols(); c++) {
-                TileType t = m.getTile(r, c);
-                if (t == TileType.PACDOT || t == TileType.POWER_PACDOT) n++;
-            }
-        return n;
+    /** Reports unreachable pellets, spawns in walls and cut-off regions; with repair, fixes them. */
+    private void checkMap(boolean repair) {
+        MapValidator.Report report = repair
+                ? MapValidator.repair(map, playerSpawnX, playerSpawnY, ghostStartCol, ghostRow)
+                : MapValidator.validate(map, playerSpawnX, playerSpawnY, ghostStartCol, ghostRow);
+        if (repair) {
+            playerSpawnX = report.playerX();
+            playerSpawnY = report.playerY();
+            ghostStartCol = report.ghostX();
+            ghostRow = report.ghostY();
+        }
+        if (!report.isPlayable() || report.tilesCarved() > 0) {
+            System.err.println("Map check: " + report);
+        }
     }
 
-    private Map tryLoadTxtMap(String resourcePath) {
+    /** Path from a system property, or {@code name} in ~/.pacman. */
+    private static java.nio.file.Path dataFile(String property, String name) {
+        String file = System.getProperty(property);
+        if (file != null && !file.isBlank()) return java.nio.file.Path.of(file);
+        return java.nio.file.Path.of(System.getProperty("user.home"), ".pacman", name);
+    }
+
+    /** Fires mid-tick, so it only asks; the loop saves after the tick's events are dispatched. */
+    private void autosave() {
+        saveGame.requestSave();
+        timers.schedule(autosave, AUTOSAVE_SECONDS);
+    }
+
+    private void resumeSavedGame() {
+        if (!java.nio.file.Files.exists(saveFile)) return;
         try {
-            String path = getClass().getResource(resourcePath).getPath();
-            return MapLoader.fromTextFile(path, TILE_SIZE);
+            playSeconds = saveGame.load(saveFile);
         } catch (Exception e) {
-            System.err.println("Failed to load TXT map: " + e.getMessage());
-            return null;
+            System.err.println("Saved game not resumed: " + e.getMessage());
+        }
+    }
+
+    private void startWatching(java.nio.file.Path file) {
+        try {
+            mapWatcher = MapWatcher.start(file, map, playerSpawnX, playerSpawnY, ghostStartCol, ghostRow);
+        } catch (Exception e) {
+            System.err.println("Map hot-reload disabled: " + e.getMessage());
         }
     }
 
-    private TileType[][] generateProceduralMaze(int cols, int rows) {
-        TileType[][] g = new TileType[rows][cols];
-        for (int r = 0; r < rows; r++)
-            for (int c = 0; c < cols; c++) g[r][c] = TileType.PACDOT;
+    /** Runs on the game loop thread between ticks, so a reload never lands mid-tick. */
+    private void applyMapEdits() {
+        if (mapWatcher == null) return;
+        MapWatcher.Patch patch = mapWatcher.poll();
+        if (patch == null) return;
+        session.applyPatch(patch);
+        if (patch.report() != null && !patch.report().isPlayable()) {
+            System.err.println("Edited map check: " + patch.report());
+        }
+        // anyone now standing inside a wall is moved out of it
+        if (!map.isWalkable(player.tileX(), player.tileY())) player.setToTileCenter(player.tileX(), player.tileY());
+        for (Ghost g : ghosts) {
+            if (!map.isWalkable(g.tileX(), g.tileY())) g.setPosition(ghostStartCol, ghostRow);
+        }
+    }
 
-        for (int c = 0; c < cols; c++) { g[0][c] = TileType.WALL; g[rows-1][c] = TileType.WALL; }
-        for (int r = 0; r < rows; r++) { g[r][0] = TileType.WALL; g[r][cols-1] = TileType.WALL; }
+    private Map tryLoadMapFile(String file) {
+        if (file == null || file.isBlank()) return null;
+        try {
+            java.nio.file.Path path = java.nio.file.Path.of(file);
+            if (file.endsWith(".pchunk")) return openChunkedMap(path);
+            if (!file.endsWith(".pmap")) {
+                Map loaded = MapLoader.fromPath(path, TILE_SIZE);
+                mapFile = path;
+                mapId = path.getFileName().toString();
+                return loaded;
+            }
 
-        int midC = cols/2, midR = rows/2;
-        g[midR][midC-1] = TileType.GHOST_GATE;
-        g[midR][midC] = TileType.GHOST_GATE;
-        g[midR][midC+1] = TileType.GHOST_GATE;
+            CompiledMap compiled = CompiledMap.open(path);
+            mapId = path.getFileName().toString();
+            playerSpawnX = compiled.playerSpawnX();
+            playerSpawnY = compiled.playerSpawnY();
+            ghostStartCol = compiled.ghostSpawnX();
+            ghostRow = compiled.ghostSpawnY();
+            compiledPlayable = compiled.checkedPlayable();
+            return compiled.toMap(TILE_SIZE);
+        } catch (Exception e) {
+            System.err.println("Failed to load map " + file + ": " + e.getMessage());
+            return null;
+        }
+    }
 
-        g[1][1] = TileType.POWER_PACDOT;
-        g[1][cols-2] = TileType.POWER_PACDOT;
-        g[rows-2][1] = TileType.POWER_PACDOT;
-        g[rows-2][cols-2] = TileType.POWER_PACDOT;
+    private Map openChunkedMap(java.nio.file.Path path) throws java.io.IOException {
+        ChunkedTileStore store = ChunkedTileStore.open(path, 1024);
+        chunkedMap = true;
+        mapId = path.getFileName().toString();
+        return new Map(store, TILE_SIZE);
+    }
+
+    private Map tryLoadTxtMap(String resourcePath) {
+        // Read through the classpath stream so this also works inside the packaged jar
+        try (java.io.InputStream in = getClass().getResourceAsStream(resourcePath)) {
+            if (in == null) throw new java.io.FileNotFoundException(resourcePath);
+            return MapLoader.fromStream(in, TILE_SIZE);
+        } catch (Exception e) {
+            System.err.println("Failed to load TXT map: " + e.getMessage());
+            return null;
+        }
+    }
 
-        return g;
+    private Map generateMaze(int cols, int rows) {
+        // -Dpacman.seed picks the maze; the same seed always gives the same layout
+        TileStore store = new ArrayTileStore(new TileType[rows][cols]);
+        MazeGenerator.Spawns spawns = MazeGenerator.generate(store, seed);
+        mapId = "generated";
+        playerSpawnX = spawns.playerX();
+        playerSpawnY = spawns.playerY();
+        ghostStartCol = spawns.ghostX();
+        ghostRow = spawns.ghostY();
+        return new Map(store, TILE_SIZE);
     }
 
     @Override
     protected void paintComponent(Graphics g) {
+        long paintStart = profiler.start();
+        JfrEvents.Paint paintEvent = new JfrEvents.Paint();
+        paintEvent.begin();
         super.paintComponent(g);
         if (map == null || tileSet == null) return;
 
         Graphics2D g2 = (Graphics2D) g.create();
         try {
-            map.draw(g2, tileSet);
+            double a = alpha;
+            Frame f = frame;
+            int px = lerpPixels(f.prevX[0], f.currX[0], a);
+            int py = lerpPixels(f.prevY[0], f.currY[0], a);
+            int viewW = getWidth(), viewH = getHeight();
+            camera.follow(px + TILE_SIZE / 2, py + TILE_SIZE / 2, viewW, viewH,
+                    map.cols() * TILE_SIZE, map.rows() * TILE_SIZE);
+
+            // World layer, in world pixels; only what intersects the viewport is drawn
+            g2.translate(-camera.x(), -camera.y());
+            mapRenderer.draw(g2, camera.x(), camera.y(), viewW, viewH);
 
             // Draw player
             g2.setColor(Color.GRAY);
-            g2.fillOval(player.tileX() * TILE_SIZE, player.tileY() * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+            g2.fillOval(px, py, TILE_SIZE, TILE_SIZE);
 
             // Draw ghosts
             int idx = 0;
@@ -236,41 +622,35 @@ public class GamePanel extends JPanel {
                     default -> g2.setColor(Color.WHITE);
                 }
                 if (ghost.mode() == Ghost.Mode.FRIGHTENED) g2.setColor(Color.BLUE);
-                g2.fillOval(ghost.tileX() * TILE_SIZE, ghost.tileY() * TILE_SIZE, TILE_SIZE, TILE_SIZE);
+                int i = idx + 1;
+                int gx = lerpPixels(f.prevX[i], f.currX[i], a);
+                int gy = lerpPixels(f.prevY[i], f.currY[i], a);
+                if (inView(gx, gy, viewW, viewH)) g2.fillOval(gx, gy, TILE_SIZE, TILE_SIZE);
                 idx++;
             }
+            g2.translate(camera.x(), camera.y());
 
             // HUD
-            g2.setColor(Color.WHITE);
-            g2.drawString("Score: " + score.value(), 8, 14);
-            g2.drawString("Lives: " + session.lives(), 8, 28);
-            g2.drawString("Blue: " + (frightenedTimer.active() ? "ON" : "OFF"), 8, 42);
-            g2.drawString("Timer: " + (int)Math.ceil(frightenedTimer.secondsLeft()), 8, 56);
-
-            // Menu, game over and Win 
-            if (session.state() == GameSession.State.MENU) {
-                g2.setFont(g2.getFont().deriveFont(Font.BOLD, 18f));
-                g2.drawString("PAC-MAN", getWidth()/2 - 48, getHeight()/2 - 20);
-                g2.drawString("Press ENTER to start", getWidth()/2 - 90, getHeight()/2 + 10);
-                g2.setFont(g2.getFont().deriveFont(Font.PLAIN, 12f));
-                g2.drawString("Use arrow keys to move", getWidth()/2 - 60, getHeight()/2 + 30);
-
-            } else if (session.state() == GameSession.State.GAME_OVER) {
-                g2.setFont(g2.getFont().deriveFont(Font.BOLD, 18f));
-                g2.drawString("GAME OVER", getWidth()/2 - 60, getHeight()/2 - 10); 
-                g2.drawString("Press SPACE to play again", getWidth()/2 - 100, getHeight()/2 + 20);
-            } else if (session.state() == GameSession.State.WIN) {
-                g2.setFont(g2.getFont().deriveFont(Font.BOLD, 24f));
-                g2.setColor(Color.YELLOW);
-                g2.drawString("CONGRATULATIONS! YOU WON!", getWidth()/2 - 180, getHeight()/2 - 20);
-
-                g2.setFont(g2.getFont().deriveFont(Font.BOLD, 18f));
-                g2.setColor(Color.WHITE);
-                g2.drawString("Score: " + score.value(), getWidth()/2 - 50, getHeight()/2 + 10);
-                g2.drawString("Lives Remaining: " + session.lives(), getWidth()/2 - 80, getHeight()/2 + 40);
-            }
+            hud.drawHud(g2, score.value(), session.lives(),
+                    frightenedTimer.active(), (int) Math.ceil(frightenedTimer.secondsLeft()));
+            hud.drawClock(g2, clock.paused(), clock.speed());
+
+            // Menu, game over and Win
+            int best = highScores != null ? highScores.topScores(mapId, bestScores) : 0;
+            hud.drawScreen(g2, session.state(), score.value(), session.lives(), bestScores, best,
+                    getWidth(), getHeight());
+
+            profilerOverlay.draw(g2, getWidth());
         } finally {
             g2.dispose();
         }
+        profiler.stop(FrameProfiler.Phase.PAINT, paintStart);
+        monitor.onFrame(System.nanoTime());
+        paintEvent.end();
+        if (paintEvent.shouldCommit()) {
+            paintEvent.width = getWidth();
+            paintEvent.height = getHeight();
+            paintEvent.commit();
+        }
     }
 }
@@ -0,0 +1,142 @@
+package com.pacman.ui;
+
+import com.pacman.logic.GameSession;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.util.function.IntFunction;
+
+/**
+ * Draws the HUD and the menu / game over / win screens.
+ * Each line keeps its laid-out glyphs and is only rebuilt when its value changes,
+ * and derived fonts are created once per base font.
+ */
+final class HudRenderer {
+
+    private final CachedLine scoreLine = new CachedLine(v -> "Score: " + v);
+    private final CachedLine livesLine = new CachedLine(v -> "Lives: " + v);
+    private final CachedLine blueLine = new CachedLine(v -> "Blue: " + (v != 0 ? "ON" : "OFF"));
+    private final CachedLine timerLine = new CachedLine(v -> "Timer: " + v);
+    // value: -1 paused, Integer.MAX_VALUE uncapped, otherwise speed in hundredths
+    private final CachedLine clockLine = new CachedLine(v -> v < 0 ? "PAUSED"
+            : v == Integer.MAX_VALUE ? ">> MAX" : (v < 100 ? "SLOW " : ">> ") + (v / 100.0) + "x");
+
+    private final CachedLine menuTitle = new CachedLine(v -> "PAC-MAN");
+    private final CachedLine menuStart = new CachedLine(v -> "Press ENTER to start");
+    private final CachedLine menuHelp = new CachedLine(v -> "Use arrow keys to move");
+    private final CachedLine gameOverTitle = new CachedLine(v -> "GAME OVER");
+    private final CachedLine gameOverHelp = new CachedLine(v -> "Press SPACE to play again");
+    private final CachedLine winTitle = new CachedLine(v -> "CONGRATULATIONS! YOU WON!");
+    private final CachedLine winScore = new CachedLine(v -> "Score: " + v);
+    private final CachedLine winLives = new CachedLine(v -> "Lives Remaining: " + v);
+    private final CachedLine bestTitle = new CachedLine(v -> "HIGH SCORES");
+    private final CachedLine[] bestLines = new CachedLine[5];
+
+    HudRenderer() {
+        for (int i = 0; i < bestLines.length; i++) {
+            int rank = i + 1;
+            bestLines[i] = new CachedLine(v -> rank + ".  " + v);
+        }
+    }
+
+    private Font baseFont;
+    private Font bold18, plain12, bold24;
+
+    /** Score, lives and frightened state in the top-left corner. */
+    void drawHud(Graphics2D g2, int score, int lives, boolean frightened, int timerSeconds) {
+        Font font = g2.getFont();
+        g2.setColor(Color.WHITE);
+        scoreLine.draw(g2, font, score, 8, 14);
+        livesLine.draw(g2, font, lives, 8, 28);
+        blueLine.draw(g2, font, frightened ? 1 : 0, 8, 42);
+        timerLine.draw(g2, font, timerSeconds, 8, 56);
+    }
+
+    /**
+     * Pause or speed under the HUD lines, clear of the F3 overlay in the top-right corner; nothing
+     * at normal speed. Leaves the colour as it found it.
+     */
+    void drawClock(Graphics2D g2, boolean paused, double speed) {
+        if (!paused && speed == 1.0) return;
+        int v = paused ? -1 : Double.isInfinite(speed) ? Integer.MAX_VALUE : (int) Math.round(speed * 100);
+        Color before = g2.getColor();
+        g2.setColor(Color.YELLOW);
+        clockLine.draw(g2, g2.getFont(), v, 8, 70);
+        g2.setColor(before);
+    }
+
+    /** Full-screen text for every state except PLAYING; game over and win also list the first {@code bestCount} of {@code best}. */
+    void drawScreen(Graphics2D g2, GameSession.State state, int score, int lives, int[] best, int bestCount,
+                    int width, int height) {
+        deriveFonts(g2.getFont());
+        g2.setColor(Color.WHITE);
+        int cx = width / 2;
+        int cy = height / 2;
+
+        switch (state) {
+            case MENU -> {
+                menuTitle.draw(g2, bold18, 0, cx - 48, cy - 20);
+                menuStart.draw(g2, bold18, 0, cx - 90, cy + 10);
+                menuHelp.draw(g2, plain12, 0, cx - 60, cy + 30);
+            }
+            case GAME_OVER -> {
+                gameOverTitle.draw(g2, bold18, 0, cx - 60, cy - 10);
+                gameOverHelp.draw(g2, bold18, 0, cx - 100, cy + 20);
+                drawBest(g2, best, bestCount, cx, cy + 55);
+            }
+            case WIN -> {
+                g2.setColor(Color.YELLOW);
+                winTitle.draw(g2, bold24, 0, cx - 180, cy - 20);
+                g2.setColor(Color.WHITE);
+                winScore.draw(g2, bold18, score, cx - 50, cy + 10);
+                winLives.draw(g2, bold18, lives, cx - 80, cy + 40);
+                drawBest(g2, best, bestCount, cx, cy + 75);
+            }
+            default -> { }
+        }
+    }
+
+    private void drawBest(Graphics2D g2, int[] best, int count, int cx, int y) {
+        if (count == 0) return;
+        g2.setColor(Color.WHITE);
+        bestTitle.draw(g2, plain12, 0, cx - 36, y);
+        for (int i = 0; i < Math.min(count, bestLines.length); i++) {
+            bestLines[i].draw(g2, plain12, best[i], cx - 30, y + 16 * (i + 1));
+        }
+    }
+
+    private void deriveFonts(Font base) {
+        if (base == baseFont) return;
+        baseFont = base;
+        bold18 = base.deriveFont(Font.BOLD, 18f);
+        plain12 = bold18.deriveFont(Font.PLAIN, 12f);
+        bold24 = base.deriveFont(Font.BOLD, 24f);
+    }
+
+    /** One line of text whose glyphs are laid out again only when value, font or render context change. */
+    private static final class CachedLine {
+        private final IntFunction<String> format;
+        private int value;
+        private Font font;
+        private FontRenderContext frc;
+        private GlyphVector glyphs;
+
+        CachedLine(IntFunction<String> format) {
+            this.format = format;
+        }
+
+        void draw(Graphics2D g2, Font f, int v, float x, float y) {
+            FontRenderContext ctx = g2.getFontRenderContext();
+            if (glyphs == null || v != value || f != font || !ctx.equals(frc)) {
+                value = v;
+                font = f;
+                frc = ctx;
+                glyphs = f.createGlyphVector(ctx, format.apply(v));
+            }
+            g2.drawGlyphVector(glyphs, x, y);
+        }
+    }
+}
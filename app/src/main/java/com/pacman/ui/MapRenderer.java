@@ -0,0 +1,101 @@
+package com.pacman.ui;
+
+import com.pacman.model.Map;
+import com.pacman.model.TileSet;
+import com.pacman.model.TileType;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Draws only the part of the map inside the viewport, using pre-rendered images of
+ * 16x16-tile chunks kept in an LRU cache. Tile changes mark their chunk for re-rendering,
+ * so the cost per frame depends on the screen size, not the map size.
+ */
+final class MapRenderer implements Map.TileListener {
+
+    static final int CHUNK_TILES = 16;
+
+    private final Map map;
+    private final TileSet tileSet;
+    private final int tileSize;
+    private final int chunkCols;
+    private final LinkedHashMap<Long, BufferedImage> cache;
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    MapRenderer(Map map, TileSet tileSet, int maxCachedChunks) {
+        this.map = map;
+        this.tileSet = tileSet;
+        this.tileSize = map.tileSize();
+        this.chunkCols = (map.cols() + CHUNK_TILES - 1) / CHUNK_TILES;
+        this.cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(java.util.Map.Entry<Long, BufferedImage> eldest) {
+                return size() > maxCachedChunks;
+            }
+        };
+        map.addTileListener(this);
+    }
+
+    /** Called on the simulation thread; the chunk is rebuilt on the next paint. */
+    @Override
+    public void tileChanged(int row, int col, TileType before, TileType after) {
+        dirty.add(key(row / CHUNK_TILES, col / CHUNK_TILES));
+    }
+
+    /** Draws the chunks intersecting the viewport (world pixels) at their world positions. */
+    void draw(Graphics2D g2, int viewX, int viewY, int viewW, int viewH) {
+        int chunkPixels = CHUNK_TILES * tileSize;
+        int firstCol = Math.max(0, viewX / chunkPixels);
+        int firstRow = Math.max(0, viewY / chunkPixels);
+        int lastCol = Math.min(chunkCols - 1, (viewX + viewW - 1) / chunkPixels);
+        int lastRow = Math.min((map.rows() - 1) / CHUNK_TILES, (viewY + viewH - 1) / chunkPixels);
+
+        for (int cr = firstRow; cr <= lastRow; cr++) {
+            for (int cc = firstCol; cc <= lastCol; cc++) {
+                g2.drawImage(chunk(cr, cc), cc * chunkPixels, cr * chunkPixels, null);
+            }
+        }
+    }
+
+    int cachedChunks() { return cache.size(); }
+
+    private BufferedImage chunk(int chunkRow, int chunkCol) {
+        long key = key(chunkRow, chunkCol);
+        BufferedImage img = cache.get(key);
+        if (img == null || dirty.remove(key)) {
+            img = render(chunkRow, chunkCol, img);
+            cache.put(key, img);
+        }
+        return img;
+    }
+
+    private BufferedImage render(int chunkRow, int chunkCol, BufferedImage reuse) {
+        int size = CHUNK_TILES * tileSize;
+        BufferedImage img = reuse != null ? reuse : new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = img.createGraphics();
+        try {
+            g.setComposite(java.awt.AlphaComposite.Clear);
+            g.fillRect(0, 0, size, size);
+            g.setComposite(java.awt.AlphaComposite.SrcOver);
+            int r0 = chunkRow * CHUNK_TILES, c0 = chunkCol * CHUNK_TILES;
+            int r1 = Math.min(map.rows(), r0 + CHUNK_TILES), c1 = Math.min(map.cols(), c0 + CHUNK_TILES);
+            for (int r = r0; r < r1; r++) {
+                for (int c = c0; c < c1; c++) {
+                    g.drawImage(tileSet.getImage(map.getTile(r, c)),
+                            (c - c0) * tileSize, (r - r0) * tileSize, tileSize, tileSize, null);
+                }
+            }
+        } finally {
+            g.dispose();
+        }
+        return img;
+    }
+
+    private long key(int chunkRow, int chunkCol) {
+        return (long) chunkRow * chunkCols + chunkCol;
+    }
+}
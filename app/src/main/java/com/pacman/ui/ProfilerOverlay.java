@@ -0,0 +1,69 @@
+package com.pacman.ui;
+
+import com.pacman.logic.FrameProfiler;
+import com.pacman.logic.Histogram;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+
+/** F3 overlay: p50 / p99 / max in microseconds for every profiled phase and for input latency. */
+final class ProfilerOverlay {
+
+    private static final Color BACKGROUND = new Color(0, 0, 0, 180);
+    private static final int LINE_HEIGHT = 12;
+
+    private final FrameProfiler profiler;
+    private final Histogram inputLatency;
+    private final StringBuilder line = new StringBuilder(64);
+    private final Font font = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+
+    ProfilerOverlay(FrameProfiler profiler, Histogram inputLatency) {
+        this.profiler = profiler;
+        this.inputLatency = inputLatency;
+    }
+
+    void draw(Graphics2D g2, int width) {
+        if (!profiler.enabled()) return;
+        FrameProfiler.Phase[] phases = FrameProfiler.Phase.values();
+        int boxWidth = 230;
+        int x = width - boxWidth - 4;
+        int y = 4;
+
+        g2.setColor(BACKGROUND);
+        g2.fillRect(x, y, boxWidth, (phases.length + 2) * LINE_HEIGHT + 6);
+        g2.setFont(font);
+        g2.setColor(Color.GREEN);
+
+        y += LINE_HEIGHT;
+        g2.drawString("phase         p50    p99    max us", x + 4, y);
+        for (FrameProfiler.Phase phase : phases) {
+            y += LINE_HEIGHT;
+            drawRow(g2, phase.name(), profiler.histogram(phase), x + 4, y);
+        }
+        y += LINE_HEIGHT;
+        drawRow(g2, "INPUT", inputLatency, x + 4, y);
+    }
+
+    private void drawRow(Graphics2D g2, String name, Histogram h, int x, int y) {
+        line.setLength(0);
+        pad(name, 12);
+        micros(h.percentile(50));
+        micros(h.percentile(99));
+        micros(h.max());
+        g2.drawString(line.toString(), x, y);
+    }
+
+    private void pad(String s, int width) {
+        line.append(s);
+        for (int i = s.length(); i < width; i++) line.append(' ');
+    }
+
+    private void micros(long nanos) {
+        long us = nanos / 1_000;
+        int digits = 1;
+        for (long v = us; v >= 10; v /= 10) digits++;
+        for (int i = digits; i < 7; i++) line.append(' ');
+        line.append(us);
+    }
+}
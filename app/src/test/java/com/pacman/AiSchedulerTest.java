@@ -0,0 +1,129 @@
+package com.pacman;
+
+import com.pacman.logic.AiScheduler;
+import com.pacman.logic.GameClock;
+import com.pacman.logic.Ghost;
+import com.pacman.model.ArrayTileStore;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.Map;
+import com.pacman.model.MazeGenerator;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AiSchedulerTest {
+
+    private static AiScheduler.Job busy(List<String> log, String name, long micros) {
+        return () -> {
+            long end = System.nanoTime() + micros * 1_000;
+            while (System.nanoTime() < end) Thread.onSpinWait();
+            log.add(name);
+        };
+    }
+
+    @Test
+    void unlimitedBudgetRunsEverythingInPriorityOrder() {
+        AiScheduler scheduler = new AiScheduler(0);
+        List<String> log = new ArrayList<>();
+        scheduler.submit(busy(log, "far", 0), 9);
+        scheduler.submit(busy(log, "near", 0), 1);
+        scheduler.submit(busy(log, "near2", 0), 1);
+        scheduler.submit(busy(log, "mid", 0), 5);
+
+        assertEquals(4, scheduler.runTick());
+        assertEquals(List.of("near", "near2", "mid", "far"), log);
+        assertEquals(0, scheduler.pending());
+        assertEquals(0, scheduler.deferredJobTicks());
+    }
+
+    @Test
+    void workBeyondTheBudgetSpillsToLaterTicks() {
+        AiScheduler scheduler = new AiScheduler(1_000);
+        List<String> log = new ArrayList<>();
+        for (int i = 0; i < 6; i++) scheduler.submit(busy(log, "job" + i, 600), i);
+
+        int first = scheduler.runTick();
+        assertTrue(first >= 1 && first < 6, "ran " + first);
+        assertEquals(6 - first, scheduler.pending());
+        assertEquals(6 - first, scheduler.deferredJobTicks());
+
+        while (scheduler.pending() > 0) scheduler.runTick();
+        assertEquals(List.of("job0", "job1", "job2", "job3", "job4", "job5"), log);
+        assertTrue(scheduler.maxWaitTicks() >= 1);
+        assertEquals(6, scheduler.executed());
+    }
+
+    @Test
+    void aSingleJobOverBudgetStillRunsAndIsCounted() {
+        AiScheduler scheduler = new AiScheduler(100);
+        List<String> log = new ArrayList<>();
+        scheduler.submit(busy(log, "slow", 2_000), 0);
+        scheduler.submit(busy(log, "next", 0), 1);
+
+        assertEquals(1, scheduler.runTick());
+        assertEquals(List.of("slow"), log);
+        assertEquals(1, scheduler.ticksOverBudget());
+        assertEquals(1, scheduler.runTick());
+        assertEquals(List.of("slow", "next"), log);
+    }
+
+    @Test
+    void jobBudgetSpillsTheSameWayEveryRun() {
+        AiScheduler scheduler = AiScheduler.withJobBudget(2);
+        List<String> log = new ArrayList<>();
+        for (int i = 0; i < 5; i++) scheduler.submit(busy(log, "job" + i, i == 0 ? 2_000 : 0), i);
+
+        assertEquals(2, scheduler.runTick());
+        assertEquals(List.of("job0", "job1"), log);
+        assertEquals(2, scheduler.runTick());
+        assertEquals(1, scheduler.runTick());
+        assertEquals(List.of("job0", "job1", "job2", "job3", "job4"), log);
+        assertEquals(3 + 1, scheduler.deferredJobTicks());
+        assertEquals(0, scheduler.ticksOverBudget(), "no time budget");
+    }
+
+    @Test
+    void rejectsNegativeValues() {
+        assertThrows(IllegalArgumentException.class, () -> new AiScheduler(-1));
+        assertThrows(IllegalArgumentException.class, () -> AiScheduler.withJobBudget(-1));
+        assertThrows(IllegalArgumentException.class, () -> new AiScheduler(0).submit(() -> {}, -1));
+    }
+
+    @Test
+    void ghostKeepsItsLastRequestUntilItsJobRuns() {
+        ArrayTileStore store = new ArrayTileStore(new TileType[29][28]);
+        MazeGenerator.Spawns spawns = MazeGenerator.generate(store, 5);
+        Map map = new Map(store, 16);
+        JunctionGraph graph = new JunctionGraph(map);
+        AiScheduler scheduler = new AiScheduler(0);
+        GameClock clock = () -> 1.0 / 60.0;
+
+        Ghost scheduled = new Ghost(map, graph, 6.0, spawns.playerX(), spawns.playerY());
+        Ghost inline = new Ghost(map, graph, 6.0, spawns.playerX(), spawns.playerY());
+        scheduled.useScheduler(scheduler);
+        for (Ghost g : List.of(scheduled, inline)) {
+            g.setMode(Ghost.Mode.CHASE);
+            g.updateTarget(1, 1);
+        }
+
+        // jobs run right after the ghosts each tick: same path as deciding inline
+        for (int i = 0; i < 600; i++) {
+            scheduled.tick(clock);
+            inline.tick(clock);
+            scheduler.runTick();
+            assertEquals(inline.tileX(), scheduled.tileX());
+            assertEquals(inline.tileY(), scheduled.tileY());
+        }
+        assertTrue(scheduler.executed() > 0);
+
+        // with the scheduler starved, the ghost still moves on its previous choice
+        long before = scheduler.submitted();
+        for (int i = 0; i < 120; i++) scheduled.tick(clock);
+        assertTrue(scheduler.submitted() >= before);
+        assertTrue(scheduler.pending() <= 1, "one queued job per ghost at most");
+    }
+}
@@ -0,0 +1,98 @@
+package com.pacman;
+
+import com.pacman.audio.AudioMixer;
+import com.pacman.audio.Sound;
+import com.pacman.audio.SoundBank;
+import com.pacman.logic.GameEvents;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AudioMixerTest {
+
+    private static short[] constant(int length, int value) {
+        short[] pcm = new short[length];
+        Arrays.fill(pcm, (short) value);
+        return pcm;
+    }
+
+    private static int sample(byte[] out, int frame) {
+        return (short) ((out[2 * frame] & 0xFF) | (out[2 * frame + 1] << 8));
+    }
+
+    private static SoundBank bank() {
+        return SoundBank.of(constant(6, 100), constant(3, 1000), constant(4, 30_000), constant(4, 20_000));
+    }
+
+    @Test
+    void voicesAreSummedAndEndOnTheirLastSample() {
+        AudioMixer mixer = new AudioMixer(bank(), 4, 4);
+        byte[] out = new byte[8];
+        mixer.play(Sound.MUNCH);
+        mixer.play(Sound.POWER_PELLET);
+        assertTrue(Arrays.equals(new byte[8], out));
+
+        assertEquals(1, mixer.mix(out), "the 3-sample effect ended in the first buffer");
+        assertEquals(1100, sample(out, 0));
+        assertEquals(1100, sample(out, 2));
+        assertEquals(100, sample(out, 3));
+
+        assertEquals(0, mixer.mix(out));
+        assertEquals(100, sample(out, 1));
+        assertEquals(0, sample(out, 2), "silence after the last sample");
+    }
+
+    @Test
+    void loudMixesClipInsteadOfWrapping() {
+        AudioMixer mixer = new AudioMixer(bank(), 4, 4);
+        byte[] out = new byte[8];
+        mixer.play(Sound.GHOST_EATEN);
+        mixer.play(Sound.DEATH);
+        mixer.mix(out);
+        assertEquals(Short.MAX_VALUE, sample(out, 0));
+    }
+
+    @Test
+    void busyPoolReusesTheVoiceThatPlayedLongest() {
+        AudioMixer mixer = new AudioMixer(bank(), 2, 2);
+        byte[] out = new byte[4];
+        mixer.play(Sound.MUNCH);
+        mixer.mix(out);
+        mixer.play(Sound.GHOST_EATEN);
+        mixer.play(Sound.POWER_PELLET); // replaces MUNCH, which is furthest along
+        mixer.mix(out);
+        assertEquals(1, mixer.stolen());
+        assertEquals(3, mixer.played());
+        assertEquals(31_000, sample(out, 0));
+    }
+
+    @Test
+    void synthesizedBankCoversEveryEffectAndEvent() {
+        SoundBank bank = SoundBank.load();
+        for (Sound s : Sound.values()) assertTrue(bank.pcm(s).length > 0, s.name());
+        assertEquals(Sound.MUNCH, Sound.forEvent(GameEvents.Type.PELLET_EATEN));
+        assertEquals(Sound.DEATH, Sound.forEvent(GameEvents.Type.LIFE_LOST));
+        assertNull(Sound.forEvent(GameEvents.Type.STATE_CHANGED));
+    }
+
+    @Test
+    void mixerThreadFeedsTheSink() throws Exception {
+        AudioMixer mixer = new AudioMixer(bank(), 4, 4);
+        CountDownLatch heard = new CountDownLatch(1);
+        AudioMixer.Sink capture = (pcm, length) -> {
+            if (sample(pcm, 0) == 100) heard.countDown();
+            java.util.concurrent.locks.LockSupport.parkNanos(100_000);
+        };
+        mixer.start(capture);
+        try {
+            mixer.play(Sound.MUNCH);
+            assertTrue(heard.await(5, TimeUnit.SECONDS));
+        } finally {
+            mixer.close();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.pacman;
+
+import com.pacman.server.BatchEnv;
+import com.pacman.server.GameServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Env-steps per second of {@link BatchEnv} on the bundled map, with random actions written
+ * into the mapped file before every batch as an agent would.
+ * Not a unit test; run with {@code ./gradlew :app:benchmark -Pbenchmark=com.pacman.BatchEnvBenchmark}.
+ */
+public final class BatchEnvBenchmark {
+
+    private static final double SECONDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int envs : new int[]{64, 256, 1024, 4096}) {
+            Path file = Files.createTempFile("env_", ".bin");
+            try (BatchEnv env = BatchEnv.open(file, GameServer.bundledLayout(), envs, threads)) {
+                byte[] actions = new byte[envs];
+                long rng = envs;
+                env.reset(1);
+                rng = run(env, actions, rng, SECONDS / 2); // warm-up
+                long steps = env.steps();
+                long start = System.nanoTime();
+                run(env, actions, rng, SECONDS);
+                double elapsed = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%5d envs, %d threads: %,.0f env-steps/s%n", envs, threads, (env.steps() - steps) / elapsed);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static long run(BatchEnv env, byte[] actions, long rng, double seconds) {
+        long end = System.nanoTime() + (long) (seconds * 1e9);
+        while (System.nanoTime() < end) {
+            for (int i = 0; i < actions.length; i++) {
+                rng = rng * 6364136223846793005L + 1442695040888963407L;
+                // a new direction about every 16 steps
+                actions[i] = (byte) ((rng >>> 60) == 0 ? 1 + ((rng >>> 40) & 3) : 0);
+            }
+            env.step(actions);
+        }
+        return rng;
+    }
+}
@@ -0,0 +1,175 @@
+package com.pacman;
+
+import com.pacman.logic.GameInstance;
+import com.pacman.logic.GameSession;
+import com.pacman.logic.Ghost;
+import com.pacman.server.BatchEnv;
+import com.pacman.server.EnvServer;
+import com.pacman.server.GameServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchEnvTest {
+
+    private static final int ENVS = 6;
+
+    private static BatchEnv open(int threads) throws IOException {
+        Path file = Files.createTempFile("env_", ".bin");
+        file.toFile().deleteOnExit();
+        return BatchEnv.open(file, GameServer.bundledLayout(), ENVS, threads);
+    }
+
+    /** The same pseudo-random actions for every run: env i turns every 20 + i steps. */
+    private static byte[] actions(int step) {
+        byte[] a = new byte[ENVS];
+        for (int i = 0; i < ENVS; i++) a[i] = (byte) (step % (20 + i) == 0 ? 1 + (step / (20 + i) + i) % 4 : 0);
+        return a;
+    }
+
+    private static byte[] records(BatchEnv env) {
+        ByteBuffer obs = env.observations();
+        byte[] out = new byte[obs.capacity() - env.recordOffset(0)];
+        obs.get(env.recordOffset(0), out);
+        return out;
+    }
+
+    @Test
+    void headerDescribesTheFile() throws IOException {
+        try (BatchEnv env = open(2)) {
+            ByteBuffer obs = env.observations();
+            assertEquals(0x564E4550, obs.getInt(0));
+            assertEquals(1, obs.getShort(4));
+            assertEquals(ENVS, obs.getInt(8));
+            assertEquals(env.game(0).map().rows(), obs.getInt(12));
+            assertEquals(env.game(0).map().cols(), obs.getInt(16));
+            assertEquals(1 + GameInstance.GHOSTS, obs.getInt(20));
+            assertEquals(env.recordOffset(1) - env.recordOffset(0), obs.getInt(24));
+            assertEquals(env.recordOffset(0), obs.getInt(28));
+            assertEquals(0, obs.getLong(32));
+            env.reset(1);
+            env.step(new byte[ENVS]);
+            assertEquals(2, obs.getLong(32));
+            assertEquals(ENVS, env.steps());
+        }
+    }
+
+    @Test
+    void sameSeedReplaysTheSameEpisodes() throws IOException {
+        try (BatchEnv a = open(1); BatchEnv b = open(3)) {
+            a.reset(42);
+            b.reset(42);
+            for (int step = 0; step < 600; step++) {
+                a.step(actions(step));
+                b.step(actions(step));
+            }
+            assertArrayEquals(records(a), records(b));
+            byte[] first = records(a);
+            a.reset(42);
+            for (int step = 0; step < 600; step++) a.step(actions(step));
+            assertArrayEquals(first, records(a));
+        }
+    }
+
+    @Test
+    void observationsMatchTheGames() throws IOException {
+        try (BatchEnv env = open(2)) {
+            env.reset(7);
+            int rewards = 0;
+            for (int step = 0; step < 400; step++) {
+                env.step(actions(step));
+                rewards += env.observations().order(ByteOrder.LITTLE_ENDIAN).getInt(env.recordOffset(3));
+            }
+            ByteBuffer obs = env.observations();
+            for (int i = 0; i < ENVS; i++) {
+                GameInstance game = env.game(i);
+                int r = env.recordOffset(i);
+                assertEquals(game.score(), obs.getInt(r + 4));
+                assertEquals(game.session().state().ordinal(), obs.get(r + 9));
+                assertEquals(game.session().lives(), obs.get(r + 10));
+                assertEquals((float) game.player().exactX(), obs.getFloat(r + 12));
+                assertEquals((float) game.player().exactY(), obs.getFloat(r + 16));
+                for (int g = 0; g < GameInstance.GHOSTS; g++) {
+                    Ghost ghost = game.ghosts().get(g);
+                    assertEquals((float) ghost.exactX(), obs.getFloat(r + 20 + 8 * g));
+                    assertEquals(ghost.mode().ordinal(), obs.get(r + 52 + g));
+                }
+                assertEquals(game.ticks(), obs.getInt(r + 56));
+                int cols = game.map().cols();
+                for (int row = 0; row < game.map().rows(); row++) {
+                    for (int col = 0; col < cols; col++) {
+                        assertEquals(game.map().getTile(row, col).ordinal(), obs.get(r + 64 + row * cols + col));
+                    }
+                }
+            }
+            assertEquals(env.game(3).score(), rewards);
+            assertTrue(rewards > 0, "env 3 ate nothing in 400 steps");
+        }
+    }
+
+    @Test
+    void finishedEpisodeStartsOverOnTheNextStep() throws IOException {
+        try (BatchEnv env = open(1)) {
+            env.reset(3);
+            long pellets = env.game(0).map().countPellets();
+            ByteBuffer obs = env.observations();
+            int r = env.recordOffset(0);
+            int steps = 0;
+            // a player that never steers is caught three times eventually
+            while (obs.get(r + 8) == 0) {
+                env.step(new byte[ENVS]);
+                assertTrue(++steps < 100_000, "episode never ended");
+            }
+            assertEquals(GameSession.State.GAME_OVER.ordinal(), obs.get(r + 9));
+            env.step(new byte[ENVS]);
+            assertEquals(0, obs.get(r + 8));
+            assertEquals(0, obs.getInt(r));
+            assertEquals(0, obs.getInt(r + 4));
+            assertEquals(3, obs.get(r + 10));
+            assertEquals(0, obs.getInt(r + 56));
+            assertEquals(GameSession.State.PLAYING, env.game(0).session().state());
+            assertEquals(pellets, env.game(0).map().countPellets());
+        }
+    }
+
+    @Test
+    void controlSocketRunsBatches() throws Exception {
+        try (BatchEnv env = open(2);
+             EnvServer server = EnvServer.bind(env, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            Thread serving = new Thread(() -> {
+                try {
+                    server.serve();
+                } catch (IOException ignored) {
+                }
+            });
+            serving.setDaemon(true);
+            serving.start();
+            try (SocketChannel agent = SocketChannel.open(server.address())) {
+                assertEquals(1, call(agent, EnvServer.RESET, 9));
+                for (int i = 0; i < 10; i++) assertEquals(2 + i, call(agent, EnvServer.STEP, 0));
+                ByteBuffer bye = ByteBuffer.allocate(9).put(EnvServer.CLOSE).putLong(0).flip();
+                agent.write(bye);
+                assertEquals(-1, agent.read(ByteBuffer.allocate(8)));
+            }
+            assertEquals(10L * ENVS, env.steps());
+            assertEquals(10, env.game(0).ticks());
+        }
+    }
+
+    private static long call(SocketChannel agent, byte op, long argument) throws IOException {
+        ByteBuffer request = ByteBuffer.allocate(9).order(ByteOrder.LITTLE_ENDIAN).put(op).putLong(argument).flip();
+        while (request.hasRemaining()) agent.write(request);
+        ByteBuffer reply = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        while (reply.hasRemaining()) assertTrue(agent.read(reply) >= 0, "server hung up");
+        return reply.getLong(0);
+    }
+}
@@ -0,0 +1,150 @@
+package com.pacman;
+
+import com.pacman.logic.GameClock;
+import com.pacman.logic.GameSession;
+import com.pacman.logic.Ghost;
+import com.pacman.logic.PlayerPickupSystem;
+import com.pacman.model.ChunkedTileStore;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.Map;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedTileStoreTest {
+
+    private static TileType pattern(int r, int c) {
+        return TileType.values()[(r * 3 + c * 5) % TileType.values().length];
+    }
+
+    @Test
+    void newStoreReadsEmpty() throws Exception {
+        Path file = Files.createTempFile("chunks_", ".pchunk");
+        try (ChunkedTileStore store = ChunkedTileStore.create(file, 100, 130, 4)) {
+            assertEquals(100, store.rows());
+            assertEquals(130, store.cols());
+            assertEquals(TileType.EMPTY, store.get(99, 129));
+        }
+    }
+
+    @Test
+    void evictedDirtyChunksAreWrittenBackAndSurviveReopen() throws Exception {
+        Path file = Files.createTempFile("chunks_", ".pchunk");
+        int rows = 300, cols = 200; // 5x4 chunks, only 3 resident
+        try (ChunkedTileStore store = ChunkedTileStore.create(file, rows, cols, 3)) {
+            for (int r = 0; r < rows; r++)
+                for (int c = 0; c < cols; c++)
+                    store.set(r, c, pattern(r, c));
+
+            assertTrue(store.residentChunks() <= 3);
+            assertTrue(store.chunkEvictions() > 0);
+
+            for (int r = 0; r < rows; r += 7)
+                for (int c = 0; c < cols; c += 3)
+                    assertEquals(pattern(r, c), store.get(r, c));
+        }
+
+        try (ChunkedTileStore store = ChunkedTileStore.open(file, 2)) {
+            assertEquals(rows, store.rows());
+            for (int r = 0; r < rows; r++)
+                for (int c = 0; c < cols; c++)
+                    assertEquals(pattern(r, c), store.get(r, c), "tile " + r + "," + c);
+        }
+    }
+
+    @Test
+    void mapContractWorksOnChunkedStore() throws Exception {
+        Path file = Files.createTempFile("chunks_", ".pchunk");
+        try (ChunkedTileStore store = ChunkedTileStore.create(file, 70, 70, 2)) {
+            Map map = new Map(store, 16);
+            map.setTile(65, 66, TileType.PACDOT);
+            map.setTile(0, 1, TileType.WALL);
+
+            assertFalse(map.isWalkable(1, 0));
+            assertTrue(map.isWalkable(66, 65));
+            assertEquals(10, PlayerPickupSystem.eatAt(map, 66, 65));
+            assertEquals(TileType.EMPTY, map.getTile(65, 66));
+        }
+    }
+
+    @Test
+    void sessionOnAHugeChunkedMapOnlyTouchesChangedTiles() throws Exception {
+        Path file = Files.createTempFile("chunks_", ".pchunk");
+        int last = 99_999; // 10^10 tiles, past an int of indices
+        try (ChunkedTileStore store = ChunkedTileStore.create(file, last + 1, last + 1, 8)) {
+            Map map = new Map(store, 16);
+            map.setTile(last, last, TileType.PACDOT);
+            map.setTile(last, 0, TileType.POWER_PACDOT);
+            GameSession session = new GameSession(map, 1, 1, last, last);
+            session.start();
+
+            assertEquals(10, PlayerPickupSystem.eatAt(map, last, last));
+            assertEquals(50, PlayerPickupSystem.eatAt(map, 0, last));
+            map.setTile(5, last, TileType.WALL);
+            session.loseLife();
+
+            assertEquals(TileType.PACDOT, map.getTile(last, last));
+            assertEquals(TileType.POWER_PACDOT, map.getTile(last, 0));
+            assertEquals(TileType.EMPTY, map.getTile(5, last));
+            assertEquals(2, session.lives());
+            assertTrue(store.chunkLoads() <= 3, "loaded " + store.chunkLoads() + " chunks");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void pelletCountIsKeptInTheHeader() throws Exception {
+        Path file = Files.createTempFile("chunks_", ".pchunk");
+        try (ChunkedTileStore store = ChunkedTileStore.create(file, 300, 300, 2)) {
+            for (int c = 0; c < 300; c++) store.set(7, c, c % 10 == 0 ? TileType.POWER_PACDOT : TileType.PACDOT);
+            store.set(7, 3, TileType.EMPTY);
+            store.set(7, 4, TileType.WALL);
+            assertEquals(298, store.pelletCount());
+        }
+        try (ChunkedTileStore store = ChunkedTileStore.open(file, 2)) {
+            Map map = new Map(store, 16);
+            assertEquals(298, map.countPellets());
+            assertEquals(0, store.chunkLoads(), "counted without reading tiles");
+            PlayerPickupSystem.eatAt(map, 10, 7);
+            assertEquals(297, store.pelletCount());
+        }
+    }
+
+    @Test
+    void ghostsChaseOnAHugeChunkedMap() throws Exception {
+        Path file = Files.createTempFile("chunks_", ".pchunk");
+        int last = 99_999;
+        try (ChunkedTileStore store = ChunkedTileStore.create(file, last + 1, last + 1, 8)) {
+            Map map = new Map(store, 16);
+            for (int c = last - 40; c <= last; c++) map.setTile(last - 20, c, TileType.WALL);
+            JunctionGraph graph = new JunctionGraph(map);
+            Ghost ghost = new Ghost(map, graph, 6.0, last - 30, last - 30);
+            ghost.setMode(Ghost.Mode.CHASE);
+            ghost.updateTarget(last - 10, last - 10); // behind the wall
+            GameClock clock = () -> 1.0 / 60.0;
+
+            for (int ticks = 0; ticks < 60 * 60 && !(ghost.tileX() == last - 10 && ghost.tileY() == last - 10); ticks++) {
+                ghost.tick(clock);
+            }
+            assertEquals(last - 10, ghost.tileX());
+            assertEquals(last - 10, ghost.tileY());
+            assertTrue(graph.nodesFound() < 1 << 16, graph.nodesFound() + " nodes");
+            assertTrue(store.chunkLoads() <= 8, "loaded " + store.chunkLoads() + " chunks");
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void outOfRangeAccessIsRejected() throws Exception {
+        Path file = Files.createTempFile("chunks_", ".pchunk");
+        try (ChunkedTileStore store = ChunkedTileStore.create(file, 10, 10, 1)) {
+            assertThrows(IndexOutOfBoundsException.class, () -> store.get(10, 0));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.pacman;
+
+import com.pacman.logic.MovementSystem;
+import com.pacman.model.CompiledMap;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.Map;
+import com.pacman.model.MapCompiler;
+import com.pacman.model.MapLoader;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledMapTest {
+
+    private static final String TXT =
+            "#####\n" +
+            "#.o.#\n" +
+            "#.#G#\n" +
+            "#####\n";
+
+    private Path compileToFile() throws IOException {
+        Path txt = Files.createTempFile("map_", ".txt");
+        Files.writeString(txt, TXT, StandardCharsets.UTF_8);
+        Path out = Files.createTempFile("map_", ".pmap");
+        MapCompiler.compileFile(txt, out, 1, 1, 3, 2);
+        return out;
+    }
+
+    @Test
+    void roundTripsTilesSpawnsAndPellets() throws Exception {
+        CompiledMap compiled = CompiledMap.open(compileToFile());
+
+        assertEquals(4, compiled.rows());
+        assertEquals(5, compiled.cols());
+        assertEquals(1, compiled.playerSpawnX());
+        assertEquals(2, compiled.ghostSpawnY());
+        assertEquals(4, compiled.pelletCount());
+        assertTrue(compiled.checkedPlayable());
+
+        assertTrue(compiled.isWalkable(3, 2), "ghost gate is walkable");
+        assertFalse(compiled.isWalkable(2, 2));
+
+        Map map = compiled.toMap(16);
+        Map source = MapLoader.fromStream(new java.io.ByteArrayInputStream(TXT.getBytes(StandardCharsets.UTF_8)), 16);
+        for (int r = 0; r < map.rows(); r++)
+            for (int c = 0; c < map.cols(); c++)
+                assertEquals(source.getTile(r, c), map.getTile(r, c), "tile " + r + "," + c);
+        assertEquals(4, map.countPellets());
+    }
+
+    @Test
+    void changesToMappedMapDoNotReachTheFile() throws Exception {
+        Path file = compileToFile();
+        byte[] before = Files.readAllBytes(file);
+
+        Map map = CompiledMap.open(file).toMap(16);
+        map.setTile(1, 2, TileType.EMPTY);
+        assertEquals(TileType.EMPTY, map.getTile(1, 2));
+
+        assertArrayEquals(before, Files.readAllBytes(file));
+    }
+
+    @Test
+    void nearestWalkableTableIsUsedForRespawn() throws Exception {
+        Map map = CompiledMap.open(compileToFile()).toMap(16);
+        assertEquals(2 * 5 + 3, map.nearestWalkableIndex(4, 2), "wall right of the gate");
+
+        MovementSystem ms = new MovementSystem(map, 1.0);
+        ms.setToTileCenter(2, 2); // wall between pellet and gate
+        assertTrue(map.isWalkable(ms.tileX(), ms.tileY()));
+    }
+
+    @Test
+    void tableIsDroppedWhenWallsChange() throws Exception {
+        Map map = CompiledMap.open(compileToFile()).toMap(16);
+        map.setTile(1, 1, TileType.EMPTY);
+        assertTrue(map.nearestWalkableIndex(0, 0) >= 0, "pellet eaten keeps the table");
+        map.setTile(1, 1, TileType.WALL);
+        assertEquals(-1, map.nearestWalkableIndex(0, 0));
+    }
+
+    @Test
+    void loadedMapUsesTheCompiledCountsAndWalkability() throws Exception {
+        Map map = CompiledMap.open(compileToFile()).toMap(16);
+        // only the compiled count can say 7: the tiles hold 4 pellets
+        ByteBuffer bytes = MapCompiler.compile(map, 1, 1, 3, 2).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.putInt(32, 7);
+        Map counted = CompiledMap.wrap(bytes).toMap(16);
+        assertEquals(7, counted.countPellets());
+        counted.setTile(1, 1, TileType.EMPTY);
+        assertEquals(6, counted.countPellets());
+
+        assertFalse(new JunctionGraph(map).isJunction(1, 1), "corner");
+        // likewise the junctions come from the compiled walkability: block (2, 1) there only
+        int word = (int) bytes.getLong(40);
+        bytes.putLong(word, bytes.getLong(word) & ~(1L << (1 * 5 + 2)));
+        JunctionGraph graph = new JunctionGraph(CompiledMap.wrap(bytes).toMap(16));
+        assertTrue(graph.isJunction(1, 1), "dead end");
+        assertEquals(0b0010, graph.exits(1, 1), "down only");
+    }
+
+    @Test
+    void unplayableMapsAreLeftForTheLoadCheck() throws Exception {
+        Map map = MapLoader.fromStream(new java.io.ByteArrayInputStream(TXT.getBytes(StandardCharsets.UTF_8)), 16);
+        assertFalse(CompiledMap.wrap(MapCompiler.compile(map, 0, 0, 3, 2)).checkedPlayable(), "player in a wall");
+    }
+
+    @Test
+    void rejectsHeadersThatDoNotFitTheFile() {
+        Map map = new Map(new TileType[][]{{TileType.EMPTY, TileType.PACDOT}}, 16);
+        ByteBuffer good = MapCompiler.compile(map, 0, 0, 1, 0).order(ByteOrder.LITTLE_ENDIAN);
+        java.util.function.Consumer<java.util.function.Consumer<ByteBuffer>> corrupt = edit -> {
+            ByteBuffer bytes = ByteBuffer.allocate(good.capacity()).order(ByteOrder.LITTLE_ENDIAN)
+                    .put(0, good, 0, good.capacity());
+            edit.accept(bytes);
+            assertThrows(IOException.class, () -> CompiledMap.wrap(bytes));
+        };
+        corrupt.accept(b -> b.putInt(8, 0));
+        corrupt.accept(b -> b.putInt(12, -3));
+        corrupt.accept(b -> { b.putInt(8, 65536); b.putInt(12, 65536); }); // rows * cols overflows an int
+        corrupt.accept(b -> b.putInt(8, 1000));                           // tiles run past the end
+        corrupt.accept(b -> b.putInt(32, -1));
+        corrupt.accept(b -> b.putLong(40, Long.MAX_VALUE));
+        corrupt.accept(b -> b.putLong(56, 8));
+    }
+
+    @Test
+    void rejectsWrongMagicAndVersion() {
+        assertThrows(IOException.class, () -> CompiledMap.wrap(ByteBuffer.allocate(64)));
+
+        Map map = new Map(new TileType[][]{{TileType.EMPTY}}, 16);
+        ByteBuffer bytes = MapCompiler.compile(map, 0, 0, 0, 0);
+        bytes.putShort(4, (short) 99);
+        assertThrows(IOException.class, () -> CompiledMap.wrap(bytes));
+    }
+}
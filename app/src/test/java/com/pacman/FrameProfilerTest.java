@@ -0,0 +1,40 @@
+package com.pacman;
+
+import com.pacman.logic.FrameProfiler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrameProfilerTest {
+
+    @Test
+    void disabledProfilerRecordsNothing() {
+        FrameProfiler p = new FrameProfiler();
+        long t = p.start();
+        assertEquals(0L, t);
+        p.stop(FrameProfiler.Phase.GHOSTS, t);
+        assertEquals(0, p.histogram(FrameProfiler.Phase.GHOSTS).count());
+    }
+
+    @Test
+    void enabledProfilerRecordsPerPhase() {
+        FrameProfiler p = new FrameProfiler();
+        p.setEnabled(true);
+        for (int i = 0; i < 3; i++) {
+            long t = p.start();
+            p.stop(FrameProfiler.Phase.PLAYER, t);
+        }
+        assertEquals(3, p.histogram(FrameProfiler.Phase.PLAYER).count());
+        assertEquals(0, p.histogram(FrameProfiler.Phase.PAINT).count());
+    }
+
+    @Test
+    void reenablingClearsOldSamples() {
+        FrameProfiler p = new FrameProfiler();
+        p.setEnabled(true);
+        p.stop(FrameProfiler.Phase.TICK, p.start());
+        p.setEnabled(false);
+        p.setEnabled(true);
+        assertEquals(0, p.histogram(FrameProfiler.Phase.TICK).count());
+    }
+}
@@ -0,0 +1,114 @@
+package com.pacman;
+
+import com.pacman.logic.CollisionSystem;
+import com.pacman.logic.FrightenedTimer;
+import com.pacman.logic.GameEvents;
+import com.pacman.logic.GameSession;
+import com.pacman.logic.Ghost;
+import com.pacman.logic.MovementSystem;
+import com.pacman.logic.PlayerPickupSystem;
+import com.pacman.model.Map;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameEventsTest {
+
+    private static Map open(int size) {
+        TileType[][] grid = new TileType[size][size];
+        for (TileType[] row : grid) Arrays.fill(row, TileType.EMPTY);
+        return new Map(grid, 16);
+    }
+
+    @Test
+    void eventsAreHeldUntilDispatchAndDeliveredInOrder() {
+        GameEvents events = new GameEvents(8);
+        List<String> log = new ArrayList<>();
+        events.subscribe(e -> log.add(e.type() + ":" + e.points()));
+
+        events.pelletEaten(1, 1, 10);
+        events.powerPellet(2, 1, 50);
+        events.ghostEaten(2, 1, 400, 1);
+        assertTrue(log.isEmpty());
+        assertEquals(3, events.pending());
+
+        assertEquals(3, events.dispatch());
+        assertEquals(List.of("PELLET_EATEN:10", "POWER_PELLET:50", "GHOST_EATEN:400"), log);
+        assertEquals(0, events.dispatch());
+    }
+
+    @Test
+    void listenersOnlySeeTheirTypes() {
+        GameEvents events = new GameEvents(8);
+        List<GameEvents.Type> lives = new ArrayList<>();
+        events.subscribe(e -> lives.add(e.type()), GameEvents.Type.LIFE_LOST, GameEvents.Type.LEVEL_CLEARED);
+
+        events.pelletEaten(1, 1, 10);
+        events.lifeLost(1, 1, 2);
+        events.levelCleared();
+        events.dispatch();
+        assertEquals(List.of(GameEvents.Type.LIFE_LOST, GameEvents.Type.LEVEL_CLEARED), lives);
+    }
+
+    @Test
+    void slotsAreReusedAcrossTicks() {
+        GameEvents events = new GameEvents(4);
+        List<GameEvents.Event> seen = new ArrayList<>();
+        events.subscribe(seen::add);
+
+        for (int tick = 0; tick < 1000; tick++) {
+            for (int i = 0; i < 4; i++) events.pelletEaten(i, tick, 10);
+            events.dispatch();
+        }
+        assertEquals(0, events.grown());
+        assertEquals(4000, events.published());
+        assertEquals(4, seen.stream().distinct().count(), "the same four slots every tick");
+        assertEquals(999, seen.get(seen.size() - 1).tick());
+    }
+
+    @Test
+    void ringGrowsInsteadOfLosingEvents() {
+        GameEvents events = new GameEvents(2);
+        List<Integer> xs = new ArrayList<>();
+        events.subscribe(e -> {
+            xs.add(e.tileX());
+            // published while dispatching: still delivered this tick
+            if (e.tileX() == 0) events.pelletEaten(99, 0, 10);
+        });
+        for (int i = 0; i < 5; i++) events.pelletEaten(i, 0, 10);
+        events.dispatch();
+        assertEquals(List.of(0, 1, 2, 3, 4, 99), xs);
+        assertTrue(events.grown() > 0);
+    }
+
+    @Test
+    void gameplaySystemsPublishInsteadOfScoring() {
+        Map map = open(5);
+        map.setTile(2, 2, TileType.POWER_PACDOT);
+        GameSession session = new GameSession(map, 0, 0, 2, 2);
+        GameEvents events = new GameEvents(16);
+        session.useEvents(events);
+        List<String> log = new ArrayList<>();
+        events.subscribe(e -> log.add(e.type() + " " + e.points() + " " + e.chain() + " " + e.to()));
+
+        session.start();
+        MovementSystem player = new MovementSystem(map, 1.0);
+        player.setPosition(2, 2);
+        Ghost ghost = new Ghost(map, 1.0, 2, 2);
+        FrightenedTimer frightened = new FrightenedTimer(List.of(ghost));
+
+        assertEquals(50, PlayerPickupSystem.eatAt(map, 2, 2, events));
+        frightened.start(7.0);
+        frightened.onGhostEaten();
+        assertTrue(CollisionSystem.checkCollisions(session, player, List.of(ghost), frightened, events));
+        events.dispatch();
+
+        assertEquals(List.of("STATE_CHANGED 0 0 PLAYING", "POWER_PELLET 50 0 null", "GHOST_EATEN 400 1 null"), log);
+        assertEquals(1, frightened.chain(), "the chain is left to the listener");
+    }
+}
@@ -0,0 +1,69 @@
+package com.pacman;
+
+import com.pacman.server.GameServer;
+import com.pacman.server.LoadGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GameServerTest {
+
+    private static GameServer startServer() throws IOException {
+        return GameServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                GameServer.bundledLayout(), 2);
+    }
+
+    private static InetSocketAddress address(GameServer server) {
+        return new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port());
+    }
+
+    private static void awaitSessions(GameServer server, int expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 2_000_000_000L;
+        while (server.sessions() != expected && System.nanoTime() < deadline) Thread.sleep(5);
+        assertEquals(expected, server.sessions());
+    }
+
+    @Test
+    void loadGeneratorPlaysManyGamesAtOnce() throws Exception {
+        try (GameServer server = startServer()) {
+            LoadGenerator.Report report = LoadGenerator.run(address(server), 64, 1.5, 7);
+            assertEquals(64, report.welcomed());
+            assertEquals(0, report.errors(), "every frame decoded");
+            assertTrue(report.updateRate() > 30, report.toString());
+            assertTrue(report.maxScore() > 0, "the players ate something");
+            assertTrue(report.inputs() >= 64);
+
+            GameServer.Stats stats = server.stats();
+            assertTrue(stats.ticks() > 64 * 60, stats.toString());
+            assertTrue(stats.sessionsPerCore() > 64, stats.toString());
+            awaitSessions(server, 0);
+        }
+    }
+
+    @Test
+    void malformedInputOnlyDropsThatClient() throws Exception {
+        try (GameServer server = startServer();
+             SocketChannel good = SocketChannel.open(address(server));
+             SocketChannel bad = SocketChannel.open(address(server))) {
+            awaitSessions(server, 2);
+            bad.write(ByteBuffer.wrap(new byte[] {2, 0, 1, 99})); // no such command
+            awaitSessions(server, 1);
+
+            ByteBuffer in = ByteBuffer.allocate(4096);
+            good.read(in);
+            assertTrue(in.position() > 0, "the other game keeps receiving");
+            ByteBuffer rest = ByteBuffer.allocate(4096);
+            int n;
+            while ((n = bad.read(rest.clear())) > 0) {
+                // the WELCOME sent before the bad frame arrived
+            }
+            assertEquals(-1, n, "server closed the bad client");
+        }
+    }
+}
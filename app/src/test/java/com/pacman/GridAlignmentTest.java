@@ -67,4 +67,20 @@ class GridAlignmentTest {
         assertEquals(6, ms.tileX()); // moved exactly 5 tiles
         assertEquals(1, ms.tileY());
     }
+
+    @Test
+    void exactPositionIncludesOffsetBetweenTiles() {
+        Map map = openMap(20,3);
+        MovementSystem ms = new MovementSystem(map, 2.0);
+        ms.setPosition(1,1);
+        ms.request(Direction.RIGHT);
+        ms.tick(new FixedClock(0.25)); // half a tile
+        assertEquals(1, ms.tileX());
+        assertEquals(1.5, ms.exactX(), 1e-9);
+        assertEquals(1.0, ms.exactY(), 1e-9);
+
+        ms.tick(new FixedClock(0.25)); // arrives at the next tile center
+        assertEquals(2, ms.tileX());
+        assertEquals(2.0, ms.exactX(), 1e-9);
+    }
 }
@@ -0,0 +1,134 @@
+package com.pacman;
+
+import com.pacman.model.HighScores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HighScoresTest {
+
+    @TempDir
+    Path dir;
+
+    private static HighScores.Entry game(String map, int score, long when) {
+        return new HighScores.Entry(map, score, 2, 90_000, 7, when);
+    }
+
+    private static List<Integer> scores(HighScores hs, String map) {
+        return hs.top(map).stream().map(HighScores.Entry::score).toList();
+    }
+
+    @Test
+    void keepsTheBestGamesPerMapAcrossRestarts() throws IOException {
+        Path file = dir.resolve("scores.plog");
+        try (HighScores hs = HighScores.open(file, 3)) {
+            hs.record(game("a", 500, 1));
+            hs.record(game("a", 900, 2));
+            hs.record(game("b", 100, 3));
+            hs.record(game("a", 700, 4));
+            hs.record(game("a", 200, 5));
+            hs.record(game("a", 900, 6));
+            assertEquals(List.of(900, 900, 700), scores(hs, "a"), "available before anything is written");
+            assertEquals(2, hs.top("a").get(0).timestampMillis(), "ties keep the earlier game first");
+            hs.flush();
+        }
+
+        try (HighScores hs = HighScores.open(file, 3)) {
+            assertEquals(List.of(900, 900, 700), scores(hs, "a"));
+            assertEquals(List.of(100), scores(hs, "b"));
+            HighScores.Entry best = hs.top("b").get(0);
+            assertEquals(2, best.livesLeft());
+            assertEquals(90_000, best.durationMillis());
+            assertEquals(7, best.seed());
+            int[] out = new int[5];
+            assertEquals(3, hs.topScores("a", out));
+            assertEquals(700, out[2]);
+            assertTrue(hs.top("missing").isEmpty());
+        }
+    }
+
+    @Test
+    void tornTailIsDroppedOnOpen() throws IOException {
+        Path file = dir.resolve("scores.plog");
+        try (HighScores hs = HighScores.open(file, 5)) {
+            hs.record(game("a", 300, 1));
+            hs.record(game("a", 400, 2));
+            hs.flush();
+        }
+        long intact = Files.size(file);
+        // a power cut halfway through the next record, then a corrupted byte in the last good one
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(java.nio.ByteBuffer.wrap(new byte[] {40, 0, 0, 0, 1, 2, 3}));
+        }
+        try (HighScores hs = HighScores.open(file, 5)) {
+            assertEquals(List.of(400, 300), scores(hs, "a"));
+        }
+        assertEquals(intact, Files.size(file));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 3] ^= 1; // inside the map id of the second record
+        Files.write(file, bytes);
+        try (HighScores hs = HighScores.open(file, 5)) {
+            assertEquals(List.of(300), scores(hs, "a"));
+            hs.record(game("a", 350, 3));
+            hs.flush();
+        }
+        try (HighScores hs = HighScores.open(file, 5)) {
+            assertEquals(List.of(350, 300), scores(hs, "a"), "appends continue after the cut");
+        }
+    }
+
+    @Test
+    void compactingWhileGamesQueueNeverDuplicatesThem() throws IOException {
+        for (int run = 0; run < 20; run++) {
+            Path file = dir.resolve("dup" + run + ".plog");
+            try (HighScores hs = HighScores.open(file, 5)) {
+                // the writer compacts several times while later games are still being queued; a
+                // race, so it takes a few runs (and more than one core) to catch it reliably
+                for (int i = 0; i < 5_000; i++) hs.record(game("a", i, i));
+                hs.flush();
+            }
+            try (HighScores hs = HighScores.open(file, 5)) {
+                assertEquals(List.of(4999, 4998, 4997, 4996, 4995), scores(hs, "a"), "run " + run);
+            }
+        }
+    }
+
+    @Test
+    void burstsShareOneFsyncAndCompactionKeepsTheTop() throws IOException {
+        Path file = dir.resolve("scores.plog");
+        try (HighScores hs = HighScores.open(file, 2)) {
+            for (int i = 0; i < 2_000; i++) hs.record(game("map" + (i % 3), i, i));
+            hs.flush();
+            assertTrue(hs.commits() < 2_000, hs.commits() + " fsyncs for 2000 games");
+            assertTrue(hs.compactions() > 0);
+
+            hs.compact();
+            hs.record(game("map0", 5, 5_000));
+            hs.flush();
+            assertEquals(List.of(1998, 1995), scores(hs, "map0"));
+        }
+        assertFalse(Files.exists(dir.resolve("scores.plog.tmp")));
+        long size = Files.size(file);
+        assertTrue(size < 2_000 * 20, "log was compacted to " + size + " bytes");
+        try (HighScores hs = HighScores.open(file, 2)) {
+            assertEquals(List.of(1999, 1996), scores(hs, "map1"));
+        }
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("not-scores.plog");
+        Files.writeString(file, "hello world");
+        assertThrows(IOException.class, () -> HighScores.open(file, 5));
+        assertThrows(IllegalArgumentException.class, () -> HighScores.open(dir.resolve("x"), 0));
+    }
+}
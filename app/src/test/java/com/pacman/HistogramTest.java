@@ -0,0 +1,41 @@
+package com.pacman;
+
+import com.pacman.logic.Histogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramTest {
+
+    @Test
+    void percentilesAreWithinBucketPrecision() {
+        Histogram h = new Histogram();
+        for (int i = 1; i <= 1000; i++) h.record(i * 1_000L);
+
+        assertEquals(1000, h.count());
+        assertEquals(1_000_000, h.max());
+        long p50 = h.percentile(50);
+        long p99 = h.percentile(99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.13, "p50 was " + p50);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 was " + p99);
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        Histogram h = new Histogram();
+        h.record(3);
+        h.record(5);
+        assertEquals(3, h.percentile(50));
+        assertEquals(5, h.percentile(100));
+    }
+
+    @Test
+    void resetClearsEverything() {
+        Histogram h = new Histogram();
+        h.record(42);
+        h.reset();
+        assertEquals(0, h.count());
+        assertEquals(0, h.max());
+        assertEquals(0, h.percentile(99));
+    }
+}
@@ -0,0 +1,70 @@
+package com.pacman;
+
+import com.pacman.logic.InputCommand;
+import com.pacman.logic.InputQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InputQueueTest {
+
+    @Test
+    void drainsInOrderAndRecordsLatency() {
+        InputQueue q = new InputQueue(8);
+        q.offer(InputCommand.START, 100);
+        q.offer(InputCommand.MOVE_LEFT, 200);
+        q.offer(InputCommand.MOVE_UP, 300);
+
+        List<InputCommand> seen = new ArrayList<>();
+        int n = q.drain((cmd, ts) -> seen.add(cmd), 1_000);
+
+        assertEquals(3, n);
+        assertEquals(List.of(InputCommand.START, InputCommand.MOVE_LEFT, InputCommand.MOVE_UP), seen);
+        assertEquals(0, q.size());
+        assertEquals(3, q.latency().count());
+        assertEquals(900, q.latency().max());
+    }
+
+    @Test
+    void fullQueueDropsNewInput() {
+        InputQueue q = new InputQueue(2);
+        assertTrue(q.offer(InputCommand.MOVE_UP, 0));
+        assertTrue(q.offer(InputCommand.MOVE_DOWN, 0));
+        assertFalse(q.offer(InputCommand.MOVE_LEFT, 0), "third command does not fit");
+        assertEquals(1, q.dropped());
+
+        q.drain((cmd, ts) -> { }, 0);
+        assertTrue(q.offer(InputCommand.MOVE_RIGHT, 0), "space is freed after draining");
+    }
+
+    @Test
+    void capacityMustBePowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new InputQueue(3));
+    }
+
+    @Test
+    void producerThreadAndConsumerSeeEveryCommand() throws Exception {
+        InputQueue q = new InputQueue(16);
+        int total = 10_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                while (!q.offer(InputCommand.values()[i % 4], i)) Thread.onSpinWait();
+            }
+        });
+        producer.start();
+
+        long[] next = {0};
+        boolean[] ordered = {true};
+        while (next[0] < total) {
+            q.drain((cmd, ts) -> {
+                if (ts != next[0] || cmd != InputCommand.values()[(int) (ts % 4)]) ordered[0] = false;
+                next[0]++;
+            }, total);
+        }
+        producer.join();
+        assertTrue(ordered[0], "commands arrive in order and intact");
+    }
+}
@@ -0,0 +1,56 @@
+package com.pacman;
+
+import com.pacman.logic.GameSession;
+import com.pacman.logic.PlayerPickupSystem;
+import com.pacman.model.Map;
+import com.pacman.model.TileType;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JfrEventsTest {
+
+    @Test
+    void pelletAndStateEventsAreRecorded() throws Exception {
+        TileType[][] grid = {
+                {TileType.WALL, TileType.WALL, TileType.WALL},
+                {TileType.WALL, TileType.POWER_PACDOT, TileType.WALL},
+                {TileType.WALL, TileType.WALL, TileType.WALL}
+        };
+        Map map = new Map(grid, 16);
+        GameSession session = new GameSession(map, 0, 0, 1, 1);
+
+        Path file = Files.createTempFile("pacman_", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.pacman.PelletEaten");
+            recording.enable("com.pacman.StateChanged");
+            recording.start();
+
+            session.start();
+            PlayerPickupSystem.eatAt(map, 1, 1);
+
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        RecordedEvent pellet = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.pacman.PelletEaten"))
+                .findFirst().orElseThrow();
+        assertEquals(50, pellet.getInt("points"));
+        assertEquals(1, pellet.getInt("tileX"));
+
+        RecordedEvent state = events.stream()
+                .filter(e -> e.getEventType().getName().equals("com.pacman.StateChanged"))
+                .findFirst().orElseThrow();
+        assertEquals("MENU", state.getString("from"));
+        assertEquals("PLAYING", state.getString("to"));
+    }
+}
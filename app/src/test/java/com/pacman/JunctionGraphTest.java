@@ -0,0 +1,124 @@
+package com.pacman;
+
+import com.pacman.logic.GameClock;
+import com.pacman.logic.Ghost;
+import com.pacman.model.ArrayTileStore;
+import com.pacman.model.Direction;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.Map;
+import com.pacman.model.MazeGenerator;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JunctionGraphTest {
+
+    private static Map parse(String... lines) {
+        TileType[][] g = new TileType[lines.length][lines[0].length()];
+        for (int r = 0; r < lines.length; r++)
+            for (int c = 0; c < lines[r].length(); c++)
+                g[r][c] = lines[r].charAt(c) == '#' ? TileType.WALL : TileType.PACDOT;
+        return new Map(g, 16);
+    }
+
+    private static Map grid() {
+        return parse(
+                "#######",
+                "#.....#",
+                "#.#.#.#",
+                "#.....#",
+                "#.#.#.#",
+                "#.....#",
+                "#######");
+    }
+
+    @Test
+    void corridorsRunBetweenJunctions() {
+        JunctionGraph graph = new JunctionGraph(grid());
+
+        assertTrue(graph.isJunction(3, 1));
+        assertTrue(graph.isJunction(3, 3));
+        assertFalse(graph.isJunction(1, 1), "corners are part of a corridor");
+        assertFalse(graph.isJunction(2, 1));
+        assertFalse(graph.isJunction(0, 0), "walls are not junctions");
+        assertEquals(9 - 4, graph.nodeCount());
+
+        int top = graph.node(3, 1);
+        int end = graph.corridorEnd(top, Direction.LEFT);
+        assertEquals(1, graph.nodeX(end));
+        assertEquals(3, graph.nodeY(end));
+        assertEquals(4, graph.corridorLength(top, Direction.LEFT));
+        assertEquals(Direction.LEFT, graph.corridorStep(top, Direction.LEFT, 1));
+        assertEquals(Direction.DOWN, graph.corridorStep(top, Direction.LEFT, 2));
+        assertEquals(-1, graph.corridorEnd(top, Direction.UP));
+    }
+
+    @Test
+    void corridorExitFollowsCorners() {
+        JunctionGraph graph = new JunctionGraph(grid());
+        assertEquals(Direction.DOWN, graph.corridorExit(1, 1, Direction.LEFT));
+        assertEquals(Direction.RIGHT, graph.corridorExit(1, 1, Direction.UP));
+        assertEquals(Direction.LEFT, graph.corridorExit(2, 1, Direction.LEFT));
+        assertEquals(Direction.NONE, graph.corridorExit(3, 1, Direction.LEFT));
+    }
+
+    @Test
+    void routeTakesShortestPathWithoutTurningBack() {
+        JunctionGraph graph = new JunctionGraph(grid());
+        // entered (3,1) moving right; (1,5) is closer through the middle than around the right side
+        assertEquals(Direction.DOWN, graph.route(3, 1, Direction.RIGHT, 1, 5));
+        // target straight back along the corridor we came from is still not a U-turn
+        assertNotEquals(Direction.LEFT, graph.route(3, 1, Direction.RIGHT, 2, 1));
+        assertEquals(Direction.LEFT, graph.route(3, 1, Direction.NONE, 2, 1));
+        assertEquals(3, graph.routes());
+    }
+
+    @Test
+    void onlyFindsTheNodesItIsAskedAbout() {
+        JunctionGraph graph = new JunctionGraph(grid());
+        assertTrue(graph.isJunction(3, 1));
+        assertEquals(0, graph.nodesFound(), "a lookup reads tiles without holding them");
+
+        int top = graph.node(3, 1);
+        assertEquals(1, graph.nodesFound());
+        graph.corridorEnd(top, Direction.LEFT);
+        assertEquals(2, graph.nodesFound(), "walking a corridor finds the node at its end");
+    }
+
+    @Test
+    void rebuildsWhenWalkabilityChanges() {
+        Map map = grid();
+        JunctionGraph graph = new JunctionGraph(map);
+        assertTrue(graph.isJunction(3, 1));
+
+        map.setTile(1, 2, TileType.EMPTY); // eating a pellet changes nothing
+        assertTrue(graph.isJunction(3, 1));
+
+        map.setTile(1, 2, TileType.WALL);
+        assertFalse(graph.isJunction(3, 1));
+        assertTrue(graph.isJunction(1, 1), "(1,1) is now a dead end");
+    }
+
+    @Test
+    void chasingGhostOnlyDecidesAtJunctionsAndReachesTarget() {
+        ArrayTileStore store = new ArrayTileStore(new TileType[29][28]);
+        MazeGenerator.Spawns spawns = MazeGenerator.generate(store, 5);
+        Map map = new Map(store, 16);
+        JunctionGraph graph = new JunctionGraph(map);
+        Ghost ghost = new Ghost(map, graph, 6.0, spawns.playerX(), spawns.playerY());
+        ghost.setMode(Ghost.Mode.CHASE);
+        ghost.updateTarget(1, 1);
+        GameClock clock = () -> 1.0 / 60.0;
+
+        int ticks = 0;
+        while (ticks < 60 * 60 && !(ghost.tileX() == 1 && ghost.tileY() == 1)) {
+            ghost.tick(clock);
+            ticks++;
+        }
+        assertEquals(1, ghost.tileX());
+        assertEquals(1, ghost.tileY());
+        // 10 ticks per tile at this speed, and most tiles are corridor
+        assertTrue(ghost.decisions() * 10 < ticks, ghost.decisions() + " decisions in " + ticks + " ticks");
+    }
+}
@@ -0,0 +1,98 @@
+package com.pacman;
+
+import com.pacman.model.Map;
+import com.pacman.model.MapLoader;
+import com.pacman.model.TileType;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Map loading throughput on generated multi-megabyte text maps.
+ * Not a unit test; run with {@code ./gradlew :app:benchmark}.
+ */
+public final class MapLoaderBenchmark {
+
+    private static final int WARMUP = 5;
+    private static final int RUNS = 10;
+
+    public static void main(String[] args) throws IOException {
+        for (int size : new int[]{1024, 2048, 4096}) {
+            Path file = generate(size);
+            double mb = Files.size(file) / (1024.0 * 1024.0);
+            System.out.printf("%dx%d map, %.1f MB%n", size, size, mb);
+            report("  lines + chars (old)", mb, () -> linesAndChars(file));
+            report("  fromPath", mb, () -> MapLoader.fromPath(file, 16));
+            report("  fromStream", mb, () -> {
+                try (InputStream in = Files.newInputStream(file)) {
+                    return MapLoader.fromStream(in, 16);
+                }
+            });
+            Files.delete(file);
+        }
+    }
+
+    private interface Load { Map run() throws IOException; }
+
+    private static void report(String name, double mb, Load load) throws IOException {
+        int sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += load.run().rows();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long t0 = System.nanoTime();
+            sink += load.run().rows();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        double ms = best / 1e6;
+        System.out.printf("%-24s %8.2f ms  %8.1f MB/s  (%d)%n", name, ms, mb / (ms / 1000.0), sink);
+    }
+
+    private static Path generate(int size) throws IOException {
+        StringBuilder sb = new StringBuilder(size * (size + 1));
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                boolean border = r == 0 || c == 0 || r == size - 1 || c == size - 1;
+                sb.append(border || (r % 4 == 2 && c % 4 == 2) ? '#' : (r * 31 + c) % 97 == 0 ? 'o' : '.');
+            }
+            sb.append('\n');
+        }
+        Path file = Files.createTempFile("bench_map_", ".txt");
+        Files.writeString(file, sb, StandardCharsets.US_ASCII);
+        return file;
+    }
+
+    /** The previous implementation: collect lines, then parse character by character. */
+    private static Map linesAndChars(Path path) throws IOException {
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(path.toFile()))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (!line.trim().isEmpty()) lines.add(line);
+            }
+        }
+        int rows = lines.size();
+        int cols = lines.get(0).length();
+        TileType[][] grid = new TileType[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            String line = lines.get(r);
+            for (int c = 0; c < cols; c++) {
+                char ch = c < line.length() ? line.charAt(c) : ' ';
+                grid[r][c] = switch (ch) {
+                    case '#' -> TileType.WALL;
+                    case '.' -> TileType.PACDOT;
+                    case 'o' -> TileType.POWER_PACDOT;
+                    case 'G', 'g' -> TileType.GHOST_GATE;
+                    default -> TileType.EMPTY;
+                };
+            }
+        }
+        return new Map(grid, 16);
+    }
+}
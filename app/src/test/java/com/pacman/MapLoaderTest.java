@@ -5,6 +5,8 @@ import com.pacman.model.MapLoader;
 import com.pacman.model.TileType;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -47,4 +49,52 @@ class MapLoaderTest {
         assertTrue(map.rows() > 0);
         assertTrue(map.cols() > 0);
     }
+
+    @Test
+    void streamSkipsBlankLinesAndPadsShortRows() throws Exception {
+        String txt = "\n#.#\r\n   \n#\n#o#G\n";
+        Map map = MapLoader.fromStream(
+                new ByteArrayInputStream(txt.getBytes(StandardCharsets.US_ASCII)), 16);
+
+        assertEquals(3, map.rows());
+        assertEquals(3, map.cols());
+        assertEquals(TileType.PACDOT, map.getTile(0, 1));
+        assertEquals(TileType.WALL, map.getTile(1, 0));
+        assertEquals(TileType.EMPTY, map.getTile(1, 2), "short row is padded");
+        assertEquals(TileType.POWER_PACDOT, map.getTile(2, 1));
+        assertEquals(TileType.WALL, map.getTile(2, 2), "extra columns are ignored");
+    }
+
+    @Test
+    void channelWithoutTrailingNewlineAndLargerThanBuffer() throws Exception {
+        int cols = 300, rows = 400; // more than one 64 KiB read
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < rows; r++) {
+            if (r > 0) sb.append('\n');
+            for (int c = 0; c < cols; c++) sb.append((r + c) % 3 == 0 ? '#' : '.');
+        }
+        Map map = MapLoader.fromChannel(Channels.newChannel(
+                new ByteArrayInputStream(sb.toString().getBytes(StandardCharsets.US_ASCII))), 16);
+
+        assertEquals(rows, map.rows());
+        assertEquals(cols, map.cols());
+        assertEquals(TileType.WALL, map.getTile(rows - 1, (3 - (rows - 1) % 3) % 3));
+        assertEquals(TileType.PACDOT, map.getTile(rows - 1, cols - 1 - ((rows - 1 + cols - 1) % 3 == 0 ? 1 : 0)));
+    }
+
+    @Test
+    void bundledMapLoadsFromClasspath() throws Exception {
+        try (var in = MapLoaderTest.class.getResourceAsStream("/maps/original_pacman.txt")) {
+            assertNotNull(in);
+            Map map = MapLoader.fromStream(in, 16);
+            assertEquals(29, map.rows());
+            assertEquals(28, map.cols());
+        }
+    }
+
+    @Test
+    void emptyInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () ->
+                MapLoader.fromStream(new ByteArrayInputStream("\n  \n".getBytes(StandardCharsets.US_ASCII)), 16));
+    }
 }
@@ -0,0 +1,108 @@
+package com.pacman;
+
+import com.pacman.model.ArrayTileStore;
+import com.pacman.model.Map;
+import com.pacman.model.MapValidator;
+import com.pacman.model.MazeGenerator;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapValidatorTest {
+
+    private static Map parse(String... lines) {
+        TileType[][] g = new TileType[lines.length][lines[0].length()];
+        for (int r = 0; r < lines.length; r++)
+            for (int c = 0; c < lines[r].length(); c++)
+                g[r][c] = switch (lines[r].charAt(c)) {
+                    case '#' -> TileType.WALL;
+                    case '.' -> TileType.PACDOT;
+                    case 'o' -> TileType.POWER_PACDOT;
+                    case 'G' -> TileType.GHOST_GATE;
+                    default -> TileType.EMPTY;
+                };
+        return new Map(g, 16);
+    }
+
+    @Test
+    void connectedMapIsPlayable() {
+        Map map = parse(
+                "#######",
+                "#.....#",
+                "#.###.#",
+                "#..G..#",
+                "#######");
+        MapValidator.Report report = MapValidator.validate(map, 1, 1, 3, 3);
+        assertTrue(report.isPlayable());
+        assertEquals(1, report.regions());
+        assertEquals(0, report.isolatedRegions());
+        assertEquals(-1, report.firstUnreachablePellet());
+    }
+
+    @Test
+    void reportsUnreachablePelletsAndSpawnsInWalls() {
+        Map map = parse(
+                "#######",
+                "#..#..#",
+                "#..#.o#",
+                "#######");
+        MapValidator.Report report = MapValidator.validate(map, 1, 1, 3, 1);
+        assertFalse(report.isPlayable());
+        assertEquals(2, report.regions());
+        assertEquals(1, report.isolatedRegions());
+        assertEquals(4, report.unreachablePellets());
+        assertEquals(1 * 7 + 4, report.firstUnreachablePellet());
+        assertFalse(report.playerSpawnInWall());
+        assertTrue(report.ghostSpawnInWall());
+    }
+
+    @Test
+    void wrappedColumnsJoinRegions() {
+        Map map = parse(
+                "#####",
+                "..#..",
+                "#####");
+        assertEquals(1, MapValidator.validate(map, 0, 1, 4, 1).regions());
+    }
+
+    @Test
+    void repairCarvesPathAndMovesSpawns() {
+        Map map = parse(
+                "#########",
+                "#...#...#",
+                "#...#.o.#",
+                "#########");
+        MapValidator.Report report = MapValidator.repair(map, 1, 1, 0, 0);
+        assertTrue(report.isPlayable());
+        assertEquals(1, report.tilesCarved());
+        assertEquals(1, report.regions());
+        assertTrue(map.isWalkable(report.ghostX(), report.ghostY()));
+        assertEquals(TileType.EMPTY, map.getTile(1, 4));
+    }
+
+    @Test
+    void repairLeavesPelletFreePocketsAlone() {
+        Map map = parse(
+                "#######",
+                "#..#  #",
+                "#..#  #",
+                "#######");
+        MapValidator.Report report = MapValidator.repair(map, 1, 1, 2, 2);
+        assertEquals(0, report.tilesCarved());
+        assertEquals(2, report.regions());
+        assertTrue(report.isPlayable());
+    }
+
+    @Test
+    void generatedMazeSpanningSeveralBandsIsOneRegion() {
+        ArrayTileStore store = new ArrayTileStore(new TileType[515][301]);
+        MazeGenerator.Spawns spawns = MazeGenerator.generate(store, 11);
+        Map map = new Map(store, 16);
+        MapValidator.Report report = MapValidator.validate(map, spawns.playerX(), spawns.playerY(),
+                spawns.ghostX(), spawns.ghostY());
+        assertTrue(report.isPlayable());
+        assertEquals(1, report.regions());
+        assertFalse(report.ghostSpawnUnreachable());
+    }
+}
@@ -0,0 +1,90 @@
+package com.pacman;
+
+import com.pacman.logic.GameSession;
+import com.pacman.model.Map;
+import com.pacman.model.MapLoader;
+import com.pacman.model.MapWatcher;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapWatcherTest {
+
+    private static final String ORIGINAL = "#####\n#...#\n#.#.#\n#...#\n#####\n";
+
+    private static MapWatcher.Patch awaitPatch(MapWatcher watcher) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            MapWatcher.Patch patch = watcher.poll();
+            if (patch != null) return patch;
+            Thread.sleep(20);
+        }
+        return null;
+    }
+
+    @Test
+    void editedTilesArriveAsOnePatch() throws Exception {
+        Path file = Files.createTempDirectory("maps_").resolve("level.txt");
+        Files.writeString(file, ORIGINAL);
+        Map live = MapLoader.fromPath(file, 16);
+
+        try (MapWatcher watcher = MapWatcher.start(file, live, 1, 1, 1, 1)) {
+            assertNull(watcher.poll());
+            Files.writeString(file, "#####\n#.o.#\n#...#\n#...#\n#####\n");
+
+            MapWatcher.Patch patch = awaitPatch(watcher);
+            assertNotNull(patch);
+            assertEquals(2, patch.size());
+            assertEquals(1, patch.row(0));
+            assertEquals(2, patch.col(0));
+            assertEquals(TileType.POWER_PACDOT, patch.tile(0));
+            assertEquals(2, patch.row(1));
+            assertEquals(TileType.PACDOT, patch.tile(1));
+            assertNotNull(patch.report(), "a wall turned walkable, so connectivity is re-checked");
+            assertTrue(patch.report().isPlayable());
+        }
+    }
+
+    @Test
+    void sessionKeepsEditsAcrossLevelRestore() throws Exception {
+        Path file = Files.createTempDirectory("maps_").resolve("level.txt");
+        Files.writeString(file, ORIGINAL);
+        Map live = MapLoader.fromPath(file, 16);
+        GameSession session = new GameSession(live, 1, 1, 1, 1);
+        session.start();
+        live.setTile(1, 1, TileType.EMPTY); // eaten before the edit
+
+        try (MapWatcher watcher = MapWatcher.start(file, live, 1, 1, 1, 1)) {
+            Files.writeString(file, "#####\n#...#\n#.#.#\n#..o#\n#####\n");
+            MapWatcher.Patch patch = awaitPatch(watcher);
+            assertNotNull(patch);
+            assertEquals(1, patch.size());
+            assertNull(patch.report());
+            session.applyPatch(patch);
+        }
+
+        assertEquals(TileType.POWER_PACDOT, live.getTile(3, 3));
+        assertEquals(TileType.EMPTY, live.getTile(1, 1), "untouched tiles keep their game state");
+
+        session.loseLife();
+        assertEquals(TileType.POWER_PACDOT, live.getTile(3, 3));
+        assertEquals(TileType.PACDOT, live.getTile(1, 1));
+    }
+
+    @Test
+    void resizedFileIsIgnored() throws Exception {
+        Path file = Files.createTempDirectory("maps_").resolve("level.txt");
+        Files.writeString(file, ORIGINAL);
+        Map live = MapLoader.fromPath(file, 16);
+
+        try (MapWatcher watcher = MapWatcher.start(file, live, 1, 1, 1, 1)) {
+            Files.writeString(file, "######\n#....#\n######\n");
+            Thread.sleep(500);
+            assertNull(watcher.poll());
+        }
+    }
+}
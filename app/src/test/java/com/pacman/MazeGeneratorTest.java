@@ -0,0 +1,117 @@
+package com.pacman;
+
+import com.pacman.model.ArrayTileStore;
+import com.pacman.model.Map;
+import com.pacman.model.MazeGenerator;
+import com.pacman.model.TileStore;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayDeque;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MazeGeneratorTest {
+
+    private static TileStore store(int rows, int cols) {
+        return new ArrayTileStore(new TileType[rows][cols]);
+    }
+
+    private static boolean walkable(TileStore s, int r, int c) {
+        return r >= 0 && r < s.rows() && Map.isWalkable(s.get(r, Math.floorMod(c, s.cols())));
+    }
+
+    @Test
+    void sameSeedGivesSameMaze() {
+        TileStore a = store(301, 257), b = store(301, 257);
+        MazeGenerator.generate(a, 42);
+        MazeGenerator.generate(b, 42);
+        for (int r = 0; r < a.rows(); r++)
+            for (int c = 0; c < a.cols(); c++)
+                assertEquals(a.get(r, c), b.get(r, c), "tile " + r + "," + c);
+    }
+
+    @Test
+    void differentSeedsGiveDifferentMazes() {
+        TileStore a = store(29, 28), b = store(29, 28);
+        MazeGenerator.generate(a, 1);
+        MazeGenerator.generate(b, 2);
+        boolean differs = false;
+        for (int r = 0; r < a.rows() && !differs; r++)
+            for (int c = 0; c < a.cols(); c++)
+                if (a.get(r, c) != b.get(r, c)) { differs = true; break; }
+        assertTrue(differs);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"29, 28", "31, 31", "15, 15", "16, 17", "301, 257", "200, 130"})
+    void mirroredConnectedAndWithoutDeadEnds(int rows, int cols) {
+        TileStore s = store(rows, cols);
+        MazeGenerator.Spawns spawns = MazeGenerator.generate(s, 7);
+
+        int walkableCount = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                assertEquals(s.get(r, c), s.get(r, cols - 1 - c), "mirror at " + r + "," + c);
+                if (!walkable(s, r, c)) continue;
+                walkableCount++;
+                int exits = 0;
+                if (walkable(s, r - 1, c)) exits++;
+                if (walkable(s, r + 1, c)) exits++;
+                if (walkable(s, r, c - 1)) exits++;
+                if (walkable(s, r, c + 1)) exits++;
+                assertTrue(exits >= 2, "dead end at " + r + "," + c);
+            }
+        }
+
+        // flood fill from the player spawn reaches every walkable tile
+        boolean[] seen = new boolean[rows * cols];
+        ArrayDeque<int[]> queue = new ArrayDeque<>();
+        queue.add(new int[]{spawns.playerY(), spawns.playerX()});
+        seen[spawns.playerY() * cols + spawns.playerX()] = true;
+        int reached = 0;
+        int[][] steps = {{-1, 0}, {1, 0}, {0, -1}, {0, 1}};
+        while (!queue.isEmpty()) {
+            int[] p = queue.poll();
+            reached++;
+            for (int[] d : steps) {
+                int r = p[0] + d[0], c = Math.floorMod(p[1] + d[1], cols);
+                if (walkable(s, r, c) && !seen[r * cols + c]) {
+                    seen[r * cols + c] = true;
+                    queue.add(new int[]{r, c});
+                }
+            }
+        }
+        assertEquals(walkableCount, reached);
+    }
+
+    @Test
+    void hasGhostHouseTunnelAndPowerPellets() {
+        TileStore s = store(29, 28);
+        MazeGenerator.Spawns spawns = MazeGenerator.generate(s, 3);
+
+        int gates = 0, power = 0;
+        for (int r = 0; r < s.rows(); r++)
+            for (int c = 0; c < s.cols(); c++) {
+                if (s.get(r, c) == TileType.GHOST_GATE) gates++;
+                if (s.get(r, c) == TileType.POWER_PACDOT) power++;
+            }
+        assertTrue(gates > 0);
+        assertEquals(4, power);
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(TileType.EMPTY, s.get(spawns.ghostY(), spawns.ghostX() + i));
+        }
+        assertEquals(TileType.GHOST_GATE, s.get(spawns.ghostY() - 2, 13));
+        assertTrue(Map.isWalkable(s.get(spawns.playerY(), spawns.playerX())));
+        assertEquals(TileType.EMPTY, s.get(spawns.ghostY(), 0));
+        assertEquals(TileType.EMPTY, s.get(spawns.ghostY(), s.cols() - 1));
+    }
+
+    @Test
+    void rejectsTinyMazes() {
+        assertThrows(IllegalArgumentException.class, () -> MazeGenerator.generate(store(10, 28), 1));
+    }
+}
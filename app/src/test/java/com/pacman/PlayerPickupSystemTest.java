@@ -40,4 +40,37 @@ class PlayerPickupSystemTest {
     assertEquals(50, points, "Power pellet must award 50");
     assertEquals(TileType.EMPTY, map.getTile(1, 3));
   }
+
+  @Test
+  void pelletCountFollowsEatenAndRestoredTiles() {
+    Map map = mapWith(5, 5);
+    map.setTile(1, 1, TileType.PACDOT);
+    map.setTile(2, 2, TileType.POWER_PACDOT);
+    assertEquals(2, map.countPellets());
+
+    PlayerPickupSystem.eatAt(map, 1, 1);
+    assertEquals(1, map.countPellets(), "count is updated without rescanning");
+
+    map.setTile(1, 1, TileType.PACDOT);
+    assertEquals(2, map.countPellets());
+  }
+
+  @Test
+  void tileListenersSeeEveryChange() {
+    Map map = mapWith(5, 5);
+    map.setTile(3, 4, TileType.PACDOT);
+    int[] seen = new int[3];
+    map.addTileListener((row, col, before, after) -> {
+      seen[0] = row;
+      seen[1] = col;
+      seen[2]++;
+    });
+
+    PlayerPickupSystem.eatAt(map, 4, 3);
+    PlayerPickupSystem.eatAt(map, 4, 3); // nothing left, no change
+
+    assertEquals(3, seen[0]);
+    assertEquals(4, seen[1]);
+    assertEquals(1, seen[2]);
+  }
 }
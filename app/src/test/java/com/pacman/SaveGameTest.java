@@ -0,0 +1,277 @@
+package com.pacman;
+
+import com.pacman.logic.AiScheduler;
+import com.pacman.logic.FrightenedTimer;
+import com.pacman.logic.GameClock;
+import com.pacman.logic.GameEvents;
+import com.pacman.logic.GameSession;
+import com.pacman.logic.Ghost;
+import com.pacman.logic.ModeWaves;
+import com.pacman.logic.MovementSystem;
+import com.pacman.logic.PlayerPickupSystem;
+import com.pacman.logic.SaveGame;
+import com.pacman.logic.TimerWheel;
+import com.pacman.model.ArrayTileStore;
+import com.pacman.model.Direction;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.Map;
+import com.pacman.model.MazeGenerator;
+import com.pacman.model.Score;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveGameTest {
+
+    private static final GameClock FRAME = () -> 1.0 / 60.0;
+    private static final Direction[] TURNS = {Direction.LEFT, Direction.UP, Direction.RIGHT, Direction.DOWN};
+
+    @TempDir
+    Path dir;
+
+    /** Just enough of the game loop to exercise everything a save holds. */
+    private static final class Game {
+        final Map map;
+        final GameSession session;
+        final MovementSystem player;
+        final List<Ghost> ghosts = new ArrayList<>();
+        final TimerWheel timers = new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS);
+        final ModeWaves waves;
+        final FrightenedTimer frightened;
+        final Score score = new Score();
+        final GameEvents events = new GameEvents(16);
+        final SaveGame save;
+        final AiScheduler scheduler;
+        int tick;
+        double played;
+
+        Game(long seed) {
+            this(seed, null);
+        }
+
+        /** With a scheduler, chase routing is queued and run after the ghosts move, as in the game panel. */
+        Game(long seed, AiScheduler scheduler) {
+            this.scheduler = scheduler;
+            ArrayTileStore store = new ArrayTileStore(new TileType[29][28]);
+            MazeGenerator.Spawns spawns = MazeGenerator.generate(store, seed);
+            map = new Map(store, 16);
+            session = new GameSession(map, spawns.ghostX(), spawns.ghostY(), spawns.playerX(), spawns.playerY());
+            session.start();
+            player = new MovementSystem(map, 8.0);
+            player.setPosition(spawns.playerX(), spawns.playerY());
+            JunctionGraph graph = new JunctionGraph(map);
+            for (int i = 0; i < 4; i++) {
+                Ghost g = new Ghost(map, graph, 6.0, spawns.ghostX() + i, spawns.ghostY());
+                g.useTimers(timers);
+                if (scheduler != null) g.useScheduler(scheduler);
+                ghosts.add(g);
+            }
+            waves = new ModeWaves(ghosts, timers, new double[] {2, 3});
+            waves.restart();
+            frightened = new FrightenedTimer(ghosts, timers, waves);
+            save = new SaveGame(session, player, ghosts, frightened, waves, timers, score);
+            // points and frightened mode follow pickups only when the tick's events are dispatched
+            events.subscribe(e -> {
+                score.add(e.points());
+                if (e.type() == GameEvents.Type.POWER_PELLET) frightened.start(1.5);
+            }, GameEvents.Type.PELLET_EATEN, GameEvents.Type.POWER_PELLET);
+        }
+
+        void step() {
+            if (tick % 45 == 0) player.request(TURNS[(tick / 45) % 4]);
+            player.tick(FRAME);
+            PlayerPickupSystem.eatAt(map, player.tileX(), player.tileY(), events);
+            timers.advance(FRAME);
+            for (Ghost g : ghosts) {
+                g.updateTarget(player.tileX(), player.tileY());
+                g.tick(FRAME);
+            }
+            if (scheduler != null) scheduler.runTick();
+            if (tick == 100) ghosts.get(2).respawn(ghosts.get(2).tileX(), ghosts.get(2).tileY());
+            events.dispatch();
+            played += FRAME.deltaSeconds();
+            tick++;
+        }
+
+        String state() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(session.state()).append(' ').append(session.lives()).append(' ').append(score.value())
+                    .append(' ').append(map.countPellets()).append(' ').append(player.exactX()).append(',')
+                    .append(player.exactY()).append(' ').append(frightened.active()).append(' ').append(waves.wave());
+            for (Ghost g : ghosts) {
+                sb.append(" | ").append(g.exactX()).append(',').append(g.exactY()).append(' ').append(g.mode())
+                        .append(' ').append(g.isWaitingToMove());
+            }
+            return sb.toString();
+        }
+    }
+
+    @Test
+    void resumedGameContinuesExactlyWhereItWasSaved() throws Exception {
+        Path file = dir.resolve("game.psav");
+        Game original = new Game(3);
+        for (int i = 0; i < 200; i++) original.step();
+        original.save.save(file, original.played).get();
+        assertTrue(original.score.value() > 0, "some pellets were eaten");
+
+        Game resumed = new Game(3);
+        resumed.tick = original.tick;
+        assertEquals(original.played, resumed.save.load(file));
+        assertEquals(original.state(), resumed.state());
+
+        for (int i = 0; i < 600; i++) {
+            original.step();
+            resumed.step();
+            assertEquals(original.state(), resumed.state(), "tick " + original.tick);
+        }
+    }
+
+    /**
+     * Saves after every one of the first 400 ticks and resumes each save: ghosts must not decide
+     * again for a tile they already decided on, and routing still queued on the one-job budget
+     * must run in the same order, or the random walk and the routes drift apart.
+     */
+    @Test
+    void everyTickResumesIntoTheSameGame() throws Exception {
+        int saves = 400, after = 600;
+        Game original = new Game(3, AiScheduler.withJobBudget(1));
+        String[] states = new String[saves + after + 1];
+        Path[] files = new Path[saves + 1];
+        boolean queuedAtASave = false;
+        for (int t = 1; t <= saves + after; t++) {
+            original.step();
+            states[t] = original.state();
+            if (t <= saves) {
+                files[t] = dir.resolve("tick" + t + ".psav");
+                queuedAtASave |= original.scheduler.pending() > 0;
+                original.save.save(files[t], original.played).get();
+            }
+        }
+        assertTrue(queuedAtASave, "no save caught routing still queued");
+
+        for (int t = 1; t <= saves; t++) {
+            Game resumed = new Game(3, AiScheduler.withJobBudget(1));
+            resumed.tick = t;
+            resumed.save.load(files[t]);
+            for (int k = 1; k <= after; k++) {
+                resumed.step();
+                assertEquals(states[t + k], resumed.state(), "saved at tick " + t + ", " + k + " ticks after resuming");
+            }
+        }
+    }
+
+    @Test
+    void autosaveAskedForMidTickLandsAfterTheTicksEvents() throws Exception {
+        Path file = dir.resolve("game.psav");
+        Game original = new Game(3);
+        // asks every 7 ticks from the wheel, mid-tick, as the game's autosave timer does
+        TimerWheel.Timer[] autosave = new TimerWheel.Timer[1];
+        autosave[0] = new TimerWheel.Timer(() -> {
+            original.save.requestSave();
+            original.timers.scheduleTicks(autosave[0], 7);
+        });
+        original.timers.scheduleTicks(autosave[0], 7);
+
+        // keep going until a requested save falls on a tick that ate a pellet
+        boolean saved = false;
+        while (!saved) {
+            long pellets = original.map.countPellets();
+            original.step();
+            boolean ate = original.map.countPellets() < pellets;
+            Path target = ate ? file : dir.resolve("other.psav");
+            Future<?> pending = original.save.saveIfRequested(target, original.played);
+            if (pending != null) {
+                pending.get();
+                saved = ate;
+            }
+            assertTrue(original.tick < 3_000, "no save landed on a pickup tick");
+        }
+        assertNull(original.save.saveIfRequested(file, original.played), "one save per request");
+
+        Game resumed = new Game(3);
+        resumed.tick = original.tick;
+        assertEquals(original.played, resumed.save.load(file));
+        assertEquals(original.state(), resumed.state());
+        for (int i = 0; i < 300; i++) {
+            original.step();
+            resumed.step();
+            assertEquals(original.state(), resumed.state(), "tick " + original.tick);
+        }
+    }
+
+    @Test
+    void discardDropsARequestedSave() throws Exception {
+        Path file = dir.resolve("game.psav");
+        Game game = new Game(3);
+        game.save.requestSave();
+        game.save.discard(file).get();
+        assertNull(game.save.saveIfRequested(file, 0));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void closeFinishesWritesAlreadyHandedOver() throws Exception {
+        Path saved = dir.resolve("saved.psav"), discarded = dir.resolve("discarded.psav");
+        Game game = new Game(3);
+        game.save.save(discarded, 0).get();
+        game.save.save(saved, 0);
+        game.save.discard(discarded);
+        game.save.close();
+        assertTrue(Files.exists(saved));
+        assertFalse(Files.exists(discarded));
+        assertNull(game.save.save(saved, 0));
+        assertNull(game.save.discard(saved));
+        assertTrue(Files.exists(saved));
+    }
+
+    @Test
+    void savingTakesLittleGameThreadTime() throws Exception {
+        Path file = dir.resolve("game.psav");
+        Game game = new Game(3);
+        for (int i = 0; i < 300; i++) game.step();
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 20; i++) {
+            long start = System.nanoTime();
+            Future<?> pending = game.save.save(file, game.played);
+            best = Math.min(best, System.nanoTime() - start);
+            pending.get();
+        }
+        assertTrue(best < 1_000_000, "save took " + best + " ns on the game thread");
+        assertEquals(20, game.save.saves());
+        assertTrue(Files.size(file) < 1_000, Files.size(file) + " bytes");
+        assertFalse(Files.exists(dir.resolve("game.psav.tmp")));
+    }
+
+    @Test
+    void rejectsCorruptAndForeignSaves() throws Exception {
+        Path file = dir.resolve("game.psav");
+        Game game = new Game(3);
+        for (int i = 0; i < 50; i++) game.step();
+        game.save.save(file, game.played).get();
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[40] ^= 1;
+        Path corrupt = dir.resolve("corrupt.psav");
+        Files.write(corrupt, bytes);
+        assertThrows(IOException.class, () -> new Game(3).save.load(corrupt));
+
+        Game other = new Game(4);
+        assertThrows(IOException.class, () -> other.save.load(file), "different layout");
+        Files.write(corrupt, Arrays.copyOf(Files.readAllBytes(file), 30));
+        assertThrows(IOException.class, () -> new Game(3).save.load(corrupt), "truncated");
+
+        game.save.discard(file).get();
+        assertFalse(Files.exists(file));
+    }
+}
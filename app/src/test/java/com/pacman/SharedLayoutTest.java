@@ -0,0 +1,100 @@
+package com.pacman;
+
+import com.pacman.logic.GameInstance;
+import com.pacman.logic.Ghost;
+import com.pacman.logic.InputCommand;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.Map;
+import com.pacman.model.SharedLayout;
+import com.pacman.model.TileType;
+import com.pacman.server.GameServer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedLayoutTest {
+
+    private static SharedLayout layout() {
+        TileType W = TileType.WALL, D = TileType.PACDOT, P = TileType.POWER_PACDOT, E = TileType.EMPTY;
+        TileType[][] grid = {
+                {W, W, W, W, W},
+                {W, D, D, P, W},
+                {W, D, W, D, W},
+                {W, E, D, D, W},
+                {W, W, W, W, W}
+        };
+        return SharedLayout.of(new Map(grid, 16), 1, 3, 1, 1);
+    }
+
+    @Test
+    void gamesEatPelletsWithoutTouchingTheLayoutOrEachOther() {
+        SharedLayout layout = layout();
+        Map a = layout.newMap(16);
+        Map b = layout.newMap(16);
+
+        a.setTile(1, 1, TileType.EMPTY);
+        a.setTile(1, 3, TileType.EMPTY);
+        assertEquals(TileType.EMPTY, a.getTile(1, 1));
+        assertEquals(TileType.PACDOT, b.getTile(1, 1));
+        assertEquals(TileType.PACDOT, layout.get(1, 1));
+        assertEquals(5, a.countPellets());
+        assertEquals(7, b.countPellets());
+
+        a.setTile(1, 3, TileType.POWER_PACDOT); // restored as the level is rebuilt
+        assertEquals(TileType.POWER_PACDOT, a.getTile(1, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> a.getTile(5, 0));
+    }
+
+    @Test
+    void otherEditsCopyTheTilesFirst() {
+        SharedLayout layout = layout();
+        Map a = layout.newMap(16);
+        a.setTile(1, 2, TileType.EMPTY);
+        a.setTile(2, 2, TileType.PACDOT); // carving a wall
+        assertEquals(TileType.PACDOT, a.getTile(2, 2));
+        assertEquals(TileType.EMPTY, a.getTile(1, 2), "eaten pellets survive the copy");
+        assertEquals(TileType.WALL, layout.get(2, 2));
+        assertEquals(TileType.WALL, layout.newMap(16).getTile(2, 2));
+    }
+
+    @Test
+    void instancesOnOneLayoutPlayIndependently() {
+        SharedLayout layout = layout();
+        JunctionGraph graph = new JunctionGraph(layout.newMap(16));
+        GameInstance a = new GameInstance(layout, graph);
+        GameInstance b = new GameInstance(layout, graph);
+        a.input(InputCommand.START);
+        a.input(InputCommand.MOVE_RIGHT);
+        for (int i = 0; i < 30; i++) {
+            a.tick();
+            b.tick();
+        }
+        assertTrue(a.score() > 0);
+        assertEquals(0, b.score(), "b was never started");
+        assertEquals(7, b.map().countPellets());
+        assertEquals(30, b.ticks());
+    }
+
+    @Test
+    void sameSeedPlaysTheSameGhostsFromTheStart() throws Exception {
+        SharedLayout layout = GameServer.bundledLayout();
+        JunctionGraph graph = new JunctionGraph(layout.newMap(16));
+        String[] runs = new String[3];
+        long[] seeds = {5, 5, 6};
+        for (int run = 0; run < 3; run++) {
+            GameInstance game = new GameInstance(layout, graph, seeds[run]);
+            game.input(InputCommand.START);
+            StringBuilder path = new StringBuilder();
+            for (int i = 0; i < 1_200; i++) {
+                // the player eats a power pellet now and then, so the ghosts' random walk gets used
+                if (i % 40 == 0) game.input(InputCommand.values()[(i / 40) % 4]);
+                game.tick();
+                Ghost g = game.ghosts().get(i % GameInstance.GHOSTS);
+                path.append(g.tileX()).append(',').append(g.tileY()).append(' ');
+            }
+            runs[run] = path.toString();
+        }
+        assertEquals(runs[0], runs[1]);
+        assertNotEquals(runs[0], runs[2]);
+    }
+}
@@ -0,0 +1,129 @@
+package com.pacman;
+
+import com.pacman.logic.AiScheduler;
+import com.pacman.logic.GameInstance;
+import com.pacman.logic.InputCommand;
+import com.pacman.logic.SimClock;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.SharedLayout;
+import com.pacman.server.GameServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SimClockTest {
+
+    private static final double STEP = 1.0 / 60.0;
+
+    private static int stepsFor(SimClock clock, double frameSeconds, int frames) {
+        int steps = 0;
+        for (int i = 0; i < frames; i++) {
+            clock.advance(frameSeconds);
+            while (clock.nextStep()) steps++;
+        }
+        return steps;
+    }
+
+    @Test
+    void speedScalesStepsPerWallSecondButNotTheStep() {
+        SimClock clock = new SimClock(STEP);
+        assertEquals(60, stepsFor(clock, 0.010, 100), 1);
+        clock.setSpeed(0.1);
+        assertEquals(6, stepsFor(clock, 0.010, 100), 1);
+        clock.setSpeed(8);
+        assertEquals(480, stepsFor(clock, 0.010, 100), 1);
+        assertEquals(STEP, clock.deltaSeconds());
+    }
+
+    @Test
+    void pauseHoldsStepsAndSingleStepReleasesOne() {
+        SimClock clock = new SimClock(STEP);
+        clock.setPaused(true);
+        assertEquals(0, stepsFor(clock, 0.1, 10));
+        clock.singleStep();
+        clock.singleStep();
+        assertEquals(2, stepsFor(clock, 0.1, 1));
+        assertEquals(0, stepsFor(clock, 0.1, 1));
+        clock.setPaused(false);
+        clock.singleStep(); // ignored while running
+        assertEquals(6, stepsFor(clock, 0.1, 1));
+    }
+
+    @Test
+    void uncappedAlwaysHasAStepDue() {
+        SimClock clock = new SimClock(STEP);
+        clock.setSpeed(SimClock.UNCAPPED);
+        clock.advance(0);
+        for (int i = 0; i < 10_000; i++) assertTrue(clock.nextStep());
+        assertEquals(1.0, clock.alpha());
+    }
+
+    @Test
+    void longStallsAreDroppedNotCaughtUp() {
+        SimClock clock = new SimClock(STEP);
+        clock.setSpeed(4);
+        int dropped = clock.advance(1.25);
+        assertEquals(240, dropped, 1);
+        assertEquals(60, stepsFor(clock, 0, 1), 1);
+    }
+
+    @Test
+    void speedLadderAndLimits() {
+        SimClock clock = new SimClock(STEP);
+        clock.faster();
+        assertEquals(2, clock.speed());
+        for (int i = 0; i < 20; i++) clock.faster();
+        assertTrue(clock.uncapped());
+        clock.slower();
+        assertEquals(16, clock.speed());
+        for (int i = 0; i < 20; i++) clock.slower();
+        assertEquals(SimClock.MIN_SPEED, clock.speed());
+        assertThrows(IllegalArgumentException.class, () -> clock.setSpeed(0.05));
+        assertThrows(IllegalArgumentException.class, () -> clock.setSpeed(100));
+        assertThrows(IllegalArgumentException.class, () -> clock.setSpeed(Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> new SimClock(0));
+    }
+
+    /**
+     * Plays one seeded game with the same inputs on the same ticks, driving the ticks from
+     * {@code clock}. Ghost routing goes through a scheduler with a one-job budget, so decisions
+     * spill over to later ticks as they do in the game panel.
+     */
+    private static String play(SharedLayout layout, SimClock clock, double frameSeconds, AiScheduler scheduler) {
+        GameInstance game = new GameInstance(layout, new JunctionGraph(layout.newMap(16)));
+        game.useScheduler(scheduler);
+        InputCommand[] moves = {InputCommand.MOVE_LEFT, InputCommand.MOVE_UP, InputCommand.MOVE_RIGHT, InputCommand.MOVE_DOWN};
+        game.reset(7);
+        int frame = 0;
+        while (game.ticks() < 1_500) {
+            // uneven frames, as a real loop sees
+            clock.advance(frameSeconds * (1 + (frame++ % 3)));
+            while (game.ticks() < 1_500 && clock.nextStep()) {
+                if (game.ticks() % 45 == 0) game.input(moves[(int) (game.ticks() / 45 % 4)]);
+                game.tick();
+            }
+            if (clock.paused()) clock.singleStep();
+        }
+        return game.score() + " " + game.session().state() + " " + game.session().lives() + " "
+                + game.player().exactX() + "," + game.player().exactY() + " "
+                + game.ghosts().get(0).exactX() + "," + game.ghosts().get(3).exactY();
+    }
+
+    @Test
+    void gameEndsTheSameAtEverySpeed() throws IOException {
+        SharedLayout layout = GameServer.bundledLayout();
+        AiScheduler first = AiScheduler.withJobBudget(1);
+        String normal = play(layout, new SimClock(STEP), 0.007, first);
+        assertTrue(first.deferredJobTicks() > 0, "the budget never deferred a decision");
+        for (double speed : new double[]{0.1, 0.5, 2, 16, SimClock.UNCAPPED}) {
+            SimClock clock = new SimClock(STEP);
+            clock.setSpeed(speed);
+            assertEquals(normal, play(layout, clock, 0.007, AiScheduler.withJobBudget(1)), "at " + speed + "x");
+        }
+        SimClock stepped = new SimClock(STEP);
+        stepped.setPaused(true);
+        assertEquals(normal, play(layout, stepped, 0.007, AiScheduler.withJobBudget(1)), "single-stepped");
+    }
+}
@@ -0,0 +1,174 @@
+package com.pacman;
+
+import com.pacman.logic.GameInstance;
+import com.pacman.logic.GameSession;
+import com.pacman.logic.InputCommand;
+import com.pacman.model.JunctionGraph;
+import com.pacman.model.SharedLayout;
+import com.pacman.server.GameServer;
+import com.pacman.server.Protocol;
+import com.pacman.server.SpectatorFeed;
+import com.pacman.server.SpectatorView;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpectatorFeedTest {
+
+    private static final InputCommand[] MOVES = {
+            InputCommand.MOVE_LEFT, InputCommand.MOVE_UP, InputCommand.MOVE_RIGHT, InputCommand.MOVE_DOWN};
+
+    /** A loopback spectator reading without blocking. */
+    private static final class Watcher implements AutoCloseable {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(64 * 1024);
+        final SpectatorView view = new SpectatorView();
+
+        Watcher(int port, int receiveBuffer) throws IOException {
+            channel = SocketChannel.open();
+            if (receiveBuffer > 0) channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBuffer);
+            channel.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+            channel.configureBlocking(false);
+        }
+
+        void pump() throws IOException {
+            while (channel.read(in) > 0) {
+                in.flip();
+                view.read(in);
+                in.compact();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    private static void await(BooleanSupplier condition, Watcher... watchers) throws Exception {
+        assertTrue(within(5_000_000_000L, condition, watchers), "timed out");
+    }
+
+    /** Pumps {@code watchers} until {@code condition} holds; false if it still does not after {@code nanos}. */
+    private static boolean within(long nanos, BooleanSupplier condition, Watcher... watchers) throws Exception {
+        long deadline = System.nanoTime() + nanos;
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() - deadline > 0) return false;
+            for (Watcher w : watchers) w.pump();
+            Thread.sleep(1);
+        }
+        return true;
+    }
+
+    private static void play(GameInstance game, SpectatorFeed feed, int ticks) throws InterruptedException {
+        for (int i = 0; i < ticks; i++) {
+            if (game.ticks() % 40 == 0) game.input(MOVES[(int) (game.ticks() / 40) % 4]);
+            game.tick();
+            feed.capture(game);
+            if (i % 8 == 0) Thread.sleep(1);
+        }
+    }
+
+    private static void assertSameGame(GameInstance game, SpectatorView view) {
+        assertTrue(view.synced());
+        assertEquals(game.ticks(), view.tick());
+        assertEquals(game.session().state(), view.state());
+        assertEquals(game.session().lives(), view.lives());
+        assertEquals(game.score(), view.score());
+        assertEquals(Protocol.fixed(game.player().exactX()), view.x(0));
+        assertEquals(Protocol.fixed(game.player().exactY()), view.y(0));
+        for (int g = 0; g < GameInstance.GHOSTS; g++) {
+            assertEquals(Protocol.fixed(game.ghosts().get(g).exactX()), view.x(g + 1));
+            assertEquals(Protocol.fixed(game.ghosts().get(g).exactY()), view.y(g + 1));
+            assertEquals(game.ghosts().get(g).mode(), view.mode(g));
+        }
+        for (int r = 0; r < game.map().rows(); r++) {
+            for (int c = 0; c < game.map().cols(); c++) {
+                assertEquals(game.map().getTile(r, c), view.tile(r, c), "tile " + r + "," + c);
+            }
+        }
+    }
+
+    private static SpectatorFeed openFeed(SharedLayout layout, int keyframeInterval) throws IOException {
+        return SpectatorFeed.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), layout, keyframeInterval);
+    }
+
+    @Test
+    void everySpectatorRebuildsTheGameFromOneEncoding() throws Exception {
+        SharedLayout layout = GameServer.bundledLayout();
+        GameInstance game = new GameInstance(layout, new JunctionGraph(layout.newMap(16)));
+        try (SpectatorFeed feed = openFeed(layout, 30);
+             Watcher early = new Watcher(feed.port(), 0);
+             Watcher other = new Watcher(feed.port(), 0)) {
+            await(() -> feed.spectators() == 2);
+            game.input(InputCommand.START);
+            play(game, feed, 300);
+
+            try (Watcher late = new Watcher(feed.port(), 0)) {
+                await(() -> feed.spectators() == 3);
+                play(game, feed, 300);
+                await(() -> early.view.tick() == game.ticks() && other.view.tick() == game.ticks()
+                        && late.view.tick() == game.ticks(), early, other, late);
+                for (Watcher w : new Watcher[] {early, other, late}) assertSameGame(game, w.view);
+                assertTrue(game.score() > 0, "the player ate something");
+                assertTrue(late.view.keyframes() < early.view.keyframes(), "the late joiner started at a keyframe");
+            }
+            assertTrue(feed.frames() <= game.ticks(), "one encoding per tick, shared by every spectator");
+            assertEquals(0, feed.dropped());
+            long perTick = feed.bytesSent() / 3 / feed.frames();
+            assertTrue(perTick < 40, perTick + " bytes per tick per spectator");
+        }
+    }
+
+    @Test
+    void stalledSpectatorIsDroppedToTheNextKeyframe() throws Exception {
+        SharedLayout layout = GameServer.bundledLayout();
+        GameInstance game = new GameInstance(layout, new JunctionGraph(layout.newMap(16)));
+        try (SpectatorFeed feed = openFeed(layout, 20);
+             Watcher reader = new Watcher(feed.port(), 0);
+             Watcher stalled = new Watcher(feed.port(), 1024)) {
+            await(() -> feed.spectators() == 2);
+            game.input(InputCommand.START);
+            for (int round = 0; round < 40 && feed.dropped() == 0; round++) {
+                play(game, feed, 200);
+                reader.pump();
+            }
+            assertTrue(feed.dropped() > 0, "the stalled spectator fell a ring behind");
+
+            // a spectator dropped after the last keyframe waits for the next one, so play a
+            // keyframe interval at a time until both have caught up
+            boolean caughtUp = false;
+            for (int round = 0; round < 20 && !caughtUp; round++) {
+                play(game, feed, 20);
+                caughtUp = within(1_000_000_000L,
+                        () -> reader.view.tick() == game.ticks() && stalled.view.tick() == game.ticks(), reader, stalled);
+            }
+            assertTrue(caughtUp, "the stalled spectator never caught up");
+            assertSameGame(game, reader.view);
+            assertSameGame(game, stalled.view);
+        }
+    }
+
+    @Test
+    void serverBroadcastsItsLongestConnectedGame() throws Exception {
+        SharedLayout layout = GameServer.bundledLayout();
+        InetSocketAddress any = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        try (GameServer server = GameServer.start(any, layout, 1);
+             SpectatorFeed feed = SpectatorFeed.open(any, layout, SpectatorFeed.DEFAULT_KEYFRAME_INTERVAL);
+             SocketChannel player = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), server.port()));
+             Watcher watcher = new Watcher(feed.port(), 0)) {
+            server.spectate(feed);
+            player.write(ByteBuffer.wrap(new byte[] {2, 0, Protocol.INPUT, (byte) InputCommand.START.ordinal()}));
+            await(() -> watcher.view.synced() && watcher.view.state() == GameSession.State.PLAYING
+                    && watcher.view.tick() > 60, watcher);
+        }
+    }
+}
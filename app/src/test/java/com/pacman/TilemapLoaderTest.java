@@ -96,4 +96,48 @@ class TilemapLoaderTest {
         assertTrue(map.isWalkable(2,2)); // power pellet
         assertFalse(map.isWalkable(4,2)); // border wall
     }
+
+    @Test
+    void largeImageDecodedInParallelBandsMatchesPixels() {
+        int w = 1100, h = 1000; // above the parallel threshold, last band partial
+        int[] legend = {
+                new Color(0, 0, 255).getRGB(), new Color(255, 255, 0).getRGB(),
+                new Color(255, 165, 0).getRGB(), new Color(255, 0, 255).getRGB(),
+                new Color(1, 2, 3).getRGB(), new Color(0, 0, 255, 128).getRGB()
+        };
+        TileType[] expected = {
+                TileType.WALL, TileType.PACDOT, TileType.POWER_PACDOT,
+                TileType.GHOST_GATE, TileType.EMPTY, TileType.EMPTY
+        };
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++)
+                img.setRGB(x, y, legend[(x * 7 + y * 13) % legend.length]);
+
+        TileType[][] grid = TilemapLoader.fromImage(img);
+
+        assertEquals(h, grid.length);
+        assertEquals(w, grid[0].length);
+        for (int y = 0; y < h; y++)
+            for (int x = 0; x < w; x++)
+                assertEquals(expected[(x * 7 + y * 13) % legend.length], grid[y][x]);
+    }
+
+    @Test
+    void opaqueAndByteImagesClassifyLikeArgb() {
+        for (int type : new int[]{BufferedImage.TYPE_INT_RGB, BufferedImage.TYPE_3BYTE_BGR}) {
+            BufferedImage img = new BufferedImage(4, 1, type);
+            img.setRGB(0, 0, new Color(0, 0, 255).getRGB());
+            img.setRGB(1, 0, new Color(255, 255, 0).getRGB());
+            img.setRGB(2, 0, new Color(255, 0, 255).getRGB());
+            img.setRGB(3, 0, Color.BLACK.getRGB());
+
+            TileType[][] grid = TilemapLoader.fromImage(img);
+
+            assertEquals(TileType.WALL, grid[0][0], "type " + type);
+            assertEquals(TileType.PACDOT, grid[0][1], "type " + type);
+            assertEquals(TileType.GHOST_GATE, grid[0][2], "type " + type);
+            assertEquals(TileType.EMPTY, grid[0][3], "type " + type);
+        }
+    }
 }
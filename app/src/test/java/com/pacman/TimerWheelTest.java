@@ -0,0 +1,148 @@
+package com.pacman;
+
+import com.pacman.logic.FrightenedTimer;
+import com.pacman.logic.GameClock;
+import com.pacman.logic.Ghost;
+import com.pacman.logic.ModeWaves;
+import com.pacman.logic.TimerWheel;
+import com.pacman.model.Map;
+import com.pacman.model.TileType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    private static final GameClock FRAME = () -> 1.0 / 60.0;
+
+    private static List<Long> run(long seed, int count) {
+        TimerWheel wheel = new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS);
+        SplittableRandom rng = new SplittableRandom(seed);
+        List<Long> log = new ArrayList<>();
+        long[] due = new long[count];
+        for (int i = 0; i < count; i++) {
+            int id = i;
+            long delay = 1 + rng.nextLong(300_000);
+            due[i] = delay;
+            TimerWheel.Timer t = new TimerWheel.Timer(() -> {
+                assertEquals(due[id], wheel.now(), "timer " + id + " fired off its deadline");
+                log.add((long) id);
+            });
+            wheel.scheduleTicks(t, delay);
+        }
+        while (wheel.pending() > 0) wheel.tick();
+        return log;
+    }
+
+    @Test
+    void thousandsOfTimersFireExactlyOnTimeAndInTheSameOrderEveryRun() {
+        List<Long> first = run(42, 20_000);
+        assertEquals(20_000, first.size());
+        assertEquals(first, run(42, 20_000));
+    }
+
+    @Test
+    void sameTickFiresInScheduleOrder() {
+        TimerWheel wheel = new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS);
+        List<String> log = new ArrayList<>();
+        wheel.scheduleTicks(new TimerWheel.Timer(() -> log.add("a")), 5);
+        wheel.scheduleTicks(new TimerWheel.Timer(() -> log.add("b")), 5);
+        wheel.scheduleTicks(new TimerWheel.Timer(() -> log.add("c")), 3);
+
+        for (int i = 0; i < 4; i++) wheel.tick();
+        assertEquals(List.of("c"), log);
+        wheel.tick();
+        assertEquals(List.of("c", "a", "b"), log);
+        assertEquals(3, wheel.fired());
+    }
+
+    @Test
+    void tasksCanCancelAndReschedule() {
+        TimerWheel wheel = new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS);
+        List<Long> log = new ArrayList<>();
+        TimerWheel.Timer victim = new TimerWheel.Timer(() -> log.add(-1L));
+        TimerWheel.Timer[] repeat = new TimerWheel.Timer[1];
+        repeat[0] = new TimerWheel.Timer(() -> {
+            log.add(wheel.now());
+            wheel.cancel(victim);
+            if (log.size() < 3) wheel.scheduleTicks(repeat[0], 100);
+        });
+        wheel.scheduleTicks(repeat[0], 10);
+        wheel.scheduleTicks(victim, 10);
+
+        for (int i = 0; i < 500; i++) wheel.tick();
+        assertEquals(List.of(10L, 110L, 210L), log);
+        assertEquals(0, wheel.pending());
+        assertFalse(wheel.cancel(victim));
+    }
+
+    @Test
+    void followsGameTimeNotCalls() {
+        TimerWheel wheel = new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS);
+        TimerWheel.Timer t = new TimerWheel.Timer(() -> { });
+        wheel.schedule(t, 5.0);
+        assertEquals(300, wheel.remainingTicks(t));
+
+        GameClock fast = () -> 1.0 / 120.0;
+        for (int i = 0; i < 599; i++) wheel.advance(fast);
+        assertTrue(t.isPending());
+        wheel.advance(fast);
+        assertFalse(t.isPending());
+        assertEquals(300, wheel.now());
+        assertThrows(IllegalArgumentException.class, () -> wheel.scheduleTicks(t, 0));
+    }
+
+    @Test
+    void wavesAlternateAndPauseWhileFrightened() {
+        TileType[][] grid = new TileType[3][3];
+        for (TileType[] row : grid) java.util.Arrays.fill(row, TileType.EMPTY);
+        Map map = new Map(grid, 16);
+        TimerWheel wheel = new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS);
+        Ghost ghost = new Ghost(map, 0.0, 1, 1);
+        ghost.useTimers(wheel);
+        ModeWaves waves = new ModeWaves(List.of(ghost), wheel, new double[] {1, 2});
+        FrightenedTimer frightened = new FrightenedTimer(List.of(ghost), wheel, waves);
+
+        waves.restart();
+        assertEquals(Ghost.Mode.SCATTER, ghost.mode());
+        for (int i = 0; i < 60; i++) wheel.advance(FRAME);
+        assertEquals(Ghost.Mode.CHASE, ghost.mode());
+
+        for (int i = 0; i < 30; i++) wheel.advance(FRAME);
+        frightened.start(1.0);
+        assertEquals(Ghost.Mode.FRIGHTENED, ghost.mode());
+        assertTrue(waves.isPaused());
+        for (int i = 0; i < 60; i++) wheel.advance(FRAME);
+        assertFalse(frightened.active());
+        assertEquals(Ghost.Mode.CHASE, ghost.mode(), "back to the wave that was interrupted");
+
+        // 1.5 s of the 2 s chase wave were left when it paused
+        for (int i = 0; i < 89; i++) wheel.advance(FRAME);
+        assertEquals(1, waves.wave());
+        wheel.advance(FRAME);
+        assertEquals(Ghost.Mode.CHASE, ghost.mode(), "chase is permanent after the last wave");
+        assertEquals(2, waves.wave());
+    }
+
+    @Test
+    void respawnReleaseComesFromTheSharedWheel() {
+        TileType[][] grid = new TileType[3][3];
+        for (TileType[] row : grid) java.util.Arrays.fill(row, TileType.EMPTY);
+        Map map = new Map(grid, 16);
+        TimerWheel wheel = new TimerWheel(TimerWheel.DEFAULT_TICK_SECONDS);
+        Ghost ghost = new Ghost(map, 5.0, 1, 1);
+        ghost.useTimers(wheel);
+
+        ghost.respawn(1, 1);
+        for (int i = 0; i < 600; i++) ghost.tick(FRAME);
+        assertTrue(ghost.isWaitingToMove(), "only the owner of the wheel moves time forward");
+        for (int i = 0; i < 299; i++) wheel.advance(FRAME);
+        assertTrue(ghost.isWaitingToMove());
+        wheel.advance(FRAME);
+        assertFalse(ghost.isWaitingToMove());
+    }
+}
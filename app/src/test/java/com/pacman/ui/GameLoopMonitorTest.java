@@ -0,0 +1,85 @@
+package com.pacman.ui;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.management.JMX;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// In com.pacman.ui because the monitor and the panel hooks it reads are package-private
+class GameLoopMonitorTest {
+
+    private static final long MS = 1_000_000L;
+
+    private static GamePanel panel() throws Exception {
+        Path dir = Files.createTempDirectory("monitor_");
+        System.setProperty("pacman.scores", dir.resolve("scores.plog").toString());
+        System.setProperty("pacman.save", dir.resolve("autosave.psav").toString());
+        System.setProperty("pacman.mute", "true");
+        return new GamePanel();
+    }
+
+    @Test
+    void countsTicksDropsAndAllocation() throws Exception {
+        GameLoopMonitor monitor = new GameLoopMonitor(panel());
+        monitor.onTicks(30, 0, 3_000, System.nanoTime());
+        monitor.onTicks(30, 4, 9_000, System.nanoTime() + 1_000 * MS);
+        monitor.onTicks(0, 0, 500, System.nanoTime()); // no ticks, so not counted per tick
+
+        assertEquals(60, monitor.getTicksPerSecond(), 2);
+        assertEquals(4, monitor.getDroppedTicks());
+        assertEquals(200, monitor.getAllocatedBytesPerTick());
+    }
+
+    @Test
+    void frameTimesAndLateFrames() throws Exception {
+        GameLoopMonitor monitor = new GameLoopMonitor(panel());
+        long t = System.nanoTime();
+        for (int i = 0; i < 100; i++) monitor.onFrame(t += 16 * MS);
+        monitor.onFrame(t += 50 * MS); // more than two 60 Hz ticks after the last one
+
+        assertEquals(16, monitor.getFrameTimeP50Millis(), 1);
+        assertEquals(50, monitor.getFrameTimeMaxMillis(), 1);
+        assertEquals(1, monitor.getLateFrames());
+    }
+
+    @Test
+    void beanControlsTheLoopOverJmx() throws Exception {
+        GamePanel panel = panel();
+        GameLoopMonitor monitor = new GameLoopMonitor(panel);
+        monitor.register();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(GameLoopMonitor.OBJECT_NAME);
+        GameLoopMXBean bean = JMX.newMXBeanProxy(server, name, GameLoopMXBean.class);
+        try {
+            assertEquals("MENU", bean.getState());
+            assertEquals(5, bean.getEntityCount());
+            assertEquals(60, bean.getTickRate(), 1e-9);
+
+            bean.pause();
+            assertTrue(bean.isPaused());
+            assertTrue(panel.clock().paused());
+            bean.resume();
+            assertFalse(bean.isPaused());
+
+            bean.changeSpeed(4);
+            assertEquals(4, bean.getSpeed());
+            bean.changeSpeed(Double.POSITIVE_INFINITY);
+            assertTrue(panel.clock().uncapped());
+
+            bean.setAiBudgetJobs(3);
+            assertEquals(3, panel.aiScheduler().budgetJobs());
+
+            bean.changeTickRate(120);
+            assertEquals(120, bean.getTickRate(), 1e-9);
+            assertThrows(IllegalArgumentException.class, () -> monitor.changeTickRate(0));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+}
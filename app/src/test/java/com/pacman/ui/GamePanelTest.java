@@ -0,0 +1,66 @@
+package com.pacman.ui;
+
+import com.pacman.logic.SimClock;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// In com.pacman.ui because the loop step and position hooks are package-private
+class GamePanelTest {
+
+    private static final String[] MOVES = {"moveLeft", "moveUp", "moveRight", "moveDown"};
+
+    /** A panel with its own score and save files, so no run resumes another's game. */
+    private static GamePanel panel() throws Exception {
+        Path dir = Files.createTempDirectory("panel_");
+        System.setProperty("pacman.scores", dir.resolve("scores.plog").toString());
+        System.setProperty("pacman.save", dir.resolve("autosave.psav").toString());
+        System.setProperty("pacman.mute", "true");
+        System.setProperty("pacman.aiJobsPerTick", "1");
+        try {
+            return new GamePanel();
+        } finally {
+            System.clearProperty("pacman.aiJobsPerTick");
+        }
+    }
+
+    /**
+     * Presses the same keys on the same steps, driving the steps from the panel's clock at
+     * {@code speed} with uneven frames, and describes where the game ended up.
+     */
+    private static String play(double speed) throws Exception {
+        GamePanel panel = panel();
+        SimClock clock = panel.clock();
+        clock.setSpeed(speed);
+        int steps = 0, frame = 0;
+        while (steps < 1_500) {
+            clock.advance(0.007 * (1 + (frame++ % 3)));
+            while (steps < 1_500 && clock.nextStep()) {
+                if (steps == 0) press(panel, "start");
+                else if (steps % 45 == 0) press(panel, MOVES[steps / 45 % 4]);
+                panel.step();
+                steps++;
+            }
+        }
+        double[] xs = new double[panel.entityCount()], ys = new double[panel.entityCount()];
+        panel.capturePositions(xs, ys);
+        return panel.scoreValue() + " " + panel.sessionState() + " " + panel.lives() + " "
+                + java.util.Arrays.toString(xs) + " " + java.util.Arrays.toString(ys);
+    }
+
+    private static void press(GamePanel panel, String action) {
+        panel.getActionMap().get(action).actionPerformed(null);
+    }
+
+    @Test
+    void sameKeysEndTheSameGameAtEverySpeed() throws Exception {
+        String normal = play(1);
+        assertTrue(normal.contains("PLAYING") || normal.contains("GAME_OVER"), normal);
+        assertFalse(normal.startsWith("0 "), "nothing was eaten: " + normal);
+        assertEquals(normal, play(0.1), "at 0.1x");
+        assertEquals(normal, play(SimClock.UNCAPPED), "uncapped");
+    }
+}
@@ -0,0 +1,32 @@
+package com.pacman.ui;
+
+import com.pacman.logic.GameSession;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// In com.pacman.ui because the renderer is package-private
+class HudRendererTest {
+
+    @Test
+    void pausedClockDoesNotColourTheMenuText() {
+        BufferedImage image = new BufferedImage(448, 496, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2 = image.createGraphics();
+        HudRenderer hud = new HudRenderer();
+        try {
+            g2.setColor(Color.WHITE);
+            hud.drawClock(g2, true, 1.0);
+            assertEquals(Color.WHITE, g2.getColor());
+
+            g2.setColor(Color.YELLOW);
+            hud.drawScreen(g2, GameSession.State.MENU, 0, 3, new int[5], 0, 448, 496);
+            assertEquals(Color.WHITE, g2.getColor());
+        } finally {
+            g2.dispose();
+        }
+    }
+}